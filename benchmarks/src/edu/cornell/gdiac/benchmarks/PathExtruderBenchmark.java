@@ -0,0 +1,61 @@
+/*
+ * PathExtruderBenchmark.java
+ *
+ * This class measures the extrusion of paths into solid polygons. We extrude paths
+ * every frame for things like rope and trails, so both the speed and the garbage
+ * generated by the extruder matter.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.benchmarks;
+
+import edu.cornell.gdiac.math.PathExtruder;
+import edu.cornell.gdiac.math.Poly2;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link PathExtruder#calculate}.
+ *
+ * The input is an open sine wave. The extruder is reset (but not reallocated)
+ * before each calculation, which is how it is used in a game loop.
+ */
+@State(Scope.Thread)
+public class PathExtruderBenchmark {
+    /** The number of vertices in the path */
+    @Param({"16", "256", "4096"})
+    public int count;
+
+    /** The joint style for the extrusion */
+    @Param({"ROUND", "MITRE"})
+    public Poly2.Joint joint;
+
+    /** The path to extrude */
+    private float[] path;
+    /** The (reused) extruder */
+    private PathExtruder extruder;
+
+    /**
+     * Creates the path and extruder for this trial.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        path = Shapes.wave(count);
+        extruder = new PathExtruder(path, false);
+        extruder.setJoint(joint);
+        extruder.setEndCap(Poly2.EndCap.ROUND);
+    }
+
+    /**
+     * Measures the extrusion of the path.
+     *
+     * @param hole  The blackhole consuming the result
+     */
+    @Benchmark
+    public void calculate(Blackhole hole) {
+        extruder.reset();
+        extruder.calculate(0.5f);
+        hole.consume(extruder.getPolygon());
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * PathSmootherBenchmark.java
+ *
+ * This class measures the Douglas-Peucker smoothing of recorded paths. Gesture paths
+ * can be very long, so the smoother must handle thousands of points per frame.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.benchmarks;
+
+import edu.cornell.gdiac.math.PathSmoother;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link PathSmoother#calculate}.
+ *
+ * The input is a noisy random walk with a fixed seed. The smoother is reset (but
+ * not reallocated) before each calculation.
+ */
+@State(Scope.Thread)
+public class PathSmootherBenchmark {
+    /** The number of vertices in the path */
+    @Param({"16", "256", "4096"})
+    public int count;
+
+    /** The (reused) smoother */
+    private PathSmoother smoother;
+
+    /**
+     * Creates the path and smoother for this trial.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        smoother = new PathSmoother(Shapes.walk(count));
+        smoother.setEpsilon(0.25f);
+    }
+
+    /**
+     * Measures the smoothing of the path.
+     *
+     * @param hole  The blackhole consuming the result
+     */
+    @Benchmark
+    public void calculate(Blackhole hole) {
+        smoother.reset();
+        smoother.calculate();
+        hole.consume(smoother.getPoints());
+    }
+}
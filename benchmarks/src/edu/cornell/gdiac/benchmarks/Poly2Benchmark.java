@@ -0,0 +1,59 @@
+/*
+ * Poly2Benchmark.java
+ *
+ * This class measures the boundary detection methods of Poly2. These methods are used
+ * whenever we need to recover the outline of a triangulated shape (e.g. to build a
+ * physics body from a mesh), so they must scale to large meshes.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.benchmarks;
+
+import edu.cornell.gdiac.math.Poly2;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link Poly2#boundaries} and {@link Poly2#exterior}.
+ *
+ * The input is a square grid mesh, so the number of vertices is side*side and the
+ * number of triangles is 2*(side-1)^2.
+ */
+@State(Scope.Thread)
+public class Poly2Benchmark {
+    /** The number of vertices along each side of the grid */
+    @Param({"4", "16", "64"})
+    public int side;
+
+    /** The triangulated grid */
+    private Poly2 grid;
+
+    /**
+     * Creates the grid mesh for this trial.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        grid = new Poly2(Shapes.gridVertices(side), Shapes.gridIndices(side));
+    }
+
+    /**
+     * Measures the connected boundary components of the grid.
+     *
+     * @param hole  The blackhole consuming the result
+     */
+    @Benchmark
+    public void boundaries(Blackhole hole) {
+        hole.consume(grid.boundaries());
+    }
+
+    /**
+     * Measures the (unordered) exterior indices of the grid.
+     *
+     * @param hole  The blackhole consuming the result
+     */
+    @Benchmark
+    public void exterior(Blackhole hole) {
+        hole.consume(grid.exterior());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * PolyFactoryBenchmark.java
+ *
+ * This class measures the construction of rounded shapes in PolyFactory. The number
+ * of vertices in these shapes is determined by the curve tolerance, so we vary the
+ * tolerance to vary the size of the output.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.benchmarks;
+
+import edu.cornell.gdiac.math.PolyFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link PolyFactory#makeRoundedRect} and {@link PolyFactory#makeCapsule}.
+ *
+ * The buffered variants of these methods append to the buffer rather than replace
+ * its contents, so they are not measured here; a reused buffer would grow with
+ * every invocation.
+ */
+@State(Scope.Thread)
+public class PolyFactoryBenchmark {
+    /** The curve tolerance (smaller tolerances produce more vertices) */
+    @Param({"0.5", "0.05", "0.005"})
+    public float tolerance;
+
+    /** The factory to measure */
+    private PolyFactory factory;
+
+    /**
+     * Creates the factory for this trial.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        factory = new PolyFactory(tolerance);
+    }
+
+    /**
+     * Measures a rounded rectangle.
+     *
+     * @param hole  The blackhole consuming the result
+     */
+    @Benchmark
+    public void roundedRect(Blackhole hole) {
+        hole.consume(factory.makeRoundedRect(0, 0, 8, 4, 1));
+    }
+
+    /**
+     * Measures a capsule.
+     *
+     * @param hole  The blackhole consuming the result
+     */
+    @Benchmark
+    public void capsule(Blackhole hole) {
+        hole.consume(factory.makeCapsule(0, 0, 8, 4));
+    }
+}
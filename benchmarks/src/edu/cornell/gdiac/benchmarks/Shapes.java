@@ -0,0 +1,151 @@
+/*
+ * Shapes.java
+ *
+ * This class generates the input geometry for the benchmarks. All of the shapes are
+ * deterministic (the random walks use a fixed seed) so that results are comparable
+ * across runs and across machines.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.benchmarks;
+
+import java.util.Random;
+
+/**
+ * A collection of generators for benchmark geometry.
+ *
+ * Each generator is parameterized by the number of vertices (or segments) so that
+ * the benchmarks can measure how our algorithms scale.
+ */
+final class Shapes {
+    /** The seed for all random data */
+    static final long SEED = 0x5EEDL;
+
+    /** This class is never instantiated */
+    private Shapes() {}
+
+    /**
+     * Returns the vertices of a square grid with side x side vertices.
+     *
+     * The grid has unit spacing and is anchored at the origin.
+     *
+     * @param side  The number of vertices along each side
+     *
+     * @return the vertices of a square grid with side x side vertices.
+     */
+    static float[] gridVertices(int side) {
+        float[] vertices = new float[side*side*2];
+        int pos = 0;
+        for (int jj = 0; jj < side; jj++) {
+            for (int ii = 0; ii < side; ii++) {
+                vertices[pos++] = ii;
+                vertices[pos++] = jj;
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * Returns the triangulation of a square grid with side x side vertices.
+     *
+     * Each cell of the grid is split into two counter-clockwise triangles.
+     *
+     * @param side  The number of vertices along each side
+     *
+     * @return the triangulation of a square grid with side x side vertices.
+     */
+    static short[] gridIndices(int side) {
+        int cells = side-1;
+        short[] indices = new short[cells*cells*6];
+        int pos = 0;
+        for (int jj = 0; jj < cells; jj++) {
+            for (int ii = 0; ii < cells; ii++) {
+                short bl = (short)(jj*side+ii);
+                short br = (short)(bl+1);
+                short tl = (short)(bl+side);
+                short tr = (short)(tl+1);
+                indices[pos++] = bl;
+                indices[pos++] = br;
+                indices[pos++] = tr;
+                indices[pos++] = bl;
+                indices[pos++] = tr;
+                indices[pos++] = tl;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Returns a sine wave path with the given number of vertices.
+     *
+     * The wave has a period of 32 vertices, so long paths have many turns.
+     *
+     * @param count The number of vertices
+     *
+     * @return a sine wave path with the given number of vertices.
+     */
+    static float[] wave(int count) {
+        float[] points = new float[count*2];
+        for (int ii = 0; ii < count; ii++) {
+            points[2*ii  ] = ii*0.25f;
+            points[2*ii+1] = (float)Math.sin(ii*Math.PI/16.0);
+        }
+        return points;
+    }
+
+    /**
+     * Returns a noisy random walk with the given number of vertices.
+     *
+     * This simulates a recorded gesture: the walk drifts forward with small
+     * jitter, so many of the points are redundant.
+     *
+     * @param count The number of vertices
+     *
+     * @return a noisy random walk with the given number of vertices.
+     */
+    static float[] walk(int count) {
+        Random random = new Random(SEED);
+        float[] points = new float[count*2];
+        float x = 0;
+        float y = 0;
+        for (int ii = 0; ii < count; ii++) {
+            x += 0.5f+random.nextFloat()*0.1f;
+            y += (random.nextFloat()-0.5f)*0.2f;
+            points[2*ii  ] = x;
+            points[2*ii+1] = y;
+        }
+        return points;
+    }
+
+    /**
+     * Returns the control points of a wavy spline with the given number of segments.
+     *
+     * The control points are in the form anchor, tangent, tangent, anchor ...
+     * as required by {@link edu.cornell.gdiac.math.Spline2}. Consecutive anchors
+     * alternate above and below the x-axis.
+     *
+     * @param segments  The number of bezier segments
+     *
+     * @return the control points of a wavy spline with the given number of segments.
+     */
+    static float[] spline(int segments) {
+        float[] points = new float[(segments*3+1)*2];
+        for (int ii = 0; ii <= segments; ii++) {
+            float x = ii*4.0f;
+            float y = (ii % 2 == 0) ? 1.0f : -1.0f;
+            int pos = ii*6;
+            if (ii > 0) {
+                points[pos-2] = x-1.0f;
+                points[pos-1] = y;
+            }
+            points[pos  ] = x;
+            points[pos+1] = y;
+            if (ii < segments) {
+                points[pos+2] = x+1.0f;
+                points[pos+3] = y;
+            }
+        }
+        return points;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * SplineBenchmark.java
+ *
+ * This class measures the spline operations used by our editors and path following
+ * code: flattening a spline into a path (from scratch, and after an edit), and
+ * projecting a point onto a spline.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+import edu.cornell.gdiac.math.Spline2;
+import edu.cornell.gdiac.math.SplinePather;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link SplinePather#calculate} and {@link Spline2#nearestParameter}.
+ *
+ * The input is a wavy spline with the given number of bezier segments. The query
+ * points for projection are spread along (and off of) the spline.
+ */
+@State(Scope.Thread)
+public class SplineBenchmark {
+    /** The number of query points cycled through by the projection benchmark */
+    private static final int QUERIES = 64;
+
+    /** The number of bezier segments in the spline */
+    @Param({"4", "64", "1024"})
+    public int segments;
+
+    /** The spline to measure */
+    private Spline2 spline;
+    /** The (reused) pather */
+    private SplinePather pather;
+    /** The query points for projection */
+    private Vector2[] queries;
+    /** The next query point to use */
+    private int next;
+    /** The anchor position to alternate between when editing */
+    private Vector2 anchor;
+    /** Whether the edited anchor is currently raised */
+    private boolean raised;
+    /** The (reused) result of a projection */
+    private Vector2 nearest;
+
+    /**
+     * Creates the spline, pather and query points for this trial.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        spline = new Spline2(Shapes.spline(segments));
+        pather = new SplinePather(spline);
+        queries = new Vector2[QUERIES];
+        float length = segments*4.0f;
+        for (int ii = 0; ii < QUERIES; ii++) {
+            float x = length*ii/(QUERIES-1);
+            float y = (ii % 3)-1.0f;
+            queries[ii] = new Vector2(x, y*2.0f);
+        }
+        next = 0;
+        anchor = new Vector2();
+        raised = false;
+        nearest = new Vector2();
+    }
+
+    /**
+     * Measures the flattening of the spline into a path.
+     *
+     * The pather is reset first, so that no cached segments are reused.
+     *
+     * @param hole  The blackhole consuming the result
+     */
+    @Benchmark
+    public void calculate(Blackhole hole) {
+        pather.reset();
+        pather.calculate();
+        hole.consume(pather.getPath());
+    }
+
+    /**
+     * Measures the flattening of the spline after moving a single anchor.
+     *
+     * This is the common case in the editor, where only the segments next to
+     * the edited anchor need to be recomputed.
+     *
+     * @param hole  The blackhole consuming the result
+     */
+    @Benchmark
+    public void edit(Blackhole hole) {
+        int index = segments/2;
+        raised = !raised;
+        anchor.set(index*4.0f, raised ? 1.0f : -1.0f);
+        spline.setAnchor(index, anchor);
+        pather.calculate();
+        hole.consume(pather.getPath());
+    }
+
+    /**
+     * Measures the projection of a point onto the spline.
+     *
+     * @return the parameter of the nearest point
+     */
+    @Benchmark
+    public float nearestParameter() {
+        Vector2 query = queries[next];
+        next = (next+1) % QUERIES;
+        return spline.nearestParameter(query);
+    }
+
+    /**
+     * Measures the projection of a point onto the spline, without allocation.
+     *
+     * @return the nearest point on the spline
+     */
+    @Benchmark
+    public Vector2 nearestPoint() {
+        Vector2 query = queries[next];
+        next = (next+1) % QUERIES;
+        return spline.nearestPoint(query, nearest);
+    }
+}
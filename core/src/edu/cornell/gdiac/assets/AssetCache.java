@@ -0,0 +1,679 @@
+/*
+ * AssetCache.java
+ *
+ * Every launch of the game decodes the same images and parses the same JSON files.
+ * This class "cooks" those assets into a binary form the first time they are loaded,
+ * and saves the result to local storage.  Later launches read the cooked file instead.
+ * A cooked image is raw pixel data in the format it is uploaded to the graphics card
+ * in, so it can be copied straight out of a memory-mapped file.  A cooked JSON file
+ * is its value tree, so it does not need to be tokenized again.
+ *
+ * Each cooked file records the size, modification time and checksum of its source.
+ * If the source changes, the cooked file is ignored and cooked again.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * This class is a cache of cooked assets in local storage.
+ *
+ * The cache supports images (as {@link TextureData}) and JSON files (as {@link JsonValue}).
+ * Each source file is cooked to a file of the same name (plus {@link #SUFFIX}) in the
+ * cache directory.  Cooking happens the first time a source is loaded, so there is no
+ * separate build step.  If a cooked file cannot be written, the source is still loaded
+ * normally.
+ *
+ * The methods of this class are safe to call from loader and decoder threads, as long
+ * as no two threads cook the same source at the same time.
+ */
+public class AssetCache {
+    /** The default cache directory, relative to local storage */
+    public static final String DEFAULT_DIRECTORY = "cache/cooked";
+    /** The suffix of a cooked file */
+    public static final String SUFFIX = ".bin";
+    /** The suffix of a cooked file that is still being written */
+    private static final String TEMP_SUFFIX = ".tmp";
+    /** The size of the header of a cooked file in bytes */
+    private static final int HEADER_SIZE = 33;
+    /** The offset of the source timestamp in the header of a cooked file */
+    private static final int MODIFIED_OFFSET = 17;
+    /** The first four bytes of a cooked file ("GDCK") */
+    private static final int MAGIC = 0x4744434B;
+    /** The version of the cooked format; change this to invalidate old caches */
+    private static final int VERSION = 1;
+    /** The kind of a cooked image */
+    private static final byte KIND_IMAGE = 1;
+    /** The kind of a cooked JSON file */
+    private static final byte KIND_JSON  = 2;
+
+    /** The cache directory in local storage */
+    private FileHandle directory;
+
+    /**
+     * The signature of a source file
+     */
+    private static class Signature {
+        /** The size of the source in bytes */
+        long length;
+        /** The modification time of the source (0 if unknown) */
+        long modified;
+        /** The CRC32 checksum of the source */
+        long checksum;
+    }
+
+    /**
+     * Creates a new cache in the default directory of local storage
+     */
+    public AssetCache() {
+        this( DEFAULT_DIRECTORY );
+    }
+
+    /**
+     * Creates a new cache in the given directory of local storage
+     *
+     * @param path  The cache directory, relative to local storage
+     */
+    public AssetCache(String path) {
+        directory = Gdx.files.local( path );
+    }
+
+    /**
+     * Returns the cache of the given asset manager (null if there is none)
+     *
+     * A manager only has a cache if it is an {@link AssetDirectory} with cooking
+     * enabled.
+     *
+     * @param manager   The asset manager
+     *
+     * @return the cache of the given asset manager
+     */
+    static AssetCache of(AssetManager manager) {
+        return manager instanceof AssetDirectory ? ((AssetDirectory)manager).getCache() : null;
+    }
+
+    /**
+     * Returns the cache directory in local storage
+     *
+     * @return the cache directory in local storage
+     */
+    public FileHandle getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Deletes every cooked file in this cache.
+     */
+    public void clear() {
+        if (directory.exists()) {
+            directory.deleteDirectory();
+        }
+    }
+
+    /**
+     * Returns texture data for the given image, read from the cache when valid.
+     *
+     * The data is not prepared until {@link TextureData#prepare} is called, which
+     * may happen on another thread.  The data is managed, so it can be prepared
+     * again if the OpenGL context is lost.
+     *
+     * @param source        The source image file
+     * @param format        The pixel format to upload in (null for the image format)
+     * @param genMipMaps    Whether to generate mipmaps
+     *
+     * @return texture data for the given image
+     */
+    public TextureData getTextureData(FileHandle source, Pixmap.Format format, boolean genMipMaps) {
+        return new CookedTextureData( source, format, genMipMaps );
+    }
+
+    /**
+     * Returns the value tree of the given JSON file, read from the cache when valid.
+     *
+     * If the cached tree is invalid, the file is parsed and cooked.
+     *
+     * @param source    The source JSON file
+     *
+     * @return the value tree of the given JSON file
+     */
+    public JsonValue readJson(FileHandle source) {
+        FileHandle cooked = cookedFile( source );
+        ByteBuffer buffer = open( cooked, source, KIND_JSON, null );
+        if (buffer != null) {
+            try {
+                return readValue( buffer );
+            } catch (RuntimeException e) {
+                Gdx.app.error( "AssetCache", "Corrupt cooked file "+cooked.path(), e );
+            }
+        }
+
+        byte[] bytes = source.readBytes();
+        JsonValue json = new JsonReader().parse( new String( bytes, StandardCharsets.UTF_8 ) );
+        FileHandle temp = tempFile( cooked );
+        DataOutputStream out = create( temp, source, KIND_JSON, bytes );
+        if (out != null) {
+            boolean success = false;
+            try {
+                writeValue( out, json );
+                out.close();
+                success = true;
+            } catch (IOException e) {
+                Gdx.app.error( "AssetCache", "Could not cook "+source.path(), e );
+            } finally {
+                StreamUtils.closeQuietly( out );
+            }
+            commit( temp, cooked, success );
+        }
+        return json;
+    }
+
+    /**
+     * Returns the cooked file for the given source
+     *
+     * @param source    The source file
+     *
+     * @return the cooked file for the given source
+     */
+    private FileHandle cookedFile(FileHandle source) {
+        String path = source.path().replace( '\\', '/' ).replace( ':', '_' );
+        while (path.startsWith( "/" )) {
+            path = path.substring( 1 );
+        }
+        return directory.child( path+SUFFIX );
+    }
+
+    /**
+     * Returns the file to write the given cooked file to before it is complete
+     *
+     * @param cooked    The cooked file
+     *
+     * @return the file to write the given cooked file to before it is complete
+     */
+    private static FileHandle tempFile(FileHandle cooked) {
+        return cooked.sibling( cooked.name()+TEMP_SUFFIX );
+    }
+
+    /**
+     * Returns the contents of a valid cooked file, positioned after its header
+     *
+     * The header is validated with a plain stream first, and the file is only
+     * memory-mapped (if possible) once it is known to be valid.  That way an invalid
+     * file is never mapped when it is replaced, which would fail on some platforms.
+     * This method returns null if the file does not exist, is of the wrong kind, or
+     * was cooked from a different source.
+     *
+     * If only the timestamp of the source changed (e.g. after a fresh checkout),
+     * the source is compared by checksum.  On a match, the header is updated with
+     * the new timestamp, so that later launches do not have to read the source.
+     *
+     * @param cooked    The cooked file
+     * @param source    The source file
+     * @param kind      The kind of cooked file
+     * @param signature The signature of the source (null to compute it as needed)
+     *
+     * @return the contents of a valid cooked file
+     */
+    private ByteBuffer open(FileHandle cooked, FileHandle source, byte kind, Signature signature) {
+        if (!cooked.exists()) {
+            return null;
+        }
+        DataInputStream in = null;
+        boolean restamp = false;
+        try {
+            in = new DataInputStream( new BufferedInputStream( cooked.read(), HEADER_SIZE ) );
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readByte() != kind) {
+                return null;
+            }
+            long length   = in.readLong();
+            long modified = in.readLong();
+            long checksum = in.readLong();
+            if (length != source.length()) {
+                return null;
+            } else if (modified == 0 || modified != source.lastModified()) {
+                // Timestamps are unreliable (e.g. in a jar), so compare the contents
+                if (signature == null) {
+                    signature = sign( source, source.readBytes() );
+                }
+                if (checksum != signature.checksum) {
+                    return null;
+                }
+                restamp = signature.modified != 0;
+            }
+        } catch (IOException e) {
+            return null;
+        } catch (GdxRuntimeException e) {
+            return null;
+        } finally {
+            StreamUtils.closeQuietly( in );
+        }
+        if (restamp) {
+            restamp( cooked, signature.modified );
+        }
+
+        ByteBuffer buffer;
+        try {
+            buffer = cooked.map();
+        } catch (GdxRuntimeException e) {
+            buffer = ByteBuffer.wrap( cooked.readBytes() );
+        }
+        buffer.position( HEADER_SIZE );
+        return buffer;
+    }
+
+    /**
+     * Replaces the source timestamp in the header of a cooked file
+     *
+     * This is only an optimization, so a failure is ignored.  The file will be
+     * compared by checksum again on the next launch.
+     *
+     * @param cooked    The cooked file
+     * @param modified  The new source timestamp
+     */
+    private static void restamp(FileHandle cooked, long modified) {
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile( cooked.file(), "rw" );
+            file.seek( MODIFIED_OFFSET );
+            file.writeLong( modified );
+        } catch (IOException e) {
+            Gdx.app.error( "AssetCache", "Could not update "+cooked.path(), e );
+        } finally {
+            StreamUtils.closeQuietly( file );
+        }
+    }
+
+    /**
+     * Returns a stream to a new cooked file, with its header already written
+     *
+     * The stream should write to a temporary file, which is moved into place by
+     * {@link #commit} once it is complete.  This method returns null if the file
+     * cannot be created.
+     *
+     * @param temp      The temporary file to write
+     * @param source    The source file
+     * @param kind      The kind of cooked file
+     * @param bytes     The contents of the source file
+     *
+     * @return a stream to a new cooked file
+     */
+    private DataOutputStream create(FileHandle temp, FileHandle source, byte kind, byte[] bytes) {
+        Signature signature = sign( source, bytes );
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream( new BufferedOutputStream( temp.write( false ) ) );
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+            out.writeByte( kind );
+            out.writeLong( signature.length );
+            out.writeLong( signature.modified );
+            out.writeLong( signature.checksum );
+            return out;
+        } catch (IOException e) {
+            Gdx.app.error( "AssetCache", "Could not cook "+source.path(), e );
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error( "AssetCache", "Could not cook "+source.path(), e );
+        }
+        StreamUtils.closeQuietly( out );
+        temp.delete();
+        return null;
+    }
+
+    /**
+     * Moves a completely written temporary file into place as the cooked file
+     *
+     * A reader never sees a partially written cooked file this way.  If the cooked
+     * file cannot be replaced (or the write failed), the temporary file is deleted.
+     *
+     * @param temp      The temporary file (already closed)
+     * @param cooked    The cooked file
+     * @param success   Whether the temporary file was written completely
+     */
+    private static void commit(FileHandle temp, FileHandle cooked, boolean success) {
+        if (success) {
+            try {
+                if (cooked.exists()) {
+                    cooked.delete();
+                }
+                temp.moveTo( cooked );
+            } catch (GdxRuntimeException e) {
+                Gdx.app.error( "AssetCache", "Could not replace "+cooked.path(), e );
+            }
+        }
+        if (temp.exists()) {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Returns the signature of the given source file
+     *
+     * @param source    The source file
+     * @param bytes     The contents of the source file
+     *
+     * @return the signature of the given source file
+     */
+    private static Signature sign(FileHandle source, byte[] bytes) {
+        Signature result = new Signature();
+        CRC32 crc = new CRC32();
+        crc.update( bytes, 0, bytes.length );
+        result.length = bytes.length;
+        result.modified = source.lastModified();
+        result.checksum = crc.getValue();
+        return result;
+    }
+
+    /**
+     * Writes a JSON value tree to the given stream
+     *
+     * @param out   The stream to write to
+     * @param value The JSON value tree
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeValue(DataOutputStream out, JsonValue value) throws IOException {
+        out.writeByte( value.type().ordinal() );
+        writeString( out, value.name() );
+        switch (value.type()) {
+            case object:
+            case array:
+                out.writeInt( value.size );
+                for (JsonValue child = value.child(); child != null; child = child.next()) {
+                    writeValue( out, child );
+                }
+                break;
+            case stringValue:
+                writeString( out, value.asString() );
+                break;
+            case doubleValue:
+                out.writeDouble( value.asDouble() );
+                writeString( out, value.asString() );
+                break;
+            case longValue:
+                out.writeLong( value.asLong() );
+                writeString( out, value.asString() );
+                break;
+            case booleanValue:
+                out.writeBoolean( value.asBoolean() );
+                break;
+            case nullValue:
+                break;
+        }
+    }
+
+    /**
+     * Returns a JSON value tree read from the given buffer
+     *
+     * @param in    The buffer to read from
+     *
+     * @return a JSON value tree read from the given buffer
+     */
+    private static JsonValue readValue(ByteBuffer in) {
+        JsonValue.ValueType type = JsonValue.ValueType.values()[in.get()];
+        String name = readString( in );
+        JsonValue value;
+        switch (type) {
+            case object:
+            case array:
+                value = new JsonValue( type );
+                int size = in.getInt();
+                for(int ii = 0; ii < size; ii++) {
+                    value.addChild( readValue( in ) );
+                }
+                break;
+            case stringValue:
+                value = new JsonValue( readString( in ) );
+                break;
+            case doubleValue:
+                double number = in.getDouble();
+                value = new JsonValue( number, readString( in ) );
+                break;
+            case longValue:
+                long integer = in.getLong();
+                value = new JsonValue( integer, readString( in ) );
+                break;
+            case booleanValue:
+                value = new JsonValue( in.get() != 0 );
+                break;
+            default:
+                value = new JsonValue( JsonValue.ValueType.nullValue );
+                break;
+        }
+        value.setName( name );
+        return value;
+    }
+
+    /**
+     * Writes a (possibly null) string to the given stream as UTF-8
+     *
+     * @param out   The stream to write to
+     * @param text  The string to write
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt( -1 );
+        } else {
+            byte[] bytes = text.getBytes( StandardCharsets.UTF_8 );
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+    }
+
+    /**
+     * Returns a (possibly null) UTF-8 string read from the given buffer
+     *
+     * @param in    The buffer to read from
+     *
+     * @return a (possibly null) string read from the given buffer
+     */
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Texture data read from a cooked image.
+     *
+     * Preparing the data copies the pixels out of the cooked file.  If there is no
+     * valid cooked file, the source image is decoded, converted to the upload format,
+     * and cooked.
+     */
+    private class CookedTextureData implements TextureData {
+        /** The source image file */
+        private final FileHandle source;
+        /** The pixel format to upload in (null for the image format) */
+        private final Pixmap.Format format;
+        /** Whether to generate mipmaps */
+        private final boolean genMipMaps;
+        /** The prepared pixels (null if not prepared) */
+        private Pixmap pixmap;
+        /** The width of the image (0 until first prepared) */
+        private int width;
+        /** The height of the image (0 until first prepared) */
+        private int height;
+
+        /**
+         * Creates texture data for the given image
+         *
+         * @param source        The source image file
+         * @param format        The pixel format to upload in (null for the image format)
+         * @param genMipMaps    Whether to generate mipmaps
+         */
+        CookedTextureData(FileHandle source, Pixmap.Format format, boolean genMipMaps) {
+            this.source = source;
+            this.format = format;
+            this.genMipMaps = genMipMaps;
+        }
+
+        @Override
+        public TextureDataType getType() {
+            return TextureDataType.Pixmap;
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return pixmap != null;
+        }
+
+        @Override
+        public void prepare() {
+            if (pixmap != null) {
+                throw new GdxRuntimeException( "Already prepared" );
+            }
+            FileHandle cooked = cookedFile( source );
+            ByteBuffer buffer = open( cooked, source, KIND_IMAGE, null );
+            if (buffer != null) {
+                try {
+                    pixmap = readPixmap( buffer );
+                } catch (RuntimeException e) {
+                    Gdx.app.error( "AssetCache", "Corrupt cooked file "+cooked.path(), e );
+                }
+            }
+            if (pixmap == null) {
+                pixmap = cookPixmap( cooked );
+            }
+            width = pixmap.getWidth();
+            height = pixmap.getHeight();
+        }
+
+        /**
+         * Returns the pixels of a cooked image
+         *
+         * @param buffer    The contents of the cooked file (after the header)
+         *
+         * @return the pixels of a cooked image
+         */
+        private Pixmap readPixmap(ByteBuffer buffer) {
+            int w = buffer.getInt();
+            int h = buffer.getInt();
+            Pixmap.Format stored = Pixmap.Format.values()[buffer.getInt()];
+            int size = buffer.getInt();
+            if (format != null && stored != format) {
+                return null;
+            }
+            Pixmap result = new Pixmap( w, h, stored );
+            ByteBuffer pixels = result.getPixels();
+            if (pixels.capacity() != size) {
+                result.dispose();
+                return null;
+            }
+            ByteBuffer slice = buffer.slice();
+            slice.limit( size );
+            pixels.clear();
+            pixels.put( slice );
+            pixels.clear();
+            return result;
+        }
+
+        /**
+         * Returns the pixels of the source image, cooking them for next time
+         *
+         * @param cooked    The cooked file to write
+         *
+         * @return the pixels of the source image
+         */
+        private Pixmap cookPixmap(FileHandle cooked) {
+            byte[] bytes = source.readBytes();
+            Pixmap result = new Pixmap( bytes, 0, bytes.length );
+            if (format != null && result.getFormat() != format) {
+                Pixmap converted = new Pixmap( result.getWidth(), result.getHeight(), format );
+                converted.setBlending( Pixmap.Blending.None );
+                converted.drawPixmap( result, 0, 0, 0, 0, result.getWidth(), result.getHeight() );
+                result.dispose();
+                result = converted;
+            }
+
+            FileHandle temp = tempFile( cooked );
+            DataOutputStream out = create( temp, source, KIND_IMAGE, bytes );
+            if (out != null) {
+                boolean success = false;
+                try {
+                    ByteBuffer pixels = result.getPixels();
+                    pixels.clear();
+                    out.writeInt( result.getWidth() );
+                    out.writeInt( result.getHeight() );
+                    out.writeInt( result.getFormat().ordinal() );
+                    out.writeInt( pixels.remaining() );
+                    Channels.newChannel( out ).write( pixels );
+                    pixels.clear();
+                    out.close();
+                    success = true;
+                } catch (IOException e) {
+                    Gdx.app.error( "AssetCache", "Could not cook "+source.path(), e );
+                } finally {
+                    StreamUtils.closeQuietly( out );
+                }
+                commit( temp, cooked, success );
+            }
+            return result;
+        }
+
+        @Override
+        public Pixmap consumePixmap() {
+            if (pixmap == null) {
+                throw new GdxRuntimeException( "Call prepare() before calling consumePixmap()" );
+            }
+            Pixmap result = pixmap;
+            pixmap = null;
+            return result;
+        }
+
+        @Override
+        public boolean disposePixmap() {
+            return true;
+        }
+
+        @Override
+        public void consumeCustomData(int target) {
+            throw new GdxRuntimeException( "This TextureData implementation does not upload data itself" );
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public Pixmap.Format getFormat() {
+            return format != null ? format : (pixmap != null ? pixmap.getFormat() : Pixmap.Format.RGBA8888);
+        }
+
+        @Override
+        public boolean useMipMaps() {
+            return genMipMaps;
+        }
+
+        @Override
+        public boolean isManaged() {
+            return true;
+        }
+    }
+}
@@ -3,7 +3,8 @@
  *
  * This is an extension of AssetManager that uses a JSON to define the assets
  * to be used.  The JSON file is called the asset directory.  This class allows
- * you to load and unload the directory all at once.  It also allows you to 
+ * you to load and unload the directory all at once, or one named group (such as
+ * a level) at a time.  It also allows you to 
  * refer to assets by their directory keys instead of the file names.  This
  * provides a more extensible way of adding assets.
  *
@@ -16,6 +17,9 @@
  */
 package edu.cornell.gdiac.assets;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.*;
 import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
@@ -27,8 +31,12 @@ import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.graphics.g2d.freetype.*;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.Queue;
 import edu.cornell.gdiac.audio.*;
 import edu.cornell.gdiac.util.*;
 
@@ -47,6 +55,27 @@ import edu.cornell.gdiac.util.*;
  * {@link TextureRegion},  {@link BitmapFont}, {@link SoundEffect}, {@link MusicQueue},
  * and {@link JsonValue}.
  *
+ * Small textures may also be listed in an "atlas" section, in which case they are
+ * packed into a shared {@link PackedAtlas} at load time.  Those textures are accessed
+ * as {@link TextureRegion} (or {@link FilmStrip}) entries with their usual keys.
+ * Each call to {@link #getEntry} returns a new copy of a packed region, so callers
+ * may flip, scroll or animate it without affecting other users of the atlas.
+ *
+ * The directory may also have a "groups" section, which splits the assets into named
+ * groups (e.g. one per level).  Each group lists directory keys, where a key ending
+ * in "*" is a prefix.  A group may require other groups, whose assets are loaded
+ * with it.  For example
+ *
+ *     "groups": {
+ *         "shared":   [ "shared:*" ],
+ *         "platform": { "requires": [ "shared" ], "assets": [ "platform:*" ] }
+ *     }
+ *
+ * Use {@link #loadGroup} and {@link #unloadGroup} to change the groups in memory.
+ * An asset is only unloaded when no loaded group needs it, so assets shared between
+ * levels stay loaded across a level transition.  Assets in no group are always
+ * loaded.  A packed atlas belongs to every group of its images.
+ *
  * If you wish to add custom assets, you need to add BOTH a custom {@link AssetLoader}
  * and a custom {@link AssetParser} to this manager.  While a type can only have one
  * loader per file suffix, there is no limit on the number of asset parsers per type.
@@ -69,6 +98,39 @@ public class AssetDirectory extends AssetManager {
     protected Index contents;
     /** The dedicated loader for the {@link Index} class */
     protected DirectoryLoader topLoader;
+    /** The decoder for parallel loading (null if loading is sequential) */
+    protected ParallelDecoder decoder;
+    /** The cache of cooked assets (null if cooking is off) */
+    protected AssetCache cache;
+    /** The directory key prefixes of the assets to load first */
+    protected Array<String> priority;
+    /** The files of the assets with priority keys */
+    protected ObjectSet<String> priorityFiles;
+    /** Whether loads are held back to be sorted by priority */
+    private boolean holding;
+    /** The loads held back while parsing the directory */
+    private Array<AssetDescriptor> held;
+    /** The assets queued by this manager, in loading order */
+    private Queue<AssetDescriptor> queued;
+
+    /** Whether the directory has been parsed into asset groups */
+    private boolean indexed;
+    /** Whether every group is loaded (as with {@link #loadAssets()}) */
+    private boolean allGroups;
+    /** The groups requested by the application */
+    private ObjectSet<String> requested;
+    /** The groups unloaded while every group was loaded, before the directory was parsed */
+    private ObjectSet<String> dropped;
+    /** The groups declared in the directory, indexed by name */
+    private OrderedMap<String, Group> groups;
+    /** The assets in the directory, indexed by file name in loading order */
+    private OrderedMap<String, AssetDescriptor> directoryAssets;
+    /** The groups of each asset file (absent if the asset is in no group) */
+    private ObjectMap<String, ObjectSet<String>> fileGroups;
+    /** The asset files currently loaded (or queued) from the directory */
+    private ObjectSet<String> resident;
+    /** The asset files decoded ahead by {@link #prefetchGroup} */
+    private ObjectSet<String> prefetched;
 
     /**
      * This class represents the top level index of an asset directory.
@@ -91,6 +153,32 @@ public class AssetDirectory extends AssetManager {
         }
     }
 
+    /**
+     * A named group of assets in the asset directory
+     */
+    private static class Group {
+        /** The directory keys in this group (a key ending in "*" is a prefix) */
+        Array<String> patterns = new Array<String>();
+        /** The names of the groups required by this group */
+        Array<String> requires = new Array<String>();
+
+        /**
+         * Returns true if the given directory key is in this group
+         *
+         * @param key   The directory key
+         *
+         * @return true if the given directory key is in this group
+         */
+        boolean matches(String key) {
+            for (String pattern : patterns) {
+                if (pattern.endsWith( "*" ) ? key.startsWith( pattern.substring( 0, pattern.length()-1 ) ) : key.equals( pattern )) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     /** 
      * A callback function for the directory loader
      *
@@ -135,6 +223,18 @@ public class AssetDirectory extends AssetManager {
         super( resolver, false );
         filename = directory;
         this.resolver = resolver;
+        priority = new Array<String>();
+        priorityFiles = new ObjectSet<String>();
+        held = new Array<AssetDescriptor>();
+        queued = new Queue<AssetDescriptor>();
+        allGroups = true;
+        requested = new ObjectSet<String>();
+        dropped = new ObjectSet<String>();
+        groups = new OrderedMap<String, Group>();
+        directoryAssets = new OrderedMap<String, AssetDescriptor>();
+        fileGroups = new ObjectMap<String, ObjectSet<String>>();
+        resident = new ObjectSet<String>();
+        prefetched = new ObjectSet<String>();
 
         // Add the default loaders
         topLoader = new DirectoryLoader( resolver );
@@ -154,6 +254,7 @@ public class AssetDirectory extends AssetManager {
         setLoader( TextureAtlas.class, new TextureAtlasLoader( resolver ) );
         setLoader( TextureRegion.class, new TextureRegionLoader( resolver ) );
         setLoader( FilmStrip.class, new FilmStripLoader( resolver ) );
+        setLoader( PackedAtlas.class, new PackedAtlasLoader( resolver ) );
 
         setLoader( JsonValue.class, new JsonValueLoader( resolver ) );
 
@@ -167,6 +268,7 @@ public class AssetDirectory extends AssetManager {
         topLoader.addParser( new TextureParser() );
         topLoader.addParser( new TextureRegionParser() );
         topLoader.addParser( new FilmStripParser() );
+        topLoader.addParser( new PackedAtlasParser() );
         topLoader.addParser( new FreetypeFontParser() );
         topLoader.addParser( new SoundParser() );
         topLoader.addParser( new MusicParser() );
@@ -194,6 +296,160 @@ public class AssetDirectory extends AssetManager {
         return filename;
     }
 
+    /**
+     * Returns true if assets are decoded on a pool of worker threads
+     *
+     * By default, an asset manager loads one asset at a time on a single thread.
+     * With parallel loading, the CPU side of textures, JSON files and sounds is
+     * decoded by a {@link ParallelDecoder} as soon as they are queued.  Only the
+     * upload to the graphics card is left to {@link #update}.
+     *
+     * @return true if assets are decoded on a pool of worker threads
+     */
+    public boolean isParallelLoading() {
+        return decoder != null;
+    }
+
+    /**
+     * Sets the number of worker threads for decoding assets
+     *
+     * By default, an asset manager loads one asset at a time on a single thread.
+     * With parallel loading, the CPU side of textures, JSON files and sounds is
+     * decoded by a {@link ParallelDecoder} as soon as they are queued.  Only the
+     * upload to the graphics card is left to {@link #update}.
+     *
+     * A value of 0 turns off parallel loading.  This should be set before calling
+     * {@link #loadAssets}.  Changing it discards any decoded assets that have not
+     * been picked up, which are then loaded sequentially.
+     *
+     * @param workers   The number of worker threads (0 for sequential loading)
+     */
+    public synchronized void setParallelLoading(int workers) {
+        if (decoder != null) {
+            if (decoder.getWorkers() == workers) {
+                return;
+            }
+            decoder.dispose();
+            decoder = null;
+        }
+        if (workers > 0) {
+            decoder = new ParallelDecoder( resolver, workers );
+        }
+    }
+
+    /**
+     * Returns true if assets are read from a cache of cooked assets
+     *
+     * A cooked asset is decoded once and saved to local storage (see {@link AssetCache}).
+     * Later loads read the cooked asset instead of decoding the source again.  Only
+     * textures and JSON files (including the asset directory itself) are cooked.
+     *
+     * @return true if assets are read from a cache of cooked assets
+     */
+    public boolean isCooking() {
+        return cache != null;
+    }
+
+    /**
+     * Sets whether assets are read from a cache of cooked assets
+     *
+     * A cooked asset is decoded once and saved to local storage (see {@link AssetCache}).
+     * Later loads read the cooked asset instead of decoding the source again.  Only
+     * textures and JSON files (including the asset directory itself) are cooked.
+     *
+     * This should be set before calling {@link #loadAssets}.
+     *
+     * @param value whether assets are read from a cache of cooked assets
+     */
+    public synchronized void setCooking(boolean value) {
+        if (value && cache == null) {
+            cache = new AssetCache();
+        } else if (!value) {
+            cache = null;
+        }
+    }
+
+    /**
+     * Returns the cache of cooked assets (null if cooking is off)
+     *
+     * @return the cache of cooked assets
+     */
+    public AssetCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the decoder for parallel loading (null if loading is sequential)
+     *
+     * The decoder keeps the timing statistics of each decoded asset.
+     *
+     * @return the decoder for parallel loading
+     */
+    public ParallelDecoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * Adds the given asset to the loading queue of this manager.
+     *
+     * With parallel loading, the asset is also submitted to the decoder, unless it
+     * is already loaded.  Otherwise, if cooking is on, a texture is read from the
+     * cache.  While the asset directory is being parsed, the asset is
+     * held back until the whole directory can be queued in priority order.
+     *
+     * @param fileName  The asset file name
+     * @param type      The asset type
+     * @param parameter The loader parameters (may be null)
+     */
+    @Override
+    public synchronized <T> void load(String fileName, Class<T> type, AssetLoaderParameters<T> parameter) {
+        if (holding) {
+            held.add( new AssetDescriptor<T>( fileName, type, parameter ) );
+            return;
+        }
+        if (!isLoaded( fileName, type )) {
+            if (decoder != null) {
+                decoder.submit( this, fileName, type, parameter );
+            } else if (cache != null && type == Texture.class && parameter != null) {
+                TextureLoader.TextureParameter params = (TextureLoader.TextureParameter)parameter;
+                if (params.textureData == null) {
+                    params.textureData = cache.getTextureData( resolver.resolve( fileName ), params.format, params.genMipMaps );
+                }
+            }
+            queued.addLast( new AssetDescriptor<T>( fileName, type, parameter ) );
+        }
+        super.load( fileName, type, parameter );
+    }
+
+    /**
+     * Clears the loading queue and unloads all assets.
+     *
+     * Any decoded assets that were not picked up are discarded.
+     */
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        held.clear();
+        queued.clear();
+        priorityFiles.clear();
+        resetGroups();
+        if (decoder != null) {
+            decoder.clear();
+        }
+    }
+
+    /**
+     * Disposes all assets in this manager and stops its threads.
+     */
+    @Override
+    public synchronized void dispose() {
+        super.dispose();
+        if (decoder != null) {
+            decoder.dispose();
+            decoder = null;
+        }
+    }
+
     /**
      * Loads all assets defined by the asset directory
      * 
@@ -204,6 +460,33 @@ public class AssetDirectory extends AssetManager {
      * Any additional asset parsers should be added with the {@link #addParser} method. 
      */
     public void loadAssets() {
+        synchronized (this) {
+            allGroups = true;
+            requested.clear();
+            dropped.clear();
+        }
+        DirectoryLoader.DirectoryLoaderParameters params = new DirectoryLoader.DirectoryLoaderParameters();
+        params.loadedCallback = callback;
+        load( filename, Index.class, params );
+    }
+
+    /**
+     * Loads the assets of the given groups in the asset directory
+     *
+     * This is the same as {@link #loadAssets()}, except that only the assets in
+     * the given groups (and the groups they require) are loaded, together with any
+     * assets that are in no group.  Other groups may be loaded later with
+     * {@link #loadGroup}.
+     *
+     * @param names The names of the groups to load
+     */
+    public void loadAssets(String... names) {
+        synchronized (this) {
+            allGroups = false;
+            requested.clear();
+            requested.addAll( names );
+            dropped.clear();
+        }
         DirectoryLoader.DirectoryLoaderParameters params = new DirectoryLoader.DirectoryLoaderParameters();
         params.loadedCallback = callback;
         load( filename, Index.class, params );
@@ -215,16 +498,526 @@ public class AssetDirectory extends AssetManager {
      * Assets loaded manually (e.g. not via the asset directory JSON) will not be
      * affected and will remain in this asset manager.
      */
-    public void unloadAssets() {
+    public synchronized void unloadAssets() {
+        if (contents == null && !indexed) {
+            return;
+        }
+        for (String filename : resident) {
+            unload( filename );
+        }
+        resetGroups();
+        contents = null;
+        priorityFiles.clear();
+    }
+
+    /**
+     * Returns the names of the groups declared in the asset directory
+     *
+     * This array is empty until the directory has been parsed, which happens in
+     * the first call to {@link #update} after {@link #loadAssets}.
+     *
+     * @return the names of the groups declared in the asset directory
+     */
+    public synchronized Array<String> getGroups() {
+        return new Array<String>( groups.orderedKeys() );
+    }
+
+    /**
+     * Queues the assets of the given group (and the groups it requires)
+     *
+     * Assets that are already loaded are not loaded again.  Call {@link #update}
+     * until {@link #isGroupLoaded} is true to finish loading the group.  If the
+     * directory is not parsed yet, the group is loaded with the directory.
+     *
+     * @param name  The group name
+     *
+     * @throws GdxRuntimeException if the directory has no group with that name
+     */
+    public synchronized void loadGroup(String name) {
+        checkGroup( name );
+        if (allGroups) {
+            dropped.remove( name );
+            return;
+        }
+        requested.add( name );
+        syncGroups();
+    }
+
+    /**
+     * Unloads the assets of the given group that no other loaded group needs
+     *
+     * The groups required by this group are unloaded as well, unless they were
+     * loaded explicitly or another loaded group requires them.  If every group
+     * was loaded with {@link #loadAssets()}, all other groups stay loaded.  If the
+     * directory is not parsed yet, the group is unloaded once it is parsed.  Any
+     * assets of the group that were prefetched (but not loaded) are discarded.
+     *
+     * @param name  The group name
+     *
+     * @throws GdxRuntimeException if the directory has no group with that name
+     */
+    public synchronized void unloadGroup(String name) {
+        checkGroup( name );
+        if (allGroups) {
+            if (!indexed) {
+                // The group names are not known until the directory is parsed
+                dropped.add( name );
+                return;
+            }
+            allGroups = false;
+            requested.clear();
+            for (String other : groups.keys()) {
+                requested.add( other );
+            }
+        }
+        requested.remove( name );
+        syncGroups();
+        discardPrefetched( name );
+    }
+
+    /**
+     * Starts decoding the assets of the given group on the worker threads
+     *
+     * This only works with parallel loading (see {@link #setParallelLoading}).  The
+     * assets are decoded, but not queued.  Nothing is uploaded to the graphics card
+     * until the group is loaded with {@link #loadGroup}, which then only has to wait
+     * for the upload.  This makes it possible to decode the next level while the
+     * current one is being played.
+     *
+     * @param name  The group name
+     *
+     * @throws GdxRuntimeException if the directory has no group with that name
+     * @return true if the group is being decoded
+     */
+    public synchronized boolean prefetchGroup(String name) {
+        checkGroup( name );
+        if (decoder == null || !indexed) {
+            return false;
+        }
+        ObjectSet<String> active = closeGroups( name );
+        for (ObjectMap.Entry<String, AssetDescriptor> entry : directoryAssets) {
+            if (!resident.contains( entry.key ) && isNeeded( entry.key, active, false )) {
+                if (decoder.submit( this, entry.key, entry.value.type, entry.value.params )) {
+                    prefetched.add( entry.key );
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if every asset of the given group is loaded
+     *
+     * This always returns false before the asset directory itself is loaded.
+     *
+     * @param name  The group name
+     *
+     * @return true if every asset of the given group is loaded
+     */
+    public synchronized boolean isGroupLoaded(String name) {
+        if (contents == null || !groups.containsKey( name )) {
+            return false;
+        }
+        ObjectSet<String> active = closeGroups( name );
+        for (ObjectMap.Entry<String, AssetDescriptor> entry : directoryAssets) {
+            if (isNeeded( entry.key, active, false ) && !isLoaded( entry.key, entry.value.type )) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the directory key prefixes of the assets to load first
+     *
+     * Assets whose directory key starts with one of these prefixes are queued ahead
+     * of all other assets.  A packed atlas has priority if any image in it does.
+     * This allows a game to start as soon as {@link #isPriorityLoaded} is true,
+     * while the remaining assets continue to load.
+     *
+     * @return the directory key prefixes of the assets to load first
+     */
+    public Array<String> getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the directory key prefixes of the assets to load first
+     *
+     * Assets whose directory key starts with one of these prefixes are queued ahead
+     * of all other assets.  A packed atlas has priority if any image in it does.
+     * This allows a game to start as soon as {@link #isPriorityLoaded} is true,
+     * while the remaining assets continue to load.
+     *
+     * The priority must be set before the directory is parsed, which happens in
+     * the first call to {@link #update} after {@link #loadAssets}.
+     *
+     * @param prefixes  The directory key prefixes of the assets to load first
+     */
+    public void setPriority(String... prefixes) {
+        priority.clear();
+        priority.addAll( prefixes );
+    }
+
+    /**
+     * Returns true if every asset with a priority key is loaded
+     *
+     * If there are no priority keys, this returns true once every asset is loaded.
+     * It always returns false before the asset directory itself is loaded.
+     *
+     * @return true if every asset with a priority key is loaded
+     */
+    public synchronized boolean isPriorityLoaded() {
         if (contents == null) {
+            return false;
+        } else if (priority.size == 0) {
+            return isFinished();
+        }
+        for(String file : priorityFiles) {
+            if (!isLoaded( file )) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next queued asset that is not yet loaded (null if there is none)
+     *
+     * Assets are returned in the order they were queued, which is the order that
+     * they are loaded in.  Dependencies are not included.
+     *
+     * @return the next queued asset that is not yet loaded
+     */
+    synchronized AssetDescriptor nextQueued() {
+        while (queued.size > 0 && isLoaded( queued.first().fileName, queued.first().type )) {
+            queued.removeFirst();
+        }
+        return queued.size > 0 ? queued.first() : null;
+    }
+
+    /**
+     * Starts holding back loads while the asset directory is parsed.
+     *
+     * This is called by {@link DirectoryLoader} before running the parsers.
+     */
+    synchronized void holdLoads() {
+        holding = true;
+    }
+
+    /**
+     * Queues the loads held back while parsing, in priority order.
+     *
+     * This is called by {@link DirectoryLoader} after running the parsers.  The
+     * assets with priority keys are queued first.  Otherwise, the assets are
+     * queued in the order that they were parsed.
+     *
+     * @param index     The parsed directory index
+     */
+    @SuppressWarnings("unchecked")
+    synchronized void releaseLoads(Index index) {
+        holding = false;
+        priorityFiles.clear();
+        if (priority.size > 0) {
+            for (ObjectMap<String, String> category : index.keymap.values()) {
+                for (ObjectMap.Entry<String, String> entry : category) {
+                    if (hasPriority( entry.key )) {
+                        priorityFiles.add( entry.value );
+                    }
+                }
+            }
+            for (AssetDescriptor desc : held) {
+                if (desc.type == PackedAtlas.class && desc.params != null) {
+                    for (String key : ((PackedAtlasLoader.PackedAtlasParameters)desc.params).keys) {
+                        if (hasPriority( key )) {
+                            priorityFiles.add( desc.fileName );
+                        }
+                    }
+                }
+            }
+        }
+
+        directoryAssets.clear();
+        for (int pass = 0; pass < 2; pass++) {
+            for (AssetDescriptor desc : held) {
+                if (priorityFiles.contains( desc.fileName ) == (pass == 0)) {
+                    directoryAssets.put( desc.fileName, desc );
+                }
+            }
+        }
+        held.clear();
+        readGroups( index );
+        indexed = true;
+        if (allGroups && dropped.size > 0) {
+            allGroups = false;
+            requested.clear();
+            for (String name : groups.keys()) {
+                if (!dropped.contains( name )) {
+                    requested.add( name );
+                }
+            }
+        }
+        dropped.clear();
+        syncGroups();
+    }
+
+    /**
+     * Reads the groups section of the directory and assigns each asset to its groups
+     *
+     * A packed atlas belongs to every group of its images.  If any of its images
+     * is in no group, then neither is the atlas.
+     *
+     * @param index     The parsed directory index
+     */
+    @SuppressWarnings("unchecked")
+    private void readGroups(Index index) {
+        groups.clear();
+        fileGroups.clear();
+        JsonValue json = index.directory == null ? null : index.directory.get( "groups" );
+        if (json == null) {
             return;
         }
-        for (ObjectMap<String, String> category : contents.keymap.values()) {
-            for (String filename : category.values()) {
-                unload( filename );
+        for (JsonValue child = json.child(); child != null; child = child.next()) {
+            Group group = new Group();
+            if (child.isArray()) {
+                group.patterns.addAll( child.asStringArray() );
+            } else {
+                if (child.has( "assets" )) {
+                    group.patterns.addAll( child.get( "assets" ).asStringArray() );
+                }
+                if (child.has( "requires" )) {
+                    group.requires.addAll( child.get( "requires" ).asStringArray() );
+                }
+            }
+            groups.put( child.name(), group );
+        }
+        for (ObjectMap.Entry<String, Group> entry : groups) {
+            for (String other : entry.value.requires) {
+                if (!groups.containsKey( other )) {
+                    Gdx.app.error( "AssetDirectory", "Group '"+entry.key+"' requires unknown group '"+other+"'" );
+                }
+            }
+        }
+        for (String name : requested) {
+            if (!groups.containsKey( name )) {
+                Gdx.app.error( "AssetDirectory", "Unknown asset group '"+name+"'" );
+            }
+        }
+
+        for (ObjectMap<String, String> category : index.keymap.values()) {
+            for (ObjectMap.Entry<String, String> entry : category) {
+                assignGroups( entry.value, entry.key );
+            }
+        }
+        for (AssetDescriptor desc : directoryAssets.values()) {
+            if (desc.type == PackedAtlas.class && desc.params != null) {
+                for (String key : ((PackedAtlasLoader.PackedAtlasParameters)desc.params).keys) {
+                    assignGroups( desc.fileName, key );
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the given asset file to the groups of the given directory key
+     *
+     * If the key is in no group, the file is marked as in no group, and it stays
+     * that way no matter what other keys it has.
+     *
+     * @param file  The asset file name
+     * @param key   The directory key
+     */
+    private void assignGroups(String file, String key) {
+        ObjectSet<String> names = fileGroups.get( file );
+        if (names != null && names.size == 0) {
+            return;
+        }
+        if (names == null) {
+            names = new ObjectSet<String>();
+            fileGroups.put( file, names );
+        }
+        boolean found = false;
+        for (ObjectMap.Entry<String, Group> entry : groups) {
+            if (entry.value.matches( key )) {
+                names.add( entry.key );
+                found = true;
+            }
+        }
+        if (!found) {
+            names.clear();
+        }
+    }
+
+    /**
+     * Loads and unloads directory assets so that exactly the needed ones are resident
+     *
+     * An asset is needed if it is in no group, or in a requested group or one of
+     * the groups they require.  A texture loaded a second time gets fresh texture
+     * data, as the data of the first load was consumed by its upload.
+     */
+    @SuppressWarnings("unchecked")
+    private void syncGroups() {
+        if (!indexed) {
+            return;
+        }
+        String[] names = new String[requested.size];
+        int ii = 0;
+        for (String name : requested) {
+            names[ii++] = name;
+        }
+        ObjectSet<String> active = closeGroups( names );
+        for (ObjectMap.Entry<String, AssetDescriptor> entry : directoryAssets) {
+            boolean needed = isNeeded( entry.key, active, allGroups );
+            if (needed && !resident.contains( entry.key )) {
+                AssetDescriptor desc = entry.value;
+                if (!prefetched.remove( entry.key ) && desc.type == Texture.class && desc.params != null) {
+                    ((TextureLoader.TextureParameter)desc.params).textureData = null;
+                }
+                resident.add( entry.key );
+                load( desc.fileName, desc.type, desc.params );
+            } else if (!needed && resident.contains( entry.key )) {
+                resident.remove( entry.key );
+                for (int jj = queued.size-1; jj >= 0; jj--) {
+                    if (queued.get( jj ).fileName.equals( entry.key )) {
+                        queued.removeIndex( jj );
+                    }
+                }
+                // A queued asset may not have picked up its decoded data yet
+                if (decoder != null) {
+                    decoder.discard( entry.key );
+                }
+                unload( entry.key );
             }
         }
-        contents = null;
+    }
+
+    /**
+     * Discards the prefetched assets of the given group that are no longer needed
+     *
+     * A prefetched asset is decoded but not loaded.  If its group is unloaded
+     * before it is loaded, nothing would ever pick up the decoded data.
+     *
+     * @param name  The group name
+     */
+    private void discardPrefetched(String name) {
+        if (decoder == null || prefetched.size == 0) {
+            return;
+        }
+        String[] names = new String[requested.size];
+        int ii = 0;
+        for (String other : requested) {
+            names[ii++] = other;
+        }
+        ObjectSet<String> active = closeGroups( names );
+        ObjectSet<String> released = closeGroups( name );
+        Array<String> discarded = new Array<String>();
+        for (String file : prefetched) {
+            if (isNeeded( file, released, false ) && !isNeeded( file, active, false )) {
+                discarded.add( file );
+            }
+        }
+        for (String file : discarded) {
+            prefetched.remove( file );
+            decoder.discard( file );
+        }
+    }
+
+    /**
+     * Returns true if the given asset file is needed by the active groups
+     *
+     * @param file      The asset file name
+     * @param active    The active groups
+     * @param all       Whether every group is active
+     *
+     * @return true if the given asset file is needed by the active groups
+     */
+    private boolean isNeeded(String file, ObjectSet<String> active, boolean all) {
+        ObjectSet<String> names = fileGroups.get( file );
+        if (all || names == null || names.size == 0) {
+            return true;
+        }
+        for (String name : names) {
+            if (active.contains( name )) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the given groups together with all of the groups they require
+     *
+     * @param names The group names
+     *
+     * @return the given groups together with all of the groups they require
+     */
+    private ObjectSet<String> closeGroups(String... names) {
+        ObjectSet<String> result = new ObjectSet<String>();
+        Array<String> stack = new Array<String>( names );
+        while (stack.size > 0) {
+            String name = stack.pop();
+            if (result.add( name )) {
+                Group group = groups.get( name );
+                if (group != null) {
+                    stack.addAll( group.requires );
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Verifies that the directory has a group with the given name
+     *
+     * Nothing is checked before the directory has been parsed.
+     *
+     * @param name  The group name
+     *
+     * @throws GdxRuntimeException if the directory has no group with that name
+     */
+    private void checkGroup(String name) {
+        if (indexed && !groups.containsKey( name )) {
+            throw new GdxRuntimeException( "Unknown asset group '"+name+"'" );
+        }
+    }
+
+    /**
+     * Forgets the parsed groups and the assets loaded from the directory
+     *
+     * The requested groups are kept, so that they apply to the next directory load.
+     */
+    private void resetGroups() {
+        if (decoder != null) {
+            // Assets queued or prefetched, but never loaded, still have decoded data
+            for (String file : resident) {
+                decoder.discard( file );
+            }
+            for (String file : prefetched) {
+                decoder.discard( file );
+            }
+        }
+        indexed = false;
+        groups.clear();
+        directoryAssets.clear();
+        fileGroups.clear();
+        resident.clear();
+        prefetched.clear();
+    }
+
+    /**
+     * Returns true if the given directory key starts with a priority prefix
+     *
+     * @param key   The directory key
+     *
+     * @return true if the given directory key starts with a priority prefix
+     */
+    private boolean hasPriority(String key) {
+        for (String prefix : priority) {
+            if (key.startsWith( prefix )) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -282,12 +1075,9 @@ public class AssetDirectory extends AssetManager {
      */
     public <T> T getEntry(String key, Class<T> type) {
         ObjectMap<String, String> keys = contents.keymap.get( type, null );
-        if (keys == null) {
-            return null;
-        }
-        String filename = keys.get( key, null );
+        String filename = keys == null ? null : keys.get( key, null );
         if (filename == null) {
-            return null;
+            return getPacked( key, type );
         }
         return get( filename, type );
     }
@@ -305,13 +1095,55 @@ public class AssetDirectory extends AssetManager {
      */
     public <T> boolean hasEntry(String key, Class<T> type) {
         ObjectMap<String, String> keys = contents.keymap.get( type, null );
-        if (keys == null) {
-            return false;
-        }
-        String filename = keys.get( key, null );
+        String filename = keys == null ? null : keys.get( key, null );
         if (filename == null) {
-            return false;
+            return getPacked( key, type ) != null;
         }
         return contains( filename, type );
     }
+
+    /**
+     * Returns the packed atlas region associated with the given directory key
+     *
+     * Only {@link TextureRegion} and {@link FilmStrip} assets may be packed. This
+     * method returns null for any other type, or if no loaded atlas has the key.
+     *
+     * The atlas shares a single region for each key, so this method returns a
+     * copy.  That way a caller that modifies its region (such as setting the
+     * frame of a film strip) does not modify the regions of other callers.
+     *
+     * @param key  the asset directory key
+     * @param type the asset type
+     *
+     * @return the packed atlas region associated with the given directory key
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getPacked(String key, Class<T> type) {
+        if (type != TextureRegion.class && type != FilmStrip.class) {
+            return null;
+        }
+        ObjectMap<String, String> atlases = contents.keymap.get( PackedAtlas.class, null );
+        if (atlases == null) {
+            return null;
+        }
+        for (String filename : atlases.values()) {
+            if (isLoaded( filename, PackedAtlas.class )) {
+                PackedAtlas atlas = get( filename, PackedAtlas.class );
+                if (type == FilmStrip.class) {
+                    FilmStrip strip = atlas.getFilmStrip( key );
+                    if (strip != null) {
+                        FilmStrip copy = strip.copy();
+                        copy.setFrame( strip.getFrame() );
+                        return (T)copy;
+                    }
+                } else {
+                    TextureRegion region = atlas.getRegion( key );
+                    if (region != null) {
+                        return (T)new TextureRegion( region );
+                    }
+                }
+            }
+        }
+        return null;
+    }
 }
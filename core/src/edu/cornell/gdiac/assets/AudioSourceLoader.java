@@ -70,7 +70,8 @@ public class AudioSourceLoader extends AsynchronousAssetLoader<AudioSource, Audi
      * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
      *
      * This is used to load non-OpenGL parts of the asset that do not require the context
-     * of the main thread.
+     * of the main thread.  If the source was already read by a {@link ParallelDecoder},
+     * this uses that source.
      *
      * @param manager   The asset manager
      * @param fileName  The name of the asset to load
@@ -79,7 +80,11 @@ public class AudioSourceLoader extends AsynchronousAssetLoader<AudioSource, Audi
      */
     @Override
     public void loadAsync (AssetManager manager, String fileName, FileHandle file, AudioSourceParameters params) {
-        cachedSource = ((AudioEngine)Gdx.audio).newSource(file);
+        ParallelDecoder decoder = ParallelDecoder.of(manager);
+        cachedSource = decoder == null ? null : decoder.take(fileName, AudioSource.class);
+        if (cachedSource == null) {
+            cachedSource = ((AudioEngine)Gdx.audio).newSource(file);
+        }
     }
 
     /** 
@@ -117,7 +117,10 @@ public class DirectoryLoader extends AsynchronousAssetLoader<AssetDirectory.Inde
      * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
      *
      * This is used to load non-OpenGL parts of the asset that do not require the context
-     * of the main thread.
+     * of the main thread.  The parsers queue each asset with the manager.  If the
+     * manager is an {@link AssetDirectory}, the assets are queued once all parsers
+     * are done, so that assets with priority keys can go first.  With parallel
+     * loading, each queued asset then starts decoding on the worker threads.
      *
      * @param manager   The asset manager
      * @param fileName  The name of the asset to load
@@ -126,19 +129,33 @@ public class DirectoryLoader extends AsynchronousAssetLoader<AssetDirectory.Inde
      */
     @Override
     public void loadAsync (AssetManager manager, String fileName, FileHandle file, DirectoryLoaderParameters params) {
-        JsonReader reader = new JsonReader();
+        AssetDirectory directory = manager instanceof AssetDirectory ? (AssetDirectory)manager : null;
         cachedData = new AssetDirectory.Index();
-        cachedData.directory = reader.parse(file);
+        if (directory != null && directory.getCache() != null) {
+            cachedData.directory = directory.getCache().readJson(file);
+        } else {
+            JsonReader reader = new JsonReader();
+            cachedData.directory = reader.parse(file);
+        }
         System.out.flush();
-        for(AssetParser<?> parser : parsers) {
-            ObjectMap<String,String> keys = cachedData.keymap.get( parser.getType(), null );
-            if (keys == null) {
-                keys = new ObjectMap<String,String>();
-                cachedData.keymap.put(parser.getType(),keys);
+        if (directory != null) {
+            directory.holdLoads();
+        }
+        try {
+            for(AssetParser<?> parser : parsers) {
+                ObjectMap<String,String> keys = cachedData.keymap.get( parser.getType(), null );
+                if (keys == null) {
+                    keys = new ObjectMap<String,String>();
+                    cachedData.keymap.put(parser.getType(),keys);
+                }
+                parser.reset( cachedData.directory );
+                while (parser.hasNext()) {
+                    parser.processNext( manager, keys );
+                }
             }
-            parser.reset( cachedData.directory );
-            while (parser.hasNext()) {
-                parser.processNext( manager, keys );
+        } finally {
+            if (directory != null) {
+                directory.releaseLoads( cachedData );
             }
         }
     }
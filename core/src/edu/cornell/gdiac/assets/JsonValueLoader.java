@@ -68,7 +68,9 @@ public class JsonValueLoader extends AsynchronousAssetLoader<JsonValue, JsonValu
      * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
      *
      * This is used to load non-OpenGL parts of the asset that do not require the context
-     * of the main thread.
+     * of the main thread.  If the file was already parsed by a {@link ParallelDecoder},
+     * this uses the parsed value.  Otherwise, it reads the file from the {@link AssetCache}
+     * of the manager, if any.
      *
      * @param manager   The asset manager
      * @param fileName  The name of the asset to load
@@ -77,8 +79,17 @@ public class JsonValueLoader extends AsynchronousAssetLoader<JsonValue, JsonValu
      */
     @Override
     public void loadAsync (AssetManager manager, String fileName, FileHandle file, JsonValueParameters params) {
-        JsonReader reader = new JsonReader();
-        cachedData = reader.parse(file);
+        ParallelDecoder decoder = ParallelDecoder.of(manager);
+        cachedData = decoder == null ? null : decoder.take(fileName, JsonValue.class);
+        if (cachedData == null) {
+            AssetCache cache = AssetCache.of(manager);
+            if (cache != null) {
+                cachedData = cache.readJson(file);
+            } else {
+                JsonReader reader = new JsonReader();
+                cachedData = reader.parse(file);
+            }
+        }
     }
 
     /** 
@@ -0,0 +1,311 @@
+/*
+ * LoadingScheduler.java
+ *
+ * An AssetManager is updated with a time budget: the number of milliseconds it may
+ * spend loading in an animation frame.  A fixed budget is always wrong. If it is too
+ * large, the loading screen stutters.  If it is too small, the CPU is idle while the
+ * player waits.  This class picks the budget for every frame instead.  It measures
+ * how long each frame actually took, and grows or shrinks the budget to hit a target
+ * frame rate.  It also learns how long each type of asset takes on the main thread,
+ * so that it does not start an expensive upload at the end of a frame.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * This class updates an {@link AssetDirectory} with an adaptive time budget.
+ *
+ * Call {@link #update} once per animation frame instead of {@link AssetDirectory#update}.
+ * The budget is adjusted with additive increase and multiplicative decrease. It grows
+ * slowly while frames are on time and is cut back quickly when a frame is late.
+ *
+ * The cost of an asset is the main thread time from when it reaches the front of
+ * the queue until it is loaded.  This is mostly the upload to the graphics card,
+ * but it also includes the dependencies of the asset.  The costs are averaged by
+ * asset type.
+ */
+public class LoadingScheduler {
+    /** The default target frame rate */
+    public static final int DEFAULT_FRAME_RATE = 60;
+    /** The default minimum budget in milliseconds */
+    public static final float DEFAULT_MIN_BUDGET = 1.0f;
+    /** How much a late frame may exceed the target before the budget shrinks */
+    private static final float FRAME_TOLERANCE = 1.1f;
+    /** The amount (in milliseconds) to grow the budget after an on-time frame */
+    private static final float BUDGET_GROWTH = 0.5f;
+    /** The factor to shrink the budget by after a late frame */
+    private static final float BUDGET_SHRINK = 0.75f;
+
+    /**
+     * The running cost of an asset type
+     */
+    private static class Cost {
+        /** The total main thread time in nanoseconds */
+        long total;
+        /** The number of assets measured */
+        int count;
+
+        /**
+         * Returns the average main thread time in milliseconds
+         *
+         * @return the average main thread time in milliseconds
+         */
+        float average() {
+            return count == 0 ? 0 : total/(count*1.0e6f);
+        }
+    }
+
+    /** The asset directory to update */
+    private AssetDirectory assets;
+    /** Whether the budget adapts to the frame rate */
+    private boolean adaptive;
+    /** The target frame rate */
+    private int frameRate;
+    /** The current budget in milliseconds */
+    private float budget;
+    /** The minimum budget in milliseconds */
+    private float minBudget;
+    /** The maximum budget in milliseconds */
+    private float maxBudget;
+    /** The time spent loading in the previous frame in milliseconds */
+    private float lastLoad;
+
+    /** The asset at the front of the queue */
+    private AssetDescriptor current;
+    /** The main thread time spent on the current asset in nanoseconds */
+    private long currentTime;
+    /** The running costs, indexed by asset type */
+    private ObjectMap<Class<?>, Cost> costs;
+    /** Whether all assets have been loaded */
+    private boolean finished;
+
+    /**
+     * Creates a new scheduler for the given assets
+     *
+     * The scheduler starts with the minimum budget and targets the default frame
+     * rate.
+     *
+     * @param assets    The asset directory to update
+     */
+    public LoadingScheduler(AssetDirectory assets) {
+        this.assets = assets;
+        costs = new ObjectMap<Class<?>, Cost>();
+        adaptive = true;
+        minBudget = DEFAULT_MIN_BUDGET;
+        budget = minBudget;
+        setFrameRate( DEFAULT_FRAME_RATE );
+    }
+
+    /**
+     * Returns the asset directory updated by this scheduler
+     *
+     * @return the asset directory updated by this scheduler
+     */
+    public AssetDirectory getAssets() {
+        return assets;
+    }
+
+    /**
+     * Returns true if the budget adapts to the frame rate
+     *
+     * If false, the budget stays at its current value.
+     *
+     * @return true if the budget adapts to the frame rate
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Sets whether the budget adapts to the frame rate
+     *
+     * If false, the budget stays at its current value.
+     *
+     * @param value whether the budget adapts to the frame rate
+     */
+    public void setAdaptive(boolean value) {
+        adaptive = value;
+    }
+
+    /**
+     * Returns the target frame rate
+     *
+     * @return the target frame rate
+     */
+    public int getFrameRate() {
+        return frameRate;
+    }
+
+    /**
+     * Sets the target frame rate
+     *
+     * This also sets the maximum budget to the length of a frame at this rate.
+     *
+     * @param fps   The target frame rate
+     */
+    public void setFrameRate(int fps) {
+        frameRate = Math.max( 1, fps );
+        maxBudget = Math.max( minBudget, 1000.0f/frameRate );
+        budget = Math.min( budget, maxBudget );
+    }
+
+    /**
+     * Returns the current budget in milliseconds
+     *
+     * @return the current budget in milliseconds
+     */
+    public float getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the current budget in milliseconds
+     *
+     * The budget is clamped to the minimum and maximum.  If the budget adapts,
+     * this is only the starting point.
+     *
+     * @param millis    The current budget in milliseconds
+     */
+    public void setBudget(float millis) {
+        budget = Math.max( minBudget, Math.min( maxBudget, millis ) );
+    }
+
+    /**
+     * Returns true once every asset has been loaded
+     *
+     * @return true once every asset has been loaded
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns the average main thread time of the given asset type in milliseconds
+     *
+     * This returns 0 if no asset of this type has been loaded yet.
+     *
+     * @param type  The asset type
+     *
+     * @return the average main thread time of the given asset type in milliseconds
+     */
+    public float getCost(Class<?> type) {
+        Cost cost = costs.get( type );
+        return cost == null ? 0 : cost.average();
+    }
+
+    /**
+     * Updates the assets for one animation frame.
+     *
+     * The budget is first adjusted according to the length of the previous frame.
+     * Then the assets are updated until the budget is spent.  The update stops
+     * early if the next asset is expected to go over the budget, unless nothing
+     * has been loaded yet this frame.
+     *
+     * When all assets are loaded, the costs (and the timings of any parallel
+     * decoder) are logged at the debug level.  Parallel loading stays on, so that
+     * the game can prefetch asset groups while it is played.
+     *
+     * @param delta Number of seconds since last animation frame
+     *
+     * @return true if all assets are loaded
+     */
+    public boolean update(float delta) {
+        if (finished) {
+            return true;
+        }
+        if (adaptive) {
+            adapt( delta*1000.0f );
+        }
+
+        long start = System.nanoTime();
+        long limit = (long)(budget*1.0e6f);
+        long elapsed = 0;
+        boolean done = false;
+        while (!done) {
+            AssetDescriptor next = assets.nextQueued();
+            if (next != current) {
+                record();
+                current = next;
+            }
+            if (elapsed > 0 && current != null && elapsed+getCost( current.type )*1.0e6f > limit) {
+                break;
+            }
+
+            long begin = System.nanoTime();
+            done = assets.update();
+            currentTime += System.nanoTime()-begin;
+            elapsed = System.nanoTime()-start;
+            if (elapsed >= limit) {
+                break;
+            }
+        }
+        lastLoad = elapsed/1.0e6f;
+
+        if (done) {
+            record();
+            current = null;
+            finished = true;
+            logCosts();
+            if (assets.getDecoder() != null) {
+                assets.getDecoder().logTimings();
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Logs the average main thread time of each asset type.
+     *
+     * The costs are logged at the debug level, so they are only shown if the
+     * application log level is {@link com.badlogic.gdx.Application#LOG_DEBUG}.
+     */
+    public void logCosts() {
+        for(ObjectMap.Entry<Class<?>, Cost> entry : costs) {
+            Gdx.app.debug( "LoadingScheduler", String.format( "%s: %d assets, %.2f ms average",
+                           entry.key.getSimpleName(), entry.value.count, entry.value.average() ) );
+        }
+        Gdx.app.debug( "LoadingScheduler", String.format( "final budget %.2f ms at %d fps", budget, frameRate ) );
+    }
+
+    /**
+     * Adjusts the budget according to the length of the previous frame.
+     *
+     * A frame is late if it took longer than the target frame time.  The loading
+     * done in the previous frame is only blamed if there was any.
+     *
+     * @param frame The length of the previous frame in milliseconds
+     */
+    private void adapt(float frame) {
+        float target = 1000.0f/frameRate;
+        if (frame > target*FRAME_TOLERANCE) {
+            if (lastLoad > 0) {
+                budget *= BUDGET_SHRINK;
+            }
+        } else {
+            budget += BUDGET_GROWTH;
+        }
+        budget = Math.max( minBudget, Math.min( maxBudget, budget ) );
+    }
+
+    /**
+     * Adds the time spent on the current asset to the cost of its type
+     */
+    private void record() {
+        if (current != null && currentTime > 0) {
+            Cost cost = costs.get( current.type );
+            if (cost == null) {
+                cost = new Cost();
+                costs.put( current.type, cost );
+            }
+            cost.total += currentTime;
+            cost.count++;
+        }
+        currentTime = 0;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * PackedAtlas.java
+ *
+ * This is a texture atlas built at load time from the individual images listed in
+ * the "atlas" section of an asset directory.  Packing small images into a shared
+ * page means that the sprites drawn each frame share a texture, so the sprite batch
+ * does not have to flush every time it switches between them.
+ *
+ * Unlike a normal texture atlas, the regions of this atlas are indexed by their
+ * directory keys (and not the region names in the atlas file).
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.gdiac.util.FilmStrip;
+
+/**
+ * This class is a {@link TextureAtlas} whose regions are referenced by directory key.
+ *
+ * The atlas is created by {@link PackedAtlasLoader}, either by packing the source
+ * images or by reading the packed result cached by a previous run.  Either way,
+ * the regions and film strips are identical to the ones that would have been
+ * created from the individual textures, except that they point into the atlas.
+ */
+public class PackedAtlas extends TextureAtlas {
+    /** The texture regions, indexed by directory key */
+    private ObjectMap<String, TextureRegion> regions;
+    /** The film strips, indexed by directory key */
+    private ObjectMap<String, FilmStrip> strips;
+
+    /**
+     * Creates a new, empty packed atlas.
+     *
+     * The atlas should be populated with {@link com.badlogic.gdx.graphics.g2d.PixmapPacker#updateTextureAtlas}.
+     */
+    public PackedAtlas() {
+        super();
+        regions = new ObjectMap<String, TextureRegion>();
+        strips  = new ObjectMap<String, FilmStrip>();
+    }
+
+    /**
+     * Creates a packed atlas from previously saved atlas data.
+     *
+     * @param data  The atlas data
+     */
+    public PackedAtlas(TextureAtlasData data) {
+        super(data);
+        regions = new ObjectMap<String, TextureRegion>();
+        strips  = new ObjectMap<String, FilmStrip>();
+    }
+
+    /**
+     * Returns the name of the atlas region for the given image index
+     *
+     * Directory keys contain colons, which the atlas file format reserves for
+     * fields.  So the images are named by their position in the atlas instead.
+     *
+     * @param index The image position in the atlas definition
+     *
+     * @return the name of the atlas region for the given image index
+     */
+    public static String regionName(int index) {
+        return "region"+index;
+    }
+
+    /**
+     * Indexes the regions and film strips of this atlas by their directory keys.
+     *
+     * This method must be called once the atlas pages are created.
+     *
+     * @param params    The atlas definition
+     */
+    public void index(PackedAtlasLoader.PackedAtlasParameters params) {
+        regions.clear();
+        strips.clear();
+        for(int ii = 0; ii < params.keys.size; ii++) {
+            TextureRegion region = findRegion( regionName( ii ) );
+            if (region == null) {
+                throw new GdxRuntimeException( "Atlas is missing the image for "+params.keys.get( ii ) );
+            }
+            regions.put( params.keys.get( ii ), region );
+        }
+        for(ObjectMap.Entry<String, FilmStripLoader.FilmStripParameters> entry : params.strips) {
+            FilmStripLoader.FilmStripParameters sprite = entry.value;
+            TextureRegion region = regions.get( sprite.source, null );
+            if (region == null) {
+                throw new GdxRuntimeException( "Film strip "+entry.key+" has no source in the atlas" );
+            }
+            int w = sprite.width  == -1 ? region.getRegionWidth() -sprite.x : sprite.width;
+            int h = sprite.height == -1 ? region.getRegionHeight()-sprite.y : sprite.height;
+            FilmStrip strip = new FilmStrip( region.getTexture(), sprite.rows, sprite.cols, sprite.size,
+                                             region.getRegionX()+sprite.x, region.getRegionY()+sprite.y, w, h );
+            strip.setFrame( sprite.frame );
+            strips.put( entry.key, strip );
+        }
+    }
+
+    /**
+     * Returns the texture region for the given directory key
+     *
+     * If there is no such region in this atlas, this method returns null. The
+     * region is shared by every caller, and so should not be modified.
+     *
+     * @param key   The directory key
+     *
+     * @return the texture region for the given directory key
+     */
+    public TextureRegion getRegion(String key) {
+        return regions.get( key, null );
+    }
+
+    /**
+     * Returns the film strip for the given directory key
+     *
+     * If there is no such film strip in this atlas, this method returns null.
+     * The film strip is shared by every caller, and so should not be modified.
+     *
+     * @param key   The directory key
+     *
+     * @return the film strip for the given directory key
+     */
+    public FilmStrip getFilmStrip(String key) {
+        return strips.get( key, null );
+    }
+}
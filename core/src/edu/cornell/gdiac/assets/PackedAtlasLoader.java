@@ -0,0 +1,316 @@
+/*
+ * PackedAtlasLoader.java
+ *
+ * This is a loader for building texture atlases at load time.  The source images are
+ * packed into shared pages with a PixmapPacker.  As packing is not free, the result is
+ * saved to local storage, together with a signature of the source images.  As long
+ * as the signature matches, later loads read the cached pages instead of packing.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.*;
+import com.badlogic.gdx.assets.loaders.*;
+import com.badlogic.gdx.assets.loaders.resolvers.*;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.PixmapPackerIO;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.io.IOException;
+
+/**
+ * This class is an {@link AssetLoader} to load {@link PackedAtlas} assets.
+ *
+ * The file name of a packed atlas is the location of its cache, relative to local
+ * storage.  The images to pack are given by the parameters, and are resolved with
+ * the file resolver of this loader.  The cache consists of an atlas file, its page
+ * images, and a signature file with the same name as the atlas and the suffix
+ * {@link #SIGNATURE}.
+ */
+public class PackedAtlasLoader extends AsynchronousAssetLoader<PackedAtlas, PackedAtlasLoader.PackedAtlasParameters> {
+    /** The suffix of the signature file for a cached atlas */
+    public static final String SIGNATURE = ".sig";
+    /** The version of the cache format; change this to invalidate old caches */
+    private static final int VERSION = 1;
+
+    /** A reference to the file handle resolver (inaccessible in parent class) */
+    protected FileHandleResolver resolver;
+    /** The packed images, if the atlas was not cached */
+    private PixmapPacker cachedPacker;
+    /** The cached atlas data, if the atlas was cached */
+    private TextureAtlas.TextureAtlasData cachedData;
+    /** The prepared page images for the cached atlas data */
+    private Array<TextureData> cachedPages;
+
+    /**
+     * The definable parameters for a {@link PackedAtlas}.
+     *
+     * The images are listed by directory key and file name.  Film strips are defined
+     * as with {@link FilmStripLoader.FilmStripParameters}, except that the source is
+     * the directory key of an image in this atlas.
+     */
+    public static class PackedAtlasParameters extends AssetLoaderParameters<PackedAtlas> {
+        /** The directory keys of the images to pack */
+        public Array<String> keys = new Array<String>();
+        /** The files of the images to pack (parallel to keys) */
+        public Array<String> files = new Array<String>();
+        /** The film strips in this atlas, indexed by directory key */
+        public ObjectMap<String, FilmStripLoader.FilmStripParameters> strips = new ObjectMap<String, FilmStripLoader.FilmStripParameters>();
+        /** The width and height of an atlas page */
+        public int pageSize = 1024;
+        /** The padding between images in a page */
+        public int padding  = 2;
+        /** Whether to duplicate the image borders into the padding */
+        public boolean duplicateBorder = false;
+        /** The pixel format of the atlas pages */
+        public Pixmap.Format format = Pixmap.Format.RGBA8888;
+        /** Whether to generate mipmaps for the atlas pages */
+        public boolean genMipMaps = false;
+        /** The minification filter of the atlas pages */
+        public Texture.TextureFilter minFilter = Texture.TextureFilter.Linear;
+        /** The magnification filter of the atlas pages */
+        public Texture.TextureFilter magFilter = Texture.TextureFilter.Linear;
+
+        /**
+         * Adds an image to this atlas definition.
+         *
+         * @param key   The directory key of the image
+         * @param file  The file of the image
+         */
+        public void add(String key, String file) {
+            keys.add( key );
+            files.add( file );
+        }
+    }
+
+    /**
+     * Creates a new PackedAtlasLoader with an internal file resolver
+     */
+    public PackedAtlasLoader() {
+        this(new InternalFileHandleResolver());
+    }
+
+    /**
+     * Creates a new PackedAtlasLoader with the given file resolver
+     *
+     * The resolver is used for the source images.  The cache is always in local
+     * storage.
+     *
+     * @param resolver    The file resolver
+     */
+    public PackedAtlasLoader (FileHandleResolver resolver) {
+        super(resolver);
+        this.resolver = resolver;
+    }
+
+    /**
+     * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
+     *
+     * This is used to load non-OpenGL parts of the asset that do not require the context
+     * of the main thread.  If the cache is valid, this reads the cached pages.  Otherwise,
+     * it packs the source images and saves the result to the cache.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, PackedAtlasParameters params) {
+        if (params == null) {
+            throw new GdxRuntimeException( "Packed atlas "+fileName+" has no images" );
+        }
+        String signature = signature( params );
+        FileHandle sigfile = file.sibling( file.name()+SIGNATURE );
+        if (file.exists() && sigfile.exists() && signature.equals( sigfile.readString() )) {
+            try {
+                readCache( file, params );
+                return;
+            } catch (GdxRuntimeException e) {
+                // Cache is corrupt; fall through and repack
+                cachedData = null;
+                cachedPages = null;
+            }
+        }
+
+        cachedPacker = pack( manager, params );
+        try {
+            PixmapPackerIO.SaveParameters save = new PixmapPackerIO.SaveParameters();
+            save.format = PixmapPackerIO.ImageFormat.PNG;
+            save.minFilter = params.minFilter;
+            save.magFilter = params.magFilter;
+            new PixmapPackerIO().save( file, cachedPacker, save );
+            sigfile.writeString( signature, false );
+        } catch (IOException e) {
+            Gdx.app.error( "PackedAtlasLoader", "Could not cache atlas "+fileName, e );
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error( "PackedAtlasLoader", "Could not cache atlas "+fileName, e );
+        }
+    }
+
+    /**
+     * Loads the main thread part of the asset.
+     *
+     * This is used to load OpenGL parts of the asset that require the context of the
+     * main thread.  This creates the page textures and indexes the atlas regions.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public PackedAtlas loadSync(AssetManager manager, String fileName, FileHandle file, PackedAtlasParameters params) {
+        PackedAtlas atlas;
+        if (cachedData != null) {
+            for(int ii = 0; ii < cachedPages.size; ii++) {
+                cachedData.getPages().get( ii ).texture = new Texture( cachedPages.get( ii ) );
+            }
+            atlas = new PackedAtlas( cachedData );
+            cachedData = null;
+            cachedPages = null;
+        } else {
+            atlas = new PackedAtlas();
+            cachedPacker.updateTextureAtlas( atlas, params.minFilter, params.magFilter, params.genMipMaps );
+            cachedPacker.dispose();
+            cachedPacker = null;
+        }
+        atlas.index( params );
+        return atlas;
+    }
+
+    /**
+     * Resolves the file for this atlas.
+     *
+     * The file name of a packed atlas is the location of its cache in local storage.
+     *
+     * @param fileName  The file name to resolve
+     *
+     * @return handle to the file in local storage.
+     */
+    @Override
+    public FileHandle resolve (String fileName) {
+        return Gdx.files.local( fileName );
+    }
+
+    /**
+     * Returns the other assets this asset requires to be loaded first.
+     *
+     * This method may be called on a thread other than the GL thread. It may return
+     * null if there are no dependencies.
+     *
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params parameters for loading the asset
+     *
+     * @return the other assets this asset requires to be loaded first.
+     */
+    @Override
+    public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, PackedAtlasParameters params) {
+        return null;
+    }
+
+    /**
+     * Returns a new packer containing all of the images in the atlas definition
+     *
+     * The images are packed tallest first, which wastes less space in each page.
+     * If the manager has a {@link ParallelDecoder}, the images are decoded on its
+     * worker threads.
+     *
+     * @param manager   The asset manager
+     * @param params    The atlas definition
+     *
+     * @return a new packer containing all of the images in the atlas definition
+     */
+    private PixmapPacker pack(AssetManager manager, PackedAtlasParameters params) {
+        PixmapPacker packer = new PixmapPacker( params.pageSize, params.pageSize, params.format,
+                                                params.padding, params.duplicateBorder,
+                                                new PixmapPacker.SkylineStrategy() );
+        ParallelDecoder decoder = ParallelDecoder.of( manager );
+        final Pixmap[] images;
+        if (decoder != null) {
+            images = decoder.decodePixmaps( params.files );
+        } else {
+            images = new Pixmap[params.files.size];
+            for(int ii = 0; ii < images.length; ii++) {
+                images[ii] = new Pixmap( resolver.resolve( params.files.get( ii ) ) );
+            }
+        }
+        Integer[] order = new Integer[images.length];
+        for(int ii = 0; ii < images.length; ii++) {
+            order[ii] = ii;
+        }
+        java.util.Arrays.sort( order, new java.util.Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return images[b].getHeight()-images[a].getHeight();
+            }
+        } );
+        for(int ii = 0; ii < order.length; ii++) {
+            int index = order[ii];
+            if (images[index].getWidth() > params.pageSize || images[index].getHeight() > params.pageSize) {
+                throw new GdxRuntimeException( "Image "+params.files.get( index )+" is larger than the atlas page" );
+            }
+            packer.pack( PackedAtlas.regionName( index ), images[index] );
+            images[index].dispose();
+        }
+        return packer;
+    }
+
+    /**
+     * Reads the cached atlas data and page images
+     *
+     * The page images are decoded here so that only the texture upload is left for
+     * the main thread.
+     *
+     * @param file      The cached atlas file
+     * @param params    The atlas definition
+     */
+    private void readCache(FileHandle file, PackedAtlasParameters params) {
+        cachedData = new TextureAtlas.TextureAtlasData( file, file.parent(), false );
+        cachedPages = new Array<TextureData>( cachedData.getPages().size );
+        for(TextureAtlas.TextureAtlasData.Page page : cachedData.getPages()) {
+            TextureData data = TextureData.Factory.loadFromFile( page.textureFile, page.format, page.useMipMaps );
+            if (!data.isPrepared()) {
+                data.prepare();
+            }
+            cachedPages.add( data );
+        }
+    }
+
+    /**
+     * Returns the signature of the atlas definition
+     *
+     * The signature identifies the source images (by name, size, and modification
+     * time) together with the packing settings. If any of these change, the cached
+     * atlas is no longer valid.
+     *
+     * @param params    The atlas definition
+     *
+     * @return the signature of the atlas definition
+     */
+    private String signature(PackedAtlasParameters params) {
+        StringBuilder result = new StringBuilder();
+        result.append( "version " ).append( VERSION ).append( '\n' );
+        result.append( "page " ).append( params.pageSize ).append( ' ' ).append( params.format ).append( '\n' );
+        result.append( "padding " ).append( params.padding ).append( ' ' ).append( params.duplicateBorder ).append( '\n' );
+        result.append( "filter " ).append( params.minFilter ).append( ' ' ).append( params.magFilter );
+        result.append( ' ' ).append( params.genMipMaps ).append( '\n' );
+        for(int ii = 0; ii < params.files.size; ii++) {
+            FileHandle source = resolver.resolve( params.files.get( ii ) );
+            result.append( params.files.get( ii ) ).append( ' ' ).append( source.length() );
+            result.append( ' ' ).append( source.lastModified() ).append( '\n' );
+        }
+        return result.toString();
+    }
+}
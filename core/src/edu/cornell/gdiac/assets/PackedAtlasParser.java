@@ -0,0 +1,154 @@
+/*
+ * PackedAtlasParser.java
+ *
+ * This is an interface for parsing a JSON entry into a PackedAtlas. It allows you to
+ * list small textures (and their film strips) in the directory as usual, but have
+ * them packed together into shared pages at load time.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * This class parses a JSON entry into a {@link PackedAtlas}.
+ *
+ * Atlases are defined in the "atlas" section of the directory.  Each atlas has the
+ * following entries:
+ *
+ * * "textures": The images to pack, in the same format as {@link TextureParser}
+ * * "size": The width and height of an atlas page
+ * * "padding": The number of pixels between images
+ * * "border": Whether to duplicate the image borders into the padding
+ * * "cache": The location of the cached atlas in local storage
+ *
+ * In addition, an atlas may specify "mipmaps", "minFilter", "magFilter", and "alpha"
+ * as in {@link TextureParser}.  These apply to every page of the atlas, as do the
+ * wrap settings (which are always clamped).  Film strips are defined inside of the
+ * texture entries exactly as they are for {@link FilmStripParser}.
+ *
+ * The images are NOT available as {@link Texture} assets. Instead, use the texture
+ * key to get a {@link com.badlogic.gdx.graphics.g2d.TextureRegion} and the sprite
+ * key to get a {@link edu.cornell.gdiac.util.FilmStrip}.
+ */
+public class PackedAtlasParser implements AssetParser<PackedAtlas> {
+    /** The current atlas entry in the JSON directory */
+    private JsonValue root;
+
+    /**
+     * Returns the asset type generated by this parser
+     *
+     * @return the asset type generated by this parser
+     */
+    public Class<PackedAtlas> getType() {
+        return PackedAtlas.class;
+    }
+
+    /**
+     * Resets the parser iterator for the given directory.
+     *
+     * The value directory is assumed to be the root of a larger JSON structure.
+     * The individual assets are defined by subtrees in this structure.
+     *
+     * @param directory    The JSON representation of the asset directory
+     */
+    public void reset(JsonValue directory) {
+        root = directory;
+        root = root.getChild( "atlas" );
+    }
+
+    /**
+     * Returns true if there are still assets left to generate
+     *
+     * @return true if there are still assets left to generate
+     */
+    public boolean hasNext() {
+        return root != null;
+    }
+
+    /**
+     * Processes the next available atlas, loading it into the asset manager
+     *
+     * The parser converts JSON entries into {@link PackedAtlasLoader.PackedAtlasParameters}
+     * values.  The file will be the contents of the cache entry, or the atlas key
+     * (made file safe) in the "cache" folder if there is no such entry.
+     *
+     * This method fails silently if there are no available assets to process.
+     *
+     * @param manager   The asset manager to load an asset
+     * @param keymap    The mapping of JSON keys to asset file names
+     */
+    public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
+        PackedAtlasLoader.PackedAtlasParameters params = new PackedAtlasLoader.PackedAtlasParameters();
+        params.pageSize = root.getInt( "size", 1024 );
+        params.padding  = root.getInt( "padding", 2 );
+        params.duplicateBorder = root.getBoolean( "border", false );
+        params.genMipMaps = root.getBoolean( "mipmaps", false );
+        params.minFilter = ParserUtils.parseFilter( root.get( "minFilter" ), Texture.TextureFilter.Linear );
+        params.magFilter = ParserUtils.parseFilter( root.get( "magFilter" ), Texture.TextureFilter.Linear );
+        params.format = root.getBoolean( "alpha", true ) ? Pixmap.Format.RGBA8888 : Pixmap.Format.RGB888;
+
+        JsonValue texture = root.getChild( "textures" );
+        while (texture != null) {
+            String file = texture.isString() ? texture.asString() : texture.getString( "file", null );
+            if (file != null) {
+                params.add( texture.name(), file );
+                JsonValue sprite = texture.isString() ? null : texture.getChild( "sprites" );
+                while (sprite != null) {
+                    params.strips.put( texture.name()+"."+sprite.name(), parseSprite( texture.name(), sprite ) );
+                    sprite = sprite.next();
+                }
+            }
+            texture = texture.next();
+        }
+
+        String file = root.getString( "cache", "cache/"+root.name().replace( ':', '_' )+".atlas" );
+        keymap.put( root.name(), file );
+        manager.load( file, PackedAtlas.class, params );
+        root = root.next();
+    }
+
+    /**
+     * Returns true if o is another PackedAtlasParser
+     *
+     * @return true if o is another PackedAtlasParser
+     */
+    public boolean equals(Object o) {
+        return o instanceof PackedAtlasParser;
+    }
+
+    /**
+     * Returns the film strip parameters for the given sprite entry
+     *
+     * @param source    The directory key of the parent texture
+     * @param sprite    The sprite entry in the JSON directory
+     *
+     * @return the film strip parameters for the given sprite entry
+     */
+    private FilmStripLoader.FilmStripParameters parseSprite(String source, JsonValue sprite) {
+        FilmStripLoader.FilmStripParameters params = new FilmStripLoader.FilmStripParameters(source);
+        params.rows = sprite.getInt("rows", 1);
+        params.cols = sprite.getInt("cols",1);
+        params.size = sprite.getInt("size", params.rows*params.cols);
+        if (sprite.hasChild( "region" )) {
+            JsonValue region = sprite.get("region");
+            if (region.size < 4) {
+                throw new GdxRuntimeException( "Rectangle "+region+" is not valid");
+            }
+            params.x = region.getInt(0);
+            params.y = region.getInt(1);
+            params.width  = region.getInt(2);
+            params.height = region.getInt(3);
+            params.width = params.width == -1 ? -1 : params.width-params.x;
+            params.height = params.height == -1 ? -1 : params.height-params.y;
+        }
+        return params;
+    }
+}
@@ -0,0 +1,664 @@
+/*
+ * ParallelDecoder.java
+ *
+ * An AssetManager loads one asset at a time on a single background thread.  That is
+ * fine for a handful of assets, but with hundreds of images and sounds the loading
+ * screen is limited by how fast one core can decode files.  This class decodes the
+ * CPU side of assets (image pixels, audio samples, JSON trees) on a pool of worker
+ * threads as soon as the assets are queued.  The loaders then pick up the decoded
+ * data instead of reading the files themselves.  Only the upload to the graphics
+ * card is left for the main thread, which is where it must happen anyway.
+ *
+ * @author agent
+ * @date   10/17/2026
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import edu.cornell.gdiac.audio.AudioEngine;
+import edu.cornell.gdiac.audio.AudioSource;
+import edu.cornell.gdiac.audio.SoundEffect;
+
+/**
+ * This class decodes assets ahead of an {@link AssetManager} on a pool of threads.
+ *
+ * An {@link AssetDirectory} with parallel loading enabled submits every asset to
+ * this decoder when it is queued.  The supported types are {@link Texture},
+ * {@link JsonValue}, {@link AudioSource} and {@link SoundEffect}.  Other types
+ * are loaded by the asset manager as usual.
+ *
+ * Textures are decoded into the {@link TextureData} of their loader parameters, so
+ * the standard {@link TextureLoader} uploads them without reading the file.  The
+ * other loaders in this package call {@link #take} to get their decoded asset.  If
+ * a decode fails, the loader falls back to loading the file itself, which reports
+ * the error as usual.
+ *
+ * Every decode is timed.  The timings show how long each asset took on a worker
+ * thread, and how long the asset manager had to wait for it.
+ */
+public class ParallelDecoder implements Disposable {
+
+    /**
+     * The timing statistics for a single decoded asset
+     */
+    public static class Timing {
+        /** The asset file name */
+        public final String fileName;
+        /** The asset type */
+        public final Class<?> type;
+        /** The time spent decoding on a worker thread, in nanoseconds */
+        public long decode;
+        /** The time the asset manager waited for the decode, in nanoseconds */
+        public long wait;
+
+        /**
+         * Creates the timing statistics for the given asset
+         *
+         * @param fileName  The asset file name
+         * @param type      The asset type
+         */
+        public Timing(String fileName, Class<?> type) {
+            this.fileName = fileName;
+            this.type = type;
+        }
+    }
+
+    /**
+     * A submitted decode that has not been picked up by a loader
+     */
+    private static class Entry {
+        /** The asset type */
+        Class<?> type;
+        /** The decoded asset (or null for textures) */
+        AsyncResult<?> result;
+        /** The audio source of a sound effect (null for other types) */
+        AsyncResult<AudioSource> source;
+        /** The texture data of a texture (null for other types) */
+        TextureData data;
+        /** The timing statistics */
+        Timing timing;
+        /** Whether the texture data was used or discarded (guarded by this entry) */
+        boolean taken;
+    }
+
+    /** The resolver (converting strings to file handles) */
+    private FileHandleResolver resolver;
+    /** The worker threads */
+    private AsyncExecutor executor;
+    /** The number of worker threads */
+    private int workers;
+    /** The decodes not yet picked up, indexed by file name */
+    private ObjectMap<String, Entry> pending;
+    /** The timing statistics of every decode */
+    private Array<Timing> timings;
+
+    /**
+     * Creates a new decoder with the given number of worker threads.
+     *
+     * @param resolver  The resolver for asset file names
+     * @param workers   The number of worker threads
+     */
+    public ParallelDecoder(FileHandleResolver resolver, int workers) {
+        if (workers < 1) {
+            throw new GdxRuntimeException( "A parallel decoder needs at least one worker" );
+        }
+        this.resolver = resolver;
+        this.workers = workers;
+        executor = new AsyncExecutor( workers, "ParallelDecoder" );
+        pending = new ObjectMap<String, Entry>();
+        timings = new Array<Timing>();
+    }
+
+    /**
+     * Returns the decoder of the given asset manager (null if there is none)
+     *
+     * A manager only has a decoder if it is an {@link AssetDirectory} with parallel
+     * loading enabled.
+     *
+     * @param manager   The asset manager
+     *
+     * @return the decoder of the given asset manager
+     */
+    static ParallelDecoder of(AssetManager manager) {
+        return manager instanceof AssetDirectory ? ((AssetDirectory)manager).getDecoder() : null;
+    }
+
+    /**
+     * Returns the number of worker threads
+     *
+     * @return the number of worker threads
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Returns the timing statistics of every decode so far
+     *
+     * A timing is only complete once its asset is loaded.
+     *
+     * @return the timing statistics of every decode so far
+     */
+    public synchronized Array<Timing> getTimings() {
+        return new Array<Timing>( timings );
+    }
+
+    /**
+     * Starts decoding the given asset, if its type is supported.
+     *
+     * This method is called when an asset is queued.  A texture is only decoded
+     * if it has loader parameters without texture data, as the decoded data is
+     * returned in those parameters.  An asset already submitted is ignored.
+     *
+     * @param manager   The asset manager queueing the asset
+     * @param fileName  The asset file name
+     * @param type      The asset type
+     * @param params    The loader parameters (may be null)
+     *
+     * @return true if the asset is being decoded
+     */
+    public synchronized boolean submit(AssetManager manager, String fileName, Class<?> type, AssetLoaderParameters<?> params) {
+        if (pending.containsKey( fileName )) {
+            return false;
+        }
+        if (type == Texture.class) {
+            return submitTexture( manager, fileName, (TextureLoader.TextureParameter)params );
+        } else if (type == JsonValue.class) {
+            return submitJson( manager, fileName );
+        } else if (type == AudioSource.class) {
+            return submitSource( fileName ) != null;
+        } else if (type == SoundEffect.class) {
+            return submitSound( manager, fileName );
+        }
+        return false;
+    }
+
+    /**
+     * Returns the decoded asset for the given file, waiting for it if necessary
+     *
+     * This method returns null if the asset was not submitted, or if the decode
+     * failed.  In that case the loader should load the file itself.  A decoded
+     * asset can only be taken once.
+     *
+     * @param fileName  The asset file name
+     * @param type      The asset type
+     *
+     * @return the decoded asset for the given file
+     */
+    public <T> T take(String fileName, Class<T> type) {
+        Entry entry;
+        synchronized (this) {
+            entry = pending.get( fileName );
+            if (entry == null || entry.type != type || entry.result == null) {
+                return null;
+            }
+            pending.remove( fileName );
+        }
+        return type.cast( await( entry, entry.result ) );
+    }
+
+    /**
+     * Returns the decoded sound effect for the given file, waiting for it if necessary
+     *
+     * A sound effect is decoded from a specific audio source.  If that is not the
+     * source that was loaded, the decoded effect is discarded and this method
+     * returns null.
+     *
+     * @param fileName  The asset file name
+     * @param source    The loaded audio source of the effect
+     *
+     * @return the decoded sound effect for the given file
+     */
+    public SoundEffect takeSound(String fileName, AudioSource source) {
+        Entry entry;
+        synchronized (this) {
+            entry = pending.get( fileName );
+            if (entry == null || entry.type != SoundEffect.class) {
+                return null;
+            }
+            pending.remove( fileName );
+        }
+        SoundEffect sound = (SoundEffect)await( entry, entry.result );
+        if (sound != null && await( entry, entry.source ) != source) {
+            sound.dispose();
+            sound = null;
+        }
+        return sound;
+    }
+
+    /**
+     * Decodes the given image files on the worker threads.
+     *
+     * This method blocks until every image is decoded.  It is intended for loaders
+     * that combine many images into one asset, such as {@link PackedAtlasLoader}.
+     * If any image fails to decode, the others are disposed and the error is
+     * rethrown.
+     *
+     * @param files The image file names
+     *
+     * @return the decoded images, in the same order as the files
+     */
+    public Pixmap[] decodePixmaps(Array<String> files) {
+        Array<AsyncResult<Pixmap>> results = new Array<AsyncResult<Pixmap>>( files.size );
+        Timing[] times = new Timing[files.size];
+        synchronized (this) {
+            for(int ii = 0; ii < files.size; ii++) {
+                final String file = files.get( ii );
+                final Timing timing = new Timing( file, Pixmap.class );
+                times[ii] = timing;
+                timings.add( timing );
+                results.add( executor.submit( new AsyncTask<Pixmap>() {
+                    public Pixmap call() {
+                        long start = System.nanoTime();
+                        Pixmap pixmap = new Pixmap( resolver.resolve( file ) );
+                        timing.decode = System.nanoTime()-start;
+                        return pixmap;
+                    }
+                } ) );
+            }
+        }
+
+        Pixmap[] images = new Pixmap[files.size];
+        GdxRuntimeException error = null;
+        for(int ii = 0; ii < images.length; ii++) {
+            long start = System.nanoTime();
+            try {
+                images[ii] = results.get( ii ).get();
+            } catch (GdxRuntimeException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            times[ii].wait = System.nanoTime()-start;
+        }
+        if (error != null) {
+            for(Pixmap image : images) {
+                if (image != null) {
+                    image.dispose();
+                }
+            }
+            throw error;
+        }
+        return images;
+    }
+
+    /**
+     * Logs the timing statistics of every decode so far.
+     *
+     * The statistics are logged at the debug level, so they are only shown if the
+     * application log level is {@link com.badlogic.gdx.Application#LOG_DEBUG}.
+     * Each asset is listed with its decode time and wait time in milliseconds,
+     * followed by the totals.  When the total decode time is much larger than the
+     * total wait time, the worker threads are doing their job.
+     */
+    public void logTimings() {
+        Array<Timing> copy = getTimings();
+        long decode = 0;
+        long wait = 0;
+        for(Timing timing : copy) {
+            Gdx.app.debug( "ParallelDecoder", String.format( "%s (%s): decode %.2f ms, wait %.2f ms",
+                         timing.fileName, timing.type.getSimpleName(), timing.decode/1.0e6, timing.wait/1.0e6 ) );
+            decode += timing.decode;
+            wait += timing.wait;
+        }
+        Gdx.app.debug( "ParallelDecoder", String.format( "%d assets on %d workers: decode %.2f ms, wait %.2f ms",
+                     copy.size, workers, decode/1.0e6, wait/1.0e6 ) );
+    }
+
+    /**
+     * Discards every decoded asset that has not been taken.
+     *
+     * This should be called after the asset manager is cleared, as queued assets
+     * will never pick up their decoded data.
+     */
+    public void clear() {
+        Array<Entry> entries;
+        synchronized (this) {
+            entries = pending.values().toArray();
+            pending.clear();
+        }
+        for(Entry entry : entries) {
+            discard( entry );
+        }
+    }
+
+    /**
+     * Discards the decoded asset for the given file, if it has not been taken.
+     *
+     * This should be called when an asset is unloaded before its loader picked up
+     * the decoded data, or when a prefetched asset will not be loaded after all.
+     * Otherwise the decoded data stays in memory until the decoder is cleared.
+     *
+     * @param fileName  The asset file name
+     */
+    public void discard(String fileName) {
+        Entry entry;
+        synchronized (this) {
+            entry = pending.remove( fileName );
+        }
+        if (entry != null) {
+            discard( entry );
+        }
+    }
+
+    /**
+     * Discards any decoded assets and stops the worker threads.
+     */
+    public void dispose() {
+        clear();
+        executor.dispose();
+    }
+
+    /**
+     * Disposes of the decoded asset of the given entry, waiting for it if necessary
+     *
+     * The entry must already be removed from the pending decodes.
+     *
+     * @param entry     The submitted decode
+     */
+    private void discard(Entry entry) {
+        if (entry.data != null) {
+            synchronized (entry) {
+                if (!entry.taken) {
+                    entry.taken = true;
+                    if (await( entry, entry.result ) != null && entry.data.disposePixmap()) {
+                        entry.data.consumePixmap().dispose();
+                    }
+                }
+            }
+        } else if (entry.result != null) {
+            Object asset = await( entry, entry.result );
+            if (asset instanceof Disposable) {
+                ((Disposable)asset).dispose();
+            }
+        }
+    }
+
+    /**
+     * Returns the result of a decode, adding the wait to the timing statistics
+     *
+     * This method returns null if the decode failed.
+     *
+     * @param entry     The submitted decode
+     * @param result    The result to wait for
+     *
+     * @return the result of a decode
+     */
+    private Object await(Entry entry, AsyncResult<?> result) {
+        long start = System.nanoTime();
+        try {
+            return result.get();
+        } catch (GdxRuntimeException e) {
+            return null;
+        } finally {
+            entry.timing.wait += System.nanoTime()-start;
+        }
+    }
+
+    /**
+     * Returns a new entry for the given asset, with its timing statistics
+     *
+     * @param fileName  The asset file name
+     * @param type      The asset type
+     *
+     * @return a new entry for the given asset
+     */
+    private Entry createEntry(String fileName, Class<?> type) {
+        Entry entry = new Entry();
+        entry.type = type;
+        entry.timing = new Timing( fileName, type );
+        timings.add( entry.timing );
+        pending.put( fileName, entry );
+        return entry;
+    }
+
+    /**
+     * Starts decoding the given texture into its loader parameters
+     *
+     * If the manager has an {@link AssetCache}, the texture is read from the cache.
+     *
+     * @param manager   The asset manager queueing the texture
+     * @param fileName  The texture file name
+     * @param params    The texture loader parameters
+     *
+     * @return true if the texture is being decoded
+     */
+    private boolean submitTexture(AssetManager manager, final String fileName, TextureLoader.TextureParameter params) {
+        if (params == null || params.textureData != null) {
+            return false;
+        }
+        final Entry entry = createEntry( fileName, Texture.class );
+        AssetCache cache = AssetCache.of( manager );
+        if (cache != null) {
+            entry.data = cache.getTextureData( resolver.resolve( fileName ), params.format, params.genMipMaps );
+        } else {
+            entry.data = TextureData.Factory.loadFromFile( resolver.resolve( fileName ), params.format, params.genMipMaps );
+        }
+        entry.result = executor.submit( new AsyncTask<TextureData>() {
+            public TextureData call() {
+                long start = System.nanoTime();
+                if (!entry.data.isPrepared()) {
+                    entry.data.prepare();
+                }
+                entry.timing.decode = System.nanoTime()-start;
+                return entry.data;
+            }
+        } );
+        params.textureData = new DecodedTextureData( fileName, entry );
+        return true;
+    }
+
+    /**
+     * Starts parsing the given JSON file
+     *
+     * If the manager has an {@link AssetCache}, the file is read from the cache.
+     *
+     * @param manager   The asset manager queueing the file
+     * @param fileName  The JSON file name
+     *
+     * @return true if the file is being parsed
+     */
+    private boolean submitJson(AssetManager manager, final String fileName) {
+        final Entry entry = createEntry( fileName, JsonValue.class );
+        final AssetCache cache = AssetCache.of( manager );
+        entry.result = executor.submit( new AsyncTask<JsonValue>() {
+            public JsonValue call() {
+                long start = System.nanoTime();
+                FileHandle file = resolver.resolve( fileName );
+                JsonValue json = cache != null ? cache.readJson( file ) : new JsonReader().parse( file );
+                entry.timing.decode = System.nanoTime()-start;
+                return json;
+            }
+        } );
+        return true;
+    }
+
+    /**
+     * Starts reading the given audio source
+     *
+     * This method returns null if the audio engine does not support sources.
+     *
+     * @param fileName  The audio file name
+     *
+     * @return the audio source being read
+     */
+    @SuppressWarnings("unchecked")
+    private AsyncResult<AudioSource> submitSource(final String fileName) {
+        Entry entry = pending.get( fileName );
+        if (entry != null) {
+            return entry.type == AudioSource.class ? (AsyncResult<AudioSource>)entry.result : null;
+        }
+        if (!(Gdx.audio instanceof AudioEngine)) {
+            return null;
+        }
+        final Entry created = createEntry( fileName, AudioSource.class );
+        AsyncResult<AudioSource> result = executor.submit( new AsyncTask<AudioSource>() {
+            public AudioSource call() {
+                long start = System.nanoTime();
+                AudioSource source = ((AudioEngine)Gdx.audio).newSource( resolver.resolve( fileName ) );
+                created.timing.decode = System.nanoTime()-start;
+                return source;
+            }
+        } );
+        created.result = result;
+        return result;
+    }
+
+    /**
+     * Starts decoding the given sound effect
+     *
+     * A sound effect is decoded from its audio source, which is read first.  The
+     * effect is not decoded if its source is already loaded, as the worker threads
+     * may not access the asset manager.
+     *
+     * @param manager   The asset manager queueing the effect
+     * @param fileName  The sound effect file name (ending in :alias)
+     *
+     * @return true if the sound effect is being decoded
+     */
+    private boolean submitSound(AssetManager manager, String fileName) {
+        int suffix = fileName.lastIndexOf( ':' );
+        if (suffix == -1) {
+            return false;
+        }
+        String prefix = fileName.substring( 0, suffix );
+        if (manager.isLoaded( prefix, AudioSource.class )) {
+            return false;
+        }
+        final AsyncResult<AudioSource> source = submitSource( prefix );
+        if (source == null) {
+            return false;
+        }
+
+        // The source is queued first, so it is decoding (or done) when this task starts
+        final Entry entry = createEntry( fileName, SoundEffect.class );
+        entry.source = source;
+        entry.result = executor.submit( new AsyncTask<SoundEffect>() {
+            public SoundEffect call() {
+                long start = System.nanoTime();
+                SoundEffect sound = ((AudioEngine)Gdx.audio).newSoundBuffer( source.get() );
+                entry.timing.decode = System.nanoTime()-start;
+                return sound;
+            }
+        } );
+        return true;
+    }
+
+    /**
+     * Texture data decoded on a worker thread.
+     *
+     * The first call to {@link #prepare} waits for the worker thread instead of
+     * decoding the file.  Later calls (e.g. when the OpenGL context is lost) decode
+     * the file as usual.
+     */
+    private class DecodedTextureData implements TextureData {
+        /** The texture file name */
+        private final String fileName;
+        /** The submitted decode (null once taken) */
+        private Entry entry;
+        /** The texture data being decoded */
+        private final TextureData data;
+
+        /**
+         * Creates texture data for the given submitted decode
+         *
+         * @param fileName  The texture file name
+         * @param entry     The submitted decode
+         */
+        DecodedTextureData(String fileName, Entry entry) {
+            this.fileName = fileName;
+            this.entry = entry;
+            this.data = entry.data;
+        }
+
+        @Override
+        public TextureDataType getType() {
+            return data.getType();
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return entry == null && data.isPrepared();
+        }
+
+        @Override
+        public void prepare() {
+            if (entry != null) {
+                Entry current = entry;
+                entry = null;
+                synchronized (current) {
+                    // The decoder may have discarded the data if it was cleared
+                    if (!current.taken) {
+                        current.taken = true;
+                        synchronized (ParallelDecoder.this) {
+                            if (pending.get( fileName ) == current) {
+                                pending.remove( fileName );
+                            }
+                        }
+                        if (await( current, current.result ) != null) {
+                            return;
+                        }
+                    }
+                }
+            }
+            data.prepare();
+        }
+
+        @Override
+        public Pixmap consumePixmap() {
+            return data.consumePixmap();
+        }
+
+        @Override
+        public boolean disposePixmap() {
+            return data.disposePixmap();
+        }
+
+        @Override
+        public void consumeCustomData(int target) {
+            data.consumeCustomData( target );
+        }
+
+        @Override
+        public int getWidth() {
+            return data.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return data.getHeight();
+        }
+
+        @Override
+        public Pixmap.Format getFormat() {
+            return data.getFormat();
+        }
+
+        @Override
+        public boolean useMipMaps() {
+            return data.useMipMaps();
+        }
+
+        @Override
+        public boolean isManaged() {
+            return data.isManaged();
+        }
+    }
+}
@@ -2,9 +2,14 @@
  * ResourceManager.java
  *
  * This module provides a general resource manager singleton.  Resources are like
- * assets in that we are likely to need them all over the application.  And like 
- * assets, they need to be properly disposed of. But unlike assets, these can be 
- * created programatically. 
+ * assets in that we are likely to need them all over the application.  And like
+ * assets, they need to be properly disposed of. But unlike assets, these can be
+ * created programatically.
+ *
+ * Resources are reference counted.  Once nobody holds a resource, it stays cached
+ * until the manager goes over its memory budget, at which point the least recently
+ * used resources are evicted.  This way a level transition frees the memory of the
+ * old level without having to list every resource it used.
  *
  * This code is heavily adapted from AssetManager by mzechner
  *
@@ -13,39 +18,130 @@
  */
 package edu.cornell.gdiac.assets;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.GdxRuntimeException;
-import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.gdiac.audio.AudioSource;
+import edu.cornell.gdiac.audio.SoundBuffer;
+import edu.cornell.gdiac.audio.SoundEffect;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class provides a singleton for managing heavyweight resources
  *
- * This class is heavily based on asset manager.  The primary differences are that 
+ * This class is heavily based on asset manager.  The primary differences are that
  * (1) it is a singleton (so that it can be easily accessed anywhere in the game, and
- * (2) the resources are not loaded from a file.  Effectively, this is a singleton 
+ * (2) the resources are not loaded from a file.  Effectively, this is a singleton
  * hashtable that allows us to have thread-safe global variables in our application.
  *
  * The primary use of this class is to store parts of our graphics pipeline (shaders,
- * vertex buffers, sprite batches) that will be needed everywhere.  They can be 
+ * vertex buffers, sprite batches) that will be needed everywhere.  They can be
  * generated in a loading or splash screen and then used globally.  However, it is
  * also useful for storing other features as well.  If you have only one AssetManager,
  * you can even store that in this class.
  *
- * resources stored in this resource manager are heavyweight in the sense that they 
- * must be actively disposed (we cannot just rely on the garbage collector).  Such 
- * classes must implement {@link Disposable}. When an resource is added to the manager, 
- * the manager becomes the resource owner of that resource, and will be responsible for 
- * disposing of it. All references to the object outside of the reference manager 
+ * resources stored in this resource manager are heavyweight in the sense that they
+ * must be actively disposed (we cannot just rely on the garbage collector).  Such
+ * classes must implement {@link Disposable}. When an resource is added to the manager,
+ * the manager becomes the resource owner of that resource, and will be responsible for
+ * disposing of it. All references to the object outside of the reference manager
  * will be essentially weak references (in the C++ sense).
+ *
+ * Every resource has a reference count.  Adding a resource gives the caller the
+ * first reference, {@link #acquire} adds another and {@link #release} gives one
+ * back.  A resource with no references is not disposed right away.  It is kept in
+ * case it is needed again, but it may be evicted (least recently used first) when
+ * the manager is over its memory budget.  A resource that is never released is
+ * never evicted, so code that only uses {@link #add} and {@link #get} behaves as
+ * before.
+ *
+ * The manager keeps track of the memory used by each resource type.  The size of
+ * textures, atlases, pixmaps, frame buffers and audio samples is estimated when
+ * they are added.  The size of any other resource must be given to {@link #add}.
+ *
+ * The resources are stored in concurrent maps, so background loaders and the main
+ * thread do not contend for a single lock.  As resources may have OpenGL or OpenAL
+ * state, evicted resources are not disposed on the thread that evicted them.  They
+ * are disposed the next time {@link #update} is called on the main thread.
  */
 public class ResourceManager {
+    /** The default memory budget in bytes (0 for no limit) */
+    public static final long DEFAULT_BUDGET = 0;
+
+    /**
+     * A resource in this manager, together with its bookkeeping
+     */
+    private static class Entry {
+        /** The resource key */
+        final String key;
+        /** The resource type */
+        final Class type;
+        /** The resource */
+        final Disposable resource;
+        /** The estimated size of the resource in bytes */
+        final long bytes;
+        /** The number of references to this resource (guarded by this entry) */
+        int refs;
+        /** Whether this resource has been removed from the manager (guarded by this entry) */
+        boolean removed;
+        /** The time of last use, according to the manager clock */
+        volatile long stamp;
+        /** A copy of the stamp that does not change while sorting (guarded by eviction) */
+        long order;
+
+        /**
+         * Creates a new entry with a single reference
+         *
+         * @param key       The resource key
+         * @param type      The resource type
+         * @param resource  The resource
+         * @param bytes     The estimated size of the resource in bytes
+         */
+        Entry(String key, Class type, Disposable resource, long bytes) {
+            this.key = key;
+            this.type = type;
+            this.resource = resource;
+            this.bytes = bytes;
+            this.refs = 1;
+        }
+    }
+
+    /** Orders entries from least to most recently used */
+    private static final Comparator<Entry> LEAST_RECENT = new Comparator<Entry>() {
+        public int compare(Entry a, Entry b) {
+            return Long.compare( a.order, b.order );
+        }
+    };
+
 	/** The singleton instance of this resource manager */
-    private static ResourceManager instance = null;
-    /** Resource hashtables, categorized by class */
-    final ObjectMap<Class, ObjectMap<String, Disposable>> resources = new ObjectMap<Class, ObjectMap<String, Disposable>>();
-    /** The classes supported by this resource manager */
-    final ObjectMap<String, Class> resourceTypes = new ObjectMap<String, Class>();
+    private static volatile ResourceManager instance = null;
+    /** Resource entries, indexed by key */
+    final ConcurrentHashMap<String, Entry> resources = new ConcurrentHashMap<String, Entry>();
+    /** The memory used by each resource type */
+    final ConcurrentHashMap<Class, AtomicLong> usage = new ConcurrentHashMap<Class, AtomicLong>();
+    /** The memory used by all resources */
+    private final AtomicLong total = new AtomicLong();
+    /** The clock for least recently used order */
+    private final AtomicLong clock = new AtomicLong();
+    /** Evicted resources waiting to be disposed on the main thread */
+    private final ConcurrentLinkedQueue<Disposable> evicted = new ConcurrentLinkedQueue<Disposable>();
+    /** The lock for eviction (so only one thread evicts at a time) */
+    private final ReentrantLock eviction = new ReentrantLock();
+    /** The memory budget in bytes (0 for no limit) */
+    private volatile long budget = DEFAULT_BUDGET;
+    /** The entries that may be evicted (guarded by eviction) */
+    private final Array<Entry> candidates = new Array<Entry>( false, 16, Entry.class );
 
     /**
      * Creates a new resource manager.
@@ -61,54 +157,59 @@ public class ResourceManager {
      * @return the singleton resource manager.
      */
     public static ResourceManager get() {
-        if (instance == null) {
-            instance = new ResourceManager();
+        ResourceManager result = instance;
+        if (result == null) {
+            synchronized (ResourceManager.class) {
+                result = instance;
+                if (result == null) {
+                    result = new ResourceManager();
+                    instance = result;
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     /**
      * Disposes the singleton resource manager.
      *
-     * All resources stored in this pipeline manager will be disposed and no longer 
+     * All resources stored in this pipeline manager will be disposed and no longer
      * safe to use. This method should only be called near the end of the application.
      * To prevent a resource from being disposed, it should be removed first.
      */
     public static void dispose() {
-        if (instance != null) {
-            instance.clear();
-            instance = null;
+        synchronized (ResourceManager.class) {
+            if (instance != null) {
+                instance.clear();
+                instance = null;
+            }
         }
     }
 
     /**
      * Returns the resource with the given key
      *
+     * This does not change the reference count, but it does count as a use of the
+     * resource for the purpose of eviction.
+     *
      * @param key   The resource key
      *
      * @throws GdxRuntimeException if no resource of type T has that key
      * @return the resource with the given key
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get (String key) {
-        Class<T> type = resourceTypes.get(key);
-        if (type == null) {
-            throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
-        }
-        ObjectMap<String, Disposable> rsrcByType = resources.get(type);
-        if (rsrcByType == null) {
-            throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
-        }
-        T resource = (T) rsrcByType.get( key );
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
-        }
-        return resource;
+    public <T> T get (String key) {
+        Entry entry = lookup( key, null );
+        entry.stamp = clock.incrementAndGet();
+        return (T)entry.resource;
     }
 
     /**
      * Returns the resource with the given key
      *
+     * This does not change the reference count, but it does count as a use of the
+     * resource for the purpose of eviction.
+     *
      * @param key   The resource key
      * @param type  The resource type
      *
@@ -116,16 +217,90 @@ public class ResourceManager {
      * @return the resource with the given key
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get (String key, Class<T> type) {
-        ObjectMap<String, Disposable> rsrcByType = resources.get(type);
-        if (rsrcByType == null) {
-            throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
+    public <T> T get (String key, Class<T> type) {
+        Entry entry = lookup( key, type );
+        entry.stamp = clock.incrementAndGet();
+        return (T)entry.resource;
+    }
+
+    /**
+     * Returns the resource with the given key, adding a reference to it
+     *
+     * The resource cannot be evicted until every reference is given back with
+     * {@link #release}.
+     *
+     * @param key   The resource key
+     *
+     * @throws GdxRuntimeException if no resource of type T has that key
+     * @return the resource with the given key
+     */
+    public <T> T acquire (String key) {
+        return acquire( key, null );
+    }
+
+    /**
+     * Returns the resource with the given key, adding a reference to it
+     *
+     * The resource cannot be evicted until every reference is given back with
+     * {@link #release}.
+     *
+     * @param key   The resource key
+     * @param type  The resource type
+     *
+     * @throws GdxRuntimeException if no resource of type T has that key
+     * @return the resource with the given key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T acquire (String key, Class<T> type) {
+        Entry entry = lookup( key, type );
+        synchronized (entry) {
+            if (entry.removed) {
+                throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
+            }
+            entry.refs++;
         }
-        T resource = (T) rsrcByType.get( key );
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
+        entry.stamp = clock.incrementAndGet();
+        return (T)entry.resource;
+    }
+
+    /**
+     * Gives back a reference to the resource with the given key
+     *
+     * When the last reference is given back, the resource stays in the manager, but
+     * it may be evicted if the manager is over its memory budget.
+     *
+     * @param key   The resource key
+     *
+     * @throws GdxRuntimeException if no resource has that key, or it has no references
+     */
+    public void release (String key) {
+        Entry entry = lookup( key, null );
+        synchronized (entry) {
+            if (entry.refs == 0) {
+                throw new GdxRuntimeException(String.format("Resource '%s' has no references.", key));
+            }
+            entry.refs--;
+        }
+        trim();
+    }
+
+    /**
+     * Returns the number of references to the resource with the given key
+     *
+     * This returns 0 if there is no resource with that key.
+     *
+     * @param key   The resource key
+     *
+     * @return the number of references to the resource with the given key
+     */
+    public int getReferences (String key) {
+        Entry entry = key == null ? null : resources.get( key );
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (entry) {
+            return entry.removed ? 0 : entry.refs;
         }
-        return resource;
     }
 
     /**
@@ -135,14 +310,9 @@ public class ResourceManager {
      *
      * @return the key for the given resource (null if resource is not present)
      */
-    @SuppressWarnings("unchecked")
-    public synchronized <T> String getKey (T resource) {
-        for (Class rsrcType : resources.keys()) {
-            ObjectMap<String, Disposable> rsrcByType = resources.get(rsrcType);
-            for (String key : rsrcByType.keys()) {
-                T other = (T) rsrcByType.get( key );
-                if (other == resource || resource.equals(other)) return key;
-            }
+    public <T> String getKey (T resource) {
+        for (Entry entry : resources.values()) {
+            if (entry.resource == resource || resource.equals(entry.resource)) return entry.key;
         }
         return null;
     }
@@ -158,11 +328,10 @@ public class ResourceManager {
      * @return the array passed for method chaining.
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> Array<T> getAll (Class<T> type, Array<T> out) {
-        ObjectMap<String, Disposable> rsrcByType = resources.get(type);
-        if (rsrcByType != null) {
-            for (ObjectMap.Entry<String, Disposable> resource : rsrcByType.entries()) {
-                out.add((T) resource.value);
+    public <T> Array<T> getAll (Class<T> type, Array<T> out) {
+        for (Entry entry : resources.values()) {
+            if (entry.type == type) {
+                out.add((T) entry.resource);
             }
         }
         return out;
@@ -175,9 +344,9 @@ public class ResourceManager {
      *
      * @return true if the specified resource is in this manager.
      */
-    public synchronized boolean contains(String key) {
+    public boolean contains(String key) {
         if (key == null) return false;
-        return resourceTypes.containsKey(key);
+        return resources.containsKey(key);
     }
 
     /**
@@ -188,10 +357,10 @@ public class ResourceManager {
      *
      * @return true if the specified resource is in this manager.
      */
-    public synchronized boolean contains(String key, Class type) {
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) return false;
-        return resourcesByType.get(key) != null;
+    public boolean contains(String key, Class type) {
+        if (key == null) return false;
+        Entry entry = resources.get(key);
+        return entry != null && entry.type == type;
     }
 
     /**
@@ -201,82 +370,98 @@ public class ResourceManager {
      *
      * @return true if the specified resource is in this manager.
      */
-    @SuppressWarnings("unchecked")
-    public synchronized <T> boolean contains(T resource) {
-        ObjectMap<String, Disposable> rsrcByType = resources.get(resource.getClass());
-        if (rsrcByType == null) return false;
-        for (String key : rsrcByType.keys()) {
-            T other = (T) rsrcByType.get( key );
-            if (other == resource || resource.equals(other)) return true;
-        }
-        return false;
+    public <T> boolean contains(T resource) {
+        return getKey(resource) != null;
+    }
+
+    /**
+     * Returns the memory budget in bytes
+     *
+     * When the estimated memory of all resources goes over the budget, resources
+     * with no references are evicted, least recently used first.  A budget of 0
+     * means there is no limit.
+     *
+     * @return the memory budget in bytes
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the memory budget in bytes
+     *
+     * When the estimated memory of all resources goes over the budget, resources
+     * with no references are evicted, least recently used first.  A budget of 0
+     * means there is no limit.
+     *
+     * @param bytes the memory budget in bytes
+     */
+    public void setBudget(long bytes) {
+        budget = Math.max( 0, bytes );
+        trim();
+    }
+
+    /**
+     * Returns the estimated memory of all resources in bytes
+     *
+     * @return the estimated memory of all resources in bytes
+     */
+    public long getBytes() {
+        return total.get();
+    }
+
+    /**
+     * Returns the estimated memory of all resources of the given type in bytes
+     *
+     * @param type  The resource type
+     *
+     * @return the estimated memory of all resources of the given type in bytes
+     */
+    public long getBytes(Class type) {
+        AtomicLong bytes = usage.get( type );
+        return bytes == null ? 0 : bytes.get();
     }
 
     /**
      * Disposes of this resource and removes it from the manager
      *
      * Since the manager owns the resource, it is no longer safe to use it once
-     * this method is called.
+     * this method is called.  This happens regardless of the reference count.
      *
      * @param key   The resource key
      *
      * @throws GdxRuntimeException if no asset of type T has that key
      */
-    @SuppressWarnings("unchecked")
-    public synchronized void dispose(String key) {
-        // get the asset and its type
-        Class type = resourceTypes.get(key);
-        if (type == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        Disposable resource = (Disposable)resourcesByType.get(key);
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        resource.dispose();
-        resourcesByType.remove(key);
+    public void dispose(String key) {
+        detach( lookup( key, null ) ).dispose();
     }
 
     /**
      * Disposes of this resource and removes it from the manager
      *
      * Since the manager owns the resource, it is no longer safe to use it once
-     * this method is called.
+     * this method is called.  This happens regardless of the reference count.
      *
      * @param key   The resource key
      * @param type  The resource type
      *
      * @throws GdxRuntimeException if no asset of type T has that key
      */
-    @SuppressWarnings("unchecked")
-    public synchronized void dispose(String key, Class type) {
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        Disposable resource = (Disposable)resourcesByType.get(key);
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        resource.dispose();
-        resourcesByType.remove(key);
+    public void dispose(String key, Class type) {
+        detach( lookup( key, type ) ).dispose();
     }
 
     /**
      * Disposes of this resource and removes it from the manager
      *
      * Since the manager owns the resource, it is no longer safe to use it once
-     * this method is called.
+     * this method is called.  This happens regardless of the reference count.
      *
      * @param resource   The resource to search for
      *
      * @throws GdxRuntimeException if no asset of type T has that key
      */
-    public synchronized <T> void dispose(T resource) {
+    public <T> void dispose(T resource) {
         String key = getKey(resource);
         dispose(key);
     }
@@ -286,18 +471,21 @@ public class ResourceManager {
      *
      * Since the manager owns its resources, it is no longer safe to use any of
      * them once this method is called.  This method should only be called near
-     * the end of the application.
+     * the end of the application, on the main thread.
      */
-    public synchronized void clear() {
-        for (ObjectMap<String, Disposable>  resourcesByType : resources.values()) {
-            for(Disposable resource : resourcesByType.values()) {
-                resource.dispose();
+    public void clear() {
+        for (Entry entry : resources.values()) {
+            synchronized (entry) {
+                if (entry.removed) continue;
+                entry.removed = true;
             }
+            resources.remove(entry.key, entry);
+            account(entry, -entry.bytes);
+            entry.resource.dispose();
         }
-        resources.clear();
-        resourceTypes.clear();
+        update();
     }
-    
+
 	/**
      * Removes this resource from the manager without disposing it
      *
@@ -312,22 +500,8 @@ public class ResourceManager {
      * @return the resource with the given key
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T remove(String key) {
-        // get the asset and its type
-        Class type = resourceTypes.get(key);
-        if (type == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        Disposable resource = (Disposable)resourcesByType.get(key);
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        resourcesByType.remove(key);
-        return (T)resource;
+    public <T> T remove(String key) {
+        return (T)detach( lookup( key, null ) );
     }
 
 	/**
@@ -345,19 +519,10 @@ public class ResourceManager {
      * @return the resource with the given key
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T remove(String key, Class type) {
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        Disposable resource = (Disposable)resourcesByType.get(key);
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        resourcesByType.remove(key);
-        return (T)resource;
+    public <T> T remove(String key, Class type) {
+        return (T)detach( lookup( key, type ) );
     }
-    
+
 	/**
      * Removes this resource from the manager without disposing it
      *
@@ -371,37 +536,304 @@ public class ResourceManager {
      * @throws GdxRuntimeException if no asset of type T has that key
      * @return the resource with the given key
      */
-    public synchronized <T> T remove(T resource) {
+    public <T> T remove(T resource) {
         String key = getKey(resource);
         return remove(key);
     }
 
-    /** 
+    /**
      * Adds a resource to this manager.
      *
-     * When assigning a key to a resource, keys should be globally unique, 
-     * even across types.
-	 *     
+     * When assigning a key to a resource, keys should be globally unique,
+     * even across types.  If there is already a resource with this key, it is
+     * replaced and disposed.
+	 *
      * Calling this method results in a transfer of ownership. The caller no
      * longer owns the resource, having transfered it to the manager. When the
-     * manager is deleted, it will dispose of this resource.
+     * manager is deleted, it will dispose of this resource.  The caller holds
+     * the first reference to the resource.
+     *
+     * The size of the resource is estimated with {@link #sizeOf}.
      *
      * @param key   	The resource key
      * @param type  	The resource type
      * @param resource	The resource to add
      */
-    @SuppressWarnings("unchecked")
     public <T> void add(final String key, Class<T> type, T resource) {
-        // add the asset to the filename lookup
-        resourceTypes.put(key, type);
-
-        // add the asset to the type lookup
-        ObjectMap<String, Disposable> typeToRsrc = resources.get(type);
-        if (typeToRsrc == null) {
-            typeToRsrc = new ObjectMap<String, Disposable>();
-            resources.put(type, typeToRsrc);
+        add( key, type, resource, sizeOf( resource ) );
+    }
+
+    /**
+     * Adds a resource of the given size to this manager.
+     *
+     * When assigning a key to a resource, keys should be globally unique,
+     * even across types.  If there is already a resource with this key, it is
+     * replaced and disposed.
+	 *
+     * Calling this method results in a transfer of ownership. The caller no
+     * longer owns the resource, having transfered it to the manager. When the
+     * manager is deleted, it will dispose of this resource.  The caller holds
+     * the first reference to the resource.
+     *
+     * @param key   	The resource key
+     * @param type  	The resource type
+     * @param resource	The resource to add
+     * @param bytes     The size of the resource in bytes
+     */
+    public <T> void add(final String key, Class<T> type, T resource, long bytes) {
+        Entry entry = new Entry( key, type, (Disposable)resource, Math.max( 0, bytes ) );
+        entry.stamp = clock.incrementAndGet();
+        Entry previous = resources.put( key, entry );
+        account( entry, entry.bytes );
+        if (previous != null) {
+            synchronized (previous) {
+                if (previous.removed) {
+                    previous = null;
+                } else {
+                    previous.removed = true;
+                }
+            }
         }
-        typeToRsrc.put(key, (Disposable)resource);
+        if (previous != null) {
+            account( previous, -previous.bytes );
+            if (previous.resource != entry.resource) {
+                evicted.add( previous.resource );
+            }
+        }
+        trim();
+    }
+
+    /**
+     * Evicts every resource that has no references.
+     *
+     * This is useful at a level transition, when the resources of the old level
+     * have been released and the new level has acquired its own.  The evicted
+     * resources are disposed at the next call to {@link #update}.
+     *
+     * @return the number of bytes evicted
+     */
+    public long evict() {
+        long freed = 0;
+        eviction.lock();
+        try {
+            for (Entry entry : resources.values()) {
+                freed += evict( entry );
+            }
+        } finally {
+            eviction.unlock();
+        }
+        return freed;
+    }
+
+    /**
+     * Disposes of the resources evicted since the last call.
+     *
+     * This method must be called on the main thread, as resources may hold graphics
+     * or audio state.  It should be called once per animation frame.
+     */
+    public void update() {
+        Disposable resource = evicted.poll();
+        while (resource != null) {
+            try {
+                resource.dispose();
+            } catch (RuntimeException e) {
+                Gdx.app.error( "ResourceManager", "Could not dispose evicted resource", e );
+            }
+            resource = evicted.poll();
+        }
+    }
+
+    /**
+     * Returns the estimated memory of the given resource in bytes
+     *
+     * This only knows about textures, texture atlases, pixmaps, frame buffers and
+     * in-memory audio.  For any other resource, this returns 0.  Textures are sized
+     * by their pixel format (with a third more for mipmaps), and audio by its
+     * 16-bit PCM samples.
+     *
+     * @param resource  The resource to measure
+     *
+     * @return the estimated memory of the given resource in bytes
+     */
+    public static long sizeOf(Object resource) {
+        if (resource instanceof Texture) {
+            Texture texture = (Texture)resource;
+            TextureData data = texture.getTextureData();
+            long bytes = (long)texture.getWidth()*texture.getHeight()*bytesPerPixel( data.getFormat() );
+            return data.useMipMaps() ? bytes+bytes/3 : bytes;
+        } else if (resource instanceof TextureAtlas) {
+            long bytes = 0;
+            for (Texture texture : ((TextureAtlas)resource).getTextures()) {
+                bytes += sizeOf( texture );
+            }
+            return bytes;
+        } else if (resource instanceof FrameBuffer) {
+            return sizeOf( ((FrameBuffer)resource).getColorBufferTexture() );
+        } else if (resource instanceof Pixmap) {
+            return ((Pixmap)resource).getPixels().capacity();
+        } else if (resource instanceof SoundEffect) {
+            SoundEffect sound = (SoundEffect)resource;
+            return pcmBytes( sound.getDuration(), sound.getSampleRate(), sound.isMono() ? 1 : 2 );
+        } else if (resource instanceof SoundBuffer) {
+            SoundBuffer sound = (SoundBuffer)resource;
+            return pcmBytes( sound.getDuration(), sound.getSampleRate(), sound.isMono() ? 1 : 2 );
+        } else if (resource instanceof AudioSource) {
+            AudioSource source = (AudioSource)resource;
+            return pcmBytes( source.getDuration(), source.getSampleRate(), source.getChannels() );
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the entry for the given key and type
+     *
+     * @param key   The resource key
+     * @param type  The resource type (null for any type)
+     *
+     * @throws GdxRuntimeException if no resource of that type has that key
+     * @return the entry for the given key and type
+     */
+    private Entry lookup(String key, Class type) {
+        Entry entry = key == null ? null : resources.get( key );
+        if (entry == null || (type != null && entry.type != type)) {
+            throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
+        }
+        return entry;
+    }
+
+    /**
+     * Removes the given entry from the manager, returning its resource
+     *
+     * @param entry The entry to remove
+     *
+     * @throws GdxRuntimeException if the entry was already removed
+     * @return the resource of the removed entry
+     */
+    private Disposable detach(Entry entry) {
+        synchronized (entry) {
+            if (entry.removed) {
+                throw new GdxRuntimeException(String.format("Resource '%s' is not active.", entry.key));
+            }
+            entry.removed = true;
+        }
+        resources.remove( entry.key, entry );
+        account( entry, -entry.bytes );
+        return entry.resource;
+    }
+
+    /**
+     * Evicts the given entry if it has no references
+     *
+     * The resource is queued to be disposed by {@link #update}.
+     *
+     * @param entry The entry to evict
+     *
+     * @return the number of bytes evicted
+     */
+    private long evict(Entry entry) {
+        synchronized (entry) {
+            if (entry.refs > 0 || entry.removed) {
+                return 0;
+            }
+            entry.removed = true;
+        }
+        resources.remove( entry.key, entry );
+        account( entry, -entry.bytes );
+        evicted.add( entry.resource );
+        return entry.bytes;
+    }
+
+    /**
+     * Evicts the least recently used resources until the manager is under budget
+     *
+     * Only resources with no references are evicted.  The candidates are collected
+     * and sorted once, so a trim that evicts many resources is not quadratic. If
+     * another thread is already evicting, this returns immediately rather than wait
+     * for it.
+     */
+    private void trim() {
+        if (budget == 0 || total.get() <= budget || !eviction.tryLock()) {
+            return;
+        }
+        try {
+            for (Entry entry : resources.values()) {
+                if (entry.bytes > 0 && getReferences( entry.key ) == 0) {
+                    entry.order = entry.stamp;
+                    candidates.add( entry );
+                }
+            }
+            candidates.sort( LEAST_RECENT );
+            for (int ii = 0; ii < candidates.size && total.get() > budget; ii++) {
+                Entry oldest = candidates.get( ii );
+                if (evict( oldest ) > 0) {
+                    Gdx.app.debug( "ResourceManager", String.format( "evicted '%s' (%d bytes)", oldest.key, oldest.bytes ) );
+                }
+            }
+        } finally {
+            candidates.clear();
+            eviction.unlock();
+        }
+    }
+
+    /**
+     * Adds the given number of bytes to the memory of the entry type
+     *
+     * @param entry The resource entry
+     * @param bytes The number of bytes to add (negative to subtract)
+     */
+    private void account(Entry entry, long bytes) {
+        if (bytes == 0) {
+            return;
+        }
+        AtomicLong count = usage.get( entry.type );
+        if (count == null) {
+            AtomicLong created = new AtomicLong();
+            count = usage.putIfAbsent( entry.type, created );
+            if (count == null) {
+                count = created;
+            }
+        }
+        count.addAndGet( bytes );
+        total.addAndGet( bytes );
+    }
+
+    /**
+     * Returns the number of bytes per pixel for the given format
+     *
+     * @param format    The pixel format
+     *
+     * @return the number of bytes per pixel for the given format
+     */
+    private static int bytesPerPixel(Pixmap.Format format) {
+        if (format == null) {
+            return 4;
+        }
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * Returns the number of bytes of 16-bit PCM audio with the given properties
+     *
+     * @param duration  The duration in seconds
+     * @param rate      The sample rate
+     * @param channels  The number of channels
+     *
+     * @return the number of bytes of 16-bit PCM audio with the given properties
+     */
+    private static long pcmBytes(float duration, int rate, int channels) {
+        return Math.max( 0, (long)(duration*rate)*channels*2 );
     }
 
-}
\ No newline at end of file
+}
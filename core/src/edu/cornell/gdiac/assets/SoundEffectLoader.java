@@ -90,7 +90,8 @@ public class SoundEffectLoader extends AsynchronousAssetLoader<SoundEffect, Soun
      * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
      *
      * This is used to load non-OpenGL parts of the asset that do not require the context
-     * of the main thread.
+     * of the main thread.  If the sound was already decoded by a {@link ParallelDecoder},
+     * this uses the decoded sound.
      *
      * @param manager   The asset manager
      * @param fileName  The name of the asset to load
@@ -100,7 +101,11 @@ public class SoundEffectLoader extends AsynchronousAssetLoader<SoundEffect, Soun
     @Override
     public void loadAsync (AssetManager manager, String fileName, FileHandle file, SoundEffectParameters params) {
         AudioSource source = manager.get(manager.getDependencies(fileName).first(),AudioSource.class);
-        cachedBuffer = ((AudioEngine)Gdx.audio).newSoundBuffer(source);
+        ParallelDecoder decoder = ParallelDecoder.of(manager);
+        cachedBuffer = decoder == null ? null : decoder.takeSound(fileName, source);
+        if (cachedBuffer == null) {
+            cachedBuffer = ((AudioEngine)Gdx.audio).newSoundBuffer(source);
+        }
     }
 
     /** 
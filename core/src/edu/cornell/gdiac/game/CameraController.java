@@ -0,0 +1,345 @@
+/*
+ * CameraController.java
+ *
+ * Levels are often larger than a single screen.  This class determines which part
+ * of the level is visible.  It follows a target obstacle, but only once that target
+ * leaves a dead zone in the middle of the view, and it eases towards the target
+ * instead of snapping to it.  The view is never allowed to leave the world bounds.
+ *
+ * The camera is measured in Box2d coordinates.  It provides the affine transform
+ * for GameCanvas, as well as the conversion from screen to world coordinates
+ * needed by InputController.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.math.*;
+
+import edu.cornell.gdiac.game.obstacle.*;
+
+/**
+ * Scrolling camera for a world that is larger than the screen.
+ *
+ * The camera has a fixed viewport size (in Box2d units) and a center position.
+ * Each animation frame, {@link #update} moves the center so that the target stays
+ * inside the dead zone, smoothing the motion over time.  The center is then
+ * clamped so that the view stays inside the world bounds (if the world is smaller
+ * than the view along an axis, the view is centered on the world instead).
+ */
+public class CameraController {
+	/** The default width of the dead zone (in Box2d units) */
+	public static final float DEFAULT_DEADZONE_WIDTH  = 4.0f;
+	/** The default height of the dead zone (in Box2d units) */
+	public static final float DEFAULT_DEADZONE_HEIGHT = 3.0f;
+	/** The default rate at which the camera closes the distance to its goal */
+	public static final float DEFAULT_SMOOTHING = 5.0f;
+
+	/** The size of the view in Box2d units */
+	private Vector2 viewport;
+	/** The center of the view in Box2d units */
+	private Vector2 position;
+	/** The point the camera is moving towards */
+	private Vector2 goal;
+	/** The region the view must stay inside (null for no limit) */
+	private Rectangle bounds;
+	/** The size of the dead zone in the middle of the view */
+	private Vector2 deadzone;
+	/** The rate at which the camera closes the distance to its goal (0 snaps) */
+	private float smoothing;
+	/** The obstacle to follow (null for a stationary camera) */
+	private Obstacle target;
+	/** The drawing scale (pixels per Box2d unit) */
+	private Vector2 scale;
+
+	/** Cache object for the drawing transform */
+	private Affine2 transform;
+
+	/**
+	 * Creates a new camera with the given viewport size.
+	 *
+	 * The camera is initially centered on the viewport, so the bottom left corner
+	 * of the view is at the origin.
+	 *
+	 * @param width		The viewport width in Box2d units
+	 * @param height	The viewport height in Box2d units
+	 */
+	public CameraController(float width, float height) {
+		viewport = new Vector2(width,height);
+		position = new Vector2(width/2.0f,height/2.0f);
+		goal     = new Vector2(position);
+		deadzone = new Vector2(DEFAULT_DEADZONE_WIDTH,DEFAULT_DEADZONE_HEIGHT);
+		smoothing = DEFAULT_SMOOTHING;
+		scale = new Vector2(1,1);
+		transform = new Affine2();
+	}
+
+	/**
+	 * Returns the viewport width in Box2d units
+	 *
+	 * @return the viewport width in Box2d units
+	 */
+	public float getViewportWidth() {
+		return viewport.x;
+	}
+
+	/**
+	 * Returns the viewport height in Box2d units
+	 *
+	 * @return the viewport height in Box2d units
+	 */
+	public float getViewportHeight() {
+		return viewport.y;
+	}
+
+	/**
+	 * Sets the viewport size in Box2d units
+	 *
+	 * @param width		The viewport width in Box2d units
+	 * @param height	The viewport height in Box2d units
+	 */
+	public void setViewport(float width, float height) {
+		viewport.set(width,height);
+		clamp(position);
+	}
+
+	/**
+	 * Returns the center of the view in Box2d units
+	 *
+	 * This method does NOT return a reference to the position vector. Changes
+	 * to the result will not affect the camera.
+	 *
+	 * @return the center of the view in Box2d units
+	 */
+	public Vector2 getPosition() {
+		return new Vector2(position);
+	}
+
+	/**
+	 * Moves the center of the view immediately to the given position.
+	 *
+	 * The position is clamped to the world bounds.
+	 *
+	 * @param x	The x-coordinate of the view center
+	 * @param y	The y-coordinate of the view center
+	 */
+	public void setPosition(float x, float y) {
+		position.set(x,y);
+		clamp(position);
+		goal.set(position);
+	}
+
+	/**
+	 * Returns the region the view must stay inside (null for no limit)
+	 *
+	 * @return the region the view must stay inside (null for no limit)
+	 */
+	public Rectangle getBounds() {
+		return bounds;
+	}
+
+	/**
+	 * Sets the region the view must stay inside (null for no limit)
+	 *
+	 * The rectangle is copied.
+	 *
+	 * @param value	the region the view must stay inside (null for no limit)
+	 */
+	public void setBounds(Rectangle value) {
+		bounds = (value == null ? null : new Rectangle(value));
+		clamp(position);
+	}
+
+	/**
+	 * Returns the obstacle followed by this camera (null for none)
+	 *
+	 * @return the obstacle followed by this camera (null for none)
+	 */
+	public Obstacle getTarget() {
+		return target;
+	}
+
+	/**
+	 * Sets the obstacle followed by this camera (null for none)
+	 *
+	 * The camera does not jump to the new target.  Call {@link #snap} for that.
+	 *
+	 * @param value	the obstacle followed by this camera (null for none)
+	 */
+	public void setTarget(Obstacle value) {
+		target = value;
+	}
+
+	/**
+	 * Sets the size of the dead zone in the middle of the view
+	 *
+	 * The camera does not move while the target is inside the dead zone.  A dead
+	 * zone of size 0 keeps the target centered.
+	 *
+	 * @param width		The dead zone width in Box2d units
+	 * @param height	The dead zone height in Box2d units
+	 */
+	public void setDeadZone(float width, float height) {
+		deadzone.set(width,height);
+	}
+
+	/**
+	 * Returns the rate at which the camera closes the distance to its goal
+	 *
+	 * The camera covers the fraction 1-exp(-smoothing*dt) of the remaining distance
+	 * each frame.  This makes the motion independent of the frame rate.
+	 *
+	 * @return the rate at which the camera closes the distance to its goal
+	 */
+	public float getSmoothing() {
+		return smoothing;
+	}
+
+	/**
+	 * Sets the rate at which the camera closes the distance to its goal
+	 *
+	 * The camera covers the fraction 1-exp(-smoothing*dt) of the remaining distance
+	 * each frame.  This makes the motion independent of the frame rate.  A value of
+	 * 0 disables smoothing, so the camera moves immediately.
+	 *
+	 * @param value	the rate at which the camera closes the distance to its goal
+	 */
+	public void setSmoothing(float value) {
+		smoothing = value;
+	}
+
+	/**
+	 * Sets the drawing scale (pixels per Box2d unit)
+	 *
+	 * @param value	the drawing scale
+	 */
+	public void setDrawScale(Vector2 value) {
+		scale.set(value);
+	}
+
+	/**
+	 * Moves the view immediately so that the target is centered.
+	 *
+	 * This should be called when the level is (re)loaded, so that the camera does
+	 * not scroll in from its previous position.
+	 */
+	public void snap() {
+		if (target != null) {
+			setPosition(target.getX(),target.getY());
+		}
+	}
+
+	/**
+	 * Moves the view towards the target for this animation frame.
+	 *
+	 * The target is tracked at its interpolated (drawing) position, so the camera
+	 * moves smoothly even when the physics is stepped at a fixed rate.
+	 *
+	 * @param dt	Number of seconds since last animation frame
+	 */
+	public void update(float dt) {
+		if (target != null) {
+			float dx = target.getRenderX()-goal.x;
+			float dy = target.getRenderY()-goal.y;
+			float hw = deadzone.x/2.0f;
+			float hh = deadzone.y/2.0f;
+			if (dx > hw) {
+				goal.x += dx-hw;
+			} else if (dx < -hw) {
+				goal.x += dx+hw;
+			}
+			if (dy > hh) {
+				goal.y += dy-hh;
+			} else if (dy < -hh) {
+				goal.y += dy+hh;
+			}
+			clamp(goal);
+		}
+
+		if (smoothing <= 0) {
+			position.set(goal);
+		} else {
+			float t = 1.0f-(float)Math.exp(-smoothing*dt);
+			position.lerp(goal,t);
+		}
+		clamp(position);
+	}
+
+	/**
+	 * Stores the visible region of the world in the given rectangle.
+	 *
+	 * The result is in Box2d coordinates.
+	 *
+	 * @param result	The rectangle to store the visible region
+	 *
+	 * @return the rectangle result, for chaining
+	 */
+	public Rectangle getViewBounds(Rectangle result) {
+		return result.set(position.x-viewport.x/2.0f,position.y-viewport.y/2.0f,viewport.x,viewport.y);
+	}
+
+	/**
+	 * Returns the drawing transform for this camera.
+	 *
+	 * This transform should be passed to {@link GameCanvas#begin(Affine2)}.  It
+	 * translates the drawing coordinates (pixels) so that the bottom left corner of
+	 * the view is at the bottom left of the screen.  This method returns a
+	 * reference to a cache object, so it should be used right away.
+	 *
+	 * @return the drawing transform for this camera.
+	 */
+	public Affine2 getTransform() {
+		float left   = position.x-viewport.x/2.0f;
+		float bottom = position.y-viewport.y/2.0f;
+		return transform.setToTranslation(-left*scale.x,-bottom*scale.y);
+	}
+
+	/**
+	 * Converts a screen position (in pixels) to Box2d coordinates.
+	 *
+	 * As with mouse input, the screen origin is the top left corner.  The given
+	 * vector is modified and returned.
+	 *
+	 * @param screen	The screen position
+	 *
+	 * @return the world position, for chaining
+	 */
+	public Vector2 screenToWorld(Vector2 screen) {
+		float left = position.x-viewport.x/2.0f;
+		float top  = position.y+viewport.y/2.0f;
+		return screen.set(left+screen.x/scale.x, top-screen.y/scale.y);
+	}
+
+	/**
+	 * Clamps the given view center so that the view stays inside the world bounds
+	 *
+	 * @param center	The view center to clamp
+	 */
+	private void clamp(Vector2 center) {
+		if (bounds == null) {
+			return;
+		}
+		center.x = clampAxis(center.x, viewport.x, bounds.x, bounds.width);
+		center.y = clampAxis(center.y, viewport.y, bounds.y, bounds.height);
+	}
+
+	/**
+	 * Returns the view center clamped along a single axis
+	 *
+	 * If the bounds are smaller than the view, the view is centered on the bounds.
+	 *
+	 * @param center	The view center
+	 * @param size		The view size
+	 * @param origin	The start of the bounds
+	 * @param extent	The size of the bounds
+	 *
+	 * @return the view center clamped along a single axis
+	 */
+	private float clampAxis(float center, float size, float origin, float extent) {
+		if (extent <= size) {
+			return origin+extent/2.0f;
+		}
+		return Math.max(origin+size/2.0f, Math.min(origin+extent-size/2.0f, center));
+	}
+}
@@ -0,0 +1,399 @@
+/*
+ * DebugRenderer.java
+ *
+ * The debug pass draws the outline of every fixture in the world.  Drawing those
+ * outlines one line at a time (with a separate native call for every vertex) is
+ * slow enough to matter on large levels.  This class caches the local outline of
+ * each fixture, and transforms whole outlines at once into a single line mesh.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.graphics.*;
+import com.badlogic.gdx.graphics.glutils.*;
+import com.badlogic.gdx.physics.box2d.*;
+
+/**
+ * Batched renderer for physics outlines.
+ *
+ * Outlines are accumulated as a line list in a vertex array, and sent to the
+ * graphics card in a single draw call when the array is full or the pass ends.
+ * The local outline of a {@link Fixture} is read from Box2d only once, and then
+ * reused every frame until the fixture has gone unused for a while (or the fixture
+ * object is recycled by Box2d for a new fixture).  Shapes that are not attached
+ * to a fixture are read every time they are drawn, as they may have changed.
+ */
+public class DebugRenderer implements Disposable {
+	/** The number of floats per vertex (position and packed color) */
+	private static final int VERTEX_SIZE = 3;
+	/** The maximum number of vertices in a single draw call */
+	private static final int MAX_VERTICES = 1 << 15;
+	/** The number of segments used to outline a circle */
+	private static final int CIRCLE_SEGMENTS = 12;
+	/** The number of frames an unused fixture outline is kept */
+	private static final int OUTLINE_LIFETIME = 60;
+
+	/** The local outline of a fixture, as a line list */
+	private static class Outline {
+		/** The fixture shape (Box2d recycles fixture objects, but not shapes) */
+		Shape shape;
+		/** The segment endpoints, in local coordinates */
+		float[] points;
+		/** The last frame that this outline was drawn */
+		int frame;
+	}
+
+	/** The line mesh (reused every flush) */
+	private Mesh mesh;
+	/** The shader for the line mesh */
+	private ShaderProgram shader;
+	/** The vertices not yet drawn */
+	private float[] vertices;
+	/** The number of floats in the vertex array */
+	private int size;
+	/** The projection for the current pass */
+	private Matrix4 projection;
+	/** Whether a pass is active */
+	private boolean drawing;
+
+	/** The cached fixture outlines */
+	private ObjectMap<Fixture, Outline> outlines;
+	/** The current frame (for aging the fixture outlines) */
+	private int frame;
+	/** Cache object for the world fixtures */
+	private Array<Fixture> fixtures;
+	/** Cache object for shapes that are not attached to a fixture */
+	private float[] scratch;
+	/** Cache object for reading shape vertices */
+	private Vector2 vertex;
+
+	/**
+	 * Creates a new debug renderer.
+	 *
+	 * This constructor allocates the mesh and shader, so it must be called on
+	 * the rendering thread.
+	 */
+	public DebugRenderer() {
+		mesh = new Mesh(false, MAX_VERTICES, 0,
+						new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+						new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE));
+		shader = ImmediateModeRenderer20.createDefaultShader(false, true, 0);
+		vertices = new float[MAX_VERTICES*VERTEX_SIZE];
+		projection = new Matrix4();
+		outlines = new ObjectMap<Fixture, Outline>();
+		fixtures = new Array<Fixture>();
+		scratch  = new float[4*CIRCLE_SEGMENTS];
+		vertex = new Vector2();
+	}
+
+	/**
+	 * Deletes the mesh and shader of this renderer.
+	 */
+	public void dispose() {
+		mesh.dispose();
+		shader.dispose();
+		outlines.clear();
+	}
+
+	/**
+	 * Starts a new pass with the given projection.
+	 *
+	 * @param projection	The projection matrix for the outlines
+	 */
+	public void begin(Matrix4 projection) {
+		this.projection.set(projection);
+		size = 0;
+		frame++;
+		drawing = true;
+	}
+
+	/**
+	 * Ends the current pass, drawing any remaining outlines.
+	 *
+	 * This also discards the outlines of fixtures that have not been drawn recently.
+	 */
+	public void end() {
+		flush();
+		drawing = false;
+		ObjectMap.Entries<Fixture, Outline> entries = outlines.entries();
+		while (entries.hasNext()) {
+			if (frame-entries.next().value.frame > OUTLINE_LIFETIME) {
+				entries.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns true if a pass is active.
+	 *
+	 * @return true if a pass is active.
+	 */
+	public boolean isDrawing() {
+		return drawing;
+	}
+
+	/**
+	 * Draws the outline of every fixture in the world.
+	 *
+	 * The fixtures are placed with the transforms of their bodies.  Unlike drawing
+	 * through the obstacles, this does not interpolate between physics steps.
+	 *
+	 * @param world	The Box2d world
+	 * @param color	The outline color
+	 * @param sx	The amount to scale the x-axis
+	 * @param sy	The amount to scale the y-axis
+	 */
+	public void drawWorld(World world, Color color, float sx, float sy) {
+		world.getFixtures(fixtures);
+		Body last = null;
+		float x = 0, y = 0, angle = 0;
+		for(int ii = 0; ii < fixtures.size; ii++) {
+			Fixture fixture = fixtures.get(ii);
+			Body body = fixture.getBody();
+			if (body != last) {
+				Vector2 pos = body.getPosition();
+				x = pos.x;
+				y = pos.y;
+				angle = body.getAngle();
+				last = body;
+			}
+			drawFixture(fixture, color, x, y, angle, sx, sy);
+		}
+		fixtures.clear();
+	}
+
+	/**
+	 * Draws the outline of the given fixture.
+	 *
+	 * The outline is transformed by rotation, then translation, then scaling.
+	 *
+	 * @param fixture	The Box2d fixture
+	 * @param color 	The outline color
+	 * @param x 		The x-coordinate of the fixture body
+	 * @param y 		The y-coordinate of the fixture body
+	 * @param angle 	The angle of the fixture body
+	 * @param sx		The amount to scale the x-axis
+	 * @param sy		The amount to scale the y-axis
+	 */
+	public void drawFixture(Fixture fixture, Color color, float x, float y, float angle, float sx, float sy) {
+		Shape shape = fixture.getShape();
+		Outline outline = outlines.get(fixture);
+		if (outline == null) {
+			outline = new Outline();
+			outlines.put(fixture, outline);
+		}
+		if (outline.shape != shape) {
+			outline.shape  = shape;
+			outline.points = computeOutline(shape);
+		}
+		outline.frame = frame;
+		drawLines(outline.points, outline.points.length, color, x, y, angle, sx, sy);
+	}
+
+	/**
+	 * Draws the outline of the given polygon.
+	 *
+	 * The outline is transformed by rotation, then translation, then scaling.
+	 *
+	 * @param shape 	The Box2d shape
+	 * @param color 	The outline color
+	 * @param x 		The x-coordinate of the shape position
+	 * @param y 		The y-coordinate of the shape position
+	 * @param angle 	The shape angle of rotation
+	 * @param sx		The amount to scale the x-axis
+	 * @param sy		The amount to scale the y-axis
+	 */
+	public void drawPolygon(PolygonShape shape, Color color, float x, float y, float angle, float sx, float sy) {
+		int count = shape.getVertexCount();
+		if (scratch.length < 4*count) {
+			scratch = new float[4*count];
+		}
+		int length = loop(shape, count, scratch);
+		drawLines(scratch, length, color, x, y, angle, sx, sy);
+	}
+
+	/**
+	 * Draws the outline of a circle.
+	 *
+	 * The circle is centered at (x,y) before scaling, so it is an ellipse unless
+	 * the scale is uniform.
+	 *
+	 * @param radius	The circle radius
+	 * @param color 	The outline color
+	 * @param x 		The x-coordinate of the circle center
+	 * @param y 		The y-coordinate of the circle center
+	 * @param sx		The amount to scale the x-axis
+	 * @param sy		The amount to scale the y-axis
+	 */
+	public void drawCircle(float radius, Color color, float x, float y, float sx, float sy) {
+		int length = circle(0, 0, radius, scratch);
+		drawLines(scratch, length, color, x, y, 0, sx, sy);
+	}
+
+	/**
+	 * Draws any outlines that have not yet been sent to the graphics card.
+	 */
+	public void flush() {
+		if (size == 0) {
+			return;
+		}
+		mesh.setVertices(vertices, 0, size);
+		shader.bind();
+		shader.setUniformMatrix("u_projModelView", projection);
+		mesh.render(shader, GL20.GL_LINES, 0, size/VERTEX_SIZE);
+		size = 0;
+	}
+
+	/**
+	 * Appends the given line list to the vertex array.
+	 *
+	 * The points are transformed by rotation, then translation, then scaling.
+	 *
+	 * @param points	The segment endpoints
+	 * @param length	The number of floats to use in points
+	 * @param color 	The outline color
+	 * @param x 		The x-translation
+	 * @param y 		The y-translation
+	 * @param angle 	The rotation angle
+	 * @param sx		The amount to scale the x-axis
+	 * @param sy		The amount to scale the y-axis
+	 */
+	private void drawLines(float[] points, int length, Color color, float x, float y, float angle, float sx, float sy) {
+		if (!drawing) {
+			Gdx.app.error("DebugRenderer", "Cannot draw without active begin()", new IllegalStateException());
+			return;
+		}
+		float bits = color.toFloatBits();
+		float cos = (float)Math.cos(angle);
+		float sin = (float)Math.sin(angle);
+		for(int ii = 0; ii < length; ii += 2) {
+			if (size == vertices.length) {
+				flush();
+			}
+			float px = points[ii];
+			float py = points[ii+1];
+			vertices[size++] = (cos*px-sin*py+x)*sx;
+			vertices[size++] = (sin*px+cos*py+y)*sy;
+			vertices[size++] = bits;
+		}
+	}
+
+	/**
+	 * Returns the local outline of the given shape as a line list.
+	 *
+	 * @param shape	The Box2d shape
+	 *
+	 * @return the local outline of the given shape as a line list.
+	 */
+	private float[] computeOutline(Shape shape) {
+		float[] result;
+		switch (shape.getType()) {
+		case Polygon:
+			PolygonShape polygon = (PolygonShape)shape;
+			int count = polygon.getVertexCount();
+			result = new float[4*count];
+			loop(polygon, count, result);
+			return result;
+		case Circle:
+			CircleShape circle = (CircleShape)shape;
+			Vector2 center = circle.getPosition();
+			result = new float[4*CIRCLE_SEGMENTS];
+			circle(center.x, center.y, circle.getRadius(), result);
+			return result;
+		case Edge:
+			EdgeShape edge = (EdgeShape)shape;
+			result = new float[4];
+			edge.getVertex1(vertex);
+			result[0] = vertex.x;
+			result[1] = vertex.y;
+			edge.getVertex2(vertex);
+			result[2] = vertex.x;
+			result[3] = vertex.y;
+			return result;
+		case Chain:
+			ChainShape chain = (ChainShape)shape;
+			int links = chain.getVertexCount()-1;
+			boolean looped = chain.isLooped();
+			result = new float[4*(looped ? links+1 : links)];
+			int pos = 0;
+			chain.getVertex(0, vertex);
+			for(int ii = 1; ii <= links; ii++) {
+				result[pos++] = vertex.x;
+				result[pos++] = vertex.y;
+				chain.getVertex(ii, vertex);
+				result[pos++] = vertex.x;
+				result[pos++] = vertex.y;
+			}
+			if (looped) {
+				result[pos++] = vertex.x;
+				result[pos++] = vertex.y;
+				chain.getVertex(0, vertex);
+				result[pos++] = vertex.x;
+				result[pos++] = vertex.y;
+			}
+			return result;
+		}
+		return new float[0];
+	}
+
+	/**
+	 * Stores the closed outline of the polygon as a line list.
+	 *
+	 * @param shape		The Box2d polygon
+	 * @param count		The number of polygon vertices
+	 * @param result	The array to store the line list
+	 *
+	 * @return the number of floats stored in result
+	 */
+	private int loop(PolygonShape shape, int count, float[] result) {
+		if (count == 0) {
+			return 0;
+		}
+		shape.getVertex(0, vertex);
+		float x0 = vertex.x;
+		float y0 = vertex.y;
+		int pos = 0;
+		for(int ii = 0; ii < count; ii++) {
+			result[pos++] = vertex.x;
+			result[pos++] = vertex.y;
+			if (ii < count-1) {
+				shape.getVertex(ii+1, vertex);
+				result[pos++] = vertex.x;
+				result[pos++] = vertex.y;
+			} else {
+				result[pos++] = x0;
+				result[pos++] = y0;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * Stores the outline of a circle as a line list.
+	 *
+	 * @param x			The x-coordinate of the circle center
+	 * @param y			The y-coordinate of the circle center
+	 * @param radius	The circle radius
+	 * @param result	The array to store the line list
+	 *
+	 * @return the number of floats stored in result
+	 */
+	private int circle(float x, float y, float radius, float[] result) {
+		int pos = 0;
+		float step = MathUtils.PI2/CIRCLE_SEGMENTS;
+		for(int ii = 0; ii < CIRCLE_SEGMENTS; ii++) {
+			result[pos++] = x+radius*MathUtils.cos(ii*step);
+			result[pos++] = y+radius*MathUtils.sin(ii*step);
+			result[pos++] = x+radius*MathUtils.cos((ii+1)*step);
+			result[pos++] = y+radius*MathUtils.sin((ii+1)*step);
+		}
+		return pos;
+	}
+}
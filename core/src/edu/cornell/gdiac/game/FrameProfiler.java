@@ -0,0 +1,354 @@
+/*
+ * FrameProfiler.java
+ *
+ * When the game stutters, we need to know which part of the game loop is to blame.
+ * This class times each phase of the loop (input, gameplay, physics, drawing) with
+ * the nanosecond clock and keeps a rolling window of the last few hundred frames.
+ * It can show the median, 99th percentile and worst time of each phase on screen,
+ * and it can write every frame to a CSV file for later analysis.
+ *
+ * The profiler is designed to be left in the game.  Once it is created, it does not
+ * allocate any memory, so it does not disturb the garbage collector it is measuring.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game;
+
+import java.io.*;
+import java.util.Arrays;
+
+import com.badlogic.gdx.*;
+import com.badlogic.gdx.files.*;
+import com.badlogic.gdx.graphics.g2d.*;
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * Per-phase timer for the game loop.
+ *
+ * Each phase is timed with a matching pair of {@link #begin} and {@link #end}. A
+ * phase may run several times in one frame (e.g. several fixed physics steps), in
+ * which case the times are added together.  The frame is closed with {@link
+ * #endFrame}, which moves the totals into the rolling window.
+ */
+public class FrameProfiler {
+	/** The phase reading the input and handling resets */
+	public static final int PRE_UPDATE  = 0;
+	/** The phase with the game specific logic */
+	public static final int UPDATE      = 1;
+	/** The phase stepping the physics and collecting garbage (includes STEP) */
+	public static final int POST_UPDATE = 2;
+	/** The Box2d world step alone */
+	public static final int STEP        = 3;
+	/** The phase drawing the frame */
+	public static final int DRAW        = 4;
+	/** The whole frame */
+	public static final int FRAME       = 5;
+	/** The number of phases */
+	public static final int PHASES = 6;
+	/** The names of the phases (for the overlay and the CSV header) */
+	private static final String[] NAMES = { "pre", "update", "post", "step", "draw", "frame" };
+
+	/** The default number of frames in the rolling window */
+	public static final int DEFAULT_WINDOW = 240;
+
+	/** Whether the timers are running */
+	private boolean enabled;
+	/** The start time of each phase in progress */
+	private long[] starts;
+	/** The time spent in each phase this frame */
+	private long[] totals;
+	/** The rolling window of times for each phase */
+	private long[][] samples;
+	/** Scratch space to sort a window */
+	private long[] sorted;
+	/** The next position to write in the rolling window */
+	private int cursor;
+	/** The number of valid frames in the rolling window */
+	private int filled;
+	/** The number of frames profiled */
+	private long frames;
+
+	/** The number of bodies in the world at the end of the frame */
+	private int bodies;
+	/** The number of contacts in the world at the end of the frame */
+	private int contacts;
+	/** The number of joints in the world at the end of the frame */
+	private int joints;
+	/** The number of objects in the controller at the end of the frame */
+	private int objects;
+
+	/** The CSV output (null if not exporting) */
+	private Writer export;
+	/** The CSV file (for error messages) */
+	private FileHandle exportFile;
+	/** Cache for the overlay and the CSV lines */
+	private com.badlogic.gdx.utils.StringBuilder text;
+
+	/**
+	 * Creates a new profiler with the default window size.
+	 *
+	 * The profiler is initially disabled.
+	 */
+	public FrameProfiler() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Creates a new profiler with the given window size.
+	 *
+	 * The profiler is initially disabled.
+	 *
+	 * @param window	The number of frames in the rolling window
+	 */
+	public FrameProfiler(int window) {
+		starts  = new long[PHASES];
+		totals  = new long[PHASES];
+		samples = new long[PHASES][window];
+		sorted  = new long[window];
+		text = new com.badlogic.gdx.utils.StringBuilder(512);
+		enabled = false;
+	}
+
+	/**
+	 * Returns true if the timers are running
+	 *
+	 * The timers must be running to show the overlay or to export a CSV file.
+	 *
+	 * @return true if the timers are running
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets whether the timers are running
+	 *
+	 * The timers must be running to show the overlay or to export a CSV file.
+	 * Disabling the timers clears the rolling window and stops any export.
+	 *
+	 * @param value	whether the timers are running
+	 */
+	public void setEnabled(boolean value) {
+		if (!value) {
+			stopExport();
+		}
+		if (enabled && !value) {
+			cursor = 0;
+			filled = 0;
+			Arrays.fill(totals,0);
+		}
+		enabled = value;
+	}
+
+	/**
+	 * Returns true if every frame is written to a CSV file
+	 *
+	 * @return true if every frame is written to a CSV file
+	 */
+	public boolean isExporting() {
+		return export != null;
+	}
+
+	/**
+	 * Starts writing every frame to the given CSV file.
+	 *
+	 * The file is replaced if it exists.  Each row has the frame number, the time
+	 * of each phase in microseconds, and the world counters.  Any previous export
+	 * is stopped.
+	 *
+	 * @param file	The CSV file
+	 */
+	public void startExport(FileHandle file) {
+		stopExport();
+		exportFile = file;
+		export = new BufferedWriter(file.writer(false));
+		text.setLength(0);
+		text.append("frame");
+		for(int ii = 0; ii < PHASES; ii++) {
+			text.append(',').append(NAMES[ii]).append("_us");
+		}
+		text.append(",bodies,contacts,joints,objects\n");
+		write();
+	}
+
+	/**
+	 * Stops writing frames to the CSV file, if applicable.
+	 */
+	public void stopExport() {
+		if (export != null) {
+			StreamUtils.closeQuietly(export);
+			export = null;
+			exportFile = null;
+		}
+	}
+
+	/**
+	 * Starts timing the given phase.
+	 *
+	 * @param phase	The phase to time
+	 */
+	public void begin(int phase) {
+		if (enabled) {
+			starts[phase] = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Stops timing the given phase, adding the time to this frame.
+	 *
+	 * @param phase	The phase to time
+	 */
+	public void end(int phase) {
+		if (enabled) {
+			totals[phase] += System.nanoTime()-starts[phase];
+		}
+	}
+
+	/**
+	 * Closes the current frame, moving the times into the rolling window.
+	 *
+	 * The counters are read from the given world.  If exporting, the frame is
+	 * written to the CSV file.
+	 *
+	 * @param world		The physics world
+	 * @param count		The number of objects in the controller
+	 */
+	public void endFrame(World world, int count) {
+		if (!enabled) {
+			return;
+		}
+		bodies   = world.getBodyCount();
+		contacts = world.getContactCount();
+		joints   = world.getJointCount();
+		objects  = count;
+
+		for(int ii = 0; ii < PHASES; ii++) {
+			samples[ii][cursor] = totals[ii];
+		}
+		if (export != null) {
+			text.setLength(0);
+			text.append(frames);
+			for(int ii = 0; ii < PHASES; ii++) {
+				text.append(',').append((int)(totals[ii]/1000));
+			}
+			text.append(',').append(bodies).append(',').append(contacts);
+			text.append(',').append(joints).append(',').append(objects).append('\n');
+			write();
+		}
+
+		Arrays.fill(totals,0);
+		cursor = (cursor+1) % sorted.length;
+		filled = Math.min(filled+1, sorted.length);
+		frames++;
+	}
+
+	/**
+	 * Returns the time spent in a phase so far this frame (in nanoseconds)
+	 *
+	 * This is useful to a caller that runs the game loop itself, such as a 
+	 * headless benchmark.  The time is reset when the frame is closed.
+	 *
+	 * @param phase		The phase to query
+	 *
+	 * @return the time spent in a phase so far this frame
+	 */
+	public long getTotal(int phase) {
+		return totals[phase];
+	}
+
+	/**
+	 * Closes the current frame without adding it to the rolling window.
+	 *
+	 * This is for callers that read the frame with {@link #getTotal} instead.
+	 * Nothing is written to the CSV file.
+	 */
+	public void skipFrame() {
+		Arrays.fill(totals,0);
+	}
+
+	/**
+	 * Returns the given percentile of a phase over the rolling window (in nanoseconds)
+	 *
+	 * A fraction of 0.5 is the median, while a fraction of 1 is the worst frame.
+	 *
+	 * @param phase		The phase to query
+	 * @param fraction	The percentile as a fraction in [0,1]
+	 *
+	 * @return the given percentile of a phase over the rolling window
+	 */
+	public long getPercentile(int phase, float fraction) {
+		if (filled == 0) {
+			return 0;
+		}
+		System.arraycopy(samples[phase], 0, sorted, 0, filled);
+		Arrays.sort(sorted, 0, filled);
+		return sorted[percentileIndex(fraction)];
+	}
+
+	/**
+	 * Draws the profiler overlay as text on the screen.
+	 *
+	 * Each phase gets a line with its median, 99th percentile and worst time in
+	 * microseconds, followed by a line with the world counters.  This method must
+	 * be called inside of a standard drawing pass.
+	 *
+	 * @param canvas	Drawing context
+	 * @param font		The font to use
+	 * @param x			The x-coordinate of the upper-left corner
+	 * @param y			The y-coordinate of the upper-left corner
+	 */
+	public void draw(GameCanvas canvas, BitmapFont font, float x, float y) {
+		text.setLength(0);
+		for(int ii = 0; ii < PHASES; ii++) {
+			System.arraycopy(samples[ii], 0, sorted, 0, filled);
+			Arrays.sort(sorted, 0, filled);
+			text.append(NAMES[ii]).append(": ");
+			appendMicros(percentileIndex(0.50f)).append(" / ");
+			appendMicros(percentileIndex(0.99f)).append(" / ");
+			appendMicros(filled-1).append(" us\n");
+		}
+		text.append("bodies: ").append(bodies).append("  contacts: ").append(contacts);
+		text.append("  joints: ").append(joints).append("  objects: ").append(objects);
+		canvas.drawText(text, font, x, y);
+	}
+
+	/**
+	 * Appends the sorted sample at the given index in microseconds (with one decimal)
+	 *
+	 * @param index	The index into the sorted samples
+	 *
+	 * @return the text cache, for chaining
+	 */
+	private com.badlogic.gdx.utils.StringBuilder appendMicros(int index) {
+		long tenths = (filled == 0 ? 0 : sorted[index]/100);
+		return text.append(tenths/10).append('.').append(tenths%10);
+	}
+
+	/**
+	 * Returns the index of the given percentile in the sorted samples
+	 *
+	 * @param fraction	The percentile as a fraction in [0,1]
+	 *
+	 * @return the index of the given percentile in the sorted samples
+	 */
+	private int percentileIndex(float fraction) {
+		int index = (int)Math.ceil(fraction*filled)-1;
+		return Math.max(0, Math.min(filled-1, index));
+	}
+
+	/**
+	 * Writes the text cache to the CSV file
+	 *
+	 * The export is stopped if the file cannot be written.
+	 */
+	private void write() {
+		try {
+			export.write(text.chars, 0, text.length);
+		} catch (IOException e) {
+			Gdx.app.error("FrameProfiler", "Could not write "+exportFile, e);
+			stopExport();
+		}
+	}
+}
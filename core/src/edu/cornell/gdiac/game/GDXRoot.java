@@ -28,12 +28,19 @@ import edu.cornell.gdiac.game.platform.*;
  * and you would draw it as a root class in an architecture specification.  
  */
 public class GDXRoot extends Game implements ScreenListener {
+	/** The ResourceManager budget, beyond which unused baked level meshes are evicted */
+	private static final long RESOURCE_BUDGET = 32*1024*1024;
+	/** The asset group of the level (see the groups in assets.json) */
+	private static final String LEVEL_GROUP = "platform";
+
 	/** AssetManager to load game assets (textures, sounds, etc.) */
 	AssetDirectory directory;
 	/** Drawing context to display graphics (VIEW CLASS) */
 	private GameCanvas canvas; 
 	/** Player mode for the asset loading screen (CONTROLLER CLASS) */
 	private LoadingMode loading;
+	/** Scheduler for assets still loading after play was pressed (null if done) */
+	private LoadingScheduler background;
 	/** Player mode for the the game proper (CONTROLLER CLASS) */
 	private int current;
 	/** List of all WorldControllers */
@@ -54,8 +61,9 @@ public class GDXRoot extends Game implements ScreenListener {
 	 * the asynchronous loader for all other assets.
 	 */
 	public void create() {
+		ResourceManager.get().setBudget(RESOURCE_BUDGET);
 		canvas  = new GameCanvas();
-		loading = new LoadingMode("assets.json",canvas,1);
+		loading = new LoadingMode("assets.json",canvas,1,LEVEL_GROUP);
 
 		// Initialize the three game worlds
 		controller = new PlatformController();
@@ -84,9 +92,25 @@ public class GDXRoot extends Game implements ScreenListener {
 			directory.dispose();
 			directory = null;
 		}
+		ResourceManager.dispose();
 		super.dispose();
 	}
 	
+	/**
+	 * Called when the Application should render itself.
+	 *
+	 * If the player pressed play before all assets were loaded, this continues 
+	 * loading them with the adaptive budget of the loading screen.  It also disposes 
+	 * of any resources evicted from the {@link ResourceManager} since the last frame.
+	 */
+	public void render() {
+		if (background != null && background.update(Gdx.graphics.getDeltaTime())) {
+			background = null;
+		}
+		ResourceManager.get().update();
+		super.render();
+	}
+
 	/**
 	 * Called when the Application is resized. 
 	 *
@@ -111,6 +135,13 @@ public class GDXRoot extends Game implements ScreenListener {
 	 */
 	public void exitScreen(Screen screen, int exitCode) {
 		if (screen == loading) {
+			// The controller gathers every asset, so wait for the rest to load.
+			// The loading screen asks again each frame until they are done.
+			if (!loading.getScheduler().isFinished()) {
+				background = loading.getScheduler();
+				return;
+			}
+			background = null;
 			directory = loading.getAssets();
 			controller.gatherAssets(directory);
 			controller.setScreenListener(this);
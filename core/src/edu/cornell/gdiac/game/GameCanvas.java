@@ -17,8 +17,11 @@
  */
 package edu.cornell.gdiac.game;
 
+import java.util.Arrays;
+
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.graphics.glutils.*;
@@ -30,6 +33,15 @@ import com.badlogic.gdx.physics.box2d.*;
  * This version of GameCanvas only supports both rectangular and polygonal Sprite
  * drawing.  It also supports a debug mode that draws polygonal outlines.  However,
  * that mode must be done in a separate begin/end pass.
+ *
+ * Normally, every draw command is forwarded to the sprite batch immediately.  If
+ * sorting is enabled, the commands of a pass are instead recorded and replayed
+ * at end(), sorted by layer, then blend state, then texture.  This reduces the
+ * number of times that the batch must flush because of a texture switch.  The
+ * sort is stable, so commands with the same layer and texture keep their order.
+ *
+ * The canvas also keeps statistics (draw commands, render calls, texture switches
+ * and vertices) for each animation frame.  A frame starts with a call to clear().
  */
 public class GameCanvas {
 	/** Enumeration to track which pass we are in */
@@ -41,6 +53,73 @@ public class GameCanvas {
 		/** We are drawing outlines */
 		DEBUG
 	}
+
+	/** Enumeration of the primitive sprite batch calls (for sorted drawing) */
+	private enum CommandType {
+		/** A texture region with a position and size */
+		REGION,
+		/** A texture region with an affine transform */
+		REGION_AFFINE,
+		/** A polygon region with a position and size */
+		POLYGON,
+		/** A polygon region with an origin, scale and rotation */
+		POLYGON_TRANSFORM,
+		/** A polygon region with an affine transform */
+		POLYGON_AFFINE
+	}
+
+	/**
+	 * A recorded draw command, for sorted drawing.
+	 *
+	 * A command copies everything that could change before it is replayed. The
+	 * only exception is a polygon region, which must not be modified before the
+	 * end of the drawing pass.
+	 */
+	private static class DrawCommand {
+		/** The sprite batch call for this command */
+		CommandType type;
+		/** The texture region to draw (for region commands) */
+		final TextureRegion region = new TextureRegion();
+		/** The polygon region to draw (for polygon commands) */
+		PolygonRegion polygon;
+		/** The color tint */
+		final Color tint = new Color();
+		/** The transform (for affine commands) */
+		final Affine2 transform = new Affine2();
+		/** The blend state when this command was recorded */
+		BlendState blend;
+		/** The drawing layer when this command was recorded */
+		int layer;
+		/** The position and size */
+		float x, y, width, height;
+		/** The origin, scale and rotation (in degrees) */
+		float ox, oy, sx, sy, angle;
+
+		/**
+		 * Returns the texture drawn by this command
+		 *
+		 * @return the texture drawn by this command
+		 */
+		Texture getTexture() {
+			return (polygon != null ? polygon.getRegion().getTexture() : region.getTexture());
+		}
+
+		/**
+		 * Returns the number of vertices submitted by this command
+		 *
+		 * @return the number of vertices submitted by this command
+		 */
+		int getVertexCount() {
+			return (polygon != null ? polygon.getVertices().length/2 : 4);
+		}
+	}
+
+	/** The maximum number of commands recorded before a pass is flushed early */
+	private static final int MAX_COMMANDS = 1 << 22;
+	/** The bits of a sort key storing the command index */
+	private static final long INDEX_MASK = MAX_COMMANDS-1;
+	/** The bits of a texture handle used in a sort key */
+	private static final int TEXTURE_MASK = (1 << 23)-1;
 	
 	/**
 	 * Enumeration of supported BlendStates.
@@ -64,8 +143,10 @@ public class GameCanvas {
 	/** Drawing context to handle textures AND POLYGONS as sprites */
 	private PolygonSpriteBatch spriteBatch;
 	
-	/** Rendering context for the debug outlines */
+	/** Rendering context for the debug markers */
 	private ShapeRenderer debugRender;
+	/** Rendering context for the debug outlines */
+	private DebugRenderer debugBatch;
 	
 	/** Track whether or not we are active (for error checking) */
 	private DrawPass active;
@@ -90,6 +171,44 @@ public class GameCanvas {
 	/** Cache object to handle raw textures */
 	private TextureRegion holder;
 
+	// SORTED DRAWING
+	/** Whether to record and sort the draw commands of a pass */
+	private boolean sorting;
+	/** The drawing layer for subsequent draw commands */
+	private int layer;
+	/** The commands recorded this pass (reused across passes) */
+	private Array<DrawCommand> commands;
+	/** The number of commands recorded this pass */
+	private int commandCount;
+	/** The sort key of each recorded command */
+	private long[] commandKeys;
+	/** The command to use when sorting is disabled */
+	private DrawCommand immediate;
+	/** The blend state last applied to the sprite batch */
+	private BlendState applied;
+	/** The texture last drawn by the sprite batch */
+	private Texture lastTexture;
+
+	// STATISTICS
+	/** The number of draw commands this frame */
+	private int drawCount;
+	/** The number of sprite batch render calls this frame */
+	private int renderCalls;
+	/** The number of texture switches this frame */
+	private int textureSwitches;
+	/** The number of vertices submitted this frame */
+	private int vertexCount;
+	/** The number of draw commands in the previous frame */
+	private int lastDrawCount;
+	/** The number of sprite batch render calls in the previous frame */
+	private int lastRenderCalls;
+	/** The number of texture switches in the previous frame */
+	private int lastTextureSwitches;
+	/** The number of vertices submitted in the previous frame */
+	private int lastVertexCount;
+	/** Cache object for the statistics overlay */
+	private StringBuilder statistics;
+
 	/**
 	 * Creates a new GameCanvas determined by the application configuration.
 	 * 
@@ -101,6 +220,7 @@ public class GameCanvas {
 		active = DrawPass.INACTIVE;
 		spriteBatch = new PolygonSpriteBatch();
 		debugRender = new ShapeRenderer();
+		debugBatch  = new DebugRenderer();
 		
 		// Set the projection matrix (for proper scaling)
 		camera = new OrthographicCamera(getWidth(),getHeight());
@@ -113,6 +233,12 @@ public class GameCanvas {
 		local  = new Affine2();
 		global = new Matrix4();
 		vertex = new Vector2();
+
+		// Initialize the sorted drawing
+		commands = new Array<DrawCommand>();
+		commandKeys = new long[64];
+		immediate = new DrawCommand();
+		statistics = new StringBuilder();
 	}
 		
     /**
@@ -124,11 +250,17 @@ public class GameCanvas {
 			return;
 		}
 		spriteBatch.dispose();
+		debugRender.dispose();
+		debugBatch.dispose();
     	spriteBatch = null;
+    	debugRender = null;
+    	debugBatch  = null;
     	local  = null;
     	global = null;
     	vertex = null;
     	holder = null;
+    	commands = null;
+    	immediate = null;
     }
 
 	/**
@@ -297,6 +429,24 @@ public class GameCanvas {
 		if (state == blend) {
 			return;
 		}
+		blend = state;
+		// Sorted commands apply their blend state when replayed
+		if (!sorting || active != DrawPass.STANDARD) {
+			applyBlendState(state);
+		}
+	}
+
+	/**
+	 * Applies the given blend state to the sprite batch.
+	 *
+	 * This method does nothing if the state is null or is already applied.
+	 *
+	 * @param state the color blending rule
+	 */
+	private void applyBlendState(BlendState state) {
+		if (state == null || state == applied) {
+			return;
+		}
 		switch (state) {
 		case NO_PREMULT:
 			spriteBatch.setBlendFunction(GL20.GL_SRC_ALPHA,GL20.GL_ONE_MINUS_SRC_ALPHA);
@@ -311,13 +461,126 @@ public class GameCanvas {
 			spriteBatch.setBlendFunction(GL20.GL_ONE,GL20.GL_ZERO);
 			break;
 		}
-		blend = state;
+		applied = state;
 	}
-	
+
+	/**
+	 * Returns true if the draw commands of a pass are sorted.
+	 *
+	 * If this value is true, draw commands are recorded and replayed at the
+	 * end of the pass, sorted by layer, then blend state, then texture.  Text
+	 * is not sorted; drawing text replays all commands recorded before it.
+	 *
+	 * @return true if the draw commands of a pass are sorted.
+	 */
+	public boolean isSorting() {
+		return sorting;
+	}
+
+	/**
+	 * Sets whether the draw commands of a pass are sorted.
+	 *
+	 * If this value is true, draw commands are recorded and replayed at the
+	 * end of the pass, sorted by layer, then blend state, then texture.  Text
+	 * is not sorted; drawing text replays all commands recorded before it.
+	 *
+	 * This method raises an IllegalStateException if called while drawing is
+	 * active (e.g. in-between a begin-end pair).
+	 *
+	 * @param value whether the draw commands of a pass are sorted.
+	 */
+	public void setSorting(boolean value) {
+		if (active != DrawPass.INACTIVE) {
+			Gdx.app.error("GameCanvas", "Cannot alter property while drawing active", new IllegalStateException());
+			return;
+		}
+		sorting = value;
+	}
+
+	/**
+	 * Returns the drawing layer for subsequent draw commands.
+	 *
+	 * When sorting is enabled, commands in a higher layer are always drawn on top
+	 * of commands in a lower layer.  The layer has no effect if sorting is disabled.
+	 *
+	 * @return the drawing layer for subsequent draw commands.
+	 */
+	public int getLayer() {
+		return layer;
+	}
+
+	/**
+	 * Sets the drawing layer for subsequent draw commands.
+	 *
+	 * When sorting is enabled, commands in a higher layer are always drawn on top
+	 * of commands in a lower layer.  The layer has no effect if sorting is disabled.
+	 * The layer is clamped to the range of a short.  It is safe to use this setter
+	 * while drawing is active.
+	 *
+	 * @param value the drawing layer for subsequent draw commands.
+	 */
+	public void setLayer(int value) {
+		layer = MathUtils.clamp(value, Short.MIN_VALUE, Short.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the number of draw commands in the previous frame.
+	 *
+	 * @return the number of draw commands in the previous frame.
+	 */
+	public int getDrawCount() {
+		return lastDrawCount;
+	}
+
+	/**
+	 * Returns the number of sprite batch render calls in the previous frame.
+	 *
+	 * Each render call is a separate draw call on the graphics card.
+	 *
+	 * @return the number of sprite batch render calls in the previous frame.
+	 */
+	public int getRenderCalls() {
+		return lastRenderCalls;
+	}
+
+	/**
+	 * Returns the number of texture switches in the previous frame.
+	 *
+	 * This counts every draw command whose texture differs from the previous one
+	 * (including the first command of each pass).
+	 *
+	 * @return the number of texture switches in the previous frame.
+	 */
+	public int getTextureSwitches() {
+		return lastTextureSwitches;
+	}
+
+	/**
+	 * Returns the number of vertices submitted in the previous frame.
+	 *
+	 * Text is not included in this count.
+	 *
+	 * @return the number of vertices submitted in the previous frame.
+	 */
+	public int getVertexCount() {
+		return lastVertexCount;
+	}
+
 	/**
 	 * Clear the screen so we can start a new animation frame
+	 *
+	 * This method also starts the statistics for a new frame.
 	 */
 	public void clear() {
+		lastDrawCount = drawCount;
+		lastRenderCalls = renderCalls;
+		lastTextureSwitches = textureSwitches;
+		lastVertexCount = vertexCount;
+		drawCount = 0;
+		renderCalls = 0;
+		textureSwitches = 0;
+		vertexCount = 0;
+
     	// Clear the screen
 		Gdx.gl.glClearColor(0.39f, 0.58f, 0.93f, 1.0f);  // Homage to the XNA years
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);		
@@ -336,8 +599,7 @@ public class GameCanvas {
 		spriteBatch.setProjectionMatrix(global);
 		
 		setBlendState(BlendState.NO_PREMULT);
-		spriteBatch.begin();
-    	active = DrawPass.STANDARD;
+		startPass();
     }
 
 	/**
@@ -354,8 +616,7 @@ public class GameCanvas {
     	global.mulLeft(camera.combined);
 		spriteBatch.setProjectionMatrix(global);
 		
-    	spriteBatch.begin();
-    	active = DrawPass.STANDARD;
+		startPass();
     }
     
 	/**
@@ -365,18 +626,145 @@ public class GameCanvas {
 	 */
     public void begin() {
 		spriteBatch.setProjectionMatrix(camera.combined);
-    	spriteBatch.begin();
-    	active = DrawPass.STANDARD;
+		startPass();
     }
 
 	/**
 	 * Ends a drawing sequence, flushing textures to the graphics card.
+	 *
+	 * If sorting is enabled, this is when the recorded commands are drawn.
 	 */
     public void end() {
+		if (sorting) {
+			replayCommands();
+		}
     	spriteBatch.end();
+		renderCalls += spriteBatch.renderCalls;
     	active = DrawPass.INACTIVE;
     }
 
+	/**
+	 * Starts the sprite batch for a standard drawing sequence.
+	 */
+	private void startPass() {
+		spriteBatch.begin();
+		commandCount = 0;
+		lastTexture = null;
+		active = DrawPass.STANDARD;
+	}
+
+	/**
+	 * Returns a command for the next draw, initialized with the current state.
+	 *
+	 * If sorting is enabled, this is a new recorded command.  Otherwise, it is a
+	 * shared command that is executed immediately by {@link #submit}.
+	 *
+	 * @param type	The sprite batch call for the command
+	 * @param tint	The color tint
+	 *
+	 * @return a command for the next draw
+	 */
+	private DrawCommand prepare(CommandType type, Color tint) {
+		DrawCommand command = immediate;
+		if (sorting) {
+			if (commandCount == MAX_COMMANDS) {
+				replayCommands();
+			}
+			if (commandCount == commands.size) {
+				commands.add(new DrawCommand());
+			}
+			command = commands.get(commandCount);
+		}
+		command.type = type;
+		command.polygon = null;
+		command.tint.set(tint);
+		command.blend = blend;
+		command.layer = layer;
+		return command;
+	}
+
+	/**
+	 * Submits a command prepared by {@link #prepare}.
+	 *
+	 * If sorting is enabled, the command is recorded with its sort key. The key
+	 * orders by layer, then blend state, then texture, then the order of submission
+	 * (so the sort is stable).  Otherwise, the command is executed immediately.
+	 *
+	 * @param command	The command to submit
+	 */
+	private void submit(DrawCommand command) {
+		drawCount++;
+		if (!sorting) {
+			execute(command);
+			return;
+		}
+
+		if (commandCount == commandKeys.length) {
+			commandKeys = Arrays.copyOf(commandKeys, 2*commandCount);
+		}
+		long key = ((long)(command.layer-Short.MIN_VALUE)) << 48;
+		key |= ((long)(command.blend == null ? 0 : command.blend.ordinal()+1)) << 45;
+		key |= ((long)(command.getTexture().getTextureObjectHandle() & TEXTURE_MASK)) << 22;
+		key |= commandCount;
+		// Flip the sign bit so that signed order is the same as unsigned order
+		commandKeys[commandCount++] = key ^ Long.MIN_VALUE;
+	}
+
+	/**
+	 * Draws all recorded commands in sorted order.
+	 *
+	 * The sprite batch is left with the current blend state of this canvas.
+	 */
+	private void replayCommands() {
+		Arrays.sort(commandKeys, 0, commandCount);
+		for(int ii = 0; ii < commandCount; ii++) {
+			execute(commands.get((int)(commandKeys[ii] & INDEX_MASK)));
+		}
+		commandCount = 0;
+		applyBlendState(blend);
+	}
+
+	/**
+	 * Sends a draw command to the sprite batch, updating the statistics.
+	 *
+	 * @param command	The command to execute
+	 */
+	private void execute(DrawCommand command) {
+		applyBlendState(command.blend);
+		Texture texture = command.getTexture();
+		if (texture != lastTexture) {
+			textureSwitches++;
+			lastTexture = texture;
+		}
+		vertexCount += command.getVertexCount();
+
+		spriteBatch.setColor(command.tint);
+		switch (command.type) {
+		case REGION:
+			spriteBatch.draw(command.region, command.x, command.y, command.width, command.height);
+			break;
+		case REGION_AFFINE:
+			spriteBatch.draw(command.region, command.width, command.height, command.transform);
+			break;
+		case POLYGON:
+			spriteBatch.draw(command.polygon, command.x, command.y, command.width, command.height);
+			break;
+		case POLYGON_TRANSFORM:
+			spriteBatch.draw(command.polygon, command.x, command.y, command.ox, command.oy,
+							 command.width, command.height, command.sx, command.sy, command.angle);
+			break;
+		case POLYGON_AFFINE:
+			computeVertices(command.transform,command.polygon.getVertices());
+			spriteBatch.draw(command.polygon, 0, 0);
+
+			// Invert and restore
+			local.set(command.transform);
+			local.inv();
+			computeVertices(local,command.polygon.getVertices());
+			break;
+		}
+	}
+
 	/**
 	 * Draws the tinted texture at the given position.
 	 *
@@ -398,9 +786,13 @@ public class GameCanvas {
 			return;
 		}
 		
-		// Unlike Lab 1, we can shortcut without a master drawing method
-    	spriteBatch.setColor(Color.WHITE);
-		spriteBatch.draw(image, x,  y);
+		DrawCommand command = prepare(CommandType.REGION, Color.WHITE);
+		command.region.setRegion(image);
+		command.x = x;
+		command.y = y;
+		command.width  = image.getWidth();
+		command.height = image.getHeight();
+		submit(command);
 	}
 	
 	/**
@@ -426,9 +818,13 @@ public class GameCanvas {
 			return;
 		}
 		
-		// Unlike Lab 1, we can shortcut without a master drawing method
-    	spriteBatch.setColor(tint);
-		spriteBatch.draw(image, x,  y, width, height);
+		DrawCommand command = prepare(CommandType.REGION, tint);
+		command.region.setRegion(image);
+		command.x = x;
+		command.y = y;
+		command.width  = width;
+		command.height = height;
+		submit(command);
 	}
 	
 	/**
@@ -551,9 +947,13 @@ public class GameCanvas {
 			return;
 		}
 		
-		// Unlike Lab 1, we can shortcut without a master drawing method
-    	spriteBatch.setColor(Color.WHITE);
-		spriteBatch.draw(region, x,  y);
+		DrawCommand command = prepare(CommandType.REGION, Color.WHITE);
+		command.region.setRegion(region);
+		command.x = x;
+		command.y = y;
+		command.width  = region.getRegionWidth();
+		command.height = region.getRegionHeight();
+		submit(command);
 	}
 
 	/**
@@ -579,9 +979,13 @@ public class GameCanvas {
 			return;
 		}
 		
-		// Unlike Lab 1, we can shortcut without a master drawing method
-    	spriteBatch.setColor(tint);
-		spriteBatch.draw(region, x,  y, width, height);
+		DrawCommand command = prepare(CommandType.REGION, tint);
+		command.region.setRegion(region);
+		command.x = x;
+		command.y = y;
+		command.width  = width;
+		command.height = height;
+		submit(command);
 	}
 	
 	/**
@@ -609,9 +1013,13 @@ public class GameCanvas {
 			return;
 		}
 		
-		// Unlike Lab 1, we can shortcut without a master drawing method
-    	spriteBatch.setColor(tint);
-		spriteBatch.draw(region, x-ox, y-oy, width, height);
+		DrawCommand command = prepare(CommandType.REGION, tint);
+		command.region.setRegion(region);
+		command.x = x-ox;
+		command.y = y-oy;
+		command.width  = width;
+		command.height = height;
+		submit(command);
 	}
 
 	/**
@@ -651,8 +1059,12 @@ public class GameCanvas {
 		// There is a workaround, but it will break if the bug is fixed.
 		// For now, it is better to set the affine transform directly.
 		computeTransform(ox,oy,x,y,angle,sx,sy);
-		spriteBatch.setColor(tint);
-		spriteBatch.draw(region, region.getRegionWidth(), region.getRegionHeight(), local);
+		DrawCommand command = prepare(CommandType.REGION_AFFINE, tint);
+		command.region.setRegion(region);
+		command.transform.set(local);
+		command.width  = region.getRegionWidth();
+		command.height = region.getRegionHeight();
+		submit(command);
 	}
 
 	/**
@@ -680,10 +1092,13 @@ public class GameCanvas {
 			return;
 		}
 
-		local.set(affine);
-		local.translate(-ox,-oy);				
-		spriteBatch.setColor(tint);
-		spriteBatch.draw(region, region.getRegionWidth(), region.getRegionHeight(), local);
+		DrawCommand command = prepare(CommandType.REGION_AFFINE, tint);
+		command.region.setRegion(region);
+		command.transform.set(affine);
+		command.transform.translate(-ox,-oy);
+		command.width  = region.getRegionWidth();
+		command.height = region.getRegionHeight();
+		submit(command);
 	}
 
 	/**
@@ -713,9 +1128,14 @@ public class GameCanvas {
 			return;
 		}
 		
-		// Unlike Lab 1, we can shortcut without a master drawing method
-    	spriteBatch.setColor(Color.WHITE);
-		spriteBatch.draw(region, x,  y);
+		TextureRegion bounds = region.getRegion();
+		DrawCommand command = prepare(CommandType.POLYGON, Color.WHITE);
+		command.polygon = region;
+		command.x = x;
+		command.y = y;
+		command.width  = bounds.getRegionWidth();
+		command.height = bounds.getRegionHeight();
+		submit(command);
 	}
 	
 	/**
@@ -747,9 +1167,13 @@ public class GameCanvas {
 			return;
 		}
 		
-		// Unlike Lab 1, we can shortcut without a master drawing method
-    	spriteBatch.setColor(tint);
-		spriteBatch.draw(region, x,  y, width, height);
+		DrawCommand command = prepare(CommandType.POLYGON, tint);
+		command.polygon = region;
+		command.x = x;
+		command.y = y;
+		command.width  = width;
+		command.height = height;
+		submit(command);
 	}
 	
 	/**
@@ -783,9 +1207,13 @@ public class GameCanvas {
 			return;
 		}
 		
-		// Unlike Lab 1, we can shortcut without a master drawing method
-    	spriteBatch.setColor(tint);
-		spriteBatch.draw(region, x-ox, y-oy, width, height);
+		DrawCommand command = prepare(CommandType.POLYGON, tint);
+		command.polygon = region;
+		command.x = x-ox;
+		command.y = y-oy;
+		command.width  = width;
+		command.height = height;
+		submit(command);
 	}
 	
 	/**
@@ -822,10 +1250,18 @@ public class GameCanvas {
 		}
 		
 		TextureRegion bounds = region.getRegion();
-		spriteBatch.setColor(tint);
-		spriteBatch.draw(region, x, y, ox, oy, 
-						 bounds.getRegionWidth(), bounds.getRegionHeight(), 
-						 sx, sy, 180.0f*angle/(float)Math.PI);
+		DrawCommand command = prepare(CommandType.POLYGON_TRANSFORM, tint);
+		command.polygon = region;
+		command.x  = x;
+		command.y  = y;
+		command.ox = ox;
+		command.oy = oy;
+		command.width  = bounds.getRegionWidth();
+		command.height = bounds.getRegionHeight();
+		command.sx = sx;
+		command.sy = sy;
+		command.angle = 180.0f*angle/(float)Math.PI;
+		submit(command);
 	}
 
 	/**
@@ -856,18 +1292,60 @@ public class GameCanvas {
 			return;
 		}
 
-		local.set(affine);
-		local.translate(-ox,-oy);
-		computeVertices(local,region.getVertices());
-
-		spriteBatch.setColor(tint);
-		spriteBatch.draw(region, 0, 0);
-		
-		// Invert and restore
-		local.inv();
-		computeVertices(local,region.getVertices());
+		DrawCommand command = prepare(CommandType.POLYGON_AFFINE, tint);
+		command.polygon = region;
+		command.transform.set(affine);
+		command.transform.translate(-ox,-oy);
+		submit(command);
 	}
 	
+	/**
+	 * Draws the prebuilt mesh with the given texture.
+	 *
+	 * The mesh must have the same vertex attributes as the sprite batch: a 2d
+	 * position, a packed color, and one set of texture coordinates.  Its vertices
+	 * are in the same coordinate space as the other draw commands, so they are
+	 * transformed by the global transform (@see begin(Affine2)).
+	 *
+	 * Meshes are drawn immediately with the current blend state, in a single render
+	 * call.  They are never sorted; if sorting is enabled, all commands recorded
+	 * before the mesh are drawn first.
+	 *
+	 * @param mesh		The mesh to draw
+	 * @param texture	The mesh texture
+	 */
+	public void draw(Mesh mesh, Texture texture) {
+		if (active != DrawPass.STANDARD) {
+			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
+			return;
+		}
+
+		if (sorting) {
+			replayCommands();
+		}
+		applyBlendState(blend);
+		spriteBatch.flush();
+
+		drawCount++;
+		renderCalls++;
+		if (texture != lastTexture) {
+			textureSwitches++;
+			lastTexture = texture;
+		}
+		vertexCount += mesh.getNumVertices();
+
+		// The batch shader is still bound, with the current projection
+		if (spriteBatch.isBlendingEnabled()) {
+			Gdx.gl.glEnable(GL20.GL_BLEND);
+			Gdx.gl.glBlendFuncSeparate(spriteBatch.getBlendSrcFunc(), spriteBatch.getBlendDstFunc(),
+									   spriteBatch.getBlendSrcFuncAlpha(), spriteBatch.getBlendDstFuncAlpha());
+		} else {
+			Gdx.gl.glDisable(GL20.GL_BLEND);
+		}
+		texture.bind();
+		mesh.render(spriteBatch.getShader(), GL20.GL_TRIANGLES);
+	}
+
 	/**
 	 * Transform the given vertices by the affine transform
 	 */
@@ -883,18 +1361,24 @@ public class GameCanvas {
     /**
      * Draws text on the screen.
      *
+     * The text may be a reusable buffer, such as a StringBuilder, as it is not
+     * copied.  Text with several lines is drawn downwards from the given point.
+     *
      * @param text The string to draw
      * @param font The font to use
      * @param x The x-coordinate of the lower-left corner
      * @param y The y-coordinate of the lower-left corner
      */
-    public void drawText(String text, BitmapFont font, float x, float y) {
+    public void drawText(CharSequence text, BitmapFont font, float x, float y) {
 		if (active != DrawPass.STANDARD) {
 			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
 			return;
 		}
-		GlyphLayout layout = new GlyphLayout(font,text);
-		font.draw(spriteBatch, layout, x, y);
+		if (sorting) {
+			replayCommands();
+		}
+		font.draw(spriteBatch, text, x, y);
+		lastTexture = null;
     }
 
     /**
@@ -910,10 +1394,32 @@ public class GameCanvas {
 			return;
 		}
 		
+		if (sorting) {
+			replayCommands();
+		}
 		GlyphLayout layout = new GlyphLayout(font,text);
 		float x = (getWidth()  - layout.width) / 2.0f;
 		float y = (getHeight() + layout.height) / 2.0f;
 		font.draw(spriteBatch, layout, x, y+offset);
+		lastTexture = null;
+    }
+
+    /**
+     * Draws the statistics of the previous frame as text on the screen.
+     *
+     * This is an overlay for checking how well the draw commands are batched.
+     *
+     * @param font The font to use
+     * @param x The x-coordinate of the lower-left corner
+     * @param y The y-coordinate of the lower-left corner
+     */
+    public void drawStatistics(BitmapFont font, float x, float y) {
+		statistics.setLength(0);
+		statistics.append("draws: ").append(lastDrawCount);
+		statistics.append("  calls: ").append(lastRenderCalls);
+		statistics.append("  switches: ").append(lastTextureSwitches);
+		statistics.append("  vertices: ").append(lastVertexCount);
+		drawText(statistics, font, x, y);
     }
     
 	/**
@@ -926,9 +1432,7 @@ public class GameCanvas {
     public void beginDebug(Affine2 affine) {
 		global.setAsAffine(affine);
     	global.mulLeft(camera.combined);
-    	debugRender.setProjectionMatrix(global);
-		
-    	debugRender.begin(ShapeRenderer.ShapeType.Line);
+    	debugBatch.begin(global);
     	active = DrawPass.DEBUG;
     }
     
@@ -944,9 +1448,7 @@ public class GameCanvas {
 		global.idt();
 		global.scl(sx,sy,1.0f);
     	global.mulLeft(camera.combined);
-    	debugRender.setProjectionMatrix(global);
-		
-    	debugRender.begin(ShapeRenderer.ShapeType.Line);
+    	debugBatch.begin(global);
     	active = DrawPass.DEBUG;
     }
 
@@ -962,7 +1464,7 @@ public class GameCanvas {
     	debugRender.circle(0, 0, 10);
     	debugRender.end();
     	
-    	debugRender.begin(ShapeRenderer.ShapeType.Line);
+    	debugBatch.begin(camera.combined);
     	active = DrawPass.DEBUG;
     }
 
@@ -970,7 +1472,7 @@ public class GameCanvas {
 	 * Ends the debug drawing sequence, flushing textures to the graphics card.
 	 */
     public void endDebug() {
-    	debugRender.end();
+    	debugBatch.end();
     	active = DrawPass.INACTIVE;
     }
     
@@ -987,22 +1489,7 @@ public class GameCanvas {
 			Gdx.app.error("GameCanvas", "Cannot draw without active beginDebug()", new IllegalStateException());
 			return;
 		}
-		
-    	float x0, y0, x1, y1;
-    	debugRender.setColor(color);
-    	for(int ii = 0; ii < shape.getVertexCount()-1; ii++) {
-    		shape.getVertex(ii  ,vertex);
-    		x0 = x+vertex.x; y0 = y+vertex.y;
-    		shape.getVertex(ii+1,vertex);
-    		x1 = x+vertex.x; y1 = y+vertex.y;
-    		debugRender.line(x0, y0, x1, y1);
-    	}
-    	// Close the loop
-		shape.getVertex(shape.getVertexCount()-1,vertex);
-		x0 = x+vertex.x; y0 = y+vertex.y;
-		shape.getVertex(0,vertex);
-		x1 = x+vertex.x; y1 = y+vertex.y;
-		debugRender.line(x0, y0, x1, y1);
+		debugBatch.drawPolygon(shape, color, x, y, 0, 1, 1);
     }
 
     /**
@@ -1019,29 +1506,7 @@ public class GameCanvas {
 			Gdx.app.error("GameCanvas", "Cannot draw without active beginDebug()", new IllegalStateException());
 			return;
 		}
-		
-		local.setToTranslation(x,y);
-		local.rotateRad(angle);
-		
-    	float x0, y0, x1, y1;
-    	debugRender.setColor(color);
-    	for(int ii = 0; ii < shape.getVertexCount()-1; ii++) {
-    		shape.getVertex(ii  ,vertex);
-    		local.applyTo(vertex);
-    		x0 = vertex.x; y0 = vertex.y;
-    		shape.getVertex(ii+1,vertex);
-    		local.applyTo(vertex);
-    		x1 = vertex.x; y1 = vertex.y;
-    		debugRender.line(x0, y0, x1, y1);
-    	}
-    	// Close the loop
-		shape.getVertex(shape.getVertexCount()-1,vertex);
-		local.applyTo(vertex);
-		x0 = vertex.x; y0 = vertex.y;
-		shape.getVertex(0,vertex);
-		local.applyTo(vertex);
-		x1 = vertex.x; y1 = vertex.y;
-		debugRender.line(x0, y0, x1, y1);
+		debugBatch.drawPolygon(shape, color, x, y, angle, 1, 1);
     }
 
     /**
@@ -1060,30 +1525,7 @@ public class GameCanvas {
 			Gdx.app.error("GameCanvas", "Cannot draw without active beginDebug()", new IllegalStateException());
 			return;
 		}
-		
-		local.setToScaling(sx,sy);
-		local.translate(x,y);
-		local.rotateRad(angle);
-		
-    	float x0, y0, x1, y1;
-    	debugRender.setColor(color);
-    	for(int ii = 0; ii < shape.getVertexCount()-1; ii++) {
-    		shape.getVertex(ii  ,vertex);
-    		local.applyTo(vertex);
-    		x0 = vertex.x; y0 = vertex.y;
-    		shape.getVertex(ii+1,vertex);
-    		local.applyTo(vertex);
-    		x1 = vertex.x; y1 = vertex.y;
-    		debugRender.line(x0, y0, x1, y1);
-    	}
-    	// Close the loop
-		shape.getVertex(shape.getVertexCount()-1,vertex);
-		local.applyTo(vertex);
-		x0 = vertex.x; y0 = vertex.y;
-		shape.getVertex(0,vertex);
-		local.applyTo(vertex);
-		x1 = vertex.x; y1 = vertex.y;
-		debugRender.line(x0, y0, x1, y1);
+		debugBatch.drawPolygon(shape, color, x, y, angle, sx, sy);
     }
     
     /** 
@@ -1102,9 +1544,7 @@ public class GameCanvas {
 			Gdx.app.error("GameCanvas", "Cannot draw without active beginDebug()", new IllegalStateException());
 			return;
 		}
-		
-    	debugRender.setColor(color);
-    	debugRender.circle(x, y, shape.getRadius(),12);
+		debugBatch.drawCircle(shape.getRadius(), color, x, y, 1, 1);
     }
     
     /** 
@@ -1125,13 +1565,50 @@ public class GameCanvas {
 			Gdx.app.error("GameCanvas", "Cannot draw without active beginDebug()", new IllegalStateException());
 			return;
 		}
-		
-		float x0 = x*sx;
-		float y0 = y*sy;
-		float w = shape.getRadius()*sx;
-		float h = shape.getRadius()*sy;
-    	debugRender.setColor(color);
-    	debugRender.ellipse(x0-w, y0-h, 2*w, 2*h, 12);
+		debugBatch.drawCircle(shape.getRadius(), color, x, y, sx, sy);
+    }
+
+    /**
+     * Draws the outline of the given fixture in the specified color
+     *
+     * Unlike a shape, the outline of a fixture is only read from Box2d the first
+     * time it is drawn.  The shape of a fixture cannot change, so this outline is
+     * cached until the fixture is no longer drawn.
+     *
+     * @param fixture The Box2d fixture
+     * @param color The outline color
+     * @param x  The x-coordinate of the fixture body
+     * @param y  The y-coordinate of the fixture body
+     * @param angle  The fixture body angle of rotation
+     * @param sx The amount to scale the x-axis
+     * @param sx The amount to scale the y-axis
+     */
+    public void drawPhysics(Fixture fixture, Color color, float x, float y, float angle, float sx, float sy) {
+		if (active != DrawPass.DEBUG) {
+			Gdx.app.error("GameCanvas", "Cannot draw without active beginDebug()", new IllegalStateException());
+			return;
+		}
+		debugBatch.drawFixture(fixture, color, x, y, angle, sx, sy);
+    }
+
+    /**
+     * Draws the outline of every fixture in the world in the specified color
+     *
+     * This draws the fixtures directly, without going through the obstacles.  The
+     * fixtures are placed at the current body positions (so they are not
+     * interpolated between physics steps).
+     *
+     * @param world The Box2d world
+     * @param color The outline color
+     * @param sx The amount to scale the x-axis
+     * @param sx The amount to scale the y-axis
+     */
+    public void drawPhysics(World world, Color color, float sx, float sy) {
+		if (active != DrawPass.DEBUG) {
+			Gdx.app.error("GameCanvas", "Cannot draw without active beginDebug()", new IllegalStateException());
+			return;
+		}
+		debugBatch.drawWorld(world, color, sx, sy);
     }
     
 	/**
@@ -13,6 +13,8 @@
  */
 package edu.cornell.gdiac.game;
 
+import java.io.*;
+
 import com.badlogic.gdx.*;
 import com.badlogic.gdx.math.*;
 
@@ -27,6 +29,20 @@ import edu.cornell.gdiac.util.*;
  * a controller via the new XBox360Controller class.
  */
 public class InputController {
+	// Bit flags for the buttons in a recorded input state
+	private static final int RESET_BIT  = 1 << 0;
+	private static final int NEXT_BIT   = 1 << 1;
+	private static final int PREV_BIT   = 1 << 2;
+	private static final int PRIME_BIT  = 1 << 3;
+	private static final int DASH_BIT   = 1 << 4;
+	private static final int SECOND_BIT = 1 << 5;
+	private static final int THIRD_BIT  = 1 << 6;
+	private static final int DEBUG_BIT  = 1 << 7;
+	private static final int STATS_BIT  = 1 << 8;
+	private static final int EXIT_BIT   = 1 << 9;
+	private static final int PROFILE_BIT = 1 << 10;
+	private static final int EXPORT_BIT  = 1 << 11;
+
 	// Sensitivity for moving crosshair with gameplay
 	private static final float GP_ACCELERATE = 1.0f;
 	private static final float GP_MAX_SPEED  = 10.0f;
@@ -71,6 +87,18 @@ public class InputController {
 	/** Whether the debug toggle was pressed. */
 	private boolean debugPressed;
 	private boolean debugPrevious;
+	/** Whether the statistics toggle was pressed. */
+	private boolean statsPressed;
+	private boolean statsPrevious;
+	/** Whether the profiler toggle was pressed. */
+	private boolean profilePressed;
+	private boolean profilePrevious;
+	/** Whether the profiler export toggle was pressed. */
+	private boolean exportPressed;
+	private boolean exportPrevious;
+	/** Whether the input recording toggle was pressed. */
+	private boolean recordPressed;
+	private boolean recordPrevious;
 	/** Whether the exit button was pressed. */
 	private boolean exitPressed;
 	private boolean exitPrevious;
@@ -85,6 +113,8 @@ public class InputController {
 	private Vector2 crosscache;
 	/** For the gamepad crosshair control */
 	private float momentum;
+	/** The gamepad crosshair position in screen coordinates */
+	private Vector2 padcursor;
 	
 	/** An X-Box controller (if it is connected) */
 	XBoxController xbox;
@@ -204,6 +234,44 @@ public class InputController {
 	public boolean didDebug() {
 		return debugPressed && !debugPrevious;
 	}
+
+	/**
+	 * Returns true if the player wants to go toggle the statistics overlay.
+	 *
+	 * @return true if the player wants to go toggle the statistics overlay.
+	 */
+	public boolean didStatistics() {
+		return statsPressed && !statsPrevious;
+	}
+
+	/**
+	 * Returns true if the player wants to go toggle the profiler overlay.
+	 *
+	 * @return true if the player wants to go toggle the profiler overlay.
+	 */
+	public boolean didProfile() {
+		return profilePressed && !profilePrevious;
+	}
+
+	/**
+	 * Returns true if the player wants to go toggle the profiler CSV export.
+	 *
+	 * @return true if the player wants to go toggle the profiler CSV export.
+	 */
+	public boolean didExport() {
+		return exportPressed && !exportPrevious;
+	}
+
+	/**
+	 * Returns true if the player wants to go toggle the input recording.
+	 *
+	 * This toggle is not part of the recorded state, so it is never set by a replay.
+	 *
+	 * @return true if the player wants to go toggle the input recording.
+	 */
+	public boolean didRecord() {
+		return recordPressed && !recordPrevious;
+	}
 	
 	/**
 	 * Returns true if the exit button was pressed.
@@ -230,6 +298,7 @@ public class InputController {
 		}
 		crosshair = new Vector2();
 		crosscache = new Vector2();
+		padcursor = new Vector2();
 	}
 
 	/**
@@ -243,6 +312,23 @@ public class InputController {
 	 * @param scale  The drawing scale
 	 */
 	public void readInput(Rectangle bounds, Vector2 scale) {
+		readInput(bounds, scale, null);
+	}
+
+	/**
+	 * Reads the input for the player and converts the result into game logic.
+	 *
+	 * The method provides the input bounds, the drawing scale, and the camera.
+	 * It uses the camera to convert screen coordinates to world coordinates, so
+	 * that the crosshair follows a scrolling view.  If the camera is null, the
+	 * screen shows the bottom left of the bounds.  The bounds are for the 
+	 * crosshair.  They cannot go outside of this zone.
+	 *
+	 * @param bounds The input bounds for the crosshair.  
+	 * @param scale  The drawing scale
+	 * @param camera The camera for the visible region of the world (may be null)
+	 */
+	public void readInput(Rectangle bounds, Vector2 scale, CameraController camera) {
 		// Copy state from last animation frame
 		// Helps us ignore buttons that are held down
 		primePrevious  = primePressed;
@@ -250,16 +336,20 @@ public class InputController {
 		secondPrevious = secondPressed;
 		resetPrevious  = resetPressed;
 		debugPrevious  = debugPressed;
+		statsPrevious  = statsPressed;
+		profilePrevious = profilePressed;
+		exportPrevious  = exportPressed;
+		recordPrevious  = recordPressed;
 		exitPrevious = exitPressed;
 		nextPrevious = nextPressed;
 		prevPrevious = prevPressed;
 		
 		// Check to see if a GamePad is connected
 		if (xbox != null && xbox.isConnected()) {
-			readGamepad(bounds, scale);
-			readKeyboard(bounds, scale, true); // Read as a back-up
+			readGamepad(bounds, scale, camera);
+			readKeyboard(bounds, scale, camera, true); // Read as a back-up
 		} else {
-			readKeyboard(bounds, scale, false);
+			readKeyboard(bounds, scale, camera, false);
 		}
 	}
 
@@ -270,10 +360,14 @@ public class InputController {
 	 * the drawing scale to convert screen coordinates to world coordinates.  The
 	 * bounds are for the crosshair.  They cannot go outside of this zone.
 	 *
+	 * The crosshair moves in screen coordinates, so that it stays in place on
+	 * the screen when the camera scrolls.
+	 *
 	 * @param bounds The input bounds for the crosshair.  
 	 * @param scale  The drawing scale
+	 * @param camera The camera for the visible region of the world (may be null)
 	 */
-	private void readGamepad(Rectangle bounds, Vector2 scale) {
+	private void readGamepad(Rectangle bounds, Vector2 scale, CameraController camera) {
 		resetPressed = xbox.getStart();
 		exitPressed  = xbox.getBack();
 		nextPressed  = xbox.getRBumper();
@@ -292,12 +386,15 @@ public class InputController {
 		if (crosscache.len2() > GP_THRESHOLD) {
 			momentum += GP_ACCELERATE;
 			momentum = Math.min(momentum, GP_MAX_SPEED);
-			crosscache.scl(momentum);
-			crosscache.scl(1/scale.x,1/scale.y);
-			crosshair.add(crosscache);
+			crosscache.scl(momentum,-momentum);
+			padcursor.add(crosscache);
+			padcursor.x = Math.max(0, Math.min(Gdx.graphics.getWidth(), padcursor.x));
+			padcursor.y = Math.max(0, Math.min(Gdx.graphics.getHeight(), padcursor.y));
 		} else {
 			momentum = 0;
 		}
+		crosshair.set(padcursor);
+		screenToWorld(crosshair, bounds, scale, camera);
 		clampPosition(bounds);
 	}
 
@@ -308,12 +405,19 @@ public class InputController {
 	 * controller is connected.  However, if a controller is connected, this method
 	 * gives priority to the X-Box controller.
 	 *
+	 * @param bounds The input bounds for the crosshair.  
+	 * @param scale  The drawing scale
+	 * @param camera The camera for the visible region of the world (may be null)
 	 * @param secondary true if the keyboard should give priority to a gamepad
 	 */
-	private void readKeyboard(Rectangle bounds, Vector2 scale, boolean secondary) {
+	private void readKeyboard(Rectangle bounds, Vector2 scale, CameraController camera, boolean secondary) {
 		// Give priority to gamepad results
 		resetPressed = (secondary && resetPressed) || (Gdx.input.isKeyPressed(Input.Keys.R));
 		debugPressed = (secondary && debugPressed) || (Gdx.input.isKeyPressed(Input.Keys.V));
+		statsPressed = Gdx.input.isKeyPressed(Input.Keys.B);
+		profilePressed = Gdx.input.isKeyPressed(Input.Keys.F);
+		exportPressed  = Gdx.input.isKeyPressed(Input.Keys.C);
+		recordPressed  = Gdx.input.isKeyPressed(Input.Keys.K);
 		primePressed = (secondary && primePressed) || (Gdx.input.isKeyPressed(Input.Keys.UP));
 		secondPressed = (secondary && secondPressed) || (Gdx.input.isKeyPressed(Input.Keys.SPACE));
 		dashPressed = (secondary && dashPressed)||(Gdx.input.isKeyPressed(Input.Keys.D));
@@ -341,11 +445,156 @@ public class InputController {
 		// Mouse results
         tertiaryPressed = Gdx.input.isButtonPressed(Input.Buttons.LEFT);
 		crosshair.set(Gdx.input.getX(), Gdx.input.getY());
-		crosshair.scl(1/scale.x,-1/scale.y);
-		crosshair.y += bounds.height;
+		screenToWorld(crosshair, bounds, scale, camera);
 		clampPosition(bounds);
 	}
+
+	/**
+	 * Converts a screen position (in pixels) to Box2d coordinates.
+	 *
+	 * If there is a camera, it performs the conversion.  Otherwise the screen 
+	 * shows the bottom left of the bounds. The given vector is modified.
+	 *
+	 * @param screen The screen position
+	 * @param bounds The input bounds for the crosshair.  
+	 * @param scale  The drawing scale
+	 * @param camera The camera for the visible region of the world (may be null)
+	 */
+	private void screenToWorld(Vector2 screen, Rectangle bounds, Vector2 scale, CameraController camera) {
+		if (camera != null) {
+			camera.screenToWorld(screen);
+		} else {
+			screen.scl(1/scale.x,-1/scale.y);
+			screen.y += bounds.height;
+		}
+	}
 	
+	/**
+	 * Writes the input state of this animation frame to the given stream.
+	 *
+	 * The state is the semantic input (buttons, movement and crosshair), not the
+	 * raw device input.  It is written in a compact binary form that can be read
+	 * back with {@link #readState}.
+	 *
+	 * @param out	The stream to write to
+	 *
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		int buttons = 0;
+		buttons |= (resetPressed  ? RESET_BIT  : 0);
+		buttons |= (nextPressed   ? NEXT_BIT   : 0);
+		buttons |= (prevPressed   ? PREV_BIT   : 0);
+		buttons |= (primePressed  ? PRIME_BIT  : 0);
+		buttons |= (dashPressed   ? DASH_BIT   : 0);
+		buttons |= (secondPressed ? SECOND_BIT : 0);
+		buttons |= (tertiaryPressed ? THIRD_BIT : 0);
+		buttons |= (debugPressed  ? DEBUG_BIT  : 0);
+		buttons |= (statsPressed  ? STATS_BIT  : 0);
+		buttons |= (exitPressed   ? EXIT_BIT   : 0);
+		buttons |= (profilePressed ? PROFILE_BIT : 0);
+		buttons |= (exportPressed  ? EXPORT_BIT  : 0);
+		out.writeShort(buttons);
+		out.writeFloat(horizontal);
+		out.writeFloat(vertical);
+		out.writeFloat(crosshair.x);
+		out.writeFloat(crosshair.y);
+	}
+
+	/**
+	 * Reads the input state of this animation frame from the given stream.
+	 *
+	 * This method replaces {@link #readInput} when replaying a recording.  The
+	 * state must have been written by {@link #writeState}.
+	 *
+	 * @param in	The stream to read from
+	 *
+	 * @throws IOException if the stream cannot be read
+	 */
+	public void readState(DataInput in) throws IOException {
+		// Copy state from last animation frame
+		primePrevious  = primePressed;
+		dashPrevious = dashPressed;
+		secondPrevious = secondPressed;
+		resetPrevious  = resetPressed;
+		debugPrevious  = debugPressed;
+		statsPrevious  = statsPressed;
+		profilePrevious = profilePressed;
+		exportPrevious  = exportPressed;
+		recordPrevious  = recordPressed;
+		exitPrevious = exitPressed;
+		nextPrevious = nextPressed;
+		prevPrevious = prevPressed;
+
+		int buttons = in.readUnsignedShort();
+		resetPressed  = (buttons & RESET_BIT)  != 0;
+		nextPressed   = (buttons & NEXT_BIT)   != 0;
+		prevPressed   = (buttons & PREV_BIT)   != 0;
+		primePressed  = (buttons & PRIME_BIT)  != 0;
+		dashPressed   = (buttons & DASH_BIT)   != 0;
+		secondPressed = (buttons & SECOND_BIT) != 0;
+		tertiaryPressed = (buttons & THIRD_BIT) != 0;
+		debugPressed  = (buttons & DEBUG_BIT)  != 0;
+		statsPressed  = (buttons & STATS_BIT)  != 0;
+		exitPressed   = (buttons & EXIT_BIT)   != 0;
+		profilePressed = (buttons & PROFILE_BIT) != 0;
+		exportPressed  = (buttons & EXPORT_BIT)  != 0;
+		recordPressed  = false;
+		horizontal = in.readFloat();
+		vertical   = in.readFloat();
+		crosshair.x = in.readFloat();
+		crosshair.y = in.readFloat();
+	}
+
+	/**
+	 * Returns the buttons held in the previous animation frame.
+	 *
+	 * The result uses the same bit flags as {@link #writeState}.  A recording
+	 * stores this value in its header, as the buttons held before the first 
+	 * recorded frame decide which presses that frame detects.
+	 *
+	 * @return the buttons held in the previous animation frame.
+	 */
+	public int getPreviousButtons() {
+		int buttons = 0;
+		buttons |= (resetPrevious  ? RESET_BIT  : 0);
+		buttons |= (nextPrevious   ? NEXT_BIT   : 0);
+		buttons |= (prevPrevious   ? PREV_BIT   : 0);
+		buttons |= (primePrevious  ? PRIME_BIT  : 0);
+		buttons |= (dashPrevious   ? DASH_BIT   : 0);
+		buttons |= (secondPrevious ? SECOND_BIT : 0);
+		buttons |= (debugPrevious  ? DEBUG_BIT  : 0);
+		buttons |= (statsPrevious  ? STATS_BIT  : 0);
+		buttons |= (exitPrevious   ? EXIT_BIT   : 0);
+		buttons |= (profilePrevious ? PROFILE_BIT : 0);
+		buttons |= (exportPrevious  ? EXPORT_BIT  : 0);
+		return buttons;
+	}
+
+	/**
+	 * Restores the buttons held before the first frame of a replay.
+	 *
+	 * The value must come from {@link #getPreviousButtons}.  Since {@link #readState}
+	 * copies the current buttons to the previous ones, this sets both, so that the
+	 * next call to {@link #readState} sees the same held buttons as the recording.
+	 *
+	 * @param buttons	The buttons held before the first frame
+	 */
+	public void setPreviousButtons(int buttons) {
+		resetPressed  = resetPrevious  = (buttons & RESET_BIT)  != 0;
+		nextPressed   = nextPrevious   = (buttons & NEXT_BIT)   != 0;
+		prevPressed   = prevPrevious   = (buttons & PREV_BIT)   != 0;
+		primePressed  = primePrevious  = (buttons & PRIME_BIT)  != 0;
+		dashPressed   = dashPrevious   = (buttons & DASH_BIT)   != 0;
+		secondPressed = secondPrevious = (buttons & SECOND_BIT) != 0;
+		debugPressed  = debugPrevious  = (buttons & DEBUG_BIT)  != 0;
+		statsPressed  = statsPrevious  = (buttons & STATS_BIT)  != 0;
+		exitPressed   = exitPrevious   = (buttons & EXIT_BIT)   != 0;
+		profilePressed = profilePrevious = (buttons & PROFILE_BIT) != 0;
+		exportPressed  = exportPrevious  = (buttons & EXPORT_BIT)  != 0;
+		recordPressed  = recordPrevious  = false;
+	}
+
 	/**
 	 * Clamp the cursor position so that it does not go outside the window
 	 *
@@ -0,0 +1,150 @@
+/*
+ * InputRecorder.java
+ *
+ * The game is deterministic: given the same input on the same frames, Box2d will
+ * produce the same world.  So a play session can be captured by recording the input
+ * of every frame, which is very small.  This class writes such a recording to a
+ * binary log.  Every so often it also writes the complete state of every obstacle,
+ * so that a replay can detect exactly when it stopped matching the original run.
+ *
+ * The log is a header (magic number, version, snapshot interval, and the buttons
+ * held before the first frame) followed by one record per simulation frame.  A record is a tag byte, the frame time, the input
+ * state, and (for tag FRAME_STATE) a world snapshot.  A snapshot is the number of
+ * simple obstacles, followed by the position, angle, linear velocity and angular
+ * velocity of each obstacle, in world order.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game;
+
+import java.io.*;
+
+import com.badlogic.gdx.files.*;
+import com.badlogic.gdx.utils.*;
+
+import edu.cornell.gdiac.game.obstacle.*;
+
+/**
+ * Recorder for the input of a play session.
+ *
+ * The recorder should be fed every simulation frame, after the input is read but
+ * before the world is updated.  The recording is replayed by {@link InputReplay}.
+ */
+public class InputRecorder implements Disposable {
+	/** The magic number at the start of a log ("GDRP") */
+	public static final int MAGIC = 0x47445250;
+	/** The version of the log format */
+	public static final int VERSION = 2;
+	/** The record tag for a frame with input only */
+	public static final int FRAME = 1;
+	/** The record tag for a frame with input and a world snapshot */
+	public static final int FRAME_STATE = 2;
+	/** The default number of frames between world snapshots */
+	public static final int DEFAULT_INTERVAL = 60;
+
+	/** The stream for the log */
+	private DataOutputStream stream;
+	/** The number of frames between world snapshots (0 for none) */
+	private int interval;
+	/** The number of frames recorded so far */
+	private int frame;
+
+	/** Cache for the simple obstacles of a snapshot */
+	private Array<Obstacle> cache;
+
+	/**
+	 * Creates a new recorder writing to the given file.
+	 *
+	 * Any existing file is replaced.  The recording starts with the next call to 
+	 * {@link #recordFrame}, and the header stores the buttons that the input 
+	 * held in the frame before that one.
+	 *
+	 * @param file		The file for the log
+	 * @param interval	The number of frames between world snapshots (0 for none)
+	 * @param input		The input to record
+	 */
+	public InputRecorder(FileHandle file, int interval, InputController input) {
+		this.interval = interval;
+		cache = new Array<Obstacle>();
+		stream = new DataOutputStream(new BufferedOutputStream(file.write(false)));
+		try {
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			stream.writeInt(interval);
+			stream.writeShort(input.getPreviousButtons());
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not write recording "+file, e);
+		}
+	}
+
+	/**
+	 * Closes the log.
+	 */
+	public void dispose() {
+		StreamUtils.closeQuietly(stream);
+		stream = null;
+	}
+
+	/**
+	 * Returns the number of frames recorded so far
+	 *
+	 * @return the number of frames recorded so far
+	 */
+	public int getFrame() {
+		return frame;
+	}
+
+	/**
+	 * Records the input for the current simulation frame.
+	 *
+	 * If this frame is due for a snapshot, the state of the given obstacles is
+	 * recorded as well.  The obstacles must not have been updated yet this frame.
+	 *
+	 * @param dt		Number of seconds simulated this frame
+	 * @param input		The input for this frame
+	 * @param objects	The obstacles in the world
+	 */
+	public void recordFrame(float dt, InputController input, Iterable<Obstacle> objects) {
+		boolean snap = interval > 0 && frame % interval == 0;
+		try {
+			stream.writeByte(snap ? FRAME_STATE : FRAME);
+			stream.writeFloat(dt);
+			input.writeState(stream);
+			if (snap) {
+				gather(objects, cache);
+				stream.writeInt(cache.size);
+				for(Obstacle obj : cache) {
+					stream.writeFloat(obj.getX());
+					stream.writeFloat(obj.getY());
+					stream.writeFloat(obj.getAngle());
+					stream.writeFloat(obj.getVX());
+					stream.writeFloat(obj.getVY());
+					stream.writeFloat(obj.getAngularVelocity());
+				}
+				cache.clear();
+			}
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not write frame "+frame, e);
+		}
+		frame++;
+	}
+
+	/**
+	 * Stores the simple obstacles of the given collection in result.
+	 *
+	 * Complex obstacles are replaced by their children, in order.
+	 *
+	 * @param objects	The obstacles to gather
+	 * @param result	The array to store the simple obstacles
+	 */
+	static void gather(Iterable<Obstacle> objects, Array<Obstacle> result) {
+		for(Obstacle obj : objects) {
+			if (obj instanceof ComplexObstacle) {
+				gather(((ComplexObstacle)obj).getBodies(), result);
+			} else {
+				result.add(obj);
+			}
+		}
+	}
+}
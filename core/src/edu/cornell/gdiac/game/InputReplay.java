@@ -0,0 +1,202 @@
+/*
+ * InputReplay.java
+ *
+ * This class reads back a log written by InputRecorder.  Each frame it replaces the
+ * input read from the devices, so that the game runs exactly as it did when it was
+ * recorded.  Whenever the log has a world snapshot, the replay compares it to the
+ * current world, and reports the first frame at which the two runs diverged.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game;
+
+import java.io.*;
+
+import com.badlogic.gdx.*;
+import com.badlogic.gdx.files.*;
+import com.badlogic.gdx.utils.*;
+
+import edu.cornell.gdiac.game.obstacle.*;
+
+/**
+ * Player for an input recording.
+ *
+ * Call {@link #nextFrame} at the start of every simulation frame, and then run the
+ * frame with {@link #getDelta} as the frame time.  The replay stops at the end of
+ * the log (or at the end of a truncated log).
+ */
+public class InputReplay implements Disposable {
+	/** The stream for the log */
+	private DataInputStream stream;
+	/** The name of the log (for error messages) */
+	private String name;
+	/** The number of seconds simulated in the current frame */
+	private float delta;
+	/** The number of frames replayed so far */
+	private int frame;
+	/** The number of snapshots compared so far */
+	private int snapshots;
+	/** The number of snapshots that did not match the world */
+	private int mismatches;
+	/** The first frame at which the world did not match (-1 for none) */
+	private int divergence;
+	/** The buttons held before the first frame */
+	private int held;
+
+	/** Cache for the simple obstacles of a snapshot */
+	private Array<Obstacle> cache;
+
+	/**
+	 * Creates a new replay for the given file.
+	 *
+	 * @param file	The file with the log
+	 */
+	public InputReplay(FileHandle file) {
+		name = file.toString();
+		cache = new Array<Obstacle>();
+		divergence = -1;
+		stream = new DataInputStream(new BufferedInputStream(file.read()));
+		try {
+			if (stream.readInt() != InputRecorder.MAGIC) {
+				throw new GdxRuntimeException(name+" is not an input recording");
+			}
+			int version = stream.readInt();
+			if (version != InputRecorder.VERSION) {
+				throw new GdxRuntimeException(name+" has unsupported version "+version);
+			}
+			stream.readInt(); // Snapshot interval
+			held = stream.readUnsignedShort();
+		} catch (IOException e) {
+			dispose();
+			throw new GdxRuntimeException("Could not read recording "+name, e);
+		}
+	}
+
+	/**
+	 * Closes the log.
+	 */
+	public void dispose() {
+		StreamUtils.closeQuietly(stream);
+		stream = null;
+	}
+
+	/**
+	 * Returns the number of seconds simulated in the current frame
+	 *
+	 * @return the number of seconds simulated in the current frame
+	 */
+	public float getDelta() {
+		return delta;
+	}
+
+	/**
+	 * Returns the number of frames replayed so far
+	 *
+	 * @return the number of frames replayed so far
+	 */
+	public int getFrame() {
+		return frame;
+	}
+
+	/**
+	 * Returns the number of snapshots compared so far
+	 *
+	 * @return the number of snapshots compared so far
+	 */
+	public int getSnapshotCount() {
+		return snapshots;
+	}
+
+	/**
+	 * Returns the number of snapshots that did not match the world
+	 *
+	 * @return the number of snapshots that did not match the world
+	 */
+	public int getMismatchCount() {
+		return mismatches;
+	}
+
+	/**
+	 * Returns the first frame at which the world did not match (-1 for none)
+	 *
+	 * @return the first frame at which the world did not match (-1 for none)
+	 */
+	public int getDivergence() {
+		return divergence;
+	}
+
+	/**
+	 * Reads the next frame of the log, replacing the current input.
+	 *
+	 * If the frame has a world snapshot, it is compared to the given obstacles.
+	 * The obstacles must not have been updated yet this frame.
+	 *
+	 * @param input		The input controller to replace
+	 * @param objects	The obstacles in the world
+	 *
+	 * @return false if there are no more frames
+	 */
+	public boolean nextFrame(InputController input, Iterable<Obstacle> objects) {
+		try {
+			int tag = stream.read();
+			if (tag == -1) {
+				return false;
+			}
+			delta = stream.readFloat();
+			if (frame == 0) {
+				input.setPreviousButtons(held);
+			}
+			input.readState(stream);
+			if (tag == InputRecorder.FRAME_STATE) {
+				compare(objects);
+			}
+		} catch (EOFException e) {
+			Gdx.app.error("InputReplay", name+" is truncated at frame "+frame, e);
+			return false;
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not read frame "+frame+" of "+name, e);
+		}
+		frame++;
+		return true;
+	}
+
+	/**
+	 * Compares the snapshot in the log to the given obstacles.
+	 *
+	 * The comparison is exact, as a deterministic replay should reproduce the
+	 * original floating point values.
+	 *
+	 * @param objects	The obstacles in the world
+	 *
+	 * @throws IOException if the snapshot cannot be read
+	 */
+	private void compare(Iterable<Obstacle> objects) throws IOException {
+		InputRecorder.gather(objects, cache);
+		int count = stream.readInt();
+		boolean match = (count == cache.size);
+		for(int ii = 0; ii < count; ii++) {
+			float x = stream.readFloat();
+			float y = stream.readFloat();
+			float angle = stream.readFloat();
+			float vx = stream.readFloat();
+			float vy = stream.readFloat();
+			float omega = stream.readFloat();
+			if (match) {
+				Obstacle obj = cache.get(ii);
+				match = (x == obj.getX() && y == obj.getY() && angle == obj.getAngle() &&
+						 vx == obj.getVX() && vy == obj.getVY() && omega == obj.getAngularVelocity());
+			}
+		}
+		cache.clear();
+
+		snapshots++;
+		if (!match) {
+			mismatches++;
+			if (divergence == -1) {
+				divergence = frame;
+				Gdx.app.log("InputReplay", name+" diverged at frame "+frame);
+			}
+		}
+	}
+}
@@ -0,0 +1,310 @@
+/*
+ * LevelStreamer.java
+ *
+ * Creating every obstacle of a level when the level is reset makes resets slow,
+ * and it fills the world with bodies that are nowhere near the player.  This class
+ * divides the level into rectangular chunks instead.  The chunk geometry is parsed
+ * in the background as the view approaches, and the chunk obstacles are only added
+ * to the world while the view is close to them.
+ *
+ * The chunks are described by a JSON value of the following form:
+ *
+ *     "chunks": {
+ *         "activate"  : 4.0,
+ *         "deactivate": 8.0,
+ *         "prefetch"  : 16.0,
+ *         "list": [
+ *             { "bounds": [0, 0, 16, 18], "file": "level/chunk0.json" },
+ *             { "bounds": [16, 0, 16, 18], "walls": [...], "platforms": [...] }
+ *         ]
+ *     }
+ *
+ * A chunk either names a file with its contents, or it stores the contents inline.
+ * The contents are given to a ChunkBuilder, which knows how to turn them into
+ * obstacles.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.*;
+import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.files.*;
+import com.badlogic.gdx.utils.*;
+import com.badlogic.gdx.utils.async.*;
+
+import edu.cornell.gdiac.game.obstacle.*;
+
+/**
+ * Streaming manager for a level divided into chunks.
+ *
+ * Each animation frame, {@link #update} compares the chunks to a focus rectangle
+ * (typically the camera view).  A chunk within the prefetch distance is parsed on
+ * a background thread.  A chunk within the activation distance has its obstacles
+ * added to the world.  An active chunk is only removed again once it is beyond the
+ * deactivation distance, so that a player moving back and forth at the edge of a
+ * chunk does not create and destroy its bodies every frame.
+ *
+ * Obstacles are created the first time their chunk is activated, and then kept
+ * (without bodies) when the chunk is deactivated.  Hence a reset only needs to
+ * recreate the bodies of the chunks near the player.
+ */
+public class LevelStreamer implements Disposable {
+	/** The default distance at which a chunk is activated */
+	public static final float DEFAULT_ACTIVATE = 4.0f;
+	/** The default distance at which a chunk is deactivated */
+	public static final float DEFAULT_DEACTIVATE = 8.0f;
+	/** The default distance at which a chunk is parsed */
+	public static final float DEFAULT_PREFETCH = 16.0f;
+
+	/**
+	 * Factory to convert the contents of a chunk into obstacles.
+	 *
+	 * The builder is called on the rendering thread, the first time the chunk is
+	 * activated.  It should NOT add the obstacles to the world.  The streamer does
+	 * that when the chunk is activated.
+	 */
+	public interface ChunkBuilder {
+		/**
+		 * Creates the obstacles for the given chunk contents.
+		 *
+		 * @param data		The (parsed) chunk contents
+		 * @param result	The array to store the new obstacles
+		 */
+		public void build(JsonValue data, Array<Obstacle> result);
+	}
+
+	/**
+	 * A rectangular section of the level.
+	 */
+	private static class Chunk {
+		/** The region covered by this chunk (in Box2d units) */
+		public Rectangle bounds;
+		/** The file with the chunk contents (null if inline) */
+		public String file;
+		/** The chunk contents (null if not yet parsed) */
+		public JsonValue data;
+		/** The contents being parsed in the background (null if none) */
+		public AsyncResult<JsonValue> pending;
+		/** The obstacles of this chunk (null if not yet built) */
+		public Array<Obstacle> obstacles;
+		/** Whether the obstacles are currently in the world */
+		public boolean active;
+	}
+
+	/** The controller that owns the world */
+	private WorldController controller;
+	/** The factory for chunk obstacles */
+	private ChunkBuilder builder;
+	/** The chunks of this level */
+	private Array<Chunk> chunks;
+	/** The background thread to parse chunk files */
+	private AsyncExecutor executor;
+	/** The distance at which a chunk is activated */
+	private float activate;
+	/** The distance at which a chunk is deactivated */
+	private float deactivate;
+	/** The distance at which a chunk is parsed */
+	private float prefetch;
+	/** The number of active chunks */
+	private int activeCount;
+
+	/** Cache object for the chunk distance tests */
+	private Rectangle region;
+
+	/**
+	 * Creates a new streamer for the given chunk description.
+	 *
+	 * No chunk is parsed or activated until the first call to {@link #update}.
+	 *
+	 * @param controller	The controller that owns the world
+	 * @param json			The chunk description
+	 * @param builder		The factory for chunk obstacles
+	 */
+	public LevelStreamer(WorldController controller, JsonValue json, ChunkBuilder builder) {
+		this.controller = controller;
+		this.builder = builder;
+		activate   = json.getFloat("activate", DEFAULT_ACTIVATE);
+		deactivate = Math.max(activate, json.getFloat("deactivate", DEFAULT_DEACTIVATE));
+		prefetch   = Math.max(activate, json.getFloat("prefetch", DEFAULT_PREFETCH));
+		region = new Rectangle();
+		executor = new AsyncExecutor(1, "LevelStreamer");
+
+		chunks = new Array<Chunk>();
+		for(JsonValue entry = json.getChild("list"); entry != null; entry = entry.next()) {
+			float[] rect = entry.get("bounds").asFloatArray();
+			Chunk chunk = new Chunk();
+			chunk.bounds = new Rectangle(rect[0],rect[1],rect[2],rect[3]);
+			chunk.file = entry.getString("file", null);
+			if (chunk.file == null) {
+				chunk.data = entry;
+			}
+			chunks.add(chunk);
+		}
+	}
+
+	/**
+	 * Disposes of the background thread.
+	 *
+	 * This does not affect the chunk obstacles, which belong to the world.
+	 */
+	public void dispose() {
+		executor.dispose();
+		executor = null;
+	}
+
+	/**
+	 * Returns the number of chunks in this level.
+	 *
+	 * @return the number of chunks in this level.
+	 */
+	public int getChunkCount() {
+		return chunks.size;
+	}
+
+	/**
+	 * Returns the number of chunks currently in the world.
+	 *
+	 * @return the number of chunks currently in the world.
+	 */
+	public int getActiveCount() {
+		return activeCount;
+	}
+
+	/**
+	 * Marks all chunks as inactive.
+	 *
+	 * This method should be called when the controller disposes of its world, as
+	 * that destroys the bodies of the active chunks.  The parsed contents and the
+	 * obstacles are kept, so the next activation is fast.
+	 */
+	public void reset() {
+		for(Chunk chunk : chunks) {
+			chunk.active = false;
+			if (chunk.obstacles != null) {
+				for(Obstacle obj : chunk.obstacles) {
+					obj.markRemoved(false);
+				}
+			}
+		}
+		activeCount = 0;
+	}
+
+	/**
+	 * Updates the chunks for the given focus region.
+	 *
+	 * The focus is typically the view of the camera.  A chunk that must be activated
+	 * but is still being parsed will block until it is ready, so the player never
+	 * sees missing geometry.  Activated obstacles are added with addQueuedObject,
+	 * while deactivated obstacles are marked as removed.  Either way, the world is
+	 * not changed until the controller's postUpdate.
+	 *
+	 * @param focus	The region the player cares about (in Box2d units)
+	 */
+	public void update(Rectangle focus) {
+		for(Chunk chunk : chunks) {
+			if (chunk.pending != null && chunk.pending.isDone()) {
+				finishParse(chunk);
+			}
+
+			if (chunk.active) {
+				if (!near(chunk, focus, deactivate)) {
+					deactivate(chunk);
+				}
+			} else if (near(chunk, focus, activate)) {
+				activate(chunk);
+			} else if (chunk.data == null && chunk.pending == null && near(chunk, focus, prefetch)) {
+				startParse(chunk);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the chunk is within the given distance of the focus region
+	 *
+	 * @param chunk		The chunk to test
+	 * @param focus		The region the player cares about
+	 * @param distance	The distance to the region
+	 *
+	 * @return true if the chunk is within the given distance of the focus region
+	 */
+	private boolean near(Chunk chunk, Rectangle focus, float distance) {
+		region.set(focus.x-distance, focus.y-distance, focus.width+2*distance, focus.height+2*distance);
+		return region.overlaps(chunk.bounds);
+	}
+
+	/**
+	 * Starts parsing the chunk file on the background thread
+	 *
+	 * @param chunk	The chunk to parse
+	 */
+	private void startParse(final Chunk chunk) {
+		final FileHandle handle = Gdx.files.internal(chunk.file);
+		chunk.pending = executor.submit(new AsyncTask<JsonValue>() {
+			public JsonValue call() throws Exception {
+				return new JsonReader().parse(handle);
+			}
+		});
+	}
+
+	/**
+	 * Retrieves the parsed chunk contents from the background thread.
+	 *
+	 * This method blocks if the contents are not yet parsed.
+	 *
+	 * @param chunk	The chunk being parsed
+	 */
+	private void finishParse(Chunk chunk) {
+		try {
+			chunk.data = chunk.pending.get();
+		} catch (GdxRuntimeException e) {
+			Gdx.app.error("LevelStreamer", "Could not parse chunk "+chunk.file, e);
+			chunk.data = new JsonValue(JsonValue.ValueType.object);
+		}
+		chunk.pending = null;
+	}
+
+	/**
+	 * Adds the obstacles of the chunk to the world.
+	 *
+	 * The chunk is parsed and built first if necessary.
+	 *
+	 * @param chunk	The chunk to activate
+	 */
+	private void activate(Chunk chunk) {
+		if (chunk.data == null) {
+			if (chunk.pending == null) {
+				startParse(chunk);
+			}
+			finishParse(chunk);
+		}
+		if (chunk.obstacles == null) {
+			chunk.obstacles = new Array<Obstacle>();
+			builder.build(chunk.data, chunk.obstacles);
+		}
+		for(Obstacle obj : chunk.obstacles) {
+			obj.markRemoved(false);
+			obj.setDrawScale(controller.scale);
+			controller.addQueuedObject(obj);
+		}
+		chunk.active = true;
+		activeCount++;
+	}
+
+	/**
+	 * Removes the obstacles of the chunk from the world.
+	 *
+	 * The obstacles are released (destroying their bodies) by the garbage collection
+	 * pass of the controller.
+	 *
+	 * @param chunk	The chunk to deactivate
+	 */
+	private void deactivate(Chunk chunk) {
+		for(Obstacle obj : chunk.obstacles) {
+			obj.markRemoved(true);
+		}
+		chunk.active = false;
+		activeCount--;
+	}
+}
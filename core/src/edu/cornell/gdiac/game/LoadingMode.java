@@ -52,6 +52,8 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	private AssetDirectory internal;
 	/** The actual assets to be loaded */
 	private AssetDirectory assets;
+	/** The adaptive budget for loading the assets */
+	private LoadingScheduler scheduler;
 	
 	/** Background texture for start-up */
 	private Texture background;
@@ -74,7 +76,7 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	/** Right cap to the status forground (colored region) */
 	private TextureRegion statusFrgRight;	
 
-	/** Default budget for asset loader (do nothing but load 60 fps) */
+	/** Default starting budget for asset loader (do nothing but load 60 fps) */
 	private static int DEFAULT_BUDGET = 15;
 	/** Standard window size (for scaling) */
 	private static int STANDARD_WIDTH  = 800;
@@ -107,8 +109,6 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	private float progress;
 	/** The current state of the play button */
 	private int   pressState;
-	/** The amount of time to devote to loading assets (as opposed to on screen hints, etc.) */
-	private int   budget;
 
 	/** Whether or not this player mode is still active */
 	private boolean active;
@@ -121,10 +121,13 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	 * frame is ~16 milliseconds. So if the budget is 10, you have 6 milliseconds to 
 	 * do something else.  This is how game companies animate their loading screens.
 	 *
+	 * Unless the scheduler is told otherwise, the budget adapts to the frame rate.
+	 * So this value changes from frame to frame.
+	 *
 	 * @return the budget in milliseconds
 	 */
 	public int getBudget() {
-		return budget;
+		return Math.round(scheduler.getBudget());
 	}
 
 	/**
@@ -135,10 +138,42 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	 * frame is ~16 milliseconds. So if the budget is 10, you have 6 milliseconds to 
 	 * do something else.  This is how game companies animate their loading screens.
 	 *
+	 * Unless the scheduler is told otherwise, the budget adapts to the frame rate.
+	 * So this value is only the starting point.
+	 *
 	 * @param millis the budget in milliseconds
 	 */
 	public void setBudget(int millis) {
-		budget = millis;
+		scheduler.setBudget(millis);
+	}
+
+	/**
+	 * Returns the scheduler that updates the assets each animation frame.
+	 *
+	 * The scheduler adapts the loading budget to a target frame rate.  If the player
+	 * presses play before all assets are loaded (see {@link #setPriority}), the 
+	 * listener must keep updating this scheduler until it is finished.  It should
+	 * not fetch any asset outside of the priority keys until then.
+	 *
+	 * @return the scheduler that updates the assets each animation frame
+	 */
+	public LoadingScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Sets the directory key prefixes of the assets needed to start playing.
+	 *
+	 * These assets are loaded first, and the play button appears as soon as they
+	 * are loaded.  The remaining assets must then be loaded by the listener, which
+	 * should not fetch them until the scheduler is finished.  By default, the player
+	 * must wait for all assets.  This method must be called before the first 
+	 * animation frame of this mode.
+	 *
+	 * @param prefixes	The directory key prefixes of the assets needed to play
+	 */
+	public void setPriority(String... prefixes) {
+		assets.setPriority(prefixes);
 	}
 	
 	/**
@@ -181,19 +216,23 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	 * frame is ~16 milliseconds. So if the budget is 10, you have 6 milliseconds to 
 	 * do something else.  This is how game companies animate their loading screens.
 	 *
+	 * If any groups are given, only those groups (and the groups they require) are
+	 * loaded from the asset directory.  Otherwise every asset is loaded.
+	 *
 	 * @param file  	The asset directory to load in the background
 	 * @param canvas 	The game canvas to draw to
 	 * @param millis The loading budget in milliseconds
+	 * @param groups The asset groups to load (none for every asset)
 	 */
-	public LoadingMode(String file, GameCanvas canvas, int millis) {
+	public LoadingMode(String file, GameCanvas canvas, int millis, String... groups) {
 		this.canvas  = canvas;
-		budget = millis;
 		
 		// Compute the dimensions from the canvas
 		resize(canvas.getWidth(),canvas.getHeight());
 
 		// We need these files loaded immediately
 		internal = new AssetDirectory( "loading.json" );
+		internal.setCooking( true );
 		internal.loadAssets();
 		internal.finishLoading();
 
@@ -225,7 +264,15 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 
 		// Start loading the real assets
 		assets = new AssetDirectory( file );
-		assets.loadAssets();
+		assets.setCooking( true );
+		assets.setParallelLoading( Math.max( 1, Runtime.getRuntime().availableProcessors()-1 ) );
+		if (groups.length > 0) {
+			assets.loadAssets( groups );
+		} else {
+			assets.loadAssets();
+		}
+		scheduler = new LoadingScheduler( assets );
+		scheduler.setBudget( millis );
 		active = true;
 	}
 	
@@ -248,9 +295,9 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	 */
 	private void update(float delta) {
 		if (playButton == null) {
-			assets.update(budget);
+			scheduler.update(delta);
 			this.progress = assets.getProgress();
-			if (progress >= 1.0f) {
+			if (assets.isPriorityLoaded()) {
 				this.progress = 1.0f;
 				playButton = internal.getEntry("play",Texture.class);
 			}
@@ -21,6 +21,7 @@ import java.util.Iterator;
 import com.badlogic.gdx.*;
 import com.badlogic.gdx.audio.*;
 import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.files.*;
 import com.badlogic.gdx.utils.*;
 import com.badlogic.gdx.assets.*;
 import com.badlogic.gdx.graphics.*;
@@ -68,6 +69,10 @@ public abstract class WorldController implements Screen {
 	public static final int WORLD_VELOC = 6;
 	/** Number of position iterations for the constrain solvers */
 	public static final int WORLD_POSIT = 2;
+	/** The default maximum number of physics steps in a single animation frame */
+	public static final int DEFAULT_SUBSTEPS = 5;
+	/** The longest animation frame (in seconds) that the physics will try to catch up on */
+	public static final float MAX_FRAME_TIME = 0.25f;
 	
 	/** Width of the game world in Box2d units */
 	protected static final float DEFAULT_WIDTH  = 32.0f;
@@ -75,6 +80,10 @@ public abstract class WorldController implements Screen {
 	protected static final float DEFAULT_HEIGHT = 18.0f;
 	/** The default value of gravity (going down) */
 	protected static final float DEFAULT_GRAVITY = -4.9f;
+	/** How far (in Box2d units) past the screen edge to keep drawing objects */
+	protected static final float DEFAULT_CULL_MARGIN = 1.0f;
+	/** Offset (in pixels) of the statistics overlay from the top left corner */
+	protected static final float STATS_OFFSET = 10.0f;
 	
 	/** Reference to the game canvas */
 	protected GameCanvas canvas;
@@ -91,6 +100,8 @@ public abstract class WorldController implements Screen {
 	protected Rectangle bounds;
 	/** The world scale */
 	protected Vector2 scale;
+	/** The camera determining the visible region of the world */
+	protected CameraController camera;
 	
 	/** Whether or not this is an active controller */
 	private boolean active;
@@ -100,8 +111,67 @@ public abstract class WorldController implements Screen {
 	private boolean failed;
 	/** Whether or not debug mode is active */
 	private boolean debug;
+	/** Whether debug mode draws the world fixtures directly */
+	private boolean debugWorld;
+	/** Whether or not to show the canvas statistics */
+	private boolean statistics;
+	/** The per-phase timers for the game loop */
+	private FrameProfiler profiler;
 	/** Countdown active for winning or losing */
 	private int countdown;
+	/** Whether to step the physics at a fixed rate independent of the frame rate */
+	private boolean fixedStep;
+	/** The maximum number of physics steps in a single animation frame */
+	private int maxSubSteps;
+	/** The simulation time not yet consumed by a physics step */
+	private float accumulator;
+	/** The fraction of a physics step to interpolate the drawing transforms by */
+	private float alpha;
+
+	/** Whether to sort the draw commands by layer and texture */
+	private boolean sorting;
+	/** Whether to bake the static polygon obstacles into cached meshes */
+	private boolean baking;
+	/** The cached meshes for the static polygon obstacles */
+	protected StaticGeometry staticGeometry;
+	/** Whether to reset the level by restoring a snapshot instead of rebuilding it */
+	private boolean fastReset;
+	/** The state of the level objects when the level was built */
+	protected ObstacleSnapshot snapshot;
+	/** Cache set for the objects present in the world during a restore */
+	private ObjectSet<Obstacle> present;
+	/** The recorder for the input of this session (null if not recording) */
+	private InputRecorder recorder;
+	/** The recording fed in place of the device input (null if not replaying) */
+	private InputReplay replay;
+	/** The screen listener to restore at the end of a replay */
+	private ScreenListener replayListener;
+	/** Listener that ignores screen changes requested by a replay */
+	private static final ScreenListener REPLAY_LISTENER = new ScreenListener() {
+		public void exitScreen(Screen screen, int exitCode) {}
+	};
+	/** Whether to skip drawing objects that are outside of the view */
+	private boolean culling;
+	/** How far past the view to keep drawing objects (to account for texture overhang) */
+	private float cullMargin;
+	/** The visible region of the world in Box2d coordinates */
+	protected Rectangle viewBounds;
+	/** The obstacles with at least one fixture in the visible region this frame */
+	private ObjectSet<Obstacle> visible;
+	/** The number of objects drawn in the last frame */
+	private int drawnCount;
+	/** The number of objects culled in the last frame */
+	private int culledCount;
+	/** Callback to gather the visible obstacles from the world broadphase */
+	private QueryCallback cullCallback = new QueryCallback() {
+		public boolean reportFixture(Fixture fixture) {
+			Object data = fixture.getBody().getUserData();
+			if (data instanceof Obstacle) {
+				visible.add((Obstacle)data);
+			}
+			return true;
+		}
+	};
 
 	/**
 	 * Returns true if debug mode is active.
@@ -125,6 +195,318 @@ public abstract class WorldController implements Screen {
 		debug = value;
 	}
 
+	/**
+	 * Returns true if debug mode draws the world fixtures directly.
+	 *
+	 * If true, debug mode draws every fixture in the Box2d world at its body position,
+	 * without asking the objects to draw themselves.  This is faster, but the outlines
+	 * are neither culled nor interpolated.
+	 *
+	 * @return true if debug mode draws the world fixtures directly.
+	 */
+	public boolean isDebugWorld( ) {
+		return debugWorld;
+	}
+
+	/**
+	 * Sets whether debug mode draws the world fixtures directly.
+	 *
+	 * If true, debug mode draws every fixture in the Box2d world at its body position,
+	 * without asking the objects to draw themselves.  This is faster, but the outlines
+	 * are neither culled nor interpolated.
+	 *
+	 * @param value whether debug mode draws the world fixtures directly.
+	 */
+	public void setDebugWorld(boolean value) {
+		debugWorld = value;
+	}
+
+	/**
+	 * Returns true if the canvas statistics are shown.
+	 *
+	 * If true, the draw commands, render calls, texture switches and vertices
+	 * of the previous frame are displayed in the corner of the screen.
+	 *
+	 * @return true if the canvas statistics are shown.
+	 */
+	public boolean isStatistics( ) {
+		return statistics;
+	}
+
+	/**
+	 * Sets whether the canvas statistics are shown.
+	 *
+	 * If true, the draw commands, render calls, texture switches and vertices
+	 * of the previous frame are displayed in the corner of the screen.
+	 *
+	 * @param value whether the canvas statistics are shown.
+	 */
+	public void setStatistics(boolean value) {
+		statistics = value;
+	}
+
+	/**
+	 * Returns true if the game loop is profiled.
+	 *
+	 * If true, each phase of the game loop is timed, and the median, 99th 
+	 * percentile and worst times are displayed in the corner of the screen.
+	 *
+	 * @return true if the game loop is profiled.
+	 */
+	public boolean isProfiling( ) {
+		return profiler.isEnabled();
+	}
+
+	/**
+	 * Sets whether the game loop is profiled.
+	 *
+	 * If true, each phase of the game loop is timed, and the median, 99th 
+	 * percentile and worst times are displayed in the corner of the screen.
+	 * Turning off the profiler also stops any CSV export.
+	 *
+	 * @param value whether the game loop is profiled.
+	 */
+	public void setProfiling(boolean value) {
+		profiler.setEnabled(value);
+	}
+
+	/**
+	 * Returns the profiler for the game loop.
+	 *
+	 * Subclasses may use this to time their own work, or to export the frame 
+	 * times to a file.
+	 *
+	 * @return the profiler for the game loop.
+	 */
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Returns true if the objects are sorted by layer and texture when drawn.
+	 *
+	 * If true, an object in a higher draw layer is always drawn on top of an object 
+	 * in a lower one.  Within a layer, objects are grouped by texture, so that the 
+	 * sprite batch does not have to flush on every texture switch.  Otherwise, 
+	 * objects are drawn in the order that they were added.
+	 *
+	 * @return true if the objects are sorted by layer and texture when drawn.
+	 */
+	public boolean isSorting() {
+		return sorting;
+	}
+
+	/**
+	 * Sets whether the objects are sorted by layer and texture when drawn.
+	 *
+	 * If true, an object in a higher draw layer is always drawn on top of an object 
+	 * in a lower one.  Within a layer, objects are grouped by texture, so that the 
+	 * sprite batch does not have to flush on every texture switch.  Otherwise, 
+	 * objects are drawn in the order that they were added.
+	 *
+	 * @param value whether the objects are sorted by layer and texture when drawn.
+	 */
+	public void setSorting(boolean value) {
+		sorting = value;
+	}
+
+	/**
+	 * Returns true if the static polygon obstacles are baked into meshes.
+	 *
+	 * If true, all textured polygon obstacles with a static body are merged into
+	 * one mesh per texture for each cell of a grid over the level, and drawn beneath
+	 * the other objects with a single render call per visible mesh.  The meshes of a
+	 * cell are only rebuilt when one of its obstacles is marked dirty, moved, or
+	 * removed (or a new one is added to it).
+	 *
+	 * @return true if the static polygon obstacles are baked into meshes.
+	 */
+	public boolean isBaking() {
+		return baking;
+	}
+
+	/**
+	 * Sets whether the static polygon obstacles are baked into meshes.
+	 *
+	 * If true, all textured polygon obstacles with a static body are merged into
+	 * one mesh per texture for each cell of a grid over the level, and drawn beneath
+	 * the other objects with a single render call per visible mesh.  The meshes of a
+	 * cell are only rebuilt when one of its obstacles is marked dirty, moved, or
+	 * removed (or a new one is added to it).
+	 *
+	 * @param value whether the static polygon obstacles are baked into meshes.
+	 */
+	public void setBaking(boolean value) {
+		baking = value;
+		if (!baking) {
+			staticGeometry.invalidate();
+		}
+	}
+
+	/**
+	 * Returns true if the level is reset by restoring a snapshot.
+	 *
+	 * If true, a reset moves every object back to the state recorded when the level
+	 * was built, instead of disposing of the world and building the level again.
+	 * Only the objects added or removed since then are destroyed or recreated.
+	 *
+	 * @return true if the level is reset by restoring a snapshot.
+	 */
+	public boolean isFastReset() {
+		return fastReset;
+	}
+
+	/**
+	 * Sets whether the level is reset by restoring a snapshot.
+	 *
+	 * If true, a reset moves every object back to the state recorded when the level
+	 * was built, instead of disposing of the world and building the level again.
+	 * Only the objects added or removed since then are destroyed or recreated.
+	 *
+	 * @param value whether the level is reset by restoring a snapshot.
+	 */
+	public void setFastReset(boolean value) {
+		fastReset = value;
+	}
+
+	/**
+	 * Returns true if the physics is stepped at a fixed rate.
+	 *
+	 * In fixed step mode, the simulation (input, update and physics) is advanced in 
+	 * increments of WORLD_STEP, as many times as the elapsed time allows.  Objects 
+	 * are drawn interpolated between the last two physics states.  Otherwise, the 
+	 * simulation is advanced exactly once per animation frame.
+	 *
+	 * @return true if the physics is stepped at a fixed rate.
+	 */
+	public boolean isFixedStep() {
+		return fixedStep;
+	}
+
+	/**
+	 * Sets whether the physics is stepped at a fixed rate.
+	 *
+	 * In fixed step mode, the simulation (input, update and physics) is advanced in 
+	 * increments of WORLD_STEP, as many times as the elapsed time allows.  Objects 
+	 * are drawn interpolated between the last two physics states.  Otherwise, the 
+	 * simulation is advanced exactly once per animation frame.
+	 *
+	 * @param value whether the physics is stepped at a fixed rate.
+	 */
+	public void setFixedStep(boolean value) {
+		fixedStep = value;
+		accumulator = 0;
+		alpha = 1.0f;
+	}
+
+	/**
+	 * Returns the maximum number of physics steps in a single animation frame
+	 *
+	 * If the game falls further behind than this, the remaining time is dropped
+	 * rather than simulated.  This prevents the "spiral of death" where slow 
+	 * frames cause more physics steps, which cause even slower frames.
+	 *
+	 * @return the maximum number of physics steps in a single animation frame
+	 */
+	public int getMaxSubSteps() {
+		return maxSubSteps;
+	}
+
+	/**
+	 * Sets the maximum number of physics steps in a single animation frame
+	 *
+	 * If the game falls further behind than this, the remaining time is dropped
+	 * rather than simulated.  This prevents the "spiral of death" where slow 
+	 * frames cause more physics steps, which cause even slower frames.
+	 *
+	 * @param value the maximum number of physics steps in a single animation frame
+	 */
+	public void setMaxSubSteps(int value) {
+		assert value > 0 : "Sub-step count must be positive";
+		maxSubSteps = value;
+	}
+
+	/**
+	 * Returns the fraction of a physics step used to interpolate drawing
+	 *
+	 * This value is 1 if the physics is not stepped at a fixed rate.
+	 *
+	 * @return the fraction of a physics step used to interpolate drawing
+	 */
+	public float getInterpolation() {
+		return alpha;
+	}
+
+	/**
+	 * Returns true if objects outside of the view are skipped when drawing.
+	 *
+	 * Visibility is determined by querying the Box2d broadphase (the dynamic tree of
+	 * fixture bounding boxes) with the view rectangle.  Culling does not change the
+	 * order in which the remaining objects are drawn.
+	 *
+	 * @return true if objects outside of the view are skipped when drawing.
+	 */
+	public boolean isCulling() {
+		return culling;
+	}
+
+	/**
+	 * Sets whether objects outside of the view are skipped when drawing.
+	 *
+	 * Visibility is determined by querying the Box2d broadphase (the dynamic tree of
+	 * fixture bounding boxes) with the view rectangle.  Culling does not change the
+	 * order in which the remaining objects are drawn.
+	 *
+	 * @param value whether objects outside of the view are skipped when drawing.
+	 */
+	public void setCulling(boolean value) {
+		culling = value;
+	}
+
+	/**
+	 * Returns how far past the view (in Box2d units) objects are still drawn
+	 *
+	 * Visibility is based on the physics fixtures, but textures are often larger 
+	 * than the fixtures.  This margin prevents those objects from popping at the
+	 * screen edge.
+	 *
+	 * @return how far past the view (in Box2d units) objects are still drawn
+	 */
+	public float getCullMargin() {
+		return cullMargin;
+	}
+
+	/**
+	 * Sets how far past the view (in Box2d units) objects are still drawn
+	 *
+	 * Visibility is based on the physics fixtures, but textures are often larger 
+	 * than the fixtures.  This margin prevents those objects from popping at the
+	 * screen edge.
+	 *
+	 * @param value how far past the view (in Box2d units) objects are still drawn
+	 */
+	public void setCullMargin(float value) {
+		cullMargin = value;
+	}
+
+	/**
+	 * Returns the number of objects drawn in the last frame
+	 *
+	 * @return the number of objects drawn in the last frame
+	 */
+	public int getDrawnCount() {
+		return drawnCount;
+	}
+
+	/**
+	 * Returns the number of objects skipped by culling in the last frame
+	 *
+	 * @return the number of objects skipped by culling in the last frame
+	 */
+	public int getCulledCount() {
+		return culledCount;
+	}
+
 	/**
 	 * Returns true if the level is completed.
 	 *
@@ -199,14 +581,43 @@ public abstract class WorldController implements Screen {
 	 * Sets the canvas associated with this controller
 	 *
 	 * The canvas is shared across all controllers.  Setting this value will compute
-	 * the drawing scale from the canvas size.
+	 * the drawing scale from the canvas size and the camera viewport.
 	 *
 	 * @param canvas the canvas associated with this controller
 	 */
 	public void setCanvas(GameCanvas canvas) {
 		this.canvas = canvas;
-		this.scale.x = canvas.getWidth()/bounds.getWidth();
-		this.scale.y = canvas.getHeight()/bounds.getHeight();
+		setScreenSize(canvas.getWidth(),canvas.getHeight());
+	}
+
+	/**
+	 * Sets the size of the screen without a canvas
+	 *
+	 * This computes the drawing scale from the screen size and the camera viewport,
+	 * exactly as {@link #setCanvas} does.  It is for simulations that never draw
+	 * (e.g. a headless benchmark), but need the same object sizes as the game.
+	 *
+	 * @param width		The screen width in pixels
+	 * @param height	The screen height in pixels
+	 */
+	public void setScreenSize(float width, float height) {
+		scale.x = width/camera.getViewportWidth();
+		scale.y = height/camera.getViewportHeight();
+		camera.setDrawScale(scale);
+	}
+
+	/**
+	 * Returns the camera determining the visible region of the world
+	 *
+	 * The camera viewport is the part of the world that fits on the screen. By
+	 * default, it is the world bounds, up to a maximum of DEFAULT_WIDTH by
+	 * DEFAULT_HEIGHT.  Larger worlds scroll.  Any change to the viewport size must
+	 * happen before the canvas is set, as that is when the drawing scale is computed.
+	 *
+	 * @return the camera determining the visible region of the world
+	 */
+	public CameraController getCamera() {
+		return camera;
 	}
 	
 	/**
@@ -250,27 +661,56 @@ public abstract class WorldController implements Screen {
 		world = new World(gravity,false);
 		this.bounds = new Rectangle(bounds);
 		this.scale = new Vector2(1,1);
+		camera = new CameraController(Math.min(bounds.width,DEFAULT_WIDTH),
+									  Math.min(bounds.height,DEFAULT_HEIGHT));
+		camera.setBounds(this.bounds);
 		complete = false;
 		failed = false;
 		debug  = false;
+		debugWorld = false;
+		profiler = new FrameProfiler();
 		active = false;
 		countdown = -1;
+		fixedStep = true;
+		maxSubSteps = DEFAULT_SUBSTEPS;
+		accumulator = 0;
+		alpha = 1.0f;
+		sorting = true;
+		baking  = true;
+		staticGeometry = new StaticGeometry();
+		fastReset = true;
+		snapshot = new ObstacleSnapshot();
+		present  = new ObjectSet<Obstacle>();
+		culling = true;
+		cullMargin = DEFAULT_CULL_MARGIN;
+		viewBounds = new Rectangle(this.bounds);
+		visible = new ObjectSet<Obstacle>();
 	}
 	
 	/**
 	 * Dispose of all (non-static) resources allocated to this mode.
 	 */
 	public void dispose() {
+		stopRecording();
+		profiler.stopExport();
 		for(Obstacle obj : objects) {
 			obj.deactivatePhysics(world);
 		}
 		objects.clear();
 		addQueue.clear();
 		world.dispose();
+		staticGeometry.dispose();
+		snapshot.clear();
 		objects = null;
 		addQueue = null;
+		visible  = null;
+		staticGeometry = null;
+		snapshot = null;
+		present  = null;
+		viewBounds = null;
 		bounds = null;
 		scale  = null;
+		camera = null;
 		world  = null;
 		canvas = null;
 	}
@@ -286,7 +726,7 @@ public abstract class WorldController implements Screen {
 	public void gatherAssets(AssetDirectory directory) {
 		// Allocate the tiles
 		earthTile = new TextureRegion(directory.getEntry( "shared:earth", Texture.class ));
-		goalTile  = new TextureRegion(directory.getEntry( "shared:goal", Texture.class ));
+		goalTile  = directory.getEntry( "shared:goal", TextureRegion.class );
 		displayFont = directory.getEntry( "shared:retro" ,BitmapFont.class);
 	}
 
@@ -307,12 +747,245 @@ public abstract class WorldController implements Screen {
 	/**
 	 * Immediately adds the object to the physics world
 	 *
+	 * If the object still has a (recycled) physics body, that body is reactivated
+	 * instead of creating a new one.  If the object can be baked into the static
+	 * geometry, the static geometry is rebuilt before the next draw.
+	 *
 	 * param obj The object to add
 	 */
 	protected void addObject(Obstacle obj) {
 		assert inBounds(obj) : "Object is not in bounds";
 		objects.add(obj);
-		obj.activatePhysics(world);
+		if (obj.getBody() == null) {
+			obj.activatePhysics(world);
+		} else {
+			obj.setActive(true);
+		}
+		obj.storeState();
+		if (StaticGeometry.canBake(obj)) {
+			staticGeometry.invalidate(obj);
+		}
+	}
+
+	/**
+	 * Releases an object that has been removed from the world.
+	 *
+	 * This method is called by the garbage collection pass in postUpdate, after the
+	 * object is taken out of the object list.  By default, it destroys the physics
+	 * bodies of the object.  Subclasses may override this method to recycle the 
+	 * object (and its bodies) instead.
+	 *
+	 * @param obj The object to release
+	 */
+	protected void releaseObject(Obstacle obj) {
+		obj.deactivatePhysics(world);
+	}
+
+	/**
+	 * Records the state of all objects currently in the world.
+	 *
+	 * This method should be called once the level is built.  Objects still in the
+	 * insertion queue are not recorded.
+	 */
+	protected void captureSnapshot() {
+		snapshot.capture(objects);
+	}
+
+	/**
+	 * Restores the level to the recorded snapshot, if possible.
+	 *
+	 * Objects that were added since the snapshot are released, unless they have a 
+	 * static body (such as streamed scenery), as nothing can have changed them.  
+	 * Recorded objects that were removed are added back.  Every recorded object is 
+	 * then moved back to its recorded state.  The world itself is kept.
+	 *
+	 * This method does nothing if fast reset is disabled or there is no snapshot.
+	 * It does not reset the game logic state of any object.
+	 *
+	 * @return true if the snapshot was restored
+	 */
+	protected boolean restoreSnapshot() {
+		if (!fastReset || snapshot.isEmpty()) {
+			return false;
+		}
+
+		Iterator<PooledList<Obstacle>.Entry> iterator = objects.entryIterator();
+		while (iterator.hasNext()) {
+			PooledList<Obstacle>.Entry entry = iterator.next();
+			Obstacle obj = entry.getValue();
+			if (snapshot.contains(obj) || (!obj.isRemoved() && obj.getBodyType() == BodyDef.BodyType.StaticBody)) {
+				present.add(obj);
+			} else {
+				if (staticGeometry.contains(obj)) {
+					staticGeometry.invalidate(obj);
+				}
+				entry.remove();
+				releaseObject(obj);
+			}
+		}
+		while (!addQueue.isEmpty()) {
+			Obstacle obj = addQueue.poll();
+			if (snapshot.contains(obj) || obj.getBodyType() == BodyDef.BodyType.StaticBody) {
+				addObject(obj);
+				present.add(obj);
+			} else {
+				releaseObject(obj);
+			}
+		}
+
+		for(Obstacle obj : snapshot.getObstacles()) {
+			if (!present.contains(obj)) {
+				addObject(obj);
+			}
+		}
+		present.clear();
+		snapshot.restore();
+		return true;
+	}
+
+	/**
+	 * Returns true if the input of this session is being recorded.
+	 *
+	 * @return true if the input of this session is being recorded.
+	 */
+	public boolean isRecording() {
+		return recorder != null;
+	}
+
+	/**
+	 * Restarts the level and records the input from now on to the given file.
+	 *
+	 * Every simulation frame, the recording stores the frame time and the input.
+	 * Periodically, it stores the state of every object as well.  The level is
+	 * rebuilt (not restored from a snapshot) so that a replay starts from exactly 
+	 * the same world.  Any previous recording is stopped.
+	 *
+	 * This method is called when the player toggles recording (the K key), which
+	 * writes to a new file in the local directory.
+	 *
+	 * @param file	The file to record to
+	 */
+	public void startRecording(FileHandle file) {
+		stopRecording();
+		restart();
+		recorder = new InputRecorder(file, InputRecorder.DEFAULT_INTERVAL, InputController.getInstance());
+	}
+
+	/**
+	 * Stops recording the input of this session, if applicable.
+	 */
+	public void stopRecording() {
+		if (recorder != null) {
+			recorder.dispose();
+			recorder = null;
+		}
+	}
+
+	/**
+	 * Restarts the level and replays the given recording at maximum speed.
+	 *
+	 * Each recorded frame is run through preUpdate, update and postUpdate with the
+	 * recorded frame time and input, without drawing anything.  Screen changes 
+	 * requested by the recording are ignored.  The world is compared to every 
+	 * snapshot in the recording, and the first divergence is logged.  The level is 
+	 * left in its final state when this method returns.
+	 *
+	 * @param file	The recording to replay
+	 *
+	 * @return the number of snapshots that did not match the world
+	 */
+	public int replay(FileHandle file) {
+		beginReplay(file);
+		try {
+			while (stepReplay()) {
+				// Frames are processed in stepReplay
+			}
+		} catch (RuntimeException e) {
+			endReplay();
+			throw e;
+		}
+		return endReplay();
+	}
+
+	/**
+	 * Returns true if a recording is being replayed.
+	 *
+	 * @return true if a recording is being replayed.
+	 */
+	public boolean isReplaying() {
+		return replay != null;
+	}
+
+	/**
+	 * Restarts the level and prepares to replay the given recording.
+	 *
+	 * The recording is replayed one frame at a time with {@link #stepReplay}, which
+	 * allows the caller to measure each frame.  Screen changes requested by the
+	 * recording are ignored until {@link #endReplay} is called.
+	 *
+	 * @param file	The recording to replay
+	 */
+	public void beginReplay(FileHandle file) {
+		stopRecording();
+		if (replay != null) {
+			endReplay();
+		}
+		restart();
+		replay = new InputReplay(file);
+		replayListener = listener;
+		listener = REPLAY_LISTENER;
+	}
+
+	/**
+	 * Runs the next frame of the current recording.
+	 *
+	 * The frame is run through preUpdate, update and postUpdate with the recorded 
+	 * frame time and input, without drawing anything.
+	 *
+	 * @return false if the recording has no more frames
+	 */
+	public boolean stepReplay() {
+		if (!replay.nextFrame(InputController.getInstance(), objects)) {
+			return false;
+		}
+		float dt = replay.getDelta();
+		if (preUpdate(dt)) {
+			update(dt);
+			postUpdate(dt);
+		}
+		return true;
+	}
+
+	/**
+	 * Stops replaying the current recording.
+	 *
+	 * The level is left in its final state, and the divergence from the recorded
+	 * snapshots is logged.
+	 *
+	 * @return the number of snapshots that did not match the world
+	 */
+	public int endReplay() {
+		for(Obstacle obj : objects) {
+			obj.storeState();
+		}
+		int mismatches = replay.getMismatchCount();
+		Gdx.app.log("WorldController", "Replayed "+replay.getFrame()+" frames with "+
+					mismatches+" of "+replay.getSnapshotCount()+" snapshots diverged");
+		replay.dispose();
+		replay = null;
+		listener = replayListener;
+		replayListener = null;
+		return mismatches;
+	}
+
+	/**
+	 * Resets the level by rebuilding it, even if fast reset is enabled.
+	 */
+	private void restart() {
+		boolean fast = fastReset;
+		fastReset = false;
+		reset();
+		fastReset = fast;
 	}
 
 	/**
@@ -350,14 +1023,43 @@ public abstract class WorldController implements Screen {
 	 */
 	public boolean preUpdate(float dt) {
 		InputController input = InputController.getInstance();
-		input.readInput(bounds, scale);
+		computeViewBounds();
+		if (replay == null) {
+			input.readInput(bounds, scale, camera);
+			if (input.didRecord()) {
+				if (recorder != null) {
+					stopRecording();
+				} else {
+					startRecording(Gdx.files.local("replay-"+TimeUtils.millis()+".rec"));
+				}
+			}
+		}
+		if (recorder != null) {
+			recorder.recordFrame(dt, input, objects);
+		}
 		if (listener == null) {
 			return true;
 		}
 
-		// Toggle debug
-		if (input.didDebug()) {
-			debug = !debug;
+		// Toggle debug (but not from a replay, which would start new exports)
+		if (replay == null) {
+			if (input.didDebug()) {
+				debug = !debug;
+			}
+			if (input.didStatistics()) {
+				statistics = !statistics;
+			}
+			if (input.didProfile()) {
+				setProfiling(!profiler.isEnabled());
+			}
+			if (input.didExport()) {
+				if (profiler.isExporting()) {
+					profiler.stopExport();
+				} else {
+					profiler.setEnabled(true);
+					profiler.startExport(Gdx.files.local("profile-"+TimeUtils.millis()+".csv"));
+				}
+			}
 		}
 		
 		// Handle resets
@@ -418,9 +1120,18 @@ public abstract class WorldController implements Screen {
 		while (!addQueue.isEmpty()) {
 			addObject(addQueue.poll());
 		}
+
+		// Remember where everything was for interpolation
+		if (fixedStep) {
+			for(Obstacle obj : objects) {
+				obj.storeState();
+			}
+		}
 		
 		// Turn the physics engine crank.
+		profiler.begin(FrameProfiler.STEP);
 		world.step(WORLD_STEP,WORLD_VELOC,WORLD_POSIT);
+		profiler.end(FrameProfiler.STEP);
 
 		// Garbage collect the deleted objects.
 		// Note how we use the linked list nodes to delete O(1) in place.
@@ -430,9 +1141,16 @@ public abstract class WorldController implements Screen {
 			PooledList<Obstacle>.Entry entry = iterator.next();
 			Obstacle obj = entry.getValue();
 			if (obj.isRemoved()) {
-				obj.deactivatePhysics(world);
+				if (staticGeometry.contains(obj)) {
+					staticGeometry.invalidate(obj);
+				}
 				entry.remove();
+				releaseObject(obj);
 			} else {
+				// A change to a baked obstacle requires a rebake of its cell
+				if (staticGeometry.contains(obj) && (obj.isDirty() || staticGeometry.hasMoved(obj))) {
+					staticGeometry.invalidate(obj);
+				}
 				// Note that update is called last!
 				obj.update(dt);
 			}
@@ -445,23 +1163,46 @@ public abstract class WorldController implements Screen {
 	 * For simple worlds, this method is enough by itself.  It will need
 	 * to be overriden if the world needs fancy backgrounds or the like.
 	 *
-	 * The method draws all objects in the order that they were added.
+	 * The method draws all objects in the order that they were added, unless
+	 * sorting is enabled.  In that case, objects are drawn by layer, and then
+	 * grouped by texture within a layer.  If baking is enabled, the baked static
+	 * geometry overlapping the view is drawn first, and the baked objects are not 
+	 * drawn individually.
+	 * The objects are drawn through the camera, which is updated first.
 	 *
 	 * @param dt	Number of seconds since last animation frame
 	 */
 	public void draw(float dt) {
 		canvas.clear();
+		camera.update(dt);
+		cullObjects();
+		if (baking && !staticGeometry.isValid()) {
+			staticGeometry.bake(objects);
+		}
 		
-		canvas.begin();
+		canvas.setSorting(sorting);
+		canvas.begin(camera.getTransform());
+		staticGeometry.draw(canvas, viewBounds);
 		for(Obstacle obj : objects) {
-			obj.draw(canvas);
+			if (isVisible(obj) && !staticGeometry.contains(obj)) {
+				canvas.setLayer(obj.getDrawLayer());
+				obj.draw(canvas);
+			}
 		}
 		canvas.end();
+		canvas.setSorting(false);
+		canvas.setLayer(0);
 		
 		if (debug) {
-			canvas.beginDebug();
-			for(Obstacle obj : objects) {
-				obj.drawDebug(canvas);
+			canvas.beginDebug(camera.getTransform());
+			if (debugWorld) {
+				canvas.drawPhysics(world, Color.YELLOW, scale.x, scale.y);
+			} else {
+				for(Obstacle obj : objects) {
+					if (isVisible(obj)) {
+						obj.drawDebug(canvas);
+					}
+				}
 			}
 			canvas.endDebug();
 		}
@@ -478,6 +1219,84 @@ public abstract class WorldController implements Screen {
 			canvas.drawTextCentered("FAILURE!", displayFont, 0.0f);
 			canvas.end();
 		}
+
+		if (statistics) {
+			displayFont.setColor(Color.WHITE);
+			canvas.begin(); // DO NOT SCALE
+			canvas.drawStatistics(displayFont, STATS_OFFSET, canvas.getHeight()-STATS_OFFSET);
+			canvas.end();
+		}
+
+		if (profiler.isEnabled()) {
+			float y = canvas.getHeight()-STATS_OFFSET;
+			if (statistics) {
+				y -= displayFont.getLineHeight();
+			}
+			displayFont.setColor(Color.WHITE);
+			canvas.begin(); // DO NOT SCALE
+			profiler.draw(canvas, displayFont, STATS_OFFSET, y);
+			canvas.end();
+		}
+	}
+
+	/**
+	 * Computes the region of the world visible on the canvas.
+	 *
+	 * The result is stored in viewBounds, in Box2d coordinates.  By default the 
+	 * view is the camera viewport.
+	 */
+	protected void computeViewBounds() {
+		camera.getViewBounds(viewBounds);
+	}
+
+	/**
+	 * Determines which objects are visible this frame.
+	 *
+	 * This queries the Box2d broadphase with the (padded) view rectangle, so the 
+	 * cost is proportional to the number of visible fixtures and not the size of 
+	 * the level.  The drawn and culled counters are updated as well.
+	 */
+	protected void cullObjects() {
+		visible.clear();
+		drawnCount  = 0;
+		culledCount = 0;
+		if (culling) {
+			computeViewBounds();
+			world.QueryAABB(cullCallback, viewBounds.x-cullMargin, viewBounds.y-cullMargin,
+							viewBounds.x+viewBounds.width+cullMargin,
+							viewBounds.y+viewBounds.height+cullMargin);
+		}
+
+		for(Obstacle obj : objects) {
+			if (isVisible(obj)) {
+				drawnCount++;
+			} else {
+				culledCount++;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the object should be drawn this frame.
+	 *
+	 * A composite object is visible if any of its components are visible.  This
+	 * method is only accurate after a call to cullObjects().
+	 *
+	 * @param obj	The object to test
+	 *
+	 * @return true if the object should be drawn this frame.
+	 */
+	protected boolean isVisible(Obstacle obj) {
+		if (!culling || visible.contains(obj)) {
+			return true;
+		} else if (obj instanceof ComplexObstacle) {
+			for(Obstacle child : ((ComplexObstacle)obj).getBodies()) {
+				if (isVisible(child)) {
+					return true;
+				}
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -544,12 +1363,73 @@ public abstract class WorldController implements Screen {
 	 */
 	public void render(float delta) {
 		if (active) {
-			if (preUpdate(delta)) {
-				update(delta); // This is the one that must be defined.
-				postUpdate(delta);
+			profiler.begin(FrameProfiler.FRAME);
+			if (fixedStep) {
+				step(delta);
+			} else {
+				profiler.begin(FrameProfiler.PRE_UPDATE);
+				boolean process = preUpdate(delta);
+				profiler.end(FrameProfiler.PRE_UPDATE);
+				if (process) {
+					profiler.begin(FrameProfiler.UPDATE);
+					update(delta); // This is the one that must be defined.
+					profiler.end(FrameProfiler.UPDATE);
+					profiler.begin(FrameProfiler.POST_UPDATE);
+					postUpdate(delta);
+					profiler.end(FrameProfiler.POST_UPDATE);
+				}
+			}
+
+			// Place objects between the last two physics states
+			for(Obstacle obj : objects) {
+				obj.interpolate(alpha);
 			}
+			profiler.begin(FrameProfiler.DRAW);
 			draw(delta);
+			profiler.end(FrameProfiler.DRAW);
+			profiler.end(FrameProfiler.FRAME);
+			if (objects != null) {
+				profiler.endFrame(world, objects.size());
+			}
+		}
+	}
+
+	/**
+	 * Advances the simulation by as many fixed physics steps as delta allows.
+	 *
+	 * Unused time is carried over to the next animation frame.  The leftover 
+	 * fraction of a step is used to interpolate the drawing transforms.  If the 
+	 * frame needed more than the maximum number of steps, the excess time is 
+	 * dropped so that the simulation never falls permanently behind.
+	 *
+	 * @param delta Number of seconds since last animation frame
+	 */
+	private void step(float delta) {
+		accumulator += Math.min(delta, MAX_FRAME_TIME);
+
+		int steps = 0;
+		while (accumulator >= WORLD_STEP && steps < maxSubSteps) {
+			accumulator -= WORLD_STEP;
+			steps++;
+			profiler.begin(FrameProfiler.PRE_UPDATE);
+			boolean process = preUpdate(WORLD_STEP);
+			profiler.end(FrameProfiler.PRE_UPDATE);
+			if (!process) {
+				break;
+			}
+			profiler.begin(FrameProfiler.UPDATE);
+			update(WORLD_STEP);
+			profiler.end(FrameProfiler.UPDATE);
+			profiler.begin(FrameProfiler.POST_UPDATE);
+			postUpdate(WORLD_STEP);
+			profiler.end(FrameProfiler.POST_UPDATE);
+		}
+
+		// Spiral of death: drop what we cannot simulate
+		if (accumulator >= WORLD_STEP) {
+			accumulator %= WORLD_STEP;
 		}
+		alpha = accumulator/WORLD_STEP;
 	}
 
 	/**
@@ -577,6 +1457,7 @@ public abstract class WorldController implements Screen {
 	public void show() {
 		// Useless if called in outside animation loop
 		active = true;
+		accumulator = 0;
 	}
 
 	/**
@@ -201,7 +201,11 @@ public class BoxObstacle extends SimpleObstacle {
 	 * @param canvas Drawing context
 	 */
 	public void drawDebug(GameCanvas canvas) {
-		canvas.drawPhysics(shape,Color.YELLOW,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
+		if (geometry != null) {
+			canvas.drawPhysics(geometry,Color.YELLOW,getRenderX(),getRenderY(),getRenderAngle(),drawScale.x,drawScale.y);
+		} else {
+			canvas.drawPhysics(shape,Color.YELLOW,getRenderX(),getRenderY(),getRenderAngle(),drawScale.x,drawScale.y);
+		}
 	}
 
 
@@ -484,34 +484,34 @@ public class CapsuleObstacle extends SimpleObstacle {
 	 * @param canvas Drawing context
 	 */
 	public void drawDebug(GameCanvas canvas) {
-		canvas.drawPhysics(shape,Color.YELLOW,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
+		canvas.drawPhysics(shape,Color.YELLOW,getRenderX(),getRenderY(),getRenderAngle(),drawScale.x,drawScale.y);
 		if (cap1 != null) {
 			// Need to manually rotate caps off axis
 			float dx; float dy;
 			if (isHorizontal(orient)) {
 				float r = -center.x;
-				dx = (float)(r*Math.cos(Math.PI+getAngle()));
-				dy = (float)(r*Math.sin(Math.PI+getAngle()));
+				dx = (float)(r*Math.cos(Math.PI+getRenderAngle()));
+				dy = (float)(r*Math.sin(Math.PI+getRenderAngle()));
 			} else {
 				float r = center.y+center.height;
-				dx = (float)(r*Math.cos(Math.PI/2.0f+getAngle()));
-				dy = (float)(r*Math.sin(Math.PI/2.0f+getAngle()));
+				dx = (float)(r*Math.cos(Math.PI/2.0f+getRenderAngle()));
+				dy = (float)(r*Math.sin(Math.PI/2.0f+getRenderAngle()));
 			}
-			canvas.drawPhysics(end1,Color.YELLOW,getX()+dx,getY()+dy,drawScale.x,drawScale.y);			
+			canvas.drawPhysics(end1,Color.YELLOW,getRenderX()+dx,getRenderY()+dy,drawScale.x,drawScale.y);			
 		}
 		if (cap2 != null) {
 			// Need to manually rotate caps off axis
 			float dx; float dy;
 			if (isHorizontal(orient)) {
 				float r = center.x+center.width;
-				dx = (float)(r*Math.cos(getAngle()));
-				dy = (float)(r*Math.sin(getAngle()));
+				dx = (float)(r*Math.cos(getRenderAngle()));
+				dy = (float)(r*Math.sin(getRenderAngle()));
 			} else {
 				float r = -center.y;
-				dx = (float)(r*Math.cos(-Math.PI/2.0f+getAngle()));
-				dy = (float)(r*Math.sin(-Math.PI/2.0f+getAngle()));
+				dx = (float)(r*Math.cos(-Math.PI/2.0f+getRenderAngle()));
+				dy = (float)(r*Math.sin(-Math.PI/2.0f+getRenderAngle()));
 			}
-			canvas.drawPhysics(end2,Color.YELLOW,getX()+dx,getY()+dy,drawScale.x,drawScale.y);			
+			canvas.drawPhysics(end2,Color.YELLOW,getRenderX()+dx,getRenderY()+dy,drawScale.x,drawScale.y);			
 		}
 	}
 
@@ -1029,6 +1029,34 @@ public abstract class ComplexObstacle extends Obstacle {
 		}
 	}
 	
+	/**
+	 * Records the current transform as the previous physics state.
+	 *
+	 * This method delegates to the component obstacles, as those are the objects
+	 * that are drawn.
+	 */
+	public void storeState() {
+		super.storeState();
+		for(Obstacle obj : bodies) {
+			obj.storeState();
+		}
+	}
+
+	/**
+	 * Computes the render transform between the previous and current physics state.
+	 *
+	 * This method delegates to the component obstacles, as those are the objects
+	 * that are drawn.
+	 *
+	 * @param alpha	The interpolation factor in [0,1]
+	 */
+	public void interpolate(float alpha) {
+		super.interpolate(alpha);
+		for(Obstacle obj : bodies) {
+			obj.interpolate(alpha);
+		}
+	}
+
 	/**
      * Sets the drawing scale for this physics object
      *
@@ -0,0 +1,197 @@
+/*
+ * ContactDispatcher.java
+ *
+ * A single ContactListener receives every contact in the world.  Writing that listener
+ * as a long chain of if-statements (comparing names) gets slow and hard to read as
+ * the number of object types grows.  This class routes each contact to a handler
+ * chosen by the collision categories of the two fixtures, using a lookup table.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game.obstacle;
+
+import com.badlogic.gdx.physics.box2d.*;
+
+/**
+ * Contact listener that dispatches collisions by category pair.
+ *
+ * The category of a fixture is the category of its FixtureTag, if it has one, and
+ * the category of the obstacle owning its body otherwise.  Handlers are registered
+ * for an (unordered) pair of categories.  A handler always receives the fixtures
+ * in the order of its registration, regardless of the order Box2d reports them.
+ * Pairs without a handler are ignored.
+ */
+public class ContactDispatcher implements ContactListener {
+	/**
+	 * Callback for a contact between two categories of fixtures.
+	 */
+	public interface Handler {
+		/**
+		 * Processes a contact between two fixtures.
+		 *
+		 * The first fixture has the first category of the registered pair, and
+		 * the second fixture has the second category.
+		 *
+		 * @param contact	The Box2d contact
+		 * @param first		The fixture of the first category
+		 * @param second	The fixture of the second category
+		 */
+		public void handle(Contact contact, Fixture first, Fixture second);
+	}
+
+	/** The number of supported categories */
+	private final int size;
+	/** The handlers for the start of a contact, indexed by category pair */
+	private final Handler[] begins;
+	/** The handlers for the end of a contact, indexed by category pair */
+	private final Handler[] ends;
+	/** Whether the fixtures must be swapped for a category pair (start of contact) */
+	private final boolean[] beginSwaps;
+	/** Whether the fixtures must be swapped for a category pair (end of contact) */
+	private final boolean[] endSwaps;
+
+	/**
+	 * Creates a new dispatcher for the given number of categories
+	 *
+	 * Categories must be in the range 0 to size-1.
+	 *
+	 * @param size	The number of supported categories
+	 */
+	public ContactDispatcher(int size) {
+		this.size = size;
+		begins = new Handler[size*size];
+		ends   = new Handler[size*size];
+		beginSwaps = new boolean[size*size];
+		endSwaps   = new boolean[size*size];
+	}
+
+	/**
+	 * Returns the number of supported categories
+	 *
+	 * @return the number of supported categories
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Registers a handler for the start of a contact between two categories
+	 *
+	 * The categories may be the same.  Any previous handler is replaced.
+	 *
+	 * @param first		The category of the first fixture
+	 * @param second	The category of the second fixture
+	 * @param handler	The contact handler (or null to remove)
+	 */
+	public void onBegin(int first, int second, Handler handler) {
+		register(begins, beginSwaps, first, second, handler);
+	}
+
+	/**
+	 * Registers a handler for the end of a contact between two categories
+	 *
+	 * The categories may be the same.  Any previous handler is replaced.
+	 *
+	 * @param first		The category of the first fixture
+	 * @param second	The category of the second fixture
+	 * @param handler	The contact handler (or null to remove)
+	 */
+	public void onEnd(int first, int second, Handler handler) {
+		register(ends, endSwaps, first, second, handler);
+	}
+
+	/**
+	 * Returns the collision category of a fixture
+	 *
+	 * @param fixture	The fixture to categorize
+	 *
+	 * @return the collision category of a fixture
+	 */
+	public static int getCategory(Fixture fixture) {
+		Object data = fixture.getUserData();
+		if (data instanceof FixtureTag) {
+			return ((FixtureTag)data).getCategory();
+		}
+		data = fixture.getBody().getUserData();
+		if (data instanceof Obstacle) {
+			return ((Obstacle)data).getCategory();
+		}
+		return Obstacle.DEFAULT_CATEGORY;
+	}
+
+	/**
+	 * Returns the obstacle owning a fixture (or null if there is none)
+	 *
+	 * @param fixture	The fixture to query
+	 *
+	 * @return the obstacle owning a fixture
+	 */
+	public static Obstacle getObstacle(Fixture fixture) {
+		Object data = fixture.getBody().getUserData();
+		return (data instanceof Obstacle ? (Obstacle)data : null);
+	}
+
+	/**
+	 * Callback method for the start of a collision
+	 *
+	 * @param contact The two bodies that collided
+	 */
+	public void beginContact(Contact contact) {
+		dispatch(begins, beginSwaps, contact);
+	}
+
+	/**
+	 * Callback method for the end of a collision
+	 *
+	 * @param contact The two bodies that ceased to touch
+	 */
+	public void endContact(Contact contact) {
+		dispatch(ends, endSwaps, contact);
+	}
+
+	/** Unused ContactListener method */
+	public void postSolve(Contact contact, ContactImpulse impulse) {}
+	/** Unused ContactListener method */
+	public void preSolve(Contact contact, Manifold oldManifold) {}
+
+	/**
+	 * Stores a handler in the given table under both orders of the pair
+	 *
+	 * @param table		The handler table
+	 * @param swaps		The fixture order table
+	 * @param first		The category of the first fixture
+	 * @param second	The category of the second fixture
+	 * @param handler	The contact handler
+	 */
+	private void register(Handler[] table, boolean[] swaps, int first, int second, Handler handler) {
+		assert first >= 0 && first < size : "Category out of range";
+		assert second >= 0 && second < size : "Category out of range";
+		table[first*size+second] = handler;
+		table[second*size+first] = handler;
+		// The pair must be reported in registration order
+		swaps[first*size+second] = false;
+		swaps[second*size+first] = (first != second);
+	}
+
+	/**
+	 * Routes a contact to the handler for its category pair
+	 *
+	 * @param table		The handler table
+	 * @param swaps		The fixture order table
+	 * @param contact	The Box2d contact
+	 */
+	private void dispatch(Handler[] table, boolean[] swaps, Contact contact) {
+		Fixture fix1 = contact.getFixtureA();
+		Fixture fix2 = contact.getFixtureB();
+		int index = getCategory(fix1)*size+getCategory(fix2);
+		Handler handler = table[index];
+		if (handler == null) {
+			return;
+		} else if (swaps[index]) {
+			handler.handle(contact, fix2, fix1);
+		} else {
+			handler.handle(contact, fix1, fix2);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * FixtureTag.java
+ *
+ * Box2d allows us to attach arbitrary user data to a fixture.  It is tempting to use
+ * a string for this, but then every collision callback has to compare strings.  This
+ * class is a small tag that identifies a fixture by an integer category instead.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game.obstacle;
+
+/**
+ * User data for a fixture that needs to be identified in a collision.
+ *
+ * Fixtures with a tag are dispatched by the category of the tag.  Fixtures without
+ * a tag are dispatched by the category of the obstacle that owns their body.  Tags
+ * are immutable, so a single tag may be shared by several fixtures.
+ */
+public class FixtureTag {
+	/** The obstacle owning this fixture */
+	private final Obstacle owner;
+	/** The collision category of this fixture */
+	private final int category;
+
+	/**
+	 * Creates a new tag for a fixture of the given obstacle
+	 *
+	 * @param owner		The obstacle owning the fixture
+	 * @param category	The collision category of the fixture
+	 */
+	public FixtureTag(Obstacle owner, int category) {
+		assert category >= 0 : "Category must be non-negative";
+		this.owner = owner;
+		this.category = category;
+	}
+
+	/**
+	 * Returns the obstacle owning this fixture
+	 *
+	 * @return the obstacle owning this fixture
+	 */
+	public Obstacle getOwner() {
+		return owner;
+	}
+
+	/**
+	 * Returns the collision category of this fixture
+	 *
+	 * @return the collision category of this fixture
+	 */
+	public int getCategory() {
+		return category;
+	}
+}
@@ -37,6 +37,9 @@ import edu.cornell.gdiac.game.*;  // For GameCanvas
  * and fixture information into a single interface.
  */
 public abstract class Obstacle {
+	/** The collision category for objects that do not specify one */
+	public static final int DEFAULT_CATEGORY = 0;
+
 	/// Initialization structures to store body information
 	/** Stores the body information for this shape */
 	protected BodyDef bodyinfo;
@@ -48,8 +51,12 @@ public abstract class Obstacle {
 	protected boolean masseffect;
     /** A tag for debugging purposes */
     private String nametag;
+	/** The collision category (for contact dispatch) */
+	private int category;
 	/** Drawing scale to convert physics units to pixels */
 	protected Vector2 drawScale;
+	/** The drawing layer (for sorted drawing) */
+	private int drawLayer;
 
 	/// Track garbage collection status
 	/** Whether the object should be removed from the world on next pass */
@@ -67,6 +74,16 @@ public abstract class Obstacle {
 	/** A cache value for when the user wants to access the drawing scale */
 	protected Vector2 scaleCache = new Vector2();
 
+	/// Interpolation state
+	/** The position of this object at the previous physics step */
+	protected Vector2 previousPosition = new Vector2();
+	/** The angle of this object at the previous physics step */
+	protected float previousAngle;
+	/** The position to draw this object at (between the last two physics steps) */
+	protected Vector2 renderPosition = new Vector2();
+	/** The angle to draw this object at (between the last two physics steps) */
+	protected float renderAngle;
+
 
 	/// BodyDef Methods
 	/**
@@ -832,6 +849,72 @@ public abstract class Obstacle {
 		return null;
 	}
 	
+	/// Interpolation Methods
+	/**
+	 * Records the current transform as the previous physics state.
+	 *
+	 * When the world is stepped at a fixed rate, the controller calls this method 
+	 * just before each physics step.  The render transform is then interpolated
+	 * between this state and the state after the step.  You should also call this 
+	 * method after teleporting an object, so that it does not smear across the 
+	 * screen for one frame.
+	 */
+	public void storeState() {
+		Vector2 pos = getPosition();
+		previousPosition.set(pos);
+		previousAngle = getAngle();
+		renderPosition.set(pos);
+		renderAngle = previousAngle;
+	}
+
+	/**
+	 * Computes the render transform between the previous and current physics state.
+	 *
+	 * The value alpha is the fraction of a physics step that has elapsed since the 
+	 * last step.  An alpha of 1 draws the object at its current physics position.
+	 *
+	 * @param alpha	The interpolation factor in [0,1]
+	 */
+	public void interpolate(float alpha) {
+		Vector2 pos = getPosition();
+		renderPosition.x = previousPosition.x + alpha*(pos.x-previousPosition.x);
+		renderPosition.y = previousPosition.y + alpha*(pos.y-previousPosition.y);
+		renderAngle = previousAngle + alpha*(getAngle()-previousAngle);
+	}
+
+	/**
+	 * Returns the x-coordinate to draw this object at
+	 *
+	 * This is the interpolated position computed by the last call to interpolate.
+	 *
+	 * @return the x-coordinate to draw this object at
+	 */
+	public float getRenderX() {
+		return renderPosition.x;
+	}
+
+	/**
+	 * Returns the y-coordinate to draw this object at
+	 *
+	 * This is the interpolated position computed by the last call to interpolate.
+	 *
+	 * @return the y-coordinate to draw this object at
+	 */
+	public float getRenderY() {
+		return renderPosition.y;
+	}
+
+	/**
+	 * Returns the angle to draw this object at (in radians)
+	 *
+	 * This is the interpolated angle computed by the last call to interpolate.
+	 *
+	 * @return the angle to draw this object at
+	 */
+	public float getRenderAngle() {
+		return renderAngle;
+	}
+
 	/// DRAWING METHODS
 	/**
      * Returns the drawing scale for this physics object
@@ -886,6 +969,34 @@ public abstract class Obstacle {
     public void setDrawScale(float x, float y) {
     	drawScale.set(x,y);
     }
+
+	/**
+	 * Returns the drawing layer of this object.
+	 *
+	 * When the canvas sorts its draw commands, objects in a higher layer are
+	 * always drawn on top of objects in a lower layer.  Within a layer, the
+	 * canvas may reorder objects to group their textures. The default layer
+	 * is 0.
+	 *
+	 * @return the drawing layer of this object.
+	 */
+	public int getDrawLayer() {
+		return drawLayer;
+	}
+
+	/**
+	 * Sets the drawing layer of this object.
+	 *
+	 * When the canvas sorts its draw commands, objects in a higher layer are
+	 * always drawn on top of objects in a lower layer.  Within a layer, the
+	 * canvas may reorder objects to group their textures. The default layer
+	 * is 0.
+	 *
+	 * @param value the drawing layer of this object.
+	 */
+	public void setDrawLayer(int value) {
+		drawLayer = value;
+	}
     	
 	/// DEBUG METHODS
 	/**
@@ -909,6 +1020,34 @@ public abstract class Obstacle {
     public void setName(String value) {
      	nametag = value; 
 	}
+
+	/// COLLISION METHODS
+	/**
+	 * Returns the collision category of this object.
+	 *
+	 * The category is a small non-negative integer that identifies the kind of 
+	 * object in a ContactDispatcher.  Unlike the name, it is cheap to compare in
+	 * collision callbacks.  The default category is DEFAULT_CATEGORY.
+	 *
+	 * @return the collision category of this object.
+	 */
+	public int getCategory() {
+		return category;
+	}
+
+	/**
+	 * Sets the collision category of this object.
+	 *
+	 * The category is a small non-negative integer that identifies the kind of 
+	 * object in a ContactDispatcher.  Unlike the name, it is cheap to compare in
+	 * collision callbacks.  The default category is DEFAULT_CATEGORY.
+	 *
+	 * @param value the collision category of this object.
+	 */
+	public void setCategory(int value) {
+		assert value >= 0 : "Category must be non-negative";
+		category = value;
+	}
 	
 	/**
 	 * Create a new physics object at the origin.
@@ -926,6 +1065,7 @@ public abstract class Obstacle {
 	protected Obstacle(float x, float y) {
 		// Object has yet to be deactivated
 		toRemove = false;
+		category = DEFAULT_CATEGORY;
 		
 		// Allocate the body information
 		bodyinfo = new BodyDef();
@@ -947,6 +1087,10 @@ public abstract class Obstacle {
 		
 		// Set the default drawing scale
 		drawScale = new Vector2(1,1);
+
+		// Start with no motion to interpolate
+		previousPosition.set(x,y);
+		renderPosition.set(x,y);
 	}
 
 	/// Abstract Methods
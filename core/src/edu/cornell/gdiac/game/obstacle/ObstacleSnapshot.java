@@ -0,0 +1,188 @@
+/*
+ * ObstacleSnapshot.java
+ *
+ * Resetting a level by disposing of the world and building a new one is slow.  It
+ * recreates every body and fixture, and it recomputes every polygon triangulation.
+ * But at the start of a level, most objects are exactly where they were the last
+ * time the level started.  This class records the physics state of the obstacles
+ * once, so that a reset can simply put every body back where it was.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game.obstacle;
+
+import com.badlogic.gdx.utils.*;
+
+/**
+ * The recorded physics state of a collection of obstacles.
+ *
+ * The snapshot stores the transform, velocity and activity of every obstacle at
+ * the time of {@link #capture}.  A complex obstacle is recorded through its child
+ * obstacles, so that all of the pieces return to their place (and their joints
+ * are satisfied).  The snapshot does not record game logic state; that must be
+ * reset by the owner of the obstacle.
+ */
+public class ObstacleSnapshot {
+	/**
+	 * The recorded state of a single (simple) obstacle
+	 */
+	private static class State {
+		/** The obstacle recorded */
+		public Obstacle obstacle;
+		/** The x-coordinate of the obstacle position */
+		public float x;
+		/** The y-coordinate of the obstacle position */
+		public float y;
+		/** The obstacle angle */
+		public float angle;
+		/** The x-coordinate of the linear velocity */
+		public float vx;
+		/** The y-coordinate of the linear velocity */
+		public float vy;
+		/** The angular velocity */
+		public float omega;
+		/** Whether the obstacle is active */
+		public boolean active;
+		/** Whether the obstacle is awake */
+		public boolean awake;
+	}
+
+	/** The top level obstacles in this snapshot */
+	private Array<Obstacle> obstacles;
+	/** The top level obstacles in this snapshot (for fast lookup) */
+	private ObjectSet<Obstacle> members;
+	/** The recorded state of each simple obstacle */
+	private Array<State> states;
+
+	/**
+	 * Creates a new, empty snapshot.
+	 */
+	public ObstacleSnapshot() {
+		obstacles = new Array<Obstacle>();
+		members = new ObjectSet<Obstacle>();
+		states = new Array<State>();
+	}
+
+	/**
+	 * Returns true if this snapshot has no obstacles.
+	 *
+	 * @return true if this snapshot has no obstacles.
+	 */
+	public boolean isEmpty() {
+		return obstacles.size == 0;
+	}
+
+	/**
+	 * Returns the number of (top level) obstacles in this snapshot.
+	 *
+	 * @return the number of (top level) obstacles in this snapshot.
+	 */
+	public int getSize() {
+		return obstacles.size;
+	}
+
+	/**
+	 * Returns true if the given obstacle is part of this snapshot.
+	 *
+	 * Only top level obstacles are tracked.  The children of a complex obstacle do
+	 * not count as members.
+	 *
+	 * @param obj	The obstacle to check
+	 *
+	 * @return true if the given obstacle is part of this snapshot.
+	 */
+	public boolean contains(Obstacle obj) {
+		return members.contains(obj);
+	}
+
+	/**
+	 * Returns the (top level) obstacles in this snapshot.
+	 *
+	 * While the iterable does not allow you to modify the list, it is possible to
+	 * modify the individual obstacles.
+	 *
+	 * @return the (top level) obstacles in this snapshot.
+	 */
+	public Iterable<Obstacle> getObstacles() {
+		return obstacles;
+	}
+
+	/**
+	 * Removes all obstacles from this snapshot.
+	 */
+	public void clear() {
+		obstacles.clear();
+		members.clear();
+		states.clear();
+	}
+
+	/**
+	 * Records the current state of the given obstacles, replacing the old snapshot.
+	 *
+	 * @param objects	The obstacles to record
+	 */
+	public void capture(Iterable<Obstacle> objects) {
+		clear();
+		for(Obstacle obj : objects) {
+			obstacles.add(obj);
+			members.add(obj);
+			record(obj);
+		}
+	}
+
+	/**
+	 * Restores every obstacle to its recorded state.
+	 *
+	 * The obstacles are moved in place, without recreating their bodies.  Their
+	 * interpolation state is reset as well, so that they do not smear across the
+	 * screen.  Obstacles that were removed from the world must be added back
+	 * (e.g. with activatePhysics) BEFORE calling this method.
+	 */
+	public void restore() {
+		for(State state : states) {
+			Obstacle obj = state.obstacle;
+			obj.markRemoved(false);
+			obj.setPosition(state.x,state.y);
+			obj.setAngle(state.angle);
+			obj.setVX(state.vx);
+			obj.setVY(state.vy);
+			obj.setAngularVelocity(state.omega);
+			obj.setActive(state.active);
+			obj.setAwake(state.awake);
+			obj.storeState();
+		}
+		for(Obstacle obj : obstacles) {
+			obj.markRemoved(false);
+			obj.storeState();
+		}
+	}
+
+	/**
+	 * Records the state of the given obstacle
+	 *
+	 * A complex obstacle is recorded through its children.
+	 *
+	 * @param obj	The obstacle to record
+	 */
+	private void record(Obstacle obj) {
+		if (obj instanceof ComplexObstacle) {
+			for(Obstacle child : ((ComplexObstacle)obj).getBodies()) {
+				record(child);
+			}
+			return;
+		}
+
+		State state = new State();
+		state.obstacle = obj;
+		state.x = obj.getX();
+		state.y = obj.getY();
+		state.angle = obj.getAngle();
+		state.vx = obj.getVX();
+		state.vy = obj.getVY();
+		state.omega  = obj.getAngularVelocity();
+		state.active = obj.isActive();
+		state.awake  = obj.isAwake();
+		states.add(state);
+	}
+}
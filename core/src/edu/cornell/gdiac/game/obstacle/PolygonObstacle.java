@@ -365,7 +365,7 @@ public class PolygonObstacle extends SimpleObstacle {
 	 */
 	public void draw(GameCanvas canvas) {
 		if (region != null) {
-			canvas.draw(region,Color.WHITE,0,0,getX()*drawScale.x,getY()*drawScale.y,getAngle(),1,1);
+			canvas.draw(region,Color.WHITE,0,0,getRenderX()*drawScale.x,getRenderY()*drawScale.y,getRenderAngle(),1,1);
 		}
 	}
 
@@ -377,8 +377,14 @@ public class PolygonObstacle extends SimpleObstacle {
 	 * @param canvas Drawing context
 	 */
 	public void drawDebug(GameCanvas canvas) {
-		for(PolygonShape tri : shapes) {
-			canvas.drawPhysics(tri,Color.YELLOW,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
+		if (geoms[0] != null) {
+			for(Fixture fix : geoms) {
+				canvas.drawPhysics(fix,Color.YELLOW,getRenderX(),getRenderY(),getRenderAngle(),drawScale.x,drawScale.y);
+			}
+		} else {
+			for(PolygonShape tri : shapes) {
+				canvas.drawPhysics(tri,Color.YELLOW,getRenderX(),getRenderY(),getRenderAngle(),drawScale.x,drawScale.y);
+			}
 		}
 	}
 	
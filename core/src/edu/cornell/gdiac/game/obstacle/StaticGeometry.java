@@ -0,0 +1,627 @@
+/*
+ * StaticGeometry.java
+ *
+ * Most of a level is made of walls and platforms that never move.  Drawing each
+ * of them as a separate polygon means that their vertices are transformed and sent
+ * to the graphics card every single frame, even though they never change.  This
+ * class bakes those obstacles into meshes once, so that they can be drawn with a
+ * single render call per texture.
+ *
+ * The level is divided into a grid of cells, and each cell is baked separately.
+ * Hence adding or removing a chunk of scenery only rebuilds the cells it touches,
+ * and cells outside of the view are not drawn at all.  The meshes of a cell are 
+ * kept in the ResourceManager, so a cell that streams out and back in again with 
+ * the same obstacles reuses its meshes until they are evicted.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game.obstacle;
+
+import java.util.Iterator;
+import java.util.WeakHashMap;
+
+import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.utils.*;
+import com.badlogic.gdx.graphics.*;
+import com.badlogic.gdx.graphics.g2d.*;
+import com.badlogic.gdx.graphics.glutils.*;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+
+import edu.cornell.gdiac.assets.ResourceManager;
+import edu.cornell.gdiac.game.*;  // For GameCanvas
+
+/**
+ * Cached meshes for the static, textured polygon obstacles in a level.
+ *
+ * Obstacles are assigned to a grid cell by their position, and each cell is baked
+ * in world (pixel) coordinates, grouped by texture.  A baked obstacle should not be
+ * drawn on its own, as it is already part of a mesh.  The meshes of a cell are only
+ * valid as long as its obstacles do not change.  The owner of this object should
+ * invalidate a baked obstacle when it is dirty, removed, or has moved (@see hasMoved).
+ * That only discards the cell of the obstacle, which is rebuilt on the next bake.
+ */
+public class StaticGeometry implements Disposable {
+	/** The default width and height of a grid cell (in Box2d units) */
+	public static final float DEFAULT_CELL_SIZE = 8.0f;
+	/** The number of floats per vertex (position, color, texture coordinates) */
+	private static final int VERTEX_SIZE = 5;
+	/** The maximum number of vertices in a single mesh (so indices fit in a short) */
+	private static final int MAX_VERTICES = Short.MAX_VALUE;
+	/** The packed color of a baked vertex */
+	private static final float WHITE = Color.WHITE.toFloatBits();
+	/** The prefix of the resource keys for baked meshes */
+	private static final String RESOURCE_PREFIX = "static:";
+	/** The 64-bit FNV offset basis (for hashing the baked vertices) */
+	private static final long HASH_BASIS = 0xcbf29ce484222325L;
+	/** The 64-bit FNV prime (for hashing the baked vertices) */
+	private static final long HASH_PRIME = 0x100000001b3L;
+
+	/** A unique id for each texture, which is never reused (even after disposal) */
+	private static final WeakHashMap<Texture, Long> textureIds = new WeakHashMap<Texture, Long>();
+	/** The next texture id */
+	private static long nextTextureId;
+
+	/**
+	 * The baked meshes of a grid cell, as stored in the ResourceManager.
+	 */
+	private static class CellMeshes implements Disposable {
+		/** The baked meshes */
+		public Array<Mesh> meshes = new Array<Mesh>();
+		/** The texture of each baked mesh */
+		public Array<Texture> textures = new Array<Texture>();
+		/** The region covered by the meshes (in Box2d units) */
+		public Rectangle bounds = new Rectangle();
+		/** Whether the bounds include any vertex yet */
+		public boolean bounded;
+		/** The size of the vertex and index buffers in bytes */
+		public long bytes;
+
+		/**
+		 * Disposes of the baked meshes.
+		 */
+		public void dispose() {
+			for(Mesh mesh : meshes) {
+				mesh.dispose();
+			}
+			meshes.clear();
+			textures.clear();
+		}
+	}
+
+	/**
+	 * A single grid cell.
+	 */
+	private static class Cell {
+		/** The obstacles in the meshes of this cell */
+		public Array<Obstacle> members = new Array<Obstacle>();
+		/** The obstacles waiting to be baked into this cell */
+		public Array<PolygonObstacle> pending = new Array<PolygonObstacle>();
+		/** The baked meshes (null if not baked) */
+		public CellMeshes meshes;
+		/** The resource key of the baked meshes (null if not baked) */
+		public String key;
+		/** Whether the meshes must be rebuilt */
+		public boolean dirty = true;
+	}
+
+	/**
+	 * The transform of an obstacle when it was baked.
+	 */
+	private static class Placement {
+		/** The cell containing the obstacle */
+		public Cell cell;
+		/** The x-coordinate of the obstacle when baked */
+		public float x;
+		/** The y-coordinate of the obstacle when baked */
+		public float y;
+		/** The angle of the obstacle when baked */
+		public float angle;
+	}
+
+	/** The width and height of a grid cell (in Box2d units) */
+	private float cellSize;
+	/** The grid cells, keyed by packed cell coordinates */
+	private LongMap<Cell> cells;
+	/** The obstacles in the current meshes */
+	private ObjectMap<Obstacle, Placement> baked;
+	/** Whether the meshes match the current obstacles */
+	private boolean valid;
+
+	/** The unfinished vertices for each texture (while baking) */
+	private ObjectMap<Texture, FloatArray> vertexData;
+	/** The unfinished indices for each texture (while baking) */
+	private ObjectMap<Texture, ShortArray> indexData;
+
+	/**
+	 * Creates a new, empty static geometry cache with the default cell size.
+	 */
+	public StaticGeometry() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Creates a new, empty static geometry cache.
+	 *
+	 * @param cellSize	The width and height of a grid cell (in Box2d units)
+	 */
+	public StaticGeometry(float cellSize) {
+		this.cellSize = cellSize;
+		cells = new LongMap<Cell>();
+		baked = new ObjectMap<Obstacle, Placement>();
+		vertexData = new ObjectMap<Texture, FloatArray>();
+		indexData  = new ObjectMap<Texture, ShortArray>();
+		valid = false;
+	}
+
+	/**
+	 * Returns true if the given obstacle can be baked.
+	 *
+	 * Only textured polygon obstacles with a static body can be baked.
+	 *
+	 * @param obj	The obstacle to check
+	 *
+	 * @return true if the given obstacle can be baked.
+	 */
+	public static boolean canBake(Obstacle obj) {
+		if (!(obj instanceof PolygonObstacle) || obj.isRemoved() || !obj.isActive()) {
+			return false;
+		}
+		return obj.getBodyType() == BodyType.StaticBody && ((PolygonObstacle)obj).region != null;
+	}
+
+	/**
+	 * Returns true if the meshes match the current obstacles.
+	 *
+	 * If this is false, the obstacles should be baked again before drawing.
+	 *
+	 * @return true if the meshes match the current obstacles.
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+
+	/**
+	 * Returns true if the given obstacle is part of the current meshes.
+	 *
+	 * @param obj	The obstacle to check
+	 *
+	 * @return true if the given obstacle is part of the current meshes.
+	 */
+	public boolean contains(Obstacle obj) {
+		return baked.containsKey(obj);
+	}
+
+	/**
+	 * Returns true if the given baked obstacle has moved since it was baked.
+	 *
+	 * Moving an obstacle does not mark it dirty, so the owner should check this
+	 * for every baked obstacle that it updates.
+	 *
+	 * @param obj	The obstacle to check
+	 *
+	 * @return true if the given baked obstacle has moved since it was baked.
+	 */
+	public boolean hasMoved(Obstacle obj) {
+		Placement place = baked.get(obj);
+		if (place == null) {
+			return false;
+		}
+		return place.x != obj.getX() || place.y != obj.getY() || place.angle != obj.getAngle();
+	}
+
+	/**
+	 * Returns the number of obstacles in the current meshes.
+	 *
+	 * @return the number of obstacles in the current meshes.
+	 */
+	public int getSize() {
+		return baked.size;
+	}
+
+	/**
+	 * Returns the number of current meshes.
+	 *
+	 * @return the number of current meshes.
+	 */
+	public int getMeshCount() {
+		int count = 0;
+		for(Cell cell : cells.values()) {
+			if (cell.meshes != null) {
+				count += cell.meshes.meshes.size;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of grid cells with baked obstacles.
+	 *
+	 * @return the number of grid cells with baked obstacles.
+	 */
+	public int getCellCount() {
+		return cells.size;
+	}
+
+	/**
+	 * Gives back the current meshes of every cell.
+	 *
+	 * Until the obstacles are baked again, they should be drawn normally.  The
+	 * meshes stay in the ResourceManager until they are evicted.
+	 */
+	public void invalidate() {
+		for(Cell cell : cells.values()) {
+			release(cell);
+		}
+		cells.clear();
+		valid = false;
+	}
+
+	/**
+	 * Gives back the meshes of the cell containing the given obstacle.
+	 *
+	 * This method should be called when a baked obstacle is changed or removed, or
+	 * when a new obstacle that can be baked is added.  The other cells are kept.
+	 *
+	 * @param obj	The obstacle that changed
+	 */
+	public void invalidate(Obstacle obj) {
+		Placement place = baked.get(obj);
+		if (place != null) {
+			release(place.cell);
+		}
+		valid = false;
+	}
+
+	/**
+	 * Bakes the eligible obstacles of every invalid cell into meshes.
+	 *
+	 * Obstacles that cannot be baked (@see canBake) are ignored.  Cells that are
+	 * still valid are not touched.  If the ResourceManager still has the meshes of
+	 * a cell with exactly the same obstacles, those meshes are reused.  This method
+	 * must be called on the rendering thread.
+	 *
+	 * @param objects	The obstacles to bake
+	 */
+	public void bake(Iterable<Obstacle> objects) {
+		// Any new obstacle invalidates its cell (and the members of that cell)
+		for(Obstacle obj : objects) {
+			if (canBake(obj) && !baked.containsKey(obj)) {
+				Cell cell = lookup(obj);
+				if (!cell.dirty) {
+					release(cell);
+				}
+			}
+		}
+
+		valid = true;
+		for(Obstacle obj : objects) {
+			if (canBake(obj) && !baked.containsKey(obj)) {
+				Cell cell = lookup(obj);
+				if (cell.dirty) {
+					cell.pending.add((PolygonObstacle)obj);
+				} else {
+					// A member of a released cell has moved to a clean one
+					release(cell);
+					valid = false;
+				}
+			}
+		}
+
+		ResourceManager manager = ResourceManager.get();
+		Iterator<LongMap.Entry<Cell>> iterator = cells.entries().iterator();
+		while (iterator.hasNext()) {
+			LongMap.Entry<Cell> entry = iterator.next();
+			Cell cell = entry.value;
+			if (!cell.dirty) {
+				continue;
+			} else if (cell.pending.isEmpty()) {
+				iterator.remove();
+				continue;
+			}
+
+			String key = RESOURCE_PREFIX+entry.key+":"+Long.toHexString(signature(cell.pending));
+			CellMeshes meshes = null;
+			if (manager.contains(key)) {
+				try {
+					meshes = manager.acquire(key, CellMeshes.class);
+				} catch (GdxRuntimeException e) {
+					// Evicted since the check
+					meshes = null;
+				}
+			}
+			if (meshes == null) {
+				meshes = new CellMeshes();
+				for(PolygonObstacle obj : cell.pending) {
+					append(meshes,obj);
+				}
+				for(ObjectMap.Entry<Texture, FloatArray> data : vertexData) {
+					finish(meshes,data.key);
+				}
+				manager.add(key, CellMeshes.class, meshes, meshes.bytes);
+			}
+
+			for(PolygonObstacle obj : cell.pending) {
+				Placement place = new Placement();
+				place.cell = cell;
+				place.x = obj.getX();
+				place.y = obj.getY();
+				place.angle = obj.getAngle();
+				cell.members.add(obj);
+				baked.put(obj,place);
+			}
+			cell.meshes = meshes;
+			cell.key = key;
+			cell.pending.clear();
+			cell.dirty = false;
+		}
+		vertexData.clear();
+		indexData.clear();
+	}
+
+	/**
+	 * Draws the current meshes to the canvas.
+	 *
+	 * This method must be called inside of a standard drawing pass.
+	 *
+	 * @param canvas	Drawing context
+	 */
+	public void draw(GameCanvas canvas) {
+		for(Cell cell : cells.values()) {
+			if (cell.meshes != null) {
+				draw(canvas, cell.meshes);
+			}
+		}
+	}
+
+	/**
+	 * Draws the current meshes that overlap the view to the canvas.
+	 *
+	 * Cells outside of the view are skipped entirely.  This method must be called
+	 * inside of a standard drawing pass.
+	 *
+	 * @param canvas	Drawing context
+	 * @param view		The visible region (in Box2d units)
+	 */
+	public void draw(GameCanvas canvas, Rectangle view) {
+		for(Cell cell : cells.values()) {
+			if (cell.meshes != null && cell.meshes.bounds.overlaps(view)) {
+				draw(canvas, cell.meshes);
+			}
+		}
+	}
+
+	/**
+	 * Draws the given baked meshes to the canvas.
+	 *
+	 * @param canvas	Drawing context
+	 * @param meshes	The baked meshes of a cell
+	 */
+	private void draw(GameCanvas canvas, CellMeshes meshes) {
+		for(int ii = 0; ii < meshes.meshes.size; ii++) {
+			canvas.draw(meshes.meshes.get(ii), meshes.textures.get(ii));
+		}
+	}
+
+	/**
+	 * Disposes of the current meshes.
+	 */
+	public void dispose() {
+		invalidate();
+	}
+
+	/**
+	 * Returns the cell for the current position of the obstacle.
+	 *
+	 * The cell is created if it does not exist yet.
+	 *
+	 * @param obj	The obstacle to place
+	 *
+	 * @return the cell for the current position of the obstacle.
+	 */
+	private Cell lookup(Obstacle obj) {
+		int cx = MathUtils.floor(obj.getX()/cellSize);
+		int cy = MathUtils.floor(obj.getY()/cellSize);
+		long key = ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+		Cell cell = cells.get(key);
+		if (cell == null) {
+			cell = new Cell();
+			cells.put(key,cell);
+		}
+		return cell;
+	}
+
+	/**
+	 * Returns a signature of the given obstacles and their current transforms.
+	 *
+	 * The signature is a hash of everything that goes into the meshes: the polygon
+	 * vertices, texture coordinates and triangles, the transform, the drawing scale,
+	 * and the texture.  Hence two cells with the same signature have the same 
+	 * meshes, even if they were baked from different obstacle objects (such as 
+	 * after a reset).  The signature does not depend on the order of the obstacles.
+	 *
+	 * @param objects	The obstacles of a cell
+	 *
+	 * @return a signature of the given obstacles and their current transforms.
+	 */
+	private static long signature(Array<PolygonObstacle> objects) {
+		long result = objects.size;
+		for(PolygonObstacle obj : objects) {
+			PolygonRegion region = obj.region;
+			long hash = HASH_BASIS;
+			hash = hash(hash, textureId(region.getRegion().getTexture()));
+			hash = hash(hash, obj.getX());
+			hash = hash(hash, obj.getY());
+			hash = hash(hash, obj.getAngle());
+			hash = hash(hash, obj.drawScale.x);
+			hash = hash(hash, obj.drawScale.y);
+			float[] points = region.getVertices();
+			float[] coords = region.getTextureCoords();
+			for(int ii = 0; ii < points.length; ii++) {
+				hash = hash(hash, points[ii]);
+				hash = hash(hash, coords[ii]);
+			}
+			for(short index : region.getTriangles()) {
+				hash = hash(hash, (long)index);
+			}
+			// Mix the bits so that the sum does not cancel out
+			hash ^= hash >>> 33;
+			hash *= 0xff51afd7ed558ccdL;
+			hash ^= hash >>> 33;
+			result += hash;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the hash with the given value added (FNV-1a)
+	 *
+	 * @param hash	The hash so far
+	 * @param value	The value to add
+	 *
+	 * @return the hash with the given value added
+	 */
+	private static long hash(long hash, long value) {
+		return (hash ^ value)*HASH_PRIME;
+	}
+
+	/**
+	 * Returns the hash with the given value added (FNV-1a)
+	 *
+	 * @param hash	The hash so far
+	 * @param value	The value to add
+	 *
+	 * @return the hash with the given value added
+	 */
+	private static long hash(long hash, float value) {
+		return hash(hash, (long)Float.floatToIntBits(value));
+	}
+
+	/**
+	 * Returns the unique id of the given texture
+	 *
+	 * Unlike an identity hash code or an OpenGL handle, this id is never shared 
+	 * with another texture.  So meshes baked for a disposed texture are never 
+	 * mistaken for meshes of a new texture.
+	 *
+	 * @param texture	The texture to identify
+	 *
+	 * @return the unique id of the given texture
+	 */
+	private static long textureId(Texture texture) {
+		Long id = textureIds.get(texture);
+		if (id == null) {
+			id = ++nextTextureId;
+			textureIds.put(texture,id);
+		}
+		return id;
+	}
+
+	/**
+	 * Gives back the meshes of the given cell and marks it for rebuilding.
+	 *
+	 * The meshes are released to the ResourceManager, which disposes of them once 
+	 * they are evicted.  The members of the cell are no longer baked.
+	 *
+	 * @param cell	The cell to release
+	 */
+	private void release(Cell cell) {
+		if (cell.key != null) {
+			ResourceManager.get().release(cell.key);
+			cell.key = null;
+			cell.meshes = null;
+		}
+		for(Obstacle obj : cell.members) {
+			baked.remove(obj);
+		}
+		cell.members.clear();
+		cell.pending.clear();
+		cell.dirty = true;
+	}
+
+	/**
+	 * Adds the polygon of the given obstacle to the unfinished mesh for its texture.
+	 *
+	 * The vertices are transformed exactly as {@link GameCanvas} would transform them
+	 * when drawing the obstacle.  The bounds of the meshes are expanded to include them.
+	 *
+	 * @param target	The meshes being baked
+	 * @param obj		The obstacle to add
+	 */
+	private void append(CellMeshes target, PolygonObstacle obj) {
+		PolygonRegion region = obj.region;
+		Texture texture = region.getRegion().getTexture();
+		float[] points = region.getVertices();
+		float[] coords = region.getTextureCoords();
+		short[] triangles = region.getTriangles();
+
+		FloatArray vertices = vertexData.get(texture);
+		ShortArray indices  = indexData.get(texture);
+		if (vertices == null) {
+			vertices = new FloatArray();
+			indices  = new ShortArray();
+			vertexData.put(texture,vertices);
+			indexData.put(texture,indices);
+		} else if (vertices.size/VERTEX_SIZE+points.length/2 > MAX_VERTICES) {
+			finish(target,texture);
+		}
+
+		float x = obj.getX()*obj.drawScale.x;
+		float y = obj.getY()*obj.drawScale.y;
+		float cos = (float)Math.cos(obj.getAngle());
+		float sin = (float)Math.sin(obj.getAngle());
+		int offset = vertices.size/VERTEX_SIZE;
+		float[] items = vertices.ensureCapacity(points.length/2*VERTEX_SIZE);
+		int pos = vertices.size;
+		for(int ii = 0; ii < points.length; ii += 2) {
+			float px = cos*points[ii]-sin*points[ii+1]+x;
+			float py = sin*points[ii]+cos*points[ii+1]+y;
+			items[pos++] = px;
+			items[pos++] = py;
+			items[pos++] = WHITE;
+			items[pos++] = coords[ii  ];
+			items[pos++] = coords[ii+1];
+
+			px /= obj.drawScale.x;
+			py /= obj.drawScale.y;
+			if (target.bounded) {
+				target.bounds.merge(px,py);
+			} else {
+				target.bounds.set(px,py,0,0);
+				target.bounded = true;
+			}
+		}
+		vertices.size = pos;
+		for(int ii = 0; ii < triangles.length; ii++) {
+			indices.add((short)((triangles[ii] & 0xFFFF)+offset));
+		}
+	}
+
+	/**
+	 * Converts the unfinished mesh for the given texture into a real mesh.
+	 *
+	 * The unfinished mesh is emptied, so that it can be reused.
+	 *
+	 * @param target	The meshes being baked
+	 * @param texture	The texture of the mesh
+	 */
+	private void finish(CellMeshes target, Texture texture) {
+		FloatArray vertices = vertexData.get(texture);
+		ShortArray indices  = indexData.get(texture);
+		if (vertices.size == 0) {
+			return;
+		}
+
+		Mesh mesh = new Mesh(true, vertices.size/VERTEX_SIZE, indices.size,
+							 new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+							 new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+							 new VertexAttribute(VertexAttributes.Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE+"0"));
+		mesh.setVertices(vertices.items, 0, vertices.size);
+		mesh.setIndices(indices.items, 0, indices.size);
+		target.meshes.add(mesh);
+		target.textures.add(texture);
+		target.bytes += vertices.size*4L+indices.size*2L;
+		vertices.clear();
+		indices.clear();
+	}
+}
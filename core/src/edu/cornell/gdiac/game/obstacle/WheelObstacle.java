@@ -114,7 +114,11 @@ public class WheelObstacle extends SimpleObstacle {
 	 * @param canvas Drawing context
 	 */
 	 public void drawDebug(GameCanvas canvas) {
-		canvas.drawPhysics(shape,Color.YELLOW,getX(),getY(),drawScale.x,drawScale.y);
+		if (geometry != null) {
+			canvas.drawPhysics(geometry,Color.YELLOW,getRenderX(),getRenderY(),getRenderAngle(),drawScale.x,drawScale.y);
+		} else {
+			canvas.drawPhysics(shape,Color.YELLOW,getRenderX(),getRenderY(),drawScale.x,drawScale.y);
+		}
 	}
 
 }
\ No newline at end of file
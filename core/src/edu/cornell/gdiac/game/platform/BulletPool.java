@@ -0,0 +1,179 @@
+/*
+ * BulletPool.java
+ *
+ * Bullets are created and destroyed constantly when the player holds down the fire
+ * button.  Allocating a new obstacle (and a new Box2d body) for every shot churns
+ * both the Java heap and the native Box2d allocator.  This class recycles bullets
+ * instead.  A freed bullet keeps its body, but the body is made inactive so that
+ * it is removed from the broadphase until the bullet is fired again.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game.platform;
+
+import com.badlogic.gdx.math.*;
+import com.badlogic.gdx.utils.*;
+import com.badlogic.gdx.graphics.g2d.*;
+import com.badlogic.gdx.physics.box2d.*;
+
+import edu.cornell.gdiac.game.obstacle.*;
+
+/**
+ * Memory pool for the bullets in the platform game.
+ *
+ * The bullet parameters are read from the JSON once, when the pool is created.
+ * Bullets obtained from this pool may or may not have an (inactive) physics body.
+ * In either case, they should be added to the world with addQueuedObject, which
+ * will only create a body if necessary.
+ */
+public class BulletPool extends Pool<WheelObstacle> {
+	/** The distance in front of the avatar to spawn a bullet */
+	private final float offset;
+	/** The speed of a newly fired bullet */
+	private final float speed;
+	/** The density of a bullet */
+	private final float density;
+	/** The radius of a bullet in physics units */
+	private final float radius;
+	/** The texture for a bullet */
+	private final TextureRegion texture;
+	/** The drawing scale for a bullet */
+	private final Vector2 scale;
+	/** The collision category for a bullet */
+	private final int category;
+
+	/** The number of requests satisfied by a recycled bullet */
+	private int hits;
+	/** The number of requests that required a new bullet */
+	private int misses;
+
+	/**
+	 * Creates a new pool of bullets with the given physics data.
+	 *
+	 * The texture width determines the bullet radius, so the scale must be set
+	 * before this pool is created.
+	 *
+	 * @param data		The physics constants for a bullet
+	 * @param texture	The bullet texture
+	 * @param scale		The drawing scale
+	 * @param category	The collision category for a bullet
+	 */
+	public BulletPool(JsonValue data, TextureRegion texture, Vector2 scale, int category) {
+		super();
+		offset  = data.getFloat("offset", 0);
+		speed   = data.getFloat("speed", 0);
+		density = data.getFloat("density", 0);
+		radius  = texture.getRegionWidth()/(2.0f*scale.x);
+		this.texture = texture;
+		this.scale = new Vector2(scale);
+		this.category = category;
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Returns the distance in front of the avatar to spawn a bullet
+	 *
+	 * @return the distance in front of the avatar to spawn a bullet
+	 */
+	public float getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the speed of a newly fired bullet
+	 *
+	 * @return the speed of a newly fired bullet
+	 */
+	public float getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Returns the collision category for a bullet
+	 *
+	 * @return the collision category for a bullet
+	 */
+	public int getCategory() {
+		return category;
+	}
+
+	/**
+	 * Returns the number of requests satisfied by a recycled bullet
+	 *
+	 * @return the number of requests satisfied by a recycled bullet
+	 */
+	public int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of requests that required a new bullet
+	 *
+	 * @return the number of requests that required a new bullet
+	 */
+	public int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns a bullet from this pool, allocating one if necessary.
+	 *
+	 * The bullet has the proper name, category, density, texture and scale.  
+	 * However, the position and velocity are left over from its previous use.
+	 *
+	 * @return a bullet from this pool
+	 */
+	public WheelObstacle obtain() {
+		if (getFree() > 0) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return super.obtain();
+	}
+
+	/**
+	 * Destroys the physics bodies of all free bullets, emptying the pool.
+	 *
+	 * This must be called before the world is disposed.  Bullets still in the
+	 * world are not affected.
+	 *
+	 * @param world Box2D world that stores the bullets
+	 */
+	public void deactivatePhysics(World world) {
+		while (getFree() > 0) {
+			super.obtain().deactivatePhysics(world);
+		}
+	}
+
+	/**
+	 * Returns a newly allocated bullet.
+	 *
+	 * @return a newly allocated bullet.
+	 */
+	protected WheelObstacle newObject() {
+		WheelObstacle bullet = new WheelObstacle(radius);
+		bullet.setName("bullet");
+		bullet.setCategory(category);
+		bullet.setDensity(density);
+		bullet.setDrawScale(scale);
+		bullet.setTexture(texture);
+		bullet.setBullet(true);
+		bullet.setGravityScale(0);
+		return bullet;
+	}
+
+	/**
+	 * Prepares a freed bullet for reuse.
+	 *
+	 * The bullet keeps its body, but the body is removed from the simulation.
+	 *
+	 * @param bullet	The bullet to reset
+	 */
+	protected void reset(WheelObstacle bullet) {
+		bullet.setActive(false);
+		bullet.markRemoved(false);
+	}
+}
@@ -34,8 +34,6 @@ public class DudeModel extends CapsuleObstacle {
 	private final float damping;
 	/** The maximum character speed */
 	private final float maxspeed;
-	/** Identifier to allow us to track the sensor in ContactListener */
-	private final String sensorName;
 	/** The impulse for the character jump */
 	private final float dash_force;
 	private final float jump_force;
@@ -63,6 +61,8 @@ public class DudeModel extends CapsuleObstacle {
 	private boolean isShooting;
 	/** The physics shape of this object */
 	private PolygonShape sensorShape;
+	/** Collision category to allow us to track the sensor in ContactListener */
+	private int sensorCategory;
 
 	/** Cache for internal force calculations */
 	private final Vector2 forceCache = new Vector2();
@@ -190,14 +190,26 @@ public class DudeModel extends CapsuleObstacle {
 	}
 
 	/**
-	 * Returns the name of the ground sensor
+	 * Returns the collision category of the ground sensor
 	 *
 	 * This is used by ContactListener
 	 *
-	 * @return the name of the ground sensor
+	 * @return the collision category of the ground sensor
 	 */
-	public String getSensorName() {
-		return sensorName;
+	public int getSensorCategory() {
+		return sensorCategory;
+	}
+
+	/**
+	 * Sets the collision category of the ground sensor
+	 *
+	 * This is used by ContactListener.  It must be set before the physics is
+	 * activated.
+	 *
+	 * @param value the collision category of the ground sensor
+	 */
+	public void setSensorCategory(int value) {
+		sensorCategory = value;
 	}
 
 	/**
@@ -237,7 +249,7 @@ public class DudeModel extends CapsuleObstacle {
 		dash_force = data.getFloat( "dash_force", 0 );;
 		jumpLimit = data.getInt( "jump_cool", 0 );
 		shotLimit = data.getInt( "shot_cool", 0 );
-		sensorName = "DudeGroundSensor";
+		sensorCategory = DEFAULT_CATEGORY;
 		this.data = data;
 
 		// Gameplay attributes
@@ -288,12 +300,31 @@ public class DudeModel extends CapsuleObstacle {
 
 		// Ground sensor to represent our feet
 		Fixture sensorFixture = body.createFixture( sensorDef );
-		sensorFixture.setUserData(getSensorName());
+		sensorFixture.setUserData(new FixtureTag(this, getSensorCategory()));
 
 		return true;
 	}
 
 
+	/**
+	 * Resets the gameplay attributes of this dude to their initial values
+	 *
+	 * This method is used when the level is reset in place.  It does not affect
+	 * whether the dude is grounded, as that is determined by the ground sensor
+	 * contacts, which survive the reset.
+	 */
+	public void resetState() {
+		movement = 0;
+		isDashing = false;
+		isShooting = false;
+		isJumping = false;
+		faceRight = true;
+		canDash = true;
+
+		shootCooldown = 0;
+		jumpCooldown = 0;
+	}
+
 	/**
 	 * Applies the force to the body of this dude
 	 *
@@ -367,7 +398,7 @@ public class DudeModel extends CapsuleObstacle {
 	 */
 	public void draw(GameCanvas canvas) {
 		float effect = faceRight ? 1.0f : -1.0f;
-		canvas.draw(texture,Color.WHITE,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.y,getAngle(),effect,1.0f);
+		canvas.draw(texture,Color.WHITE,origin.x,origin.y,getRenderX()*drawScale.x,getRenderY()*drawScale.y,getRenderAngle(),effect,1.0f);
 	}
 
 	/**
@@ -379,6 +410,6 @@ public class DudeModel extends CapsuleObstacle {
 	 */
 	public void drawDebug(GameCanvas canvas) {
 		super.drawDebug(canvas);
-		canvas.drawPhysics(sensorShape,Color.RED,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
+		canvas.drawPhysics(sensorShape,Color.RED,getRenderX(),getRenderY(),getRenderAngle(),drawScale.x,drawScale.y);
 	}
 }
\ No newline at end of file
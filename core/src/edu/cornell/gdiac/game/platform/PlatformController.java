@@ -19,6 +19,7 @@ import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.physics.box2d.*;
 
 import edu.cornell.gdiac.assets.AssetDirectory;
+import edu.cornell.gdiac.assets.ResourceManager;
 import edu.cornell.gdiac.util.*;
 import edu.cornell.gdiac.game.*;
 import edu.cornell.gdiac.game.obstacle.*;
@@ -32,7 +33,22 @@ import edu.cornell.gdiac.game.obstacle.*;
  * This is the purpose of our AssetState variable; it ensures that multiple instances
  * place nicely with the static assets.
  */
-public class PlatformController extends WorldController implements ContactListener {
+public class PlatformController extends WorldController {
+	/** Collision category for bullets (scenery uses the default category) */
+	public static final int BULLET_CATEGORY = 1;
+	/** Collision category for the avatar body */
+	public static final int AVATAR_CATEGORY = 2;
+	/** Collision category for the avatar ground sensor */
+	public static final int SENSOR_CATEGORY = 3;
+	/** Collision category for the goal door */
+	public static final int GOAL_CATEGORY = 4;
+	/** Draw layer for the avatar, so that it is in front of the scenery */
+	public static final int AVATAR_LAYER = 1;
+	/** The number of collision categories in this game */
+	private static final int NUM_CATEGORIES = 5;
+	/** The width of the level, which is wider than the view so that it streams */
+	private static final float LEVEL_WIDTH = 64.0f;
+
 	/** Texture asset for character avatar */
 	private TextureRegion avatarTexture;
 	/** Texture asset for the spinning barrier */
@@ -61,9 +77,69 @@ public class PlatformController extends WorldController implements ContactListen
 	private DudeModel avatar;
 	/** Reference to the goalDoor (for collision detection) */
 	private BoxObstacle goalDoor;
+	/** Recycled bullets (allocated on first reset) */
+	private BulletPool bullets;
+	/** Streams the walls and platforms in by chunk (allocated on first reset) */
+	private LevelStreamer streamer;
+	/** The region around the avatar that must have its chunks loaded */
+	private Rectangle focus = new Rectangle();
 
 	/** Mark set to handle more sophisticated collision callbacks */
 	protected ObjectSet<Fixture> sensorFixtures;
+	/** Routes contacts to the handlers below by collision category */
+	private ContactDispatcher dispatcher;
+
+	/** Removes a bullet when it hits anything other than the avatar */
+	private ContactDispatcher.Handler bulletHit = new ContactDispatcher.Handler() {
+		public void handle(Contact contact, Fixture bullet, Fixture other) {
+			removeBullet(ContactDispatcher.getObstacle(bullet));
+		}
+	};
+	/** Removes both bullets when two bullets collide */
+	private ContactDispatcher.Handler bulletPair = new ContactDispatcher.Handler() {
+		public void handle(Contact contact, Fixture bullet1, Fixture bullet2) {
+			removeBullet(ContactDispatcher.getObstacle(bullet1));
+			removeBullet(ContactDispatcher.getObstacle(bullet2));
+		}
+	};
+	/** Marks the avatar as grounded when the sensor touches something */
+	private ContactDispatcher.Handler groundBegin = new ContactDispatcher.Handler() {
+		public void handle(Contact contact, Fixture sensor, Fixture ground) {
+			avatar.setGrounded(true);
+			sensorFixtures.add(ground); // Could have more than one ground
+		}
+	};
+	/** Marks the avatar as not grounded when the sensor touches nothing */
+	private ContactDispatcher.Handler groundEnd = new ContactDispatcher.Handler() {
+		public void handle(Contact contact, Fixture sensor, Fixture ground) {
+			sensorFixtures.remove(ground);
+			if (sensorFixtures.size == 0) {
+				avatar.setGrounded(false);
+			}
+		}
+	};
+	/** Completes the level when the avatar reaches the goal */
+	private ContactDispatcher.Handler goalReached = new ContactDispatcher.Handler() {
+		public void handle(Contact contact, Fixture player, Fixture goal) {
+			setComplete(true);
+		}
+	};
+	/** The sensor touching the goal both grounds the avatar and completes the level */
+	private ContactDispatcher.Handler sensorGoal = new ContactDispatcher.Handler() {
+		public void handle(Contact contact, Fixture sensor, Fixture goal) {
+			groundBegin.handle(contact, sensor, goal);
+			goalReached.handle(contact, sensor, goal);
+		}
+	};
+
+	/** Creates the walls and platforms of a level chunk */
+	private LevelStreamer.ChunkBuilder chunkBuilder = new LevelStreamer.ChunkBuilder() {
+		public void build(JsonValue data, Array<Obstacle> result) {
+			JsonValue defaults = constants.get("defaults");
+			buildPolygons(data.get("walls"), "wall", defaults, result);
+			buildPolygons(data.get("platforms"), "platform", defaults, result);
+		}
+	};
 
 	/**
 	 * Creates and initialize a new instance of the platformer game
@@ -71,12 +147,24 @@ public class PlatformController extends WorldController implements ContactListen
 	 * The game has default gravity and other settings
 	 */
 	public PlatformController() {
-		super(DEFAULT_WIDTH,DEFAULT_HEIGHT,DEFAULT_GRAVITY);
+		super(LEVEL_WIDTH,DEFAULT_HEIGHT,DEFAULT_GRAVITY);
 		setDebug(false);
 		setComplete(false);
 		setFailure(false);
-		world.setContactListener(this);
 		sensorFixtures = new ObjectSet<Fixture>();
+
+		dispatcher = new ContactDispatcher(NUM_CATEGORIES);
+		dispatcher.onBegin(BULLET_CATEGORY, Obstacle.DEFAULT_CATEGORY, bulletHit);
+		dispatcher.onBegin(BULLET_CATEGORY, GOAL_CATEGORY, bulletHit);
+		dispatcher.onBegin(BULLET_CATEGORY, BULLET_CATEGORY, bulletPair);
+		dispatcher.onBegin(SENSOR_CATEGORY, Obstacle.DEFAULT_CATEGORY, groundBegin);
+		dispatcher.onBegin(SENSOR_CATEGORY, BULLET_CATEGORY, groundBegin);
+		dispatcher.onBegin(SENSOR_CATEGORY, GOAL_CATEGORY, sensorGoal);
+		dispatcher.onBegin(AVATAR_CATEGORY, GOAL_CATEGORY, goalReached);
+		dispatcher.onEnd(SENSOR_CATEGORY, Obstacle.DEFAULT_CATEGORY, groundEnd);
+		dispatcher.onEnd(SENSOR_CATEGORY, BULLET_CATEGORY, groundEnd);
+		dispatcher.onEnd(SENSOR_CATEGORY, GOAL_CATEGORY, groundEnd);
+		world.setContactListener(dispatcher);
 	}
 
 	/**
@@ -88,10 +176,10 @@ public class PlatformController extends WorldController implements ContactListen
 	 * @param directory	Reference to global asset manager.
 	 */
 	public void gatherAssets(AssetDirectory directory) {
-		avatarTexture  = new TextureRegion(directory.getEntry("platform:dude",Texture.class));
-		barrierTexture = new TextureRegion(directory.getEntry("platform:barrier",Texture.class));
-		bulletTexture = new TextureRegion(directory.getEntry("platform:bullet",Texture.class));
-		bridgeTexture = new TextureRegion(directory.getEntry("platform:rope",Texture.class));
+		avatarTexture  = directory.getEntry("platform:dude",TextureRegion.class);
+		barrierTexture = directory.getEntry("platform:barrier",TextureRegion.class);
+		bulletTexture = directory.getEntry("platform:bullet",TextureRegion.class);
+		bridgeTexture = directory.getEntry("platform:rope",TextureRegion.class);
 
 		jumpSound = directory.getEntry( "platform:jump", Sound.class );
 		fireSound = directory.getEntry( "platform:pew", Sound.class );
@@ -104,23 +192,43 @@ public class PlatformController extends WorldController implements ContactListen
 	/**
 	 * Resets the status of the game so that we can play again.
 	 *
-	 * This method disposes of the world and creates a new one.
+	 * If fast reset is enabled, this method restores the snapshot taken when the
+	 * level was built, and only the bullets are released.  Otherwise, it disposes 
+	 * of the world and creates a new one.
 	 */
 	public void reset() {
+		setComplete(false);
+		setFailure(false);
+		if (restoreSnapshot()) {
+			avatar.resetState();
+			camera.snap();
+			streamer.update(computeFocus());
+			return;
+		}
+
 		Vector2 gravity = new Vector2(world.getGravity() );
 
 		for(Obstacle obj : objects) {
 			obj.deactivatePhysics(world);
 		}
+		if (bullets != null) {
+			bullets.deactivatePhysics(world);
+		}
 		objects.clear();
 		addQueue.clear();
+		staticGeometry.invalidate();
+		if (streamer != null) {
+			streamer.reset();
+		}
 		world.dispose();
 
+		// Free the cached meshes of the old level
+		ResourceManager.get().evict();
+
 		world = new World(gravity,false);
-		world.setContactListener(this);
-		setComplete(false);
-		setFailure(false);
+		world.setContactListener(dispatcher);
 		populateLevel();
+		captureSnapshot();
 	}
 
 	/**
@@ -142,40 +250,16 @@ public class PlatformController extends WorldController implements ContactListen
 		goalDoor.setDrawScale(scale);
 		goalDoor.setTexture(goalTile);
 		goalDoor.setName("goal");
+		goalDoor.setCategory(GOAL_CATEGORY);
 		addObject(goalDoor);
 
-		String wname = "wall";
-		JsonValue walljv = constants.get("walls");
-		JsonValue defaults = constants.get("defaults");
-		for (int ii = 0; ii < walljv.size; ii++) {
-			PolygonObstacle obj;
-			obj = new PolygonObstacle(walljv.get(ii).asFloatArray(), 0, 0);
-			obj.setBodyType(BodyDef.BodyType.StaticBody);
-			obj.setDensity(defaults.getFloat( "density", 0.0f ));
-			obj.setFriction(defaults.getFloat( "friction", 0.0f ));
-			obj.setRestitution(defaults.getFloat( "restitution", 0.0f ));
-			obj.setDrawScale(scale);
-			obj.setTexture(earthTile);
-			obj.setName(wname+ii);
-			addObject(obj);
-		}
-
-		String pname = "platform";
-		JsonValue platjv = constants.get("platforms");
-		for (int ii = 0; ii < platjv.size; ii++) {
-			PolygonObstacle obj;
-			obj = new PolygonObstacle(platjv.get(ii).asFloatArray(), 0, 0);
-			obj.setBodyType(BodyDef.BodyType.StaticBody);
-			obj.setDensity(defaults.getFloat( "density", 0.0f ));
-			obj.setFriction(defaults.getFloat( "friction", 0.0f ));
-			obj.setRestitution(defaults.getFloat( "restitution", 0.0f ));
-			obj.setDrawScale(scale);
-			obj.setTexture(earthTile);
-			obj.setName(pname+ii);
-			addObject(obj);
+		// Walls and platforms are streamed in by chunk
+		if (streamer == null) {
+			streamer = new LevelStreamer(this, constants.get("chunks"), chunkBuilder);
 		}
 
 		// This world is heavier
+		JsonValue defaults = constants.get("defaults");
 		world.setGravity( new Vector2(0,defaults.getFloat("gravity",0)) );
 
 		// Create dude
@@ -184,7 +268,13 @@ public class PlatformController extends WorldController implements ContactListen
 		avatar = new DudeModel(constants.get("dude"), dwidth, dheight);
 		avatar.setDrawScale(scale);
 		avatar.setTexture(avatarTexture);
+		avatar.setCategory(AVATAR_CATEGORY);
+		avatar.setSensorCategory(SENSOR_CATEGORY);
+		avatar.setDrawLayer(AVATAR_LAYER);
 		addObject(avatar);
+		camera.setTarget(avatar);
+		camera.snap();
+		streamer.update(computeFocus());
 
 		// Create rope bridge
 		dwidth  = bridgeTexture.getRegionWidth()/scale.x;
@@ -202,9 +292,55 @@ public class PlatformController extends WorldController implements ContactListen
 		spinPlatform.setTexture(barrierTexture);
 		addObject(spinPlatform);
 
+		if (bullets == null) {
+			bullets = new BulletPool(constants.get("bullet"), bulletTexture, scale, BULLET_CATEGORY);
+		}
 		volume = constants.getFloat("volume", 1.0f);
 	}
 
+	/**
+	 * Creates static polygon obstacles for the given list of outlines.
+	 *
+	 * The obstacles are stored in result, but they are not added to the world.
+	 *
+	 * @param json		The polygon outlines (may be null)
+	 * @param name		The name prefix for the obstacles
+	 * @param defaults	The default physics constants
+	 * @param result	The array to store the new obstacles
+	 */
+	private void buildPolygons(JsonValue json, String name, JsonValue defaults, Array<Obstacle> result) {
+		if (json == null) {
+			return;
+		}
+		for (int ii = 0; ii < json.size; ii++) {
+			PolygonObstacle obj;
+			obj = new PolygonObstacle(json.get(ii).asFloatArray(), 0, 0);
+			obj.setBodyType(BodyDef.BodyType.StaticBody);
+			obj.setDensity(defaults.getFloat( "density", 0.0f ));
+			obj.setFriction(defaults.getFloat( "friction", 0.0f ));
+			obj.setRestitution(defaults.getFloat( "restitution", 0.0f ));
+			obj.setDrawScale(scale);
+			obj.setTexture(earthTile);
+			obj.setName(name+ii);
+			result.add(obj);
+		}
+	}
+
+	/**
+	 * Returns the region around the avatar that must have its chunks loaded.
+	 *
+	 * This region is the size of the camera view, centered on the avatar.  It does 
+	 * not use the camera itself, as the camera moves with the animation frames and 
+	 * not the simulation frames.  That would make the chunks (and hence a replay) 
+	 * depend on the frame rate.
+	 *
+	 * @return the region around the avatar that must have its chunks loaded.
+	 */
+	private Rectangle computeFocus() {
+		focus.setSize(camera.getViewportWidth(), camera.getViewportHeight());
+		return focus.setCenter(avatar.getX(), avatar.getY());
+	}
+
 	/**
 	 * Returns whether to process the update loop
 	 *
@@ -240,6 +376,9 @@ public class PlatformController extends WorldController implements ContactListen
 	 * @param dt	Number of seconds since last animation frame
 	 */
 	public void update(float dt) {
+		// Bring the level geometry near the avatar into the world
+		streamer.update(computeFocus());
+
 		// Process actions in object model
 		avatar.setMovement(InputController.getInstance().getHorizontal() *avatar.getForce());
 		avatar.setJumping(InputController.getInstance().didPrimary());
@@ -262,25 +401,22 @@ public class PlatformController extends WorldController implements ContactListen
 	}
 	/**
 	 * Add a new bullet to the world and send it in the right direction.
+	 *
+	 * Bullets are recycled from the bullet pool whenever possible.
 	 */
 	private void createBullet() {
-		JsonValue bulletjv = constants.get("bullet");
-		float offset = bulletjv.getFloat("offset",0);
+		float offset = bullets.getOffset();
 		offset *= (avatar.isFacingRight() ? 1 : -1);
-		float radius = bulletTexture.getRegionWidth()/(2.0f*scale.x);
-		WheelObstacle bullet = new WheelObstacle(avatar.getX()+offset, avatar.getY(), radius);
-
-		bullet.setName("bullet");
-		bullet.setDensity(bulletjv.getFloat("density", 0));
-		bullet.setDrawScale(scale);
-		bullet.setTexture(bulletTexture);
-		bullet.setBullet(true);
-		bullet.setGravityScale(0);
+		WheelObstacle bullet = bullets.obtain();
 
 		// Compute position and velocity
-		float speed = bulletjv.getFloat( "speed", 0 );
+		float speed = bullets.getSpeed();
 		speed  *= (avatar.isFacingRight() ? 1 : -1);
+		bullet.setPosition(avatar.getX()+offset, avatar.getY());
+		bullet.setAngle(0);
+		bullet.setAngularVelocity(0);
 		bullet.setVX(speed);
+		bullet.setVY(0);
 		addQueuedObject(bullet);
 
 		fireId = playSound( fireSound, fireId );
@@ -296,91 +432,34 @@ public class PlatformController extends WorldController implements ContactListen
 		plopId = playSound( plopSound, plopId );
 	}
 
-
 	/**
-	 * Callback method for the start of a collision
+	 * Releases an object that has been removed from the world.
 	 *
-	 * This method is called when we first get a collision between two objects.  We use
-	 * this method to test if it is the "right" kind of collision.  In particular, we
-	 * use it to test if we made it to the win door.
+	 * Bullets are returned to the bullet pool with their bodies intact.  All other
+	 * objects are destroyed as normal.
 	 *
-	 * @param contact The two bodies that collided
+	 * @param obj The object to release
 	 */
-	public void beginContact(Contact contact) {
-		Fixture fix1 = contact.getFixtureA();
-		Fixture fix2 = contact.getFixtureB();
-
-		Body body1 = fix1.getBody();
-		Body body2 = fix2.getBody();
-
-		Object fd1 = fix1.getUserData();
-		Object fd2 = fix2.getUserData();
-
-		try {
-			Obstacle bd1 = (Obstacle)body1.getUserData();
-			Obstacle bd2 = (Obstacle)body2.getUserData();
-
-			// Test bullet collision with world
-			if (bd1.getName().equals("bullet") && bd2 != avatar) {
-				removeBullet(bd1);
-			}
-
-			if (bd2.getName().equals("bullet") && bd1 != avatar) {
-				removeBullet(bd2);
-			}
-
-			// See if we have landed on the ground.
-			if ((avatar.getSensorName().equals(fd2) && avatar != bd1) ||
-					(avatar.getSensorName().equals(fd1) && avatar != bd2)) {
-				avatar.setGrounded(true);
-				sensorFixtures.add(avatar == bd1 ? fix2 : fix1); // Could have more than one ground
-			}
-
-			// Check for win condition
-			if ((bd1 == avatar   && bd2 == goalDoor) ||
-					(bd1 == goalDoor && bd2 == avatar)) {
-				setComplete(true);
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
+	protected void releaseObject(Obstacle obj) {
+		if (obj.getCategory() == BULLET_CATEGORY) {
+			bullets.free((WheelObstacle)obj);
+		} else {
+			super.releaseObject(obj);
 		}
-
 	}
 
+
 	/**
-	 * Callback method for the start of a collision
-	 *
-	 * This method is called when two objects cease to touch.  The main use of this method
-	 * is to determine when the characer is NOT on the ground.  This is how we prevent
-	 * double jumping.
+	 * Dispose of all (non-static) resources allocated to this mode.
 	 */
-	public void endContact(Contact contact) {
-		Fixture fix1 = contact.getFixtureA();
-		Fixture fix2 = contact.getFixtureB();
-
-		Body body1 = fix1.getBody();
-		Body body2 = fix2.getBody();
-
-		Object fd1 = fix1.getUserData();
-		Object fd2 = fix2.getUserData();
-
-		Object bd1 = body1.getUserData();
-		Object bd2 = body2.getUserData();
-
-		if ((avatar.getSensorName().equals(fd2) && avatar != bd1) ||
-				(avatar.getSensorName().equals(fd1) && avatar != bd2)) {
-			sensorFixtures.remove(avatar == bd1 ? fix2 : fix1);
-			if (sensorFixtures.size == 0) {
-				avatar.setGrounded(false);
-			}
+	public void dispose() {
+		if (streamer != null) {
+			streamer.dispose();
+			streamer = null;
 		}
+		super.dispose();
 	}
 
-	/** Unused ContactListener method */
-	public void postSolve(Contact contact, ContactImpulse impulse) {}
-	/** Unused ContactListener method */
-	public void preSolve(Contact contact, Manifold oldManifold) {}
-
 	/**
 	 * Called when the Screen is paused.
 	 *
@@ -17,7 +17,8 @@
 
 package edu.cornell.gdiac.math;
 
-import java.util.ArrayList;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.ShortArray;
 
 /**
  * A factory class for extruding paths into a solid polygon.
@@ -84,57 +85,49 @@ public class PathExtruder {
     /** Whether or not the calculation has been run */
     private boolean calculated;
 
-    /** The set of points in the path to extrude */
-    private Point points;
     /** The number of elements currently in the point buffer */
     private int pSize;
 
+    // The annotated points in the path, stored as parallel arrays.  These arrays
+    // are only reallocated when a longer path is set, so that a reused extruder
+    // does not generate garbage.
+    /** The x-coordinates of the points in the path */
+    private float[] px;
+    /** The y-coordinates of the points in the path */
+    private float[] py;
+    /** The (normalized) x-direction from each point to the next point in the path */
+    private float[] pdx;
+    /** The (normalized) y-direction from each point to the next point in the path */
+    private float[] pdy;
+    /** The distance from each point to the next point in the path */
+    private float[] plen;
+    /** The x-coordinate of the vector average (incoming, outgoing) at each point */
+    private float[] pdmx;
+    /** The y-coordinate of the vector average (incoming, outgoing) at each point */
+    private float[] pdmy;
+    /** The flag annotations (corner, left-turning) of each point */
+    private int[] pflags;
+
     /** The set of vertices in the active extrusion */
-    private ArrayList<Float> verts;
+    private final FloatArray verts;
     /** The edge markings of each of the extruded vertices */
-    private ArrayList<Float> sides;
+    private final FloatArray sides;
     /** The left side of the extrusion */
-    private ArrayList<Float>  lefts;
+    private final FloatArray lefts;
     /** The right side of the extrusion */
-    private ArrayList<Float> rghts;
+    private final FloatArray rghts;
     /** The number of elements currently in the vertex buffer */
     private int vSize;
 
     /** The set of indices indicating the vertex triangulation */
-    private ArrayList<Short> indxs;
+    private final ShortArray indxs;
     /** The first vertex for the next triangle to produce */
     private int iback2;
     /** The seconnd vertex for the next triangle to produce */
     private int iback1;
 
-    /**
-     * An annotated point in the path
-     *
-     * This struct class keeps track of information about the direction to
-     * and from this point. It substantially cuts down on repeated calculation
-     * in our extrusion algorithm.
-     */
-    private class Point {
-        /** The point x-coordinate */
-        float x;
-        /** The point y-coordinate */
-        float y;
-        /** The (normalized) x-direction to the next point in the path */
-        float dx;
-        /** The (normalized) y-direction to the next point in the path */
-        float dy;
-        /** The distance to the next point in the path */
-        float len;
-        /** The x-coordinate of the vector average (incoming, outgoing) at this point */
-        float dmx;
-        /** The y-coordinate of the vector average (incoming, outgoing) at this point */
-        float dmy;
-        /** The flag annations (corner, left-turning) of this point */
-        int flags;
-
-        Point next;
-        Point prev;
-    }
+    /** Scratch buffer for the bevel vertices computed at a joint */
+    private final float[] bevel = new float[4];
 
     /**
      * Creates an extruder with no path data.
@@ -147,12 +140,14 @@ public class PathExtruder {
         calculated = false;
         closed = false;
         convex = true;
-        points = null;
-        verts = null;
-        sides = null;
-        indxs = null;
+        verts = new FloatArray();
+        sides = new FloatArray();
+        lefts = new FloatArray();
+        rghts = new FloatArray();
+        indxs = new ShortArray();
         pSize = 0;
         vSize = 0;
+        allocPoints(0);
     }
 
     /**
@@ -171,12 +166,14 @@ public class PathExtruder {
         mitreLimit = MITER_LIMIT;
         calculated = false;
         convex = true;
-        this.points = null;
-        verts = null;
-        sides = null;
-        indxs = null;
+        verts = new FloatArray();
+        sides = new FloatArray();
+        lefts = new FloatArray();
+        rghts = new FloatArray();
+        indxs = new ShortArray();
         pSize = 0;
         vSize = 0;
+        allocPoints(0);
         set(points, closed);
     }
 
@@ -196,12 +193,14 @@ public class PathExtruder {
         calculated = false;
         closed = false;
         convex = true;
-        points = null;
-        verts = null;
-        sides = null;
-        indxs = null;
+        verts = new FloatArray();
+        sides = new FloatArray();
+        lefts = new FloatArray();
+        rghts = new FloatArray();
+        indxs = new ShortArray();
         pSize = 0;
         vSize = 0;
+        allocPoints(0);
         set(path);
     }
 
@@ -223,42 +222,12 @@ public class PathExtruder {
         clear();
         this.closed = closed;
         pSize = points.length/2;
+        allocPoints(pSize);
 
-        Point prevHead = new Point();
-        this.points = prevHead;
-        for (int i=0; i<points.length-2; i+=2){
-            Point p = new Point();
-            p.x = points[i];
-            p.y = points[i+1];
-            p.flags = FLAG_CORNER;
-            p.dx = points[i+2] - p.x;
-            p.dy = points[i+3] - p.y;
-            p.len = (float) Math.sqrt(p.dx*p.dx + p.dy*p.dy);
-            if (p.len > 1e-6){
-                p.dx /= p.len;
-                p.dy /= p.len;
-            }
-            p.prev = this.points;
-            this.points.next = p;
-            this.points = this.points.next;
+        for (int i=0; i<pSize; i++){
+            pflags[i] = FLAG_CORNER;
+            annotate(i, points);
         }
-        Point p = new Point();
-        p.x = points[points.length-2];
-        p.y = points[points.length-1];
-        p.flags = FLAG_CORNER;
-        p.dx = points[0] - p.x;
-        p.dy = points[1] - p.y;
-        p.len = (float) Math.sqrt(p.dx*p.dx + p.dy*p.dy);
-        if (p.len > 1e-6){
-            p.dx /= p.len;
-            p.dy /= p.len;
-        }
-
-        p.prev = this.points;
-        p.next = prevHead.next;
-        this.points.next = p;
-        this.points = prevHead.next;
-        this.points.prev = p;
     }
 
     /**
@@ -270,48 +239,76 @@ public class PathExtruder {
      * This method resets all interal data. You will need to reperform the
      * calculation before accessing data.
      *
+     * The corners of the path are looked up by vertex index, as documented in
+     * {@link Path2#isCorner}.
+     *
      * @param path        The path to extrude
      */
     public void set(Path2 path) {
         clear();
         this.closed = path.closed;
         pSize = path.vertices.length/2;
+        allocPoints(pSize);
 
-        Point prevHead = new Point();
-        this.points = prevHead;
-        for (int i=0; i<path.vertices.length-2; i+=2){
-            Point p = new Point();
-            p.x = path.vertices[i];
-            p.y = path.vertices[i+1];
-            p.flags = path.isCorner(i) ? FLAG_CORNER : 0;
-            p.dx = path.vertices[i+2] - p.x;
-            p.dy = path.vertices[i+3] - p.y;
-            p.len = (float) Math.sqrt(p.dx*p.dx + p.dy*p.dy);
-            if (p.len > 1e-6){
-                p.dx /= p.len;
-                p.dy /= p.len;
-            }
-            p.prev = this.points;
-            this.points.next = p;
-            this.points = this.points.next;
+        for (int i=0; i<pSize; i++){
+            pflags[i] = path.isCorner(i) ? FLAG_CORNER : 0;
+            annotate(i, path.vertices);
         }
-        Point p = new Point();
-        p.x = path.vertices[path.vertices.length-2];
-        p.y = path.vertices[path.vertices.length-1];
-        p.flags = path.isCorner(pSize-1) ? FLAG_CORNER : 0;
-        p.dx = path.vertices[0] - p.x;
-        p.dy = path.vertices[1] - p.y;
-        p.len = (float) Math.sqrt(p.dx*p.dx + p.dy*p.dy);
-        if (p.len > 1e-6){
-            p.dx /= p.len;
-            p.dy /= p.len;
+    }
+
+    /**
+     * Ensures that the point buffers can hold the given number of points
+     *
+     * The buffers are only reallocated if they are too small. Existing data
+     * is not preserved.
+     *
+     * @param size  The number of points in the path
+     */
+    private void allocPoints(int size) {
+        if (px != null && px.length >= size) {
+            return;
+        }
+        px = new float[size];
+        py = new float[size];
+        pdx = new float[size];
+        pdy = new float[size];
+        plen = new float[size];
+        pdmx = new float[size];
+        pdmy = new float[size];
+        pflags = new int[size];
+    }
+
+    /**
+     * Initializes the position and direction of the point at the given index
+     *
+     * The direction is to the next point in the path, wrapping around at the
+     * end.  The point flags are not affected.
+     *
+     * @param i         The point index
+     * @param points    The path vertices (as floats in pairs)
+     */
+    private void annotate(int i, float[] points) {
+        int j = next(i);
+        px[i] = points[2*i];
+        py[i] = points[2*i+1];
+        pdx[i] = points[2*j] - px[i];
+        pdy[i] = points[2*j+1] - py[i];
+        plen[i] = (float) Math.sqrt(pdx[i]*pdx[i] + pdy[i]*pdy[i]);
+        if (plen[i] > 1e-6){
+            pdx[i] /= plen[i];
+            pdy[i] /= plen[i];
         }
+    }
 
-        p.prev = this.points;
-        p.next = prevHead.next;
-        this.points.next = p;
-        this.points = prevHead.next;
-        this.points.prev = p;
+    /**
+     * Returns the index of the point after the given one in the path
+     *
+     * @param i The point index
+     *
+     * @return the index of the point after the given one in the path
+     */
+    private int next(int i) {
+        return i+1 == pSize ? 0 : i+1;
     }
 
     /**
@@ -324,6 +321,11 @@ public class PathExtruder {
         vSize = 0;
         iback1 = 0;
         iback2 = 0;
+        verts.clear();
+        sides.clear();
+        lefts.clear();
+        rghts.clear();
+        indxs.clear();
         calculated = false;
     }
 
@@ -388,20 +390,20 @@ public class PathExtruder {
         if(cverts <= 0 || pSize <=0) return;
         preAlloc(cverts);
 
-        Point p0,p1;
+        int p0,p1;
         int s,e;
         if (closed){
-            p0 = points.prev;
-            p1 = points;
+            p0 = pSize-1;
+            p1 = 0;
             s = 0;
             e = pSize;
         } else{
-            p0 = points;
-            p1 = points.next;
+            p0 = 0;
+            p1 = next(0);
             s = 1;
             e = pSize-1;
-            float dx = p1.x - p0.x;
-            float dy = p1.y - p0.y;
+            float dx = px[p1] - px[p0];
+            float dy = py[p1] - py[p0];
             float mag = (float) Math.sqrt(dx*dx + dy*dy);
             if (mag > EPSILON) {
                 dx /= mag; dy /= mag;
@@ -420,27 +422,27 @@ public class PathExtruder {
         }
 
         for (int i=s;i<e;i++){
-            if((p1.flags & (FLAG_BEVEL | FLAG_INNER)) != 0) {
+            if((pflags[p1] & (FLAG_BEVEL | FLAG_INNER)) != 0) {
                 if(joint == Poly2.Joint.ROUND){
                     joinRound(p0,p1,lWidth,rWidth,nCap,closed&&i==s);
                 } else {
                     joinBevel(p0,p1,lWidth,rWidth,closed&&i==s);
                 }
             } else if (closed && i == s){
-                iback2 = addPoint(p1.x-(p1.dmx*lWidth),p1.y-(p1.dmy*lWidth),leftmark,0);
-                iback1 = addPoint(p1.x+(p1.dmx*rWidth),p1.y+(p1.dmy*rWidth),rghtmark,0);
+                iback2 = addPoint(px[p1]-(pdmx[p1]*lWidth),py[p1]-(pdmy[p1]*lWidth),leftmark,0);
+                iback1 = addPoint(px[p1]+(pdmx[p1]*rWidth),py[p1]+(pdmy[p1]*rWidth),rghtmark,0);
                 addLeft(iback2);
                 addRight(iback1);
             } else {
-                ind = addPoint(p1.x - (p1.dmx * lWidth), p1.y - (p1.dmy * lWidth), leftmark, 0);
+                ind = addPoint(px[p1] - (pdmx[p1] * lWidth), py[p1] - (pdmy[p1] * lWidth), leftmark, 0);
                 addLeft(ind);
                 triLeft(ind);
-                ind = addPoint(p1.x + (p1.dmx * rWidth), p1.y + (p1.dmy * rWidth), rghtmark, 0);
+                ind = addPoint(px[p1] + (pdmx[p1] * rWidth), py[p1] + (pdmy[p1] * rWidth), rghtmark, 0);
                 addRight(ind);
                 triRight(ind);
             }
-            p0 = p0.next;
-            p1 = p1.next;
+            p0 = next(p0);
+            p1 = next(p1);
         }
 
         if(closed) {
@@ -450,12 +452,9 @@ public class PathExtruder {
             triRight(1);
         } else {
             // Add cap
-            p1 = points;
-            for (int i=0; i<e; i++){
-                p1 = p1.next;
-            }
-            float dx = p1.x - p0.x;
-            float dy = p1.y - p0.y;
+            p1 = e;
+            float dx = px[p1] - px[p0];
+            float dy = py[p1] - py[p0];
             float mag = (float) Math.sqrt(dx*dx + dy*dy);
             if (mag > EPSILON) {
                 dx /= mag; dy /= mag;
@@ -625,61 +624,59 @@ public class PathExtruder {
         int nLeft = 0;
         int nBevel = 0;
 
-        Point v0 = points.prev;
-        Point v1 = points;
-
-        for(int i =0; i<pSize; i++){
-            float dlx0 = v0.dy;
-            float dly0 = -v0.dx;
-            float dlx1 = v1.dy;
-            float dly1 = -v1.dx;
+        int v0 = pSize-1;
+        for(int v1 =0; v1<pSize; v1++){
+            float dlx0 = pdy[v0];
+            float dly0 = -pdx[v0];
+            float dlx1 = pdy[v1];
+            float dly1 = -pdx[v1];
 
             // Calculate extrusions
-            v1.dmx = (dlx0 + dlx1) * 0.5f;
-            v1.dmy = (dly0 + dly1) * 0.5f;
+            pdmx[v1] = (dlx0 + dlx1) * 0.5f;
+            pdmy[v1] = (dly0 + dly1) * 0.5f;
 
-            float dmr2 = v1.dmx*v1.dmx + v1.dmy*v1.dmy;
+            float dmr2 = pdmx[v1]*pdmx[v1] + pdmy[v1]*pdmy[v1];
             if (dmr2 > EPSILON) {
                 float scale = 1.0f / dmr2;
                 if (scale > SCALE_LIMIT) {
                     scale = SCALE_LIMIT;
                 }
-                v1.dmx *= scale;
-                v1.dmy *= scale;
+                pdmx[v1] *= scale;
+                pdmy[v1] *= scale;
             }
 
             // Clear flags, but keep the corner.
-            v1.flags = (v1.flags & FLAG_CORNER)==1 ? FLAG_CORNER : 0;
+            int flags = (pflags[v1] & FLAG_CORNER)==1 ? FLAG_CORNER : 0;
 
             // Keep track of left turns.
-            float cross = v1.dx * v0.dy - v0.dx * v1.dy;
+            float cross = pdx[v1] * pdy[v0] - pdx[v0] * pdy[v1];
             if (cross < 0.0) {
                 nLeft += 1;
-                v1.flags |= FLAG_LEFT;
+                flags |= FLAG_LEFT;
             }
 
             // Calculate if we should use bevel or miter for inner join.
-            float limit = Math.max(1.01f, Math.min(v0.len, v1.len) * iWidth);
+            float limit = Math.max(1.01f, Math.min(plen[v0], plen[v1]) * iWidth);
 
             if ((dmr2 * limit*limit) < 1.0f) {
-                v1.flags |= FLAG_INNER;
+                flags |= FLAG_INNER;
             }
 
             // Check to see if the corner needs to be beveled.
-            if ((v1.flags & FLAG_CORNER) !=0) {
+            if ((flags & FLAG_CORNER) !=0) {
                 if ((dmr2 * mitreLimit*mitreLimit) < 1.0 ||
                         joint == Poly2.Joint.SQUARE ||
                         joint == Poly2.Joint.ROUND) {
-                    v1.flags |= FLAG_BEVEL;
+                    flags |= FLAG_BEVEL;
                 }
             }
 
-            if ((v1.flags & (FLAG_BEVEL | FLAG_INNER)) != 0) {
+            if ((flags & (FLAG_BEVEL | FLAG_INNER)) != 0) {
                 nBevel += 1;
             }
 
-            v0 = v0.next;
-            v1 = v1.next;
+            pflags[v1] = flags;
+            v0 = v1;
         }
 
         convex = (nLeft == pSize);
@@ -690,40 +687,49 @@ public class PathExtruder {
      * Allocates space for the extrusion vertices and indices
      *
      * This method guarantees that the output buffers will have enough capacity
-     * for the algorithm.
+     * for the algorithm. The buffers are cleared, but they are only grown if
+     * they are too small.  Hence a reused extruder does not generate garbage.
      *
-     * @param size      The estimated number of vertices in the extrusion
+     * @param size      The estimated number of vertex coordinates in the extrusion
      */
     private void preAlloc(int size) {
-        verts = new ArrayList<>();
-        lefts = new ArrayList<>();
-        rghts = new ArrayList<>();
-        sides = new ArrayList<>();
-        indxs = new ArrayList<>();
+        verts.clear();
+        sides.clear();
+        lefts.clear();
+        rghts.clear();
+        indxs.clear();
+        verts.ensureCapacity(size);
+        sides.ensureCapacity(size);
+        lefts.ensureCapacity(size);
+        rghts.ensureCapacity(size);
+        indxs.ensureCapacity(size*3/2);
     }
 
     /**
      * Computes the bevel vertices at the given joint
      *
-     * The pair of vertices is assigned to (x0,y0) and (x1,y1).
+     * The pair of vertices is assigned to (x0,y0,x1,y1) in the scratch buffer
+     * bevel, which is returned.  The buffer is overwritten by the next call.
      *
      * @param inner     Whether to use an inner bevel
-     * @param p0        The point leading to the joint
-     * @param p1        The point at the joint
+     * @param p0        The index of the point leading to the joint
+     * @param p1        The index of the point at the joint
      * @param w         The stroke width of the extrusion
+     *
+     * @return the scratch buffer storing the bevel vertices
      */
-    private float[] chooseBevel(boolean inner, Point p0, Point p1, float w) {
-        float[] res = new float[4];
+    private float[] chooseBevel(boolean inner, int p0, int p1, float w) {
+        float[] res = bevel;
         if (inner){
-            res[0] = p1.x + p0.dy * w;
-            res[1] = p1.y - p0.dx * w;
-            res[2] = p1.x + p1.dy * w;
-            res[3] = p1.y - p1.dx * w;
+            res[0] = px[p1] + pdy[p0] * w;
+            res[1] = py[p1] - pdx[p0] * w;
+            res[2] = px[p1] + pdy[p1] * w;
+            res[3] = py[p1] - pdx[p1] * w;
         } else {
-            res[0] = p1.x + p1.dmx * w;
-            res[1] = p1.y + p1.dmy * w;
-            res[2] = p1.x + p1.dmx * w;
-            res[3] = p1.y + p1.dmy * w;
+            res[0] = px[p1] + pdmx[p1] * w;
+            res[1] = py[p1] + pdmy[p1] * w;
+            res[2] = px[p1] + pdmx[p1] * w;
+            res[3] = py[p1] + pdmy[p1] * w;
         }
         return res;
     }
@@ -731,25 +737,25 @@ public class PathExtruder {
     /**
      * Produces a round joint at the point p1
      *
-     * @param p0        The point leading to the joint
-     * @param p1        The point at the joint
+     * @param p0        The index of the point leading to the joint
+     * @param p1        The index of the point at the joint
      * @param lw        The width of the left side of the extrusion
      * @param rw        The width of the right side of the extrusion
      * @param nCap      The number of segments in the rounded joint
      * @param start     Whether this is the first joint in an the extrusion
      */
-    private void joinRound (Point p0, Point p1, float lw, float rw, int nCap, boolean start) {
-        float dlx0 = p0.dy;
-        float dly0 = -p0.dx;
-        float dlx1 = p1.dy;
-        float dly1 = -p1.dx;
+    private void joinRound (int p0, int p1, float lw, float rw, int nCap, boolean start) {
+        float dlx0 = pdy[p0];
+        float dly0 = -pdx[p0];
+        float dlx1 = pdy[p1];
+        float dly1 = -pdx[p1];
         int ind = 0;
 
         float leftmark = lw > 0 ? LEFT_MK : 0;
         float rghtmark = rw > 0 ? RGHT_MK : 0;
 
-        if((p1.flags & FLAG_LEFT) != 0){
-            float[] res = chooseBevel((p1.flags & FLAG_INNER) != 0, p0, p1, -lw);
+        if((pflags[p1] & FLAG_LEFT) != 0){
+            float[] res = chooseBevel((pflags[p1] & FLAG_INNER) != 0, p0, p1, -lw);
             float lx0 = res[0];
             float ly0 = res[1];
             float lx1 = res[2];
@@ -763,25 +769,25 @@ public class PathExtruder {
             if (start) {
                 iback2 = addPoint(lx0, ly0, leftmark, 0);
                 addLeft(iback2);
-                iback1 = addPoint(p1.x + dlx0*rw, p1.y + dly0*rw, rghtmark, 0);
+                iback1 = addPoint(px[p1] + dlx0*rw, py[p1] + dly0*rw, rghtmark, 0);
                 addRight(iback1);
             } else {
                 ind = addPoint(lx0, ly0, leftmark, 0);
                 addLeft(ind);
                 triLeft(ind);
-                ind = addPoint(p1.x + dlx0*rw, p1.y + dly0*rw, rghtmark, 0);
+                ind = addPoint(px[p1] + dlx0*rw, py[p1] + dly0*rw, rghtmark, 0);
                 addRight(ind);
                 triRight(ind);
             }
 
             int n = clampi((int)Math.ceil(((a1 - a0) / Math.PI) * nCap), 2, nCap);
-            int center = addPoint(p1.x,p1.y,0,0);
+            int center = addPoint(px[p1],py[p1],0,0);
             triLeft(center);
             for(int i=0; i<n; i++){
                 float u = i/((float)(n-1));
                 float a = a0 + u*(a1-a0);
-                float rx = (float) (p1.x + Math.cos(a) * rw);
-                float ry = (float) (p1.y + Math.sin(a) * rw);
+                float rx = (float) (px[p1] + Math.cos(a) * rw);
+                float ry = (float) (py[p1] + Math.sin(a) * rw);
 
                 ind = addPoint(rx, ry, rghtmark, 0);
                 addRight(ind);
@@ -795,11 +801,11 @@ public class PathExtruder {
             ind = addPoint(lx1, ly1, leftmark, 0);
             addLeft(ind);
             triLeft(ind);
-            ind = addPoint(p1.x + dlx1*rw, p1.y + dly1*rw, rghtmark, 0);
+            ind = addPoint(px[p1] + dlx1*rw, py[p1] + dly1*rw, rghtmark, 0);
             addRight(ind);
             triRight(ind);
         } else {
-            float[] res = chooseBevel((p1.flags & FLAG_INNER) != 0, p0, p1, rw);
+            float[] res = chooseBevel((pflags[p1] & FLAG_INNER) != 0, p0, p1, rw);
             float rx0 = res[0];
             float ry0 = res[1];
             float rx1 = res[2];
@@ -811,32 +817,32 @@ public class PathExtruder {
             }
 
             if (start) {
-                iback1 = addPoint(p1.x - dlx0*lw, p1.y - dly0*lw, leftmark, 0);
+                iback1 = addPoint(px[p1] - dlx0*lw, py[p1] - dly0*lw, leftmark, 0);
                 iback2 = addPoint(rx0, ry0, rghtmark, 0);
             } else {
-                ind = addPoint(p1.x - dlx0*lw, p1.y - dly0*lw, leftmark, 0);
+                ind = addPoint(px[p1] - dlx0*lw, py[p1] - dly0*lw, leftmark, 0);
                 addLeft(ind);
                 triLeft(ind);
                 ind = addPoint(rx0, ry0, rghtmark, 0);
                 addRight(ind);
                 triRight(ind);
 
-                float lx = (float) (p1.x + Math.cos(a0) * lw);
-                float ly = (float) (p1.y + Math.sin(a0) * lw);
+                float lx = (float) (px[p1] + Math.cos(a0) * lw);
+                float ly = (float) (py[p1] + Math.sin(a0) * lw);
                 ind = addPoint(lx, ly, leftmark, 0);
                 addLeft(ind);
                 triLeft(ind);
             }
 
             int n = clampi((int)Math.ceil(((a0 - a1) / Math.PI) * nCap), 2, nCap);
-            int center = addPoint(p1.x,p1.y,0,0);
+            int center = addPoint(px[p1],py[p1],0,0);
             triRight(center);
 
             for (int i=0; i<n; i++){
                 float u = i/((float)(n-1));
                 float a = a0 + u*(a1-a0);
-                float lx = (float) (p1.x + Math.cos(a) * lw);
-                float ly = (float) (p1.y + Math.sin(a) * lw);
+                float lx = (float) (px[p1] + Math.cos(a) * lw);
+                float ly = (float) (py[p1] + Math.sin(a) * lw);
 
                 ind = addPoint(lx, ly, leftmark, 0);
                 iback1 = center;
@@ -846,7 +852,7 @@ public class PathExtruder {
             }
 
             iback1 = center;
-            ind = addPoint(p1.x - dlx1*lw, p1.y - dly1*lw, leftmark, 0);
+            ind = addPoint(px[p1] - dlx1*lw, py[p1] - dly1*lw, leftmark, 0);
             addLeft(ind);
             triLeft(ind);
             ind = addPoint(rx1, ry1, rghtmark, 0);
@@ -858,24 +864,24 @@ public class PathExtruder {
     /**
      * Produces a bevel/square joint at the point p1
      *
-     * @param p0        The point leading to the joint
-     * @param p1        The point at the joint
+     * @param p0        The index of the point leading to the joint
+     * @param p1        The index of the point at the joint
      * @param lw        The width of the left side of the extrusion
      * @param rw        The width of the right side of the extrusion
      * @param start     Whether this is the first joint in an the extrusion
      */
-    private void joinBevel(Point p0, Point p1, float lw, float rw, boolean start){
-        float dlx0 = p0.dy;
-        float dly0 = -p0.dx;
-        float dlx1 = p1.dy;
-        float dly1 = -p1.dx;
+    private void joinBevel(int p0, int p1, float lw, float rw, boolean start){
+        float dlx0 = pdy[p0];
+        float dly0 = -pdx[p0];
+        float dlx1 = pdy[p1];
+        float dly1 = -pdx[p1];
 
         float leftmark = lw > 0 ? LEFT_MK : 0;
         float rghtmark = rw > 0 ? RGHT_MK : 0;
 
         int ind;
-        if ((p1.flags & FLAG_LEFT) != 0) {
-            float[] res =  chooseBevel((p1.flags & FLAG_INNER)!=0, p0, p1, -lw);
+        if ((pflags[p1] & FLAG_LEFT) != 0) {
+            float[] res =  chooseBevel((pflags[p1] & FLAG_INNER)!=0, p0, p1, -lw);
             float lx0 = res[0];
             float ly0 = res[1];
             float lx1 = res[2];
@@ -883,28 +889,28 @@ public class PathExtruder {
 
             if(start){
                 iback2 = addPoint(lx0, ly0, leftmark, 0);
-                iback1 = addPoint(p1.x + dlx0*rw, p1.y + dly0*rw, rghtmark, 0);
+                iback1 = addPoint(px[p1] + dlx0*rw, py[p1] + dly0*rw, rghtmark, 0);
             } else {
                 ind = addPoint(lx0, ly0, leftmark, 0);
                 addLeft(ind);
                 triLeft(ind);
-                ind = addPoint(p1.x + dlx0*rw, p1.y + dly0*rw, rghtmark, 0);
+                ind = addPoint(px[p1] + dlx0*rw, py[p1] + dly0*rw, rghtmark, 0);
                 addRight(ind);
                 triRight(ind);
             }
 
-            if ((p1.flags & FLAG_BEVEL) != 0) {
+            if ((pflags[p1] & FLAG_BEVEL) != 0) {
                 ind = addPoint(lx1, ly1, leftmark, 0);
                 triLeft(ind);
-                ind = addPoint(p1. x + dlx1 * rw, p1.y + dly1 * rw, rghtmark, 0);
+                ind = addPoint(px[p1] + dlx1 * rw, py[p1] + dly1 * rw, rghtmark, 0);
                 triRight(ind);
             } else {
-                float rx0 = p1.x + p1.dmx * rw;
-                float ry0 = p1.y + p1.dmy * rw;
+                float rx0 = px[p1] + pdmx[p1] * rw;
+                float ry0 = py[p1] + pdmy[p1] * rw;
 
-                ind = addPoint(p1.x, p1.y, 0,0);
+                ind = addPoint(px[p1], py[p1], 0,0);
                 triLeft(ind);
-                ind = addPoint(p1.x + dlx0*rw, p1.y + dly0*rw, rghtmark, 0);
+                ind = addPoint(px[p1] + dlx0*rw, py[p1] + dly0*rw, rghtmark, 0);
                 addRight(ind);
                 triRight(ind);
 
@@ -913,8 +919,8 @@ public class PathExtruder {
                 triLeft(ind);
 
                 iback2 = ind;
-                iback1 = addPoint(p1.x, p1.y, 0, 0);
-                ind = addPoint(p1.x + dlx1*rw, p1.y + dly1*rw, rghtmark, 0);
+                iback1 = addPoint(px[p1], py[p1], 0, 0);
+                ind = addPoint(px[p1] + dlx1*rw, py[p1] + dly1*rw, rghtmark, 0);
                 addRight(ind);
                 triRight(ind);
             }
@@ -922,21 +928,21 @@ public class PathExtruder {
             ind = addPoint(lx1, ly1, leftmark, 0);
             addLeft(ind);
             triLeft(ind);
-            ind = addPoint(p1.x + dlx1*rw, p1.y + dly1*rw, rghtmark, 0);
+            ind = addPoint(px[p1] + dlx1*rw, py[p1] + dly1*rw, rghtmark, 0);
             addRight(ind);
             triRight(ind);
         } else {
-            float[] res = chooseBevel((p1.flags & FLAG_INNER) != 0, p0, p1, rw);
+            float[] res = chooseBevel((pflags[p1] & FLAG_INNER) != 0, p0, p1, rw);
             float rx0 = res[0];
             float ry0 = res[1];
             float rx1 = res[2];
             float ry1 = res[3];
 
             if (start) {
-                iback2 = addPoint(p1.x - dlx0*lw, p1.y - dly0*lw, leftmark, 0);
+                iback2 = addPoint(px[p1] - dlx0*lw, py[p1] - dly0*lw, leftmark, 0);
                 iback1 = addPoint(rx0, ry0, rghtmark, 0);
             } else {
-                ind = addPoint(p1.x - dlx0*lw, p1.y - dly0*lw, leftmark, 0);
+                ind = addPoint(px[p1] - dlx0*lw, py[p1] - dly0*lw, leftmark, 0);
                 addLeft(ind);
                 triLeft(ind);
                 ind = addPoint(rx0, ry0, rghtmark, 0);
@@ -944,21 +950,21 @@ public class PathExtruder {
                 triRight(ind);
             }
 
-            if ((p1.flags & FLAG_BEVEL) != 0) {
-                ind = addPoint(p1.x - dlx1*lw, p1.y - dly1*lw, leftmark, 0);
+            if ((pflags[p1] & FLAG_BEVEL) != 0) {
+                ind = addPoint(px[p1] - dlx1*lw, py[p1] - dly1*lw, leftmark, 0);
                 addLeft(ind);
                 triLeft(ind);
                 ind = addPoint(rx1, ry1, rghtmark, 0);
                 addRight(ind);
                 triRight(ind);
             } else {
-                float lx0 = p1.x - p1.dmx * lw;
-                float ly0 = p1.y - p1.dmy * lw;
+                float lx0 = px[p1] - pdmx[p1] * lw;
+                float ly0 = py[p1] - pdmy[p1] * lw;
 
-                ind = addPoint(p1.x - dlx0*lw, p1.y - dly0*lw, leftmark, 0);
+                ind = addPoint(px[p1] - dlx0*lw, py[p1] - dly0*lw, leftmark, 0);
                 addLeft(ind);
                 triLeft(ind);
-                ind = addPoint(p1.x, p1.y, 0, 0);
+                ind = addPoint(px[p1], py[p1], 0, 0);
                 triRight(ind);
 
                 ind = addPoint(lx0, ly0, leftmark,0);
@@ -966,13 +972,13 @@ public class PathExtruder {
                 triLeft(ind);
 
                 iback2 = ind;
-                iback1 = addPoint(p1.x - dlx1*lw, p1.y - dly1*lw, leftmark, 0);
-                ind = addPoint(p1.x, p1.y, 0, 0);
+                iback1 = addPoint(px[p1] - dlx1*lw, py[p1] - dly1*lw, leftmark, 0);
+                ind = addPoint(px[p1], py[p1], 0, 0);
                 addLeft(iback1);
                 triRight(ind);
             }
 
-            ind = addPoint(p1.x - dlx1*lw, p1.y - dly1*lw, leftmark, 0);
+            ind = addPoint(px[p1] - dlx1*lw, py[p1] - dly1*lw, leftmark, 0);
             addLeft(ind);
             triLeft(ind);
             ind = addPoint(rx1, ry1, rghtmark, 0);
@@ -984,38 +990,38 @@ public class PathExtruder {
     /**
      * Produces a butt (degenerate) cap at the head of the extrusion.
      *
-     * @param p     The head of the path
+     * @param p     The index of the head of the path
      * @param dx    The x-direction from the head to the next path point
      * @param dy    The y-direction from the head to the next path point
      * @param lw    The width of the left side of the extrusion
      * @param rw    The width of the right side of the extrusion
      */
-    private void startButt(Point p, float dx, float dy, float lw, float rw){
+    private void startButt(int p, float dx, float dy, float lw, float rw){
         float dlx = dy;
         float dly = -dx;
-        iback2 = addPoint(p.x - dlx*lw, p.y - dly*lw, lw > 0 ? LEFT_MK : 0, 0);
+        iback2 = addPoint(px[p] - dlx*lw, py[p] - dly*lw, lw > 0 ? LEFT_MK : 0, 0);
         addLeft(iback2);
-        iback1 = addPoint(p.x + dlx*rw, p.y + dly*rw, rw > 0 ? RGHT_MK : 0, 0);
+        iback1 = addPoint(px[p] + dlx*rw, py[p] + dly*rw, rw > 0 ? RGHT_MK : 0, 0);
         addRight(iback1);
     }
 
     /**
      * Produces a butt (degenerate) cap at the tail of the extrusion.
      *
-     * @param p     The tail of the path
+     * @param p     The index of the tail of the path
      * @param dx    The x-direction from the penultimate path point to the tail
      * @param dy    The y-direction from the penultimate path point to the tail
      * @param lw    The width of the left side of the extrusion
      * @param rw    The width of the right side of the extrusion
      */
-    private void endButt(Point p, float dx, float dy, float lw, float rw){
+    private void endButt(int p, float dx, float dy, float lw, float rw){
         float dlx = dy;
         float dly = -dx;
         int ind;
-        ind = addPoint(p.x - dlx*lw, p.y - dly*lw, lw > 0 ? LEFT_MK : 0, 0);
+        ind = addPoint(px[p] - dlx*lw, py[p] - dly*lw, lw > 0 ? LEFT_MK : 0, 0);
         addLeft(ind);
         triLeft(ind);
-        ind = addPoint(p.x + dlx*rw, p.y + dly*rw, rw > 0 ? RGHT_MK : 0, 0);
+        ind = addPoint(px[p] + dlx*rw, py[p] + dly*rw, rw > 0 ? RGHT_MK : 0, 0);
         addRight(ind);
         triRight(ind);
     }
@@ -1023,16 +1029,16 @@ public class PathExtruder {
     /**
      * Produces a square cap at the head of the extrusion.
      *
-     * @param p     The head of the path
+     * @param p     The index of the head of the path
      * @param dx    The x-direction from the head to the next path point
      * @param dy    The y-direction from the head to the next path point
      * @param lw    The width of the left side of the extrusion
      * @param rw    The width of the right side of the extrusion
      * @param d     The length of the cap
      */
-    private void startSquare(Point p, float dx, float dy, float lw, float rw, float d){
-        float px = p.x - dx*d;
-        float py = p.y - dy*d;
+    private void startSquare(int p, float dx, float dy, float lw, float rw, float d){
+        float ox = px[p] - dx*d;
+        float oy = py[p] - dy*d;
         float dlx = dy;
         float dly = -dx;
 
@@ -1041,17 +1047,17 @@ public class PathExtruder {
 
 
         int ind;
-        iback2 = addPoint(px - dlx*lw, py - dly*lw, leftmark, HEAD_MK);
+        iback2 = addPoint(ox - dlx*lw, oy - dly*lw, leftmark, HEAD_MK);
         addLeft(iback2);
-        iback1 = addPoint(px + dlx*rw, py + dly*rw, rghtmark, HEAD_MK);
+        iback1 = addPoint(ox + dlx*rw, oy + dly*rw, rghtmark, HEAD_MK);
         addRight(iback1);
 
-        px = p.x;
-        py = p.y;
-        ind = addPoint(px - dlx*lw, py - dly*lw, leftmark, 0);
+        ox = px[p];
+        oy = py[p];
+        ind = addPoint(ox - dlx*lw, oy - dly*lw, leftmark, 0);
         addLeft(ind);
         triLeft(ind);
-        ind = addPoint(px + dlx*rw, py + dly*rw, rghtmark, 0);
+        ind = addPoint(ox + dlx*rw, oy + dly*rw, rghtmark, 0);
         addRight(ind);
         triRight(ind);
     }
@@ -1059,16 +1065,16 @@ public class PathExtruder {
     /**
      * Produces a square cap at the tail of the extrusion.
      *
-     * @param p     The tail of the path
+     * @param p     The index of the tail of the path
      * @param dx    The x-direction from the penultimate path point to the tail
      * @param dy    The y-direction from the penultimate path point to the tail
      * @param lw    The width of the left side of the extrusion
      * @param rw    The width of the right side of the extrusion
      * @param d     The length of the cap
      */
-    private void endSquare(Point p, float dx, float dy, float lw, float rw, float d){
-        float px = p.x;
-        float py = p.y;
+    private void endSquare(int p, float dx, float dy, float lw, float rw, float d){
+        float ox = px[p];
+        float oy = py[p];
         float dlx = dy;
         float dly = -dx;
 
@@ -1076,17 +1082,17 @@ public class PathExtruder {
         float rghtmark = rw > 0 ? RGHT_MK : 0;
 
         int ind;
-        ind = addPoint(px - dlx*lw, py - dly*lw, leftmark, 0);
+        ind = addPoint(ox - dlx*lw, oy - dly*lw, leftmark, 0);
         triLeft(ind);
-        ind = addPoint(px + dlx*rw, py + dly*rw, rghtmark, 0);
+        ind = addPoint(ox + dlx*rw, oy + dly*rw, rghtmark, 0);
         triRight(ind);
 
-        px = p.x + dx*d;
-        py = p.y + dy*d;
-        ind = addPoint(px - dlx*lw, py - dly*lw, leftmark, TAIL_MK);
+        ox = px[p] + dx*d;
+        oy = py[p] + dy*d;
+        ind = addPoint(ox - dlx*lw, oy - dly*lw, leftmark, TAIL_MK);
         addLeft(ind);
         triLeft(ind);
-        ind = addPoint(px + dlx*rw, py + dly*rw, rghtmark, TAIL_MK);
+        ind = addPoint(ox + dlx*rw, oy + dly*rw, rghtmark, TAIL_MK);
         addRight(ind);
         triRight(ind);
     }
@@ -1094,26 +1100,26 @@ public class PathExtruder {
     /**
      * Produces a rounded cap at the head of the extrusion.
      *
-     * @param p        The head of the path
+     * @param p     The index of the head of the path
      * @param dx    The x-direction from the head to the next path point
      * @param dy    The y-direction from the head to the next path point
      * @param lw    The width of the left side of the extrusion
      * @param rw    The width of the right side of the extrusion
      * @param nCap    The number of segments in the rounded cap
      */
-    private void startRound(Point p, float dx, float dy, float lw, float rw, int nCap){
+    private void startRound(int p, float dx, float dy, float lw, float rw, int nCap){
         float dlx = dy;
         float dly = -dx;
         float w = (lw+rw)/2.0f;
 
-        float px = p.x + (dlx*rw - dlx*lw)/2.0f;
-        float py = p.y + (dly*rw - dly*lw)/2.0f;
+        float ox = px[p] + (dlx*rw - dlx*lw)/2.0f;
+        float oy = py[p] + (dly*rw - dly*lw)/2.0f;
 
         float leftmark = lw > 0 ? LEFT_MK : 0;
         float rghtmark = rw > 0 ? RGHT_MK : 0;
 
-        int center = addPoint(px, py, 0, 0);
-        int first  = addPoint(px - dlx*w, py - dly*w, leftmark, 0);
+        int center = addPoint(ox, oy, 0, 0);
+        int first  = addPoint(ox - dlx*w, oy - dly*w, leftmark, 0);
         iback1 = center;
         iback2 = first;
         addLeft(first);
@@ -1125,7 +1131,7 @@ public class PathExtruder {
             float ax = cx*w;
             float ay = (float) (Math.sin(a)*w);
 
-            ind = addPoint(px - dlx*ax - dx*ay, py - dly*ax - dy*ay,
+            ind = addPoint(ox - dlx*ax - dx*ay, oy - dly*ax - dy*ay,
                     leftmark*(1+cx)/2+rghtmark*(1-cx)/2,HEAD_MK*ay/w);
             addRight(ind);
             triRight(ind);
@@ -1140,32 +1146,32 @@ public class PathExtruder {
     /**
      * Produces a rounded cap at the tail of the extrusion.
      *
-     * @param p        The tail of the path
+     * @param p     The index of the tail of the path
      * @param dx    The x-direction from the penultimate path point to the tail
      * @param dy    The y-direction from the penultimate path point to the tail
      * @param lw    The width of the left side of the extrusion
      * @param rw    The width of the right side of the extrusion
      * @param nCap    The number of segments in the rounded cap
      */
-    private void endRound(Point p, float dx, float dy, float lw, float rw, int nCap){
+    private void endRound(int p, float dx, float dy, float lw, float rw, int nCap){
         float dlx = dy;
         float dly = -dx;
         float w = (lw+rw)/2.0f;
 
-        float px = p.x + (dlx*rw - dlx*lw)/2.0f;
-        float py = p.y + (dly*rw - dly*lw)/2.0f;
+        float ox = px[p] + (dlx*rw - dlx*lw)/2.0f;
+        float oy = py[p] + (dly*rw - dly*lw)/2.0f;
 
         float leftmark = lw > 0 ? LEFT_MK : 0;
         float rghtmark = rw > 0 ? RGHT_MK : 0;
 
-        int first = addPoint(px - dlx*w, py - dly*w, leftmark, 0);
-        int last = addPoint(px + dlx*w, py + dly*w, rghtmark, 0);
+        int first = addPoint(ox - dlx*w, oy - dly*w, leftmark, 0);
+        int last = addPoint(ox + dlx*w, oy + dly*w, rghtmark, 0);
         addLeft(first);
         triLeft(first);
         addRight(last);
         triRight(last);
 
-        int center = addPoint(px, py, 0, 0);
+        int center = addPoint(ox, oy, 0, 0);
         iback1 = center;
 
         int ind;
@@ -1175,7 +1181,7 @@ public class PathExtruder {
             float ax = cx*w;
             float ay = (float) (Math.sin(a) * w);
 
-            ind = addPoint(px - dlx*ax + dx*ay, py - dly*ax + dy*ay,
+            ind = addPoint(ox - dlx*ax + dx*ay, oy - dly*ax + dy*ay,
                     leftmark*(1+cx)/2+rghtmark*(1-cx)/2,TAIL_MK*ay/w);
             addLeft(ind);
             triLeft(ind);
@@ -1201,49 +1207,73 @@ public class PathExtruder {
      */
     public Poly2 getPolygon() {
         if (calculated) {
-            float[] resV = new float[verts.size()];
-            for (int i=0; i<verts.size(); i++){
-                resV[i] = verts.get(i);
-            }
-            short[] resI = new short[indxs.size()];
-            for (int i=0; i<indxs.size(); i++){
-                resI[i] = indxs.get(i);
-            }
-            return new Poly2(resV, resI);
+            return new Poly2(verts.toArray(), indxs.toArray());
         }
         return new Poly2(new float[0]);
     }
 
+    /**
+     * Appends the path extrusion to the given buffer.
+     *
+     * This is the same as {@link #getPolygon(Poly2, boolean)} in append mode.
+     *
+     * @param buffer    The buffer to store the extruded polygon
+     *
+     * @return a reference to the buffer for chaining.
+     */
+    public Poly2 getPolygon(Poly2 buffer){
+        return getPolygon(buffer, true);
+    }
+
     /**
      * Stores the path extrusion in the given buffer.
      *
-     * This method will add both the original vertices, and the corresponding
-     * indices to the new buffer.  If the buffer is not empty, the indices
-     * will be adjusted accordingly. You should clear the buffer first if
-     * you do not want to preserve the original data.
+     * The buffer itself is modified and returned.  If append is true, this
+     * method will add both the original vertices, and the corresponding indices
+     * to the buffer, offsetting the new indices by the vertices already in the
+     * buffer.  The buffer gets new arrays in this case.  Otherwise, it will
+     * replace the contents of the buffer.
+     *
+     * When replacing, the arrays of the buffer are overwritten in place if they
+     * already have the correct size.  Any other Poly2 that shares those arrays
+     * changes as well, so pass a buffer that owns its arrays.  In exchange,
+     * reusing the same buffer for the extrusion of a path that does not change
+     * shape (such as a rope or trail recomputed every frame) does not generate
+     * garbage.
      *
      * If the calculation is not yet performed, this method will do nothing.
      *
      * @param buffer    The buffer to store the extruded polygon
+     * @param append    Whether to append to the existing buffer contents
      *
      * @return a reference to the buffer for chaining.
      */
-    public Poly2 getPolygon(Poly2 buffer){
-        if (calculated) {
-            float[] vertices = new float[verts.size()+buffer.vertices.length];
-            System.arraycopy(buffer.vertices, 0, vertices, 0, buffer.vertices.length);
-            for (int i=0; i<verts.size(); i++){
-                vertices[buffer.vertices.length+i] = verts.get(i);
-            }
+    public Poly2 getPolygon(Poly2 buffer, boolean append){
+        if (!calculated) {
+            return buffer;
+        }
 
-            short[] indices = new short[indxs.size()+buffer.indices.length];
-            System.arraycopy(buffer.indices, 0, indices, 0, buffer.indices.length);
-            for (int i=0; i<indxs.size(); i++){
-                indices[buffer.indices.length+i] = indxs.get(i);
-            }
+        int voff = append ? buffer.vertices.length : 0;
+        int ioff = append ? buffer.indices.length : 0;
+        float[] vertices = buffer.vertices;
+        if (vertices.length != voff+verts.size) {
+            vertices = new float[voff+verts.size];
+            System.arraycopy(buffer.vertices, 0, vertices, 0, voff);
+        }
+        System.arraycopy(verts.items, 0, vertices, voff, verts.size);
 
-            return new Poly2(vertices,indices);
+        short[] indices = buffer.indices;
+        if (indices.length != ioff+indxs.size) {
+            indices = new short[ioff+indxs.size];
+            System.arraycopy(buffer.indices, 0, indices, 0, ioff);
+        }
+        short shift = (short)(voff/2);
+        for (int i=0; i<indxs.size; i++){
+            indices[ioff+i] = (short)(indxs.items[i]+shift);
         }
+
+        buffer.vertices = vertices;
+        buffer.indices = indices;
         return buffer;
     }
 
@@ -1292,25 +1322,13 @@ public class PathExtruder {
             Path2 path = new Path2();
             path.closed = true;
             if (closed){
-                float[] rg = new float[rghts.size()];
-                for (int i=0; i< rghts.size(); i++){
-                    rg[i] = rghts.get(i);
-                }
-                path.vertices = rg;
+                path.vertices = rghts.toArray();
                 res[res.length-2] = new Path2(path);
-                float[] le = new float[lefts.size()];
-                for (int i=0; i< lefts.size(); i++){
-                    le[i] = lefts.get(i);
-                }
-                path.vertices = le;
+                path.vertices = lefts.toArray();
             } else {
-                float[] vts = new float[rghts.size()+lefts.size()];
-                for (int i=0; i<rghts.size(); i++){
-                    vts[i] = rghts.get(i);
-                }
-                for (int i=0; i<lefts.size(); i++){
-                    vts[rghts.size()+i] = lefts.get(i);
-                }
+                float[] vts = new float[rghts.size+lefts.size];
+                System.arraycopy(rghts.items, 0, vts, 0, rghts.size);
+                System.arraycopy(lefts.items, 0, vts, rghts.size, lefts.size);
                 path.vertices = vts;
             }
             res[res.length-1] = new Path2(path);
@@ -1360,10 +1378,8 @@ public class PathExtruder {
      */
     private int addPoint(float x, float y, float u, float v){
         int index = vSize;
-        verts.add(x);
-        verts.add(y);
-        sides.add(u);
-        sides.add(v);
+        verts.add(x, y);
+        sides.add(u, v);
         vSize++;
         return index;
     }
@@ -1376,8 +1392,7 @@ public class PathExtruder {
      * @param index     The index of the left vertex
      */
     private void addLeft(int index) {
-        lefts.add(verts.get(2*index));
-        lefts.add(verts.get(2*index+1));
+        lefts.add(verts.items[2*index], verts.items[2*index+1]);
     }
 
     /**
@@ -1388,8 +1403,7 @@ public class PathExtruder {
      * @param index The index of the right vertex
      */
     private void addRight(int index){
-        rghts.add(verts.get(2*index));
-        rghts.add(verts.get(2*index+1));
+        rghts.add(verts.items[2*index], verts.items[2*index+1]);
     }
 
     /**
@@ -1402,7 +1416,8 @@ public class PathExtruder {
      * @param index     The index to complete the triangle
      */
     private void triLeft(int index){
-        if (validTri(verts.get(iback1*2),verts.get(iback1*2+1),verts.get(iback2*2),verts.get(iback2*2+1),verts.get(2*index),verts.get(2*index+1))){
+        float[] v = verts.items;
+        if (validTri(v[iback1*2],v[iback1*2+1],v[iback2*2],v[iback2*2+1],v[2*index],v[2*index+1])){
             indxs.add((short)iback2);
             indxs.add((short)iback1);
             indxs.add((short)index);
@@ -1421,7 +1436,8 @@ public class PathExtruder {
      * @param index     The index to complete the triangle
      */
     private void triRight(int index){
-        if (validTri(verts.get(iback1*2),verts.get(iback1*2+1),verts.get(iback2*2),verts.get(iback2*2+1),verts.get(2*index),verts.get(2*index+1))){
+        float[] v = verts.items;
+        if (validTri(v[iback1*2],v[iback1*2+1],v[iback2*2],v[iback2*2+1],v[2*index],v[2*index+1])){
             indxs.add((short)iback1);
             indxs.add((short)iback2);
             indxs.add((short)index);
@@ -10,7 +10,9 @@
  */
 package edu.cornell.gdiac.math;
 
-import java.util.ArrayList;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
 
 
 /**
@@ -36,9 +38,13 @@ import java.util.ArrayList;
  */
 public class PathSmoother {
     /** The set of vertices to use in the calculation */
-    private ArrayList<Float> input;
+    private final FloatArray input;
     /** The set of vertices after smoothing */
-    private ArrayList<Float> output;
+    private final FloatArray output;
+    /** The vertices (by index) preserved by smoothing */
+    private final Bits marks;
+    /** The explicit stack of (start,end) segments still to process */
+    private final IntArray stack;
     /** The epsilon value of the Douglas-Peucker algorithm */
     private float epsilon;
     /** Whether or not the calculation has been run */
@@ -51,7 +57,10 @@ public class PathSmoother {
      * Creates a path smoother with no vertex data.
      */
     public PathSmoother(){
-        clear();
+        input = new FloatArray();
+        output = new FloatArray();
+        marks = new Bits();
+        stack = new IntArray();
         epsilon = DEFAULT_EPSILON;
     }
 
@@ -64,8 +73,7 @@ public class PathSmoother {
      * @param points    The vertices to triangulate
      */
     public PathSmoother(float[] points){
-        reset();
-        epsilon = DEFAULT_EPSILON;
+        this();
         set(points);
     }
 
@@ -81,10 +89,26 @@ public class PathSmoother {
      * @param points    The vertices to triangulate
      */
     public void set(float[] points){
+        set(points, 0, points.length);
+    }
+
+    /**
+     * Sets the vertex data for this path smoother.
+     *
+     * The vertex data is copied. The smother does not retain any references
+     * to the original data. Only the floats in the range [offset,offset+length)
+     * are used, so a reusable buffer can be passed directly.
+     *
+     * This method resets all interal data. You will need to reperform the
+     * calculation before accessing data.
+     *
+     * @param points    The vertices to triangulate
+     * @param offset    The first float to use in points
+     * @param length    The number of floats to use in points
+     */
+    public void set(float[] points, int offset, int length){
         clear();
-        for (float i : points){
-            input.add(i);
-        }
+        input.addAll(points, offset, length);
     }
 
     /**
@@ -100,10 +124,7 @@ public class PathSmoother {
      * @param path    The path to smooth
      */
     public void set(Path2 path){
-        clear();
-        for (float i : path.vertices){
-            input.add(i);
-        }
+        set(path.vertices, 0, path.vertices.length);
     }
 
     /**
@@ -142,9 +163,14 @@ public class PathSmoother {
 
     /**
      * Clears all internal data, but still maintains the initial vertex data.
+     *
+     * The internal buffers are kept, so a reused smoother does not generate
+     * garbage.
      */
     public void reset(){
-        output = new ArrayList<>();
+        output.clear();
+        marks.clear();
+        stack.clear();
         calculated = false;
     }
 
@@ -156,7 +182,7 @@ public class PathSmoother {
      */
     public void clear(){
         reset();
-        input = new ArrayList<>();
+        input.clear();
     }
 
     /**
@@ -164,82 +190,80 @@ public class PathSmoother {
      */
     public void calculate(){
         if (!calculated){
-            douglasPeucker(0,input.size()/2-1);
+            douglasPeucker();
             calculated = true;
         }
     }
 
     /**
-     * Recursively performs Douglas-Peuker on the given input segment
-     *
-     * The results will be pulled from _input and placed in _output.
-     *
-     * @param start The first position in _input to process
-     * @param end   The last position in _input to process
+     * Performs Douglas-Peuker on the input data
      *
-     * @return the number of points preserved in smoothing
+     * This version of the algorithm uses an explicit stack of segments rather
+     * than recursion, so the call depth does not grow with the size of the
+     * input. Preserved vertices are marked in a bitset, and then copied (in
+     * order) from input to output.
      */
-    private int douglasPeucker(int start, int end){
-        int over = -1;
-        float sx = input.get(start*2);
-        float sy = input.get(start*2+1);
-        float ex = (end == over? input.get(0) : input.get(end*2));
-        float ey = (end == over? input.get(1) : input.get(end*2+1));
+    private void douglasPeucker(){
+        int size = input.size/2;
+        if (size == 0) {
+            return;
+        }
 
-        if(end - start <= 1 || (end == over && start == input.size()/2-1)){
-            output.add(sx);
-            output.add(sy);
-            output.add(ex);
-            output.add(ey);
-            return 2;
-        } else if(sx == ex && sy == ey){
-            output.add(sx);
-            output.add(sy);
-            int index = over;
-            for(int i=start+1; index == over && i<end; i++){
-                float vx = input.get(i*2);
-                float vy = input.get(i*2+1);
-                if(vx!= sx || vy!=sy){
-                    index = i;
-                }
+        float[] pts = input.items;
+        marks.set(0);
+        marks.set(size-1);
+        stack.add(0, size-1);
+        while (stack.size > 0) {
+            int end = stack.pop();
+            int start = stack.pop();
+            if (end - start <= 1) {
+                continue;
             }
-            if (index != over){
-                return douglasPeucker(index,end)+1;
-            } else{
-                output.add(ex);
-                output.add(ey);
-                return 2;
+
+            float sx = pts[start*2];
+            float sy = pts[start*2+1];
+            float ex = pts[end*2];
+            float ey = pts[end*2+1];
+            if (sx == ex && sy == ey) {
+                // Skip ahead to the first point distinct from the start
+                int index = -1;
+                for(int i=start+1; index == -1 && i<end; i++){
+                    if (pts[i*2] != sx || pts[i*2+1] != sy) {
+                        index = i;
+                    }
+                }
+                if (index != -1) {
+                    marks.set(index);
+                    stack.add(index, end);
+                }
+                continue;
             }
-        }
 
-        float dMax = 0;
-        int index = 0;
-        for(int i=start+1; i<end; i++){
-            float vx = input.get(i*2);
-            float vy = input.get(i*2+1);
+            float dMax = 0;
+            int index = 0;
             float ux = ex - sx;
             float uy = ey - sy;
-            float dist = (float) Math.abs((uy*vx-ux*vy+ex*sy-ey*sx)/Math.sqrt(ux*ux+uy*uy));
-            if(dist>dMax){
-                index = i;
-                dMax = dist;
+            double len = Math.sqrt(ux*ux+uy*uy);
+            for(int i=start+1; i<end; i++){
+                float vx = pts[i*2];
+                float vy = pts[i*2+1];
+                float dist = (float) Math.abs((uy*vx-ux*vy+ex*sy-ey*sx)/len);
+                if(dist>dMax){
+                    index = i;
+                    dMax = dist;
+                }
+            }
+
+            if (dMax > epsilon) {
+                marks.set(index);
+                stack.add(start, index);
+                stack.add(index, end);
             }
         }
 
-        if(dMax > epsilon){
-            int result = 0;
-            result += douglasPeucker(start,index);
-            output.remove(output.size()-1);
-            output.remove(output.size()-1);
-            result += douglasPeucker(index,end);
-            return result;
-        } else {
-            output.add(sx);
-            output.add(sy);
-            output.add(ex);
-            output.add(ey);
+        for (int i = marks.nextSetBit(0); i != -1; i = marks.nextSetBit(i+1)) {
+            output.add(pts[i*2], pts[i*2+1]);
         }
-        return 0;
     }
 
     /**
@@ -255,11 +279,41 @@ public class PathSmoother {
      * @return a list of indices representing the triangulation.
      */
     public float[] getPoints(){
-        float[] res = new float[output.size()];
-        for (int i=0; i<output.size(); i++){
-            res[i] = output.get(i);
+        return output.toArray();
+    }
+
+    /**
+     * Stores the points of the smoothed path in the given buffer.
+     *
+     * The buffer must have room for {@link #getSize} floats after the offset.
+     * Since smoothing never adds points, a buffer as large as the input is
+     * always big enough.
+     *
+     * If the calculation is not yet performed, this method will do nothing.
+     *
+     * @param buffer    The buffer to store the points
+     * @param offset    The position in the buffer of the first point
+     *
+     * @return the number of floats written to the buffer
+     */
+    public int getPoints(float[] buffer, int offset){
+        if (buffer.length-offset < output.size) {
+            throw new IllegalArgumentException("Buffer is too small for the smoothed path.");
         }
-        return res;
+        System.arraycopy(output.items, 0, buffer, offset, output.size);
+        return output.size;
+    }
+
+    /**
+     * Returns the number of floats in the smoothed path.
+     *
+     * This is twice the number of points. If the calculation is not yet
+     * performed, this method will return 0.
+     *
+     * @return the number of floats in the smoothed path.
+     */
+    public int getSize(){
+        return output.size;
     }
 
     /**
@@ -273,10 +327,59 @@ public class PathSmoother {
      * @return a polygon representing the triangulation.
      */
     public Path2 getPath(){
-        float[] res = new float[output.size()];
-        for (int i=0; i<output.size(); i++){
-            res[i] = output.get(i);
+        return new Path2(output.toArray());
+    }
+
+    /**
+     * Stores the smoothed result in the given path buffer.
+     *
+     * The points will be appended to the buffer.  You should clear the buffer
+     * first if you do not want to preserve the original data.
+     *
+     * If the calculation is not yet performed, this method will do nothing.
+     *
+     * @param buffer    The buffer to store the smoothed path
+     *
+     * @return a reference to the buffer for chaining.
+     */
+    public Path2 getPath(Path2 buffer){
+        return getPath(buffer, true);
+    }
+
+    /**
+     * Stores the smoothed result in the given path buffer.
+     *
+     * If append is true, the points will be added to the end of the buffer.
+     * Otherwise, they will replace the contents of the buffer, and the buffer
+     * will be an open path with no corners.
+     *
+     * When replacing, the vertex array of the buffer is reused if it already
+     * has the correct size.
+     *
+     * If the calculation is not yet performed, this method will do nothing.
+     *
+     * @param buffer    The buffer to store the smoothed path
+     * @param append    Whether to append to the existing buffer contents
+     *
+     * @return a reference to the buffer for chaining.
+     */
+    public Path2 getPath(Path2 buffer, boolean append){
+        if (!calculated) {
+            return buffer;
+        }
+
+        int offset = append ? buffer.vertices.length : 0;
+        float[] vertices = buffer.vertices;
+        if (vertices.length != offset+output.size) {
+            vertices = new float[offset+output.size];
+            System.arraycopy(buffer.vertices, 0, vertices, 0, offset);
+        }
+        System.arraycopy(output.items, 0, vertices, offset, output.size);
+        buffer.vertices = vertices;
+        if (!append) {
+            buffer.corners.clear();
+            buffer.closed = false;
         }
-        return new Path2(res);
+        return buffer;
     }
 }
@@ -19,10 +19,9 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
-import com.badlogic.gdx.utils.IntSet;
+import com.badlogic.gdx.utils.ShortArray;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 
 /**
@@ -46,219 +45,97 @@ public class Poly2 {
     public short[] indices;
 
     /**
-     * This class is a triangle in a mesh, interpreted as a node in tree decomposition
+     * This class is a hash table from the (directed) edges of a mesh to integers
      *
-     * Two triangles are adjacent in this decomposition if they share an edge. This
-     * dual graph is not connected, though we do track direction when we are recursively
-     * following a path.
-     *
-     * The elements in a tree node are ordered in ascending order, so that we can
-     * uniquely identify a tree node from its contents.
+     * An edge is a pair of indices, which we pack into a single long key. The table
+     * uses open addressing with linear probing. It is allocated once with enough
+     * room for every edge of the mesh, so it never needs to grow, and it does not
+     * allocate any objects per edge (unlike a HashMap with boxed or String keys).
      */
-    private class TreeNode{
-        /** Hash function for a tree node */
-        float hashCode;
-
-        /** The elements of this triangle */
-        short[] elements = new short[3];
-
-        /** The adjacent neighbors to this node */
-        ArrayList<TreeNode> neighbors = new ArrayList<>();
+    private static class EdgeMap {
+        /** The key marking an empty slot (no packed edge can have this value) */
+        static final long EMPTY = -1L;
 
-        /** The node pointing to this one in a traversal */
-        TreeNode previous;
+        /** The packed edge keys */
+        long[] keys;
+        /** The value for each key */
+        int[] values;
+        /** The bit mask for a table index (the table size is a power of two) */
+        int mask;
 
         /**
-         * Creates a Poly2TreeNode from the given three elements.
+         * Creates an edge map with capacity for the given number of edges.
          *
-         * @param a The first element
-         * @param b The second element
-         * @param c The third element
+         * @param capacity  The maximum number of edges in the table
          */
-        public TreeNode(short a, short b, short c){
-            elements[0] = (short) Math.min( a, Math.min( b, c ) );
-            elements[2] = (short) Math.max( a, Math.max( b, c ) );
-            elements[1] = a;
-            if (elements[0] == elements[1] || elements[2] == elements[1]) {
-                elements[1] = b;
+        EdgeMap(int capacity) {
+            int size = 4;
+            while (size < capacity*2) {
+                size <<= 1;
             }
-            if (elements[0] == elements[1] || elements[2] == elements[1]) {
-                elements[1] = c;
-            }
-            hashCode = a+37*b+37*37*c;
+            keys = new long[size];
+            values = new int[size];
+            mask = size-1;
+            java.util.Arrays.fill(keys, EMPTY);
         }
 
         /**
-         * Returns true if o is a TreeNode equal to this one
+         * Returns the packed key for the edge from a to b
          *
-         * Since TreeNode objects sort their contents, o must have its elements in
-         * the same order as this on.
+         * The indices are treated as unsigned, so this supports meshes with
+         * up to 65536 vertices.
          *
-         * @return true if o is a TreeNode equal to this one
-         */
-        public boolean equals(TreeNode o){
-            return elements[0] == o.elements[0] && elements[1] == o.elements[1] && elements[2] == o.elements[2];
-        }
-
-        /**
-         * Returns a string representation of this tree node
+         * @param a The index at the start of the edge
+         * @param b The index at the end of the edge
          *
-         * @return a string representation of this tree node
+         * @return the packed key for the edge from a to b
          */
-        public String toString(){
-            return String.valueOf(elements[0])+" "+String.valueOf(elements[1])+" "+String.valueOf(elements[2]);
+        static long key(int a, int b) {
+            return ((long)(a & 0xFFFF) << 16) | (b & 0xFFFF);
         }
 
         /**
-         * Returns a string representation of a tree node with the given elements
+         * Returns the table slot for the given key
          *
-         * This method allows us to get the string of a tree node (from its contents)
-         * without actually having to construct the tree node itself.  This is useful
-         * for hashtable lookups.
+         * The slot either contains the key or is empty.
          *
-         * @param a The first element
-         * @param b The second element
-         * @param c The third element
+         * @param key   The packed edge key
          *
-         * @return a string representation of a tree node with the given elements
+         * @return the table slot for the given key
          */
-        public String toString(short a, short b, short c){
-            short indx1 = (short) Math.min( a, Math.min( b, c ) );
-            short indx3 = (short) Math.max( a, Math.max( b, c ) );
-            short indx2 = a;
-            if (indx1 == indx2 || indx3 == indx2) {
-                indx2 = b;
-            }
-            if (indx1 == indx2 || indx3 == indx2) {
-                indx2 = c;
+        int slot(long key) {
+            int pos = (int)((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (keys[pos] != EMPTY && keys[pos] != key) {
+                pos = (pos+1) & mask;
             }
-            return String.valueOf(indx1)+" "+String.valueOf(indx2)+" "+String.valueOf(indx3);
-        }
-
-        /**
-         * Returns true if x is an element in this node
-         *
-         * @param x The element to check
-         *
-         * @return true if x is an element in this node
-         */
-        public boolean contains(int x){
-            return x >= 0 && (elements[0] == x || elements[1] == x || elements[2] == x);
+            return pos;
         }
 
         /**
-         * Returns true if node is adjacent to this one.
-         *
-         * A node is adjacent if it shares exactly one side.
+         * Returns the value for the given key, or -1 if it is not present.
          *
-         * @param node  The node to check
+         * @param key   The packed edge key
          *
-         * @return true if node is adjacent to this one.
+         * @return the value for the given key, or -1 if it is not present.
          */
-        public boolean adjacent(TreeNode node){
-            int count = 0;
-            for (int i = 0; i < 3; i++) {
-                count += contains( node.elements[i] ) ? 1 : 0;
-            }
-            return count == 2;
+        int get(long key) {
+            int pos = slot(key);
+            return keys[pos] == EMPTY ? -1 : values[pos];
         }
 
         /**
-         * Returns a boundary index from the node, not in inuse
+         * Stores the value for the given key, if the key is not present.
          *
-         * A boundary index is either one that does not appear in any
-         * of its neighbors (so this is an ear in a triangulation) or
-         * only appears in one neighbor (so this is the either the first
-         * or last triangle with this index in a normal traversal).
-         *
-         * If no boundary index can be found, or they are all already
-         * in inuse, this method returns -1.
-         *
-         * @param inuse The indices to exclude from the search
-         *
-         * @return a boundary index from the node, not in inuse
+         * @param key   The packed edge key
+         * @param value The value to store
          */
-        public int pick(IntSet inuse) {
-            int[] count = new int[3];
-            count[0] = 0;
-            count[1] = 0;
-            count[2] = 0;
-            for (TreeNode node : neighbors) {
-                for (int i = 0; i < 3; i++) {
-                    if (node.contains( elements[i] )) {
-                        count[i]++;
-                    }
-                }
-            }
-            int ptr = -1;
-            for (int ii = 0; ii < 3; ii++) {
-                if ((count[ii] == 0 || count[ii] == 1)) {
-                    if (!inuse.contains(elements[ii])) {
-                        if (ptr == -1) {
-                            ptr = ii;
-                        } else if (count[ii] < count[ptr]) {
-                            ptr = ii;
-                        }
-                    }
-                }
-            }
-
-            return ptr != -1 ? elements[ptr] : -1;
-        }
-
-        /**
-         * Returns the opposite transition point for the given index.
-         *
-         * A transition point is a node that contains index and for which index is
-         * a boundary value (either it has no neighbors with the same index or only
-         * one neighbor).  It represents the first and/or last triangle with this
-         * index in a normal traversal.
-         *
-         * If there is only one triangle with this index, this method returns this
-         * node.  Otherwise, if this node corresponds to the first triangle, it
-         * returns the last, and vice versa.  By following indices, we create a
-         * traversal that can find an exterior boundary.
-         *
-         * @param index The index defining the traversal
-         *
-         * @return the opposite transition point for the given index.
-         */
-        public TreeNode follow(int index){
-            previous = null;
-            return crawl( index );
-        }
-
-        /**
-         * Returns the opposite transition point for the given index.
-         *
-         * This method is the recursive helper for {@link #follow}. It uses
-         * the internal previous attribute to track direction.
-         *
-         * @param index The index defining the traversal
-         *
-         * @return the opposite transition point for the given index.
-         */
-        public TreeNode crawl(int index){
-            if (!contains(index)) {
-                return null;
-            }
-
-            TreeNode next = null;
-            for (TreeNode node : neighbors) {
-                if (node != previous && node.contains( index )) {
-                    next = node;
-                }
+        void putIfAbsent(long key, int value) {
+            int pos = slot(key);
+            if (keys[pos] == EMPTY) {
+                keys[pos] = key;
+                values[pos] = value;
             }
-
-            if (next == null) {
-                return this;
-            } else if (next.previous == this) {
-                return null;
-            }
-            next.previous = this;
-            return next.crawl( index );
         }
-
     }
 
     /**
@@ -625,52 +502,48 @@ public class Poly2 {
     }
 
     /**
-     * Returns the setx of indices that are on a boundary of this polygon
+     * Returns the set of indices that are on a boundary of this polygon
      *
      * This method can identify the outer hull using the graph properties of the
-     * triangle mesh. An internal node if the number of neighbors is the same as
-     * the number of attached triangles. An index that is not internal is external.
+     * triangle mesh. An edge is a boundary edge if it belongs to only one triangle.
+     * An index is external if it is the end of a boundary edge.
      *
      * Unlike {@link #boundaries}, this method does not order the boundary indices
-     * or decompose them into connected components.
+     * or decompose them into connected components. The indices are returned in
+     * ascending order.
      *
      * @return the set of indices that are on a boundary of this polygon
      */
     public short[] exterior() {
-        HashMap<Integer, ArrayList<Short>> neighbors = new HashMap<>();
-        HashMap<Integer, Integer> count = new HashMap<>();
-
-        for (int i=0; i< indices.length; i+=3){
-            for(int j=0; j<3; j++){
-                int ind = indices[i+j];
-                ArrayList<Short> search = neighbors.get(ind);
-                ArrayList<Short> slot;
-                if (search == null){
-                    slot = new ArrayList<>();
-                    neighbors.put(ind,slot);
-                    count.put(ind,0);
-                } else {
-                    slot = search;
+        short[] tris = new short[indices.length];
+        EdgeMap edges = new EdgeMap(indices.length);
+        int size = orient(tris, edges);
+
+        boolean[] marks = new boolean[vertices.length/2];
+        int total = 0;
+        for (int h = 0; h < size; h++) {
+            int a = tris[h] & 0xFFFF;
+            int b = tris[successor(h)] & 0xFFFF;
+            if (edges.get(EdgeMap.key(b, a)) == -1) {
+                if (!marks[a]) {
+                    marks[a] = true;
+                    total++;
+                }
+                if (!marks[b]) {
+                    marks[b] = true;
+                    total++;
                 }
-
-                slot.add(indices[i+((j+1) % 3)]);
-                slot.add(indices[i+((j+2) % 3)]);
-                count.put(ind, count.get(ind)+1);
-                neighbors.put(ind,slot);
             }
         }
 
-        ArrayList<Short> res = new ArrayList<>();
-        for (int i=0; i< vertices.length; i+=2){
-            if(neighbors.get(i/2).size() > count.get(i/2)){
-                res.add((short) (i/2));
+        short[] result = new short[total];
+        int pos = 0;
+        for (int ii = 0; ii < marks.length; ii++) {
+            if (marks[ii]) {
+                result[pos++] = (short)ii;
             }
         }
-        short[] resC = new short[res.size()];
-        for (int i=0; i< res.size(); i++){
-            resC[i] = res.get(i);
-        }
-        return resC;
+        return result;
     }
 
     /**
@@ -687,88 +560,123 @@ public class Poly2 {
      * as a separate boundary. There is no guarantee on the order of boundaries
      * returned.
      *
+     * Outer boundaries are counter-clockwise, while the boundaries of holes are
+     * clockwise.  This method runs in time linear in the size of the mesh.
+     *
      * @return the connected boundary components for this polygon.
      */
     public short[][] boundaries() {
-        // Create the decomposition
-        HashMap<String,TreeNode> decomp = new HashMap<>();
-        for(int ii = 0; ii < indices.length; ii += 3) {
-            TreeNode current = new TreeNode(indices[ii],indices[ii+1],indices[ii+2]);
-            String key = current.toString();
-            if (!decomp.containsKey(key)){
-                for (TreeNode node : decomp.values()) {
-                    if (node.adjacent( current )) {
-                        node.neighbors.add(current);
-                        current.neighbors.add(node);
-                    }
-                }
-                decomp.put(key,current);
+        // Every triangle side is a half-edge.  A half-edge is on the boundary
+        // if the opposite half-edge is not in the mesh.
+        short[] tris = new short[indices.length];
+        EdgeMap edges = new EdgeMap(indices.length);
+        int size = orient(tris, edges);
+
+        boolean[] used = new boolean[size];
+        ArrayList<short[]> res = new ArrayList<>();
+        ShortArray array = new ShortArray();
+        for (int h = 0; h < size; h++) {
+            if (used[h] || edges.get(EdgeMap.key(tris[successor(h)], tris[h])) != -1) {
+                continue;
             }
+
+            // Follow the boundary until we are back where we started
+            array.clear();
+            int curr = h;
+            while (curr != -1 && !used[curr]) {
+                used[curr] = true;
+                array.add(tris[curr]);
+                curr = nextBoundary(tris, edges, curr, size);
+            }
+            res.add(array.toArray());
         }
 
-        // Create arrays for the result and to track our progress
-        IntSet total = new IntSet();
-        IntSet inuse = new IntSet();
-        for(short n: indices){
-            total.add(n);
+        short[][] result = new short[res.size()][];
+        for (int i=0; i< res.size(); i++){
+            result[i] = res.get(i);
         }
-        boolean abort = false;
-        ArrayList<ArrayList<Short>> res = new ArrayList<>();
-        while (inuse.size != total.size && !abort) {
-            ArrayList<Short> array = new ArrayList<>();
-            // Pick a valid (exterior) starting point at the correct position
-            TreeNode current = null;
-            int start = -1;
-            for (TreeNode node : decomp.values()) {
-                start = node.pick(inuse);
-                if (start != -1) {
-                    current = node;
-                }
-            }
+        return result;
+    }
 
-            // Self-crossings may allow a point to be reused, so we
-            // need a local "visited" set for each path.
-            IntSet visited = new IntSet();
-            if (start != -1) {
-                // Follow the path until no more indices to pick
-                int index = start;
-                current = current.follow( index );
-                while (current != null) {
-                    visited.add( index );
-                    array.add((short) index);
-                    index = current.pick( visited );
-                    current = current.follow( index );
-                }
-                // Add this to the global results
-                IntSet.IntSetIterator it = new IntSet.IntSetIterator(visited);
-                while(it.hasNext){
-                    inuse.add(it.next());
-                }
-                res.add(array);
+    /**
+     * Copies the triangles into tris with a counter-clockwise orientation.
+     *
+     * Each side of a triangle is recorded in edges as a half-edge, mapped to its
+     * position in tris. The half-edge at position h goes from tris[h] to
+     * tris[successor(h)]. Duplicate triangles are skipped.
+     *
+     * @param tris  The buffer to store the oriented triangles
+     * @param edges The map to store the half-edges
+     *
+     * @return the number of indices stored in tris
+     */
+    private int orient(short[] tris, EdgeMap edges) {
+        int size = 0;
+        for (int ii = 0; ii+2 < indices.length; ii += 3) {
+            int a = indices[ii] & 0xFFFF;
+            int b = indices[ii+1] & 0xFFFF;
+            int c = indices[ii+2] & 0xFFFF;
+            float ax = vertices[2*a];
+            float ay = vertices[2*a+1];
+            float cross = (vertices[2*b]-ax)*(vertices[2*c+1]-ay)-(vertices[2*b+1]-ay)*(vertices[2*c]-ax);
+            if (cross < 0) {
+                int t = b;
+                b = c;
+                c = t;
+            }
 
-                // Reset the tree node internal state for next pass
-                if (inuse.size != total.size) {
-                    for (TreeNode node : decomp.values()) {
-                        node.previous = null;
-                    }
-                }
-            } else {
-                // All the indices found were internal
-                abort = true;
+            long ab = EdgeMap.key(a, b);
+            long bc = EdgeMap.key(b, c);
+            long ca = EdgeMap.key(c, a);
+            if (edges.get(ab) != -1 && edges.get(bc) != -1 && edges.get(ca) != -1) {
+                continue;
             }
+            edges.putIfAbsent(ab, size);
+            edges.putIfAbsent(bc, size+1);
+            edges.putIfAbsent(ca, size+2);
+            tris[size++] = (short)a;
+            tris[size++] = (short)b;
+            tris[size++] = (short)c;
         }
+        return size;
+    }
 
-        // Algorithm produces borders with REVERSE orientation (outside is CW)
-        // We need to reverse all of them to guarantee CCW rule
-        short[][] result = new short[res.size()][];
-        for (int i=0; i< res.size(); i++){
-            short[] n = new short[res.get(res.size()-1-i).size()];
-            for (int m=0; m<res.get(res.size()-1-i).size(); m++){
-                n[m] = res.get(res.size()-1-i).get(m);
+    /**
+     * Returns the position of the next half-edge in the same triangle.
+     *
+     * @param h The position of a half-edge
+     *
+     * @return the position of the next half-edge in the same triangle.
+     */
+    private static int successor(int h) {
+        return h % 3 == 2 ? h-2 : h+1;
+    }
+
+    /**
+     * Returns the boundary half-edge following the given one, or -1 if none.
+     *
+     * The next half-edge starts at the end of the given one. We find it by
+     * rotating through the fan of triangles attached to that end, starting from
+     * the triangle of the given half-edge. Staying within a single fan means
+     * that vertices shared by two boundaries are handled correctly.
+     *
+     * @param tris  The oriented triangles
+     * @param edges The half-edges of the triangles
+     * @param h     The position of a boundary half-edge
+     * @param size  The number of indices in tris
+     *
+     * @return the boundary half-edge following the given one, or -1 if none.
+     */
+    private static int nextBoundary(short[] tris, EdgeMap edges, int h, int size) {
+        int g = successor(h);
+        for (int ii = 0; ii < size; ii += 3) {
+            int twin = edges.get(EdgeMap.key(tris[successor(g)], tris[g]));
+            if (twin == -1) {
+                return g;
             }
-            result[i] = n;
+            g = successor(twin);
         }
-        return result;
+        return -1;
     }
 
     /**
@@ -61,11 +61,51 @@ public class Spline2 {
     public boolean[] smooth;
     /** Whether the spline is closed. This effects editing and polygon approximation */
     public boolean closed;
+    /**
+     * The version of each segment of this spline.
+     *
+     * A segment version changes whenever the control points of that segment
+     * change.  This allows factories like {@link SplinePather} to cache their
+     * results per segment.  Versions are never reused, so any structural change
+     * (adding or deleting a segment) gives every segment a new version.
+     */
+    private int[] versions;
+    /** The most recent version assigned to a segment */
+    private int revision;
+
+    // The nearest point queries use a bounding volume hierarchy over the segments.
+    // Each segment is bounded by the box of its four control points (which contains
+    // the convex hull, and hence the curve).  The hierarchy is rebuilt lazily, on
+    // the first query after any segment has changed.
+    /** The bounds of each hierarchy node (minx, miny, maxx, maxy) */
+    private float[] nodeBounds;
+    /** The first child of each internal node, or the first segment (in nodeOrder) of a leaf */
+    private int[] nodeFirst;
+    /** The number of segments in each leaf node (0 for internal nodes) */
+    private int[] nodeCount;
+    /** The segments of this spline, ordered so that each leaf is a contiguous range */
+    private int[] nodeOrder;
+    /** The center of the bounds of each segment (used to build the hierarchy) */
+    private float[] nodeCenters;
+    /** The depth of the hierarchy (a single leaf has depth 1) */
+    private int nodeDepth;
+    /** The number of nodes in the hierarchy */
+    private int nodes;
+    /** Whether the hierarchy must be rebuilt before the next query */
+    private boolean hierarchyDirty;
+    /** The traversal stack for the nearest point queries (sized by buildHierarchy) */
+    private int[] nodeStack;
 
-    /** Maximum recursion depth for de Castlejau's */
-    private final int MAX_DEPTH = 8;
     /** Tolerance to identify a point as "smooth" */
     private final float SMOOTH_TOLERANCE = 0.0001f;
+    /** The maximum number of segments in a leaf of the hierarchy */
+    private final int LEAF_SIZE = 4;
+    /** The number of samples used to seed the projection onto a segment */
+    private final int PROJECTION_SAMPLES = 16;
+    /** The maximum number of Newton iterations to refine a projection */
+    private final int NEWTON_STEPS = 8;
+    /** The parameter tolerance at which Newton iteration stops */
+    private final float NEWTON_TOLERANCE = 0.000001f;
 
     /**
      * Creates a degenerate spline of one point
@@ -85,6 +125,7 @@ public class Spline2 {
         points[1] = point.y;
         closed = false;
         size = 0;
+        invalidate();
     }
 
     /**
@@ -113,6 +154,7 @@ public class Spline2 {
         points[7] = end.y;
         closed = (start.equals(end));
         size = 1;
+        invalidate();
     }
 
     /**
@@ -139,6 +181,7 @@ public class Spline2 {
         for(int i=1; i<size;i++){
             smooth[i] = checkSmooth(i);
         }
+        invalidate();
     }
 
     /**
@@ -151,6 +194,7 @@ public class Spline2 {
         closed = spline.closed;
         points = spline.points;
         smooth = spline.smooth;
+        invalidate();
     }
 
     /**
@@ -173,6 +217,7 @@ public class Spline2 {
         points[1] = point.y;
         closed = false;
         size = 0;
+        invalidate();
         return this;
     }
 
@@ -204,6 +249,7 @@ public class Spline2 {
         points[7] = end.y;
         closed = (start.equals(end));
         size = 1;
+        invalidate();
         return this;
     }
 
@@ -233,6 +279,7 @@ public class Spline2 {
         for(int i=1; i<size;i++){
             smooth[i] = checkSmooth(i);
         }
+        invalidate();
         return this;
     }
 
@@ -248,6 +295,7 @@ public class Spline2 {
         closed = spline.closed;
         points = spline.points;
         smooth = spline.smooth;
+        invalidate();
         return this;
     }
 
@@ -297,6 +345,69 @@ public class Spline2 {
         return size;
     }
 
+    /**
+     * Returns the version of the given segment
+     *
+     * The version of a segment changes whenever the control points of that
+     * segment change through the methods of this class.  Versions are never
+     * reused, so a cached computation for a segment is valid as long as the
+     * version has not changed.  If you modify the array returned by
+     * {@link #getControlPoints} directly, you should call {@link #touch} to
+     * keep the versions correct.
+     *
+     * @param  segment  the bezier segment
+     *
+     * @return the version of the given segment
+     */
+    public int getVersion(int segment) {
+        if(!(segment >= 0 && segment < size)) throw new IllegalArgumentException("Segment out of bounds");
+        return versions[segment];
+    }
+
+    /**
+     * Marks the given segment as changed, assigning it a new version.
+     *
+     * Only call this method if you have modified the control points directly.
+     * The other methods of this class update the versions automatically.
+     *
+     * @param  segment  the bezier segment
+     */
+    public void touch(int segment) {
+        if (segment >= 0 && segment < size) {
+            versions[segment] = ++revision;
+            hierarchyDirty = true;
+        }
+    }
+
+    /**
+     * Marks the segments attached to the given anchor as changed.
+     *
+     * @param  index    the anchor index
+     */
+    private void touchAnchor(int index) {
+        touch(index-1);
+        touch(index);
+        if (closed && index == 0) {
+            touch(size-1);
+        } else if (closed && index == size) {
+            touch(0);
+        }
+    }
+
+    /**
+     * Assigns a new version to every segment of this spline.
+     *
+     * This method is called whenever the number of segments changes.
+     */
+    private void invalidate() {
+        if (versions == null || versions.length != size) {
+            versions = new int[size];
+        }
+        revision++;
+        java.util.Arrays.fill(versions, revision);
+        hierarchyDirty = true;
+    }
+
     /**
      * Returns true if the spline is closed.
      *
@@ -332,6 +443,24 @@ public class Spline2 {
      * @return the spline point for parameter tp
      */
     private Vector2 getPoint(int segment, float tp){
+        return getPoint(segment, tp, new Vector2());
+    }
+
+    /**
+     * Stores the spline point for parameter tp in the given vector.
+     *
+     * This method is like the public getPoint(), except that it is restricted
+     * to a single bezier segment.  A bezier is parameterized with tp in 0..1,
+     * with tp = 0 representing the first anchor and tp = 1 representing the
+     * second.
+     *
+     * @param  segment  the bezier segment to select from
+     * @param  tp       the parameterization value
+     * @param  out      the vector to store the result
+     *
+     * @return the vector out, for chaining
+     */
+    private Vector2 getPoint(int segment, float tp, Vector2 out){
         if (!(segment >= 0 && segment < size)) throw new IllegalArgumentException("Illegal spline segment");
         if (!(tp >= 0.0f && tp <= 1.0f)) throw new IllegalArgumentException("Illegal segment parameter");
 
@@ -347,7 +476,7 @@ public class Spline2 {
         float x = a*points[index*2] + b*points[index*2+2] + c*points[index*2+4] + d*points[index*2+6];
         float y = a*points[index*2+1] + b*points[index*2+3] + c*points[index*2+5] + d*points[index*2+7];
 
-        return new Vector2(x,y);
+        return out.set(x,y);
     }
 
     /**
@@ -367,6 +496,21 @@ public class Spline2 {
         return getPoint((int)tp,tp-(int)tp);
     }
 
+    /**
+     * Stores the spline point for parameter tp in the given vector.
+     *
+     * This method is the same as {@link #getPoint(float)}, except that it
+     * does not allocate a new vector.
+     *
+     * @param  tp   the parameterization value
+     * @param  out  the vector to store the result
+     *
+     * @return the vector out, for chaining
+     */
+    public Vector2 getPoint(float tp, Vector2 out) {
+        return getPoint((int)tp,tp-(int)tp,out);
+    }
+
     /**
      * Sets the spline point at parameter tp.
      *
@@ -441,6 +585,7 @@ public class Spline2 {
 
         points[3 * index * 2] = point.x;
         points[3 * index * 2+1] = point.y;
+        touchAnchor(index);
     }
 
     /**
@@ -523,6 +668,7 @@ public class Spline2 {
             points[3*rindx*2-1] = points[3*index*2+1] + temp0.y;
             points[3*index*2+1] = points[3*index*2] - temp1.x;
             points[3*index*2+2] = points[3*index*2+1] - temp1.y;
+            touchAnchor(index);
         }
     }
 
@@ -608,6 +754,7 @@ public class Spline2 {
 
         points[tangt1*2] = tang.x;
         points[tangt1*2+1] = tang.y;
+        touchAnchor(spline);
     }
 
     /**
@@ -675,6 +822,7 @@ public class Spline2 {
             newP[points.length+5] = point.y;
             points = newP;
             size++;
+            invalidate();
         }
         return size;
     }
@@ -745,6 +893,7 @@ public class Spline2 {
         newP[points.length+5] = point.y;
         points = newP;
         size++;
+        invalidate();
         return size;
     }
 
@@ -786,6 +935,7 @@ public class Spline2 {
         newP[points.length+3] = point.y + 2.0f/3.0f * (control.y - point.y);
         points = newP;
         size++;
+        invalidate();
         return  size;
     }
 
@@ -823,6 +973,7 @@ public class Spline2 {
         points = newP;
         smooth = newS;
         size--;
+        invalidate();
     }
 
     /**
@@ -867,6 +1018,7 @@ public class Spline2 {
         points = newP;
         smooth = newS;
         size++;
+        invalidate();
     }
 
     /**
@@ -895,10 +1047,8 @@ public class Spline2 {
     /**
      * Returns the nearest point on the spline to the given point.
      *
-     * The value is effectively the projection of the point onto the curve.  We
-     * compute this point using the projection polynomial, described at
-     *
-     * http://jazzros.blogspot.com/2011/03/projecting-point-on-bezier-curve.html
+     * The value is effectively the projection of the point onto the curve.
+     * See {@link #nearestParameter} for how this point is computed.
      *
      * The point returned does not need to be an anchor point.  It can be anywhere
      * on the curve.  This allows us a way to select a non-anchor point with the
@@ -910,34 +1060,159 @@ public class Spline2 {
      * @return the nearest point on the spline to the given point.
      */
     public Vector2 nearestPoint(Vector2 point){
-        return getPoint(nearestParameter(point));
+        return nearestPoint(point, new Vector2());
+    }
+
+    /**
+     * Stores the nearest point on the spline to the given point in out.
+     *
+     * This method is the same as {@link #nearestPoint(Vector2)}, except that
+     * it does not allocate a new vector.  The vectors point and out may be
+     * the same.
+     *
+     * @param  point    the point to project
+     * @param  out      the vector to store the result
+     *
+     * @return the vector out, for chaining
+     */
+    public Vector2 nearestPoint(Vector2 point, Vector2 out){
+        if (size == 0) {
+            return (points.length == 0 ? out.set(point) : out.set(points[0], points[1]));
+        }
+        float param = nearestParameter(point.x, point.y);
+        int segment = Math.min((int)param, size-1);
+        return getPoint(segment, param-segment, out);
     }
 
     /**
      * Returns the parameterization of the nearest point on the spline.
      *
      * The value is effectively the projection of the point onto the parametrized
-     * curve. See getPoint() for an explanation of how the parameterization work. We
-     * compute this value using the projection polynomial, described at
+     * curve. See getPoint() for an explanation of how the parameterization work.
+     *
+     * The segments are searched with a bounding volume hierarchy, skipping
+     * any segment whose bounds are further away than the best point found so
+     * far.  On each remaining segment, the projection is seeded by sampling the
+     * curve and then refined with Newton's method on the projection polynomial
      *
      * http://jazzros.blogspot.com/2011/03/projecting-point-on-bezier-curve.html
      *
+     * If the spline has no segments, this method returns 0.
+     *
+     * Like the rest of this class, this method is not thread-safe. The
+     * hierarchy is rebuilt lazily by the first query after a change, and the
+     * traversal uses a stack owned by this spline. To query a spline from
+     * several threads, use {@link #nearestParameter(float, float, int[])}.
+     *
      * @param  point    the point to project
      *
      * @return the parameterization of the nearest point on the spline.
      */
     public float nearestParameter(Vector2 point) {
-        float tmin = -1;
-        float dmin = -1;
-        int smin = -1;
-
-        for (int i = 0; i < size; i++) {
-            Vector2 pair = getProjectionSlow(point, i);
-            if (smin == -1 || pair.y < dmin) {
-                tmin = pair.x; dmin = pair.y; smin = i;
+        return nearestParameter(point.x, point.y);
+    }
+
+    /**
+     * Returns the parameterization of the nearest point on the spline.
+     *
+     * This method is the same as {@link #nearestParameter(Vector2)}, except
+     * that it takes the coordinates of the point directly.
+     *
+     * @param  x    the x-coordinate of the point to project
+     * @param  y    the y-coordinate of the point to project
+     *
+     * @return the parameterization of the nearest point on the spline.
+     */
+    public float nearestParameter(float x, float y) {
+        if (size == 0) {
+            return 0;
+        } else if (hierarchyDirty) {
+            buildHierarchy();
+        }
+        return nearestParameter(x, y, nodeStack);
+    }
+
+    /**
+     * Returns the parameterization of the nearest point on the spline.
+     *
+     * This method is the same as {@link #nearestParameter(float, float)},
+     * except that the traversal uses the given scratch buffer instead of the
+     * stack owned by this spline. The buffer must have at least
+     * {@link #getScratchSize()} elements.
+     *
+     * This method does not rebuild the hierarchy.  Hence several threads may
+     * query the same spline at once (each with its own buffer), provided that
+     * {@link #getScratchSize()} was called after the last change to the spline,
+     * and that no thread modifies the spline during the queries.
+     *
+     * @param  x        the x-coordinate of the point to project
+     * @param  y        the y-coordinate of the point to project
+     * @param  scratch  the traversal stack for this query
+     *
+     * @return the parameterization of the nearest point on the spline.
+     */
+    public float nearestParameter(float x, float y, int[] scratch) {
+        if (size == 0) {
+            return 0;
+        } else if (hierarchyDirty) {
+            throw new IllegalStateException("Hierarchy is out of date; call getScratchSize() first");
+        } else if (scratch.length < nodeDepth+1) {
+            throw new IllegalArgumentException("Scratch buffer is too small");
+        }
+
+        // Depth first, so the stack never holds more than one node per level
+        float best = Float.POSITIVE_INFINITY;
+        float result = 0;
+        int top = 0;
+        scratch[top++] = 0;
+        while (top > 0) {
+            int node = scratch[--top];
+            if (getNodeDistance(node, x, y) > best) {
+                continue;
+            }
+
+            int first = nodeFirst[node];
+            if (nodeCount[node] > 0) {
+                for (int i = first; i < first+nodeCount[node]; i++) {
+                    int segment = nodeOrder[i];
+                    float tp = getProjection(segment, x, y);
+                    float d = getDistance(segment, tp, x, y);
+                    if (d < best || (d == best && segment+tp < result)) {
+                        best = d;
+                        result = segment+tp;
+                    }
+                }
+            } else {
+                // Visit the nearer child first
+                float d0 = getNodeDistance(first, x, y);
+                float d1 = getNodeDistance(first+1, x, y);
+                int near = d0 <= d1 ? first : first+1;
+                int far  = d0 <= d1 ? first+1 : first;
+                if (Math.max(d0, d1) <= best) {
+                    scratch[top++] = far;
+                }
+                if (Math.min(d0, d1) <= best) {
+                    scratch[top++] = near;
+                }
             }
         }
-        return smin + tmin;
+        return result;
+    }
+
+    /**
+     * Returns the size of a scratch buffer for {@link #nearestParameter(float, float, int[])}
+     *
+     * This method rebuilds the hierarchy if the spline has changed since the
+     * last query. Hence it must be called on one thread, before any concurrent
+     * queries.
+     *
+     * @return the size of a scratch buffer for {@link #nearestParameter(float, float, int[])}
+     */
+    public int getScratchSize() {
+        if (size > 0 && hierarchyDirty) {
+            buildHierarchy();
+        }
+        return nodeDepth+1;
     }
 
     /**
@@ -1010,6 +1285,7 @@ public class Spline2 {
         smooth = new boolean[0];
         closed = false;
         size = 0;
+        invalidate();
     }
 
     /**
@@ -1067,45 +1343,282 @@ public class Spline2 {
      * Returns the parameterization of the nearest point on the bezier segment.
      *
      * The value is effectively the projection of the point onto the parametrized
-     * curve. See getPoint() for an explanation of how the parameterization work.
+     * curve, with 0 representing the first anchor of the segment and 1 the second.
      *
-     * This version does not use the projection polynomial.  Instead, it picks
-     * a parameter resolution and walks the entire length of the curve.  The
-     * result is both slow and inexact (as the actual point may be in-between
-     * chose parameters). This version is only picked when getProjectionFast
-     * fails because of an error with root finding.
+     * This method samples the segment at a coarse resolution, and then refines
+     * every local minimum of the samples with Newton's method (see {@link #refine}).
+     * A curved segment can have more than one local minimum, so refining only
+     * the best sample is not enough.
      *
-     * The value returned is a pair of the parameter, and its distance value.
-     * This allows us to compare this result to other segments, picking the
-     * best value for the entire spline.
+     * @param  segment  the bezier segment to project upon
+     * @param  x        the x-coordinate of the point to project
+     * @param  y        the y-coordinate of the point to project
+     *
+     * @return the parameterization of the nearest point on the segment.
+     */
+    private float getProjection(int segment, float x, float y) {
+        float best = Float.POSITIVE_INFINITY;
+        float result = 0;
+
+        float prev = Float.POSITIVE_INFINITY;
+        float curr = getDistance(segment, 0, x, y);
+        for(int i=0; i<=PROJECTION_SAMPLES; i++) {
+            float next = Float.POSITIVE_INFINITY;
+            if (i < PROJECTION_SAMPLES) {
+                next = getDistance(segment, ((float)(i+1)) / PROJECTION_SAMPLES, x, y);
+            }
+            if (curr <= prev && curr <= next) {
+                float t = ((float)i) / PROJECTION_SAMPLES;
+                float d = curr;
+                float s = refine(segment, t, x, y);
+                float e = getDistance(segment, s, x, y);
+                if (e < d) {
+                    t = s;
+                    d = e;
+                }
+                if (d < best) {
+                    best = d;
+                    result = t;
+                }
+            }
+            prev = curr;
+            curr = next;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the parameter of a local minimum of distance near the given one.
+     *
+     * This method applies Newton's method to the derivative of the squared
+     * distance (the projection polynomial), starting at tp.  The result is
+     * clamped to the segment, and may be further away than tp if the iteration
+     * diverges.
      *
-     * @param  point    the point to project
      * @param  segment  the bezier segment to project upon
+     * @param  tp       the initial parameter value
+     * @param  x        the x-coordinate of the point to project
+     * @param  y        the y-coordinate of the point to project
      *
-     * @return the parameterization of the nearest point on the spline.
+     * @return the parameter of a local minimum of distance near the given one.
      */
-    private Vector2 getProjectionSlow(Vector2 point, int segment) {
-        Vector2 result = new Vector2(-1,-1);
-        int RESOLUTION = (1 << MAX_DEPTH);
-
-        for(int i=0; i<RESOLUTION; i++) {
-            float t = ((float)i) / RESOLUTION;
-            Vector2 temp0 = getPoint(segment,t);
-            temp0 = temp0.sub(point);
-            float d = temp0.len2();
-            if (result.x == -1 || d < result.y) {
-                result.x = t; result.y = d;
+    private float refine(int segment, float tp, float x, float y) {
+        int index = 6*segment;
+        float p0x = points[index  ];
+        float p0y = points[index+1];
+        float p1x = points[index+2];
+        float p1y = points[index+3];
+        float p2x = points[index+4];
+        float p2y = points[index+5];
+        float p3x = points[index+6];
+        float p3y = points[index+7];
+
+        float t = tp;
+        for(int i=0; i<NEWTON_STEPS; i++) {
+            float s = 1-t;
+            float a = s*s*s;
+            float b = 3*t*s*s;
+            float c = 3*t*t*s;
+            float d = t*t*t;
+            float dx = a*p0x + b*p1x + c*p2x + d*p3x - x;
+            float dy = a*p0y + b*p1y + c*p2y + d*p3y - y;
+
+            // First derivative
+            float d1x = 3*(s*s*(p1x-p0x) + 2*s*t*(p2x-p1x) + t*t*(p3x-p2x));
+            float d1y = 3*(s*s*(p1y-p0y) + 2*s*t*(p2y-p1y) + t*t*(p3y-p2y));
+
+            // Second derivative
+            float d2x = 6*(s*(p2x-2*p1x+p0x) + t*(p3x-2*p2x+p1x));
+            float d2y = 6*(s*(p2y-2*p1y+p0y) + t*(p3y-2*p2y+p1y));
+
+            float num = dx*d1x + dy*d1y;
+            float den = d1x*d1x + d1y*d1y + dx*d2x + dy*d2y;
+            if (den <= 0) {
+                break;
+            }
+
+            float next = Math.max(0.0f, Math.min(1.0f, t - num/den));
+            boolean done = Math.abs(next-t) < NEWTON_TOLERANCE;
+            t = next;
+            if (done) {
+                break;
             }
         }
+        return t;
+    }
 
-        // Compare the last point.
-        float tx = points[3*size*2] - point.x;
-        float ty = points[3*size*2+1] - point.y;
-        float d = tx*tx + ty*ty;
-        if (d < result.y) {
-            result.x = 1.0f; result.y = d;
+    /**
+     * Returns the squared distance from a point to a segment point.
+     *
+     * @param  segment  the bezier segment
+     * @param  tp       the parameterization value in the segment
+     * @param  x        the x-coordinate of the point
+     * @param  y        the y-coordinate of the point
+     *
+     * @return the squared distance from a point to a segment point.
+     */
+    private float getDistance(int segment, float tp, float x, float y) {
+        int index = 6*segment;
+        float sp = 1-tp;
+        float a = sp*sp;
+        float d = tp*tp;
+        float b = 3 * tp*a;
+        float c = 3 * sp*d;
+        a = a*sp;
+        d = d*tp;
+
+        float dx = a*points[index  ] + b*points[index+2] + c*points[index+4] + d*points[index+6] - x;
+        float dy = a*points[index+1] + b*points[index+3] + c*points[index+5] + d*points[index+7] - y;
+        return dx*dx + dy*dy;
+    }
+
+    /**
+     * Returns the squared distance from a point to the bounds of a hierarchy node.
+     *
+     * This value is 0 if the point is inside of the bounds.  It is a lower
+     * bound for the distance to any segment in the node.
+     *
+     * @param  node     the hierarchy node
+     * @param  x        the x-coordinate of the point
+     * @param  y        the y-coordinate of the point
+     *
+     * @return the squared distance from a point to the bounds of a hierarchy node.
+     */
+    private float getNodeDistance(int node, float x, float y) {
+        float dx = Math.max(0.0f, Math.max(nodeBounds[4*node  ]-x, x-nodeBounds[4*node+2]));
+        float dy = Math.max(0.0f, Math.max(nodeBounds[4*node+1]-y, y-nodeBounds[4*node+3]));
+        return dx*dx + dy*dy;
+    }
+
+    /**
+     * Rebuilds the bounding volume hierarchy for the segments of this spline.
+     *
+     * Each node is split at the median segment along its longest axis, so the
+     * resulting tree is balanced.
+     */
+    private void buildHierarchy() {
+        int capacity = Math.max(1, 2*size);
+        if (nodeFirst == null || nodeFirst.length < capacity) {
+            nodeBounds = new float[4*capacity];
+            nodeFirst  = new int[capacity];
+            nodeCount  = new int[capacity];
+        }
+        if (nodeOrder == null || nodeOrder.length < size) {
+            nodeOrder = new int[size];
+            nodeCenters = new float[2*size];
+        }
+
+        for(int i=0; i<size; i++) {
+            float minx = points[6*i];
+            float miny = points[6*i+1];
+            float maxx = minx;
+            float maxy = miny;
+            for(int j=2; j<8; j+=2) {
+                minx = Math.min(minx, points[6*i+j]);
+                miny = Math.min(miny, points[6*i+j+1]);
+                maxx = Math.max(maxx, points[6*i+j]);
+                maxy = Math.max(maxy, points[6*i+j+1]);
+            }
+            nodeOrder[i] = i;
+            nodeCenters[2*i  ] = (minx+maxx)/2;
+            nodeCenters[2*i+1] = (miny+maxy)/2;
+        }
+
+        nodes = 1;
+        nodeDepth = buildNode(0, 0, size);
+        if (nodeStack == null || nodeStack.length < nodeDepth+1) {
+            nodeStack = new int[nodeDepth+1];
+        }
+        hierarchyDirty = false;
+    }
+
+    /**
+     * Builds the given hierarchy node (and its children) for a range of segments.
+     *
+     * @param  node     the hierarchy node
+     * @param  start    the first position in nodeOrder
+     * @param  count    the number of segments in the node
+     *
+     * @return the depth of the subtree at this node
+     */
+    private int buildNode(int node, int start, int count) {
+        float minx = Float.POSITIVE_INFINITY;
+        float miny = Float.POSITIVE_INFINITY;
+        float maxx = Float.NEGATIVE_INFINITY;
+        float maxy = Float.NEGATIVE_INFINITY;
+        for(int i=start; i<start+count; i++) {
+            int index = 6*nodeOrder[i];
+            for(int j=0; j<8; j+=2) {
+                minx = Math.min(minx, points[index+j]);
+                miny = Math.min(miny, points[index+j+1]);
+                maxx = Math.max(maxx, points[index+j]);
+                maxy = Math.max(maxy, points[index+j+1]);
+            }
+        }
+        nodeBounds[4*node  ] = minx;
+        nodeBounds[4*node+1] = miny;
+        nodeBounds[4*node+2] = maxx;
+        nodeBounds[4*node+3] = maxy;
+
+        if (count <= LEAF_SIZE) {
+            nodeFirst[node] = start;
+            nodeCount[node] = count;
+            return 1;
+        }
+
+        int axis = (maxx-minx >= maxy-miny) ? 0 : 1;
+        int half = count/2;
+        selectMedian(start, start+count-1, start+half, axis);
+
+        int child = nodes;
+        nodes += 2;
+        nodeFirst[node] = child;
+        nodeCount[node] = 0;
+        int left  = buildNode(child, start, half);
+        int right = buildNode(child+1, start+half, count-half);
+        return 1+Math.max(left, right);
+    }
+
+    /**
+     * Partially sorts nodeOrder so that position k has the correct segment.
+     *
+     * This is a quickselect on the segment centers along the given axis. When
+     * done, all segments before k are no greater than it (along the axis), and
+     * all segments after are no less.
+     *
+     * @param  lo       the first position of the range
+     * @param  hi       the last position of the range (inclusive)
+     * @param  k        the position to select
+     * @param  axis     the axis to compare (0 for x, 1 for y)
+     */
+    private void selectMedian(int lo, int hi, int k, int axis) {
+        while (hi > lo) {
+            float pivot = nodeCenters[2*nodeOrder[(lo+hi) >>> 1]+axis];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (nodeCenters[2*nodeOrder[i]+axis] < pivot) {
+                    i++;
+                }
+                while (nodeCenters[2*nodeOrder[j]+axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int temp = nodeOrder[i];
+                    nodeOrder[i] = nodeOrder[j];
+                    nodeOrder[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
         }
-        return result;
     }
 
     /**
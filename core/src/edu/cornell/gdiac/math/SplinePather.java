@@ -11,9 +11,11 @@
  */
 package edu.cornell.gdiac.math;
 
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
 /**
  * A factory class for producing Poly2 objects from a Spline2.
@@ -34,17 +36,29 @@ public class SplinePather {
     /** The spline data */
     private Spline2 spline;
     /** The control data created by the approximation */
-    private ArrayList<Float> pointBuff;
+    private final FloatArray pointBuff;
     /** The parameter data created by the approximation */
-    private ArrayList<Float> paramBuff;
-    /** The anchor indicators */
-    private HashMap<Integer,Integer> anchorPts;
+    private final FloatArray paramBuff;
+    /** The position (in pointBuff) of each anchor of the spline */
+    private final IntArray anchorPts;
     /** Whether the approximation curve is closed */
     private boolean closed;
     /** Whether the calculation has been run */
     private boolean calculated;
     /** The flatness tolerance for generating paths */
     private float tolerance;
+    /** The maximum recursion depth for de Castlejau's */
+    private int maxDepth;
+
+    // Each segment of the spline is flattened separately, and the results are
+    // cached until the version of that segment changes in the spline.  Hence a
+    // recalculation only subdivides the segments that were edited.
+    /** The cached control data for each segment */
+    private final ArrayList<FloatArray> segmentPoints;
+    /** The cached parameter data for each segment */
+    private final ArrayList<FloatArray> segmentParams;
+    /** The spline version of each cached segment (-1 if not cached) */
+    private final IntArray segmentVersions;
 
     private float[] vertBuff;
     private short[] indBuff;
@@ -54,14 +68,14 @@ public class SplinePather {
 
     /** The default tolerance for the polygon approximation functions */
     private final float DEFAULT_FLATNESS = 0.5f;
+    /** The default maximum recursion depth for de Castlejau's */
+    private final int DEFAULT_DEPTH = 8;
 
     /**
      * Creates a spline approximator with no spline data.
      */
     public SplinePather(){
-        spline = null;
-        calculated = false;
-        tolerance = DEFAULT_FLATNESS;
+        this(null);
     }
 
     /**
@@ -73,6 +87,13 @@ public class SplinePather {
         this.spline = spline;
         calculated = false;
         tolerance = DEFAULT_FLATNESS;
+        maxDepth = DEFAULT_DEPTH;
+        pointBuff = new FloatArray();
+        paramBuff = new FloatArray();
+        anchorPts = new IntArray();
+        segmentPoints = new ArrayList<>();
+        segmentParams = new ArrayList<>();
+        segmentVersions = new IntArray();
     }
 
     /**
@@ -96,9 +117,12 @@ public class SplinePather {
      */
     public void reset(){
         calculated = false;
-        pointBuff = new ArrayList<>();
-        paramBuff = new ArrayList<>();
-        anchorPts = new HashMap<>();
+        pointBuff.clear();
+        paramBuff.clear();
+        anchorPts.clear();
+        for (int i=0; i<segmentVersions.size; i++){
+            segmentVersions.items[i] = -1;
+        }
     }
 
     /**
@@ -112,35 +136,115 @@ public class SplinePather {
         spline = null;
     }
 
+    /**
+     * Sets the flatness tolerance of the approximation.
+     *
+     * A segment is no longer subdivided once its tangents are within this
+     * tolerance of the line between its anchors.  Smaller values produce
+     * more points. The default value is 0.5f.
+     *
+     * This method resets all interal data.  You will need to reperform the
+     * calculation before accessing data.
+     *
+     * @param tolerance The flatness tolerance of the approximation
+     */
+    public void setTolerance(float tolerance){
+        reset();
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Returns the flatness tolerance of the approximation.
+     *
+     * A segment is no longer subdivided once its tangents are within this
+     * tolerance of the line between its anchors.  Smaller values produce
+     * more points. The default value is 0.5f.
+     *
+     * @return the flatness tolerance of the approximation
+     */
+    public float getTolerance(){
+        return tolerance;
+    }
+
+    /**
+     * Sets the maximum recursion depth of the approximation.
+     *
+     * Each segment is split into at most 2^depth pieces, regardless of the
+     * tolerance. The default value is 8.
+     *
+     * This method resets all interal data.  You will need to reperform the
+     * calculation before accessing data.
+     *
+     * @param depth The maximum recursion depth of the approximation
+     */
+    public void setMaxDepth(int depth){
+        reset();
+        maxDepth = depth;
+    }
+
+    /**
+     * Returns the maximum recursion depth of the approximation.
+     *
+     * Each segment is split into at most 2^depth pieces, regardless of the
+     * tolerance. The default value is 8.
+     *
+     * @return the maximum recursion depth of the approximation
+     */
+    public int getMaxDepth(){
+        return maxDepth;
+    }
+
     /**
      * Performs an approximation of the current spline
      *
      * A polygon approximation is creating by recursively calling de Castlejau's
      * until we reach a stopping condition.
      *
+     * Each segment is approximated separately, and the result is cached. On
+     * later calls, only the segments whose version has changed in the spline
+     * (see {@link Spline2#getVersion}) are approximated again. Hence editing or
+     * animating a few anchors of a long spline is cheap.
+     *
      * Hence this method is not thread-safe.  If you are using this method in
      * a task thread, you should copy the spline first before starting the
      * calculation.
      */
     public void calculate(){
-        reset();
+        calculated = false;
+        pointBuff.clear();
+        paramBuff.clear();
+        anchorPts.clear();
         if(spline == null) return;
 
         int size = spline.size();
         if(!(size>0)) return;
 
         float[] points = spline.getControlPoints();
+        while (segmentPoints.size() < size) {
+            segmentPoints.add(new FloatArray());
+            segmentParams.add(new FloatArray());
+            segmentVersions.add(-1);
+        }
 
         for(int i=0; i<size; i++){
-            anchorPts.put(pointBuff.size()/2,i);
-            generate((float)i, points[3*2*i], points[3*2*i+1], points[3*2*i+2], points[3*2*i+3],
-                    points[3*2*i+4], points[3*2*i+5], points[3*2*i+6], points[3*2*i+7], 0);
+            FloatArray segPoints = segmentPoints.get(i);
+            FloatArray segParams = segmentParams.get(i);
+            int version = spline.getVersion(i);
+            if (segmentVersions.items[i] != version) {
+                segPoints.clear();
+                segParams.clear();
+                generate(segPoints, segParams, (float)i, points[3*2*i], points[3*2*i+1], points[3*2*i+2],
+                        points[3*2*i+3], points[3*2*i+4], points[3*2*i+5], points[3*2*i+6], points[3*2*i+7], 0);
+                segmentVersions.items[i] = version;
+            }
 
+            anchorPts.add(pointBuff.size/2);
+            pointBuff.addAll(segPoints);
+            paramBuff.addAll(segParams);
         }
         // Push back last point and parameter
-        anchorPts.put(pointBuff.size()/2,size);
-        pointBuff.add(points[3*2*size]);
-        pointBuff.add(points[3*2*size+1]);
+        anchorPts.add(pointBuff.size/2);
+        pointBuff.add(points[3*2*size], points[3*2*size+1]);
         paramBuff.add((float) size);
         closed = spline.isClosed();
         calculated = true;
@@ -150,8 +254,10 @@ public class SplinePather {
      * Generates data via recursive use of de Castlejau's
      *
      * This method subdivides the spline at the given segment. The results
-     * are put in the output buffers.
+     * are put in the given buffers.
      *
+     * @param  pts      the buffer for the control data
+     * @param  params   the buffer for the parameter data
      * @param  t        the parameter for the (start of) this segment
      * @param  p0x       the x coordinate of left anchor of this segment
      * @param  p0y       the y coordinate of left anchor of this segment
@@ -165,11 +271,11 @@ public class SplinePather {
      *
      * @return The number of (anchor) points generated by this recursive call.
      */
-    private int generate(float t, float p0x, float p0y, float p1x, float p1y,float p2x,
-                         float p2y, float p3x, float p3y, int depth){
+    private int generate(FloatArray pts, FloatArray params, float t, float p0x, float p0y, float p1x,
+                         float p1y,float p2x, float p2y, float p3x, float p3y, int depth){
         // Do not go to far
         boolean terminate = false;
-        if(depth>=8){
+        if(depth>=maxDepth){
             terminate = true;
         } else if(p0x == p1x && p0y == p1y && p2x == p3x && p2y == p3y){
             terminate = true;
@@ -188,13 +294,10 @@ public class SplinePather {
         // Add the first point if terminating.
         int result=0;
         if (terminate) {
-            paramBuff.add(t);
-            pointBuff.add(p0x);
-            pointBuff.add(p0y);
-            pointBuff.add(p1x);
-            pointBuff.add(p1y);
-            pointBuff.add(p2x);
-            pointBuff.add(p2y);
+            params.add(t);
+            pts.add(p0x, p0y);
+            pts.add(p1x, p1y);
+            pts.add(p2x, p2y);
             return 1;
         }
 
@@ -214,8 +317,8 @@ public class SplinePather {
 
         // Recursive calls
         float s = t + 1.0f / (1 << (depth + 1));
-        result =  generate(t, p0x, p0y, l1x, l1y, l2x, l2y, cx, cy, depth + 1);
-        result += generate(s, cx, cy, r1x, r1y, r2x, r2y, p3x, p3y, depth + 1);
+        result =  generate(pts, params, t, p0x, p0y, l1x, l1y, l2x, l2y, cx, cy, depth + 1);
+        result += generate(pts, params, s, cx, cy, r1x, r1y, r2x, r2y, p3x, p3y, depth + 1);
         return result;
     }
 
@@ -247,10 +350,13 @@ public class SplinePather {
             path.vertices[ind] = points[3*2*i];
             path.vertices[ind+1] = points[3*2*i+1];
             ind+=2;
-            for (Entry<Integer, Integer> cur : anchorPts.entrySet()) {
-                if (cur.getKey() % 3 == 0 && !(spline.smooth[cur.getValue()])) {
-                    path.corners.add(cur.getKey() / 3);
-                }
+        }
+        int verts = path.vertices.length/2;
+        int anchors = calculated ? anchorPts.size : (spline.size()+1);
+        for (int i=0; i<anchors; i++){
+            int pos = (calculated ? anchorPts.items[i] : 3*i)/3;
+            if (pos < verts && !spline.smooth[i]) {
+                path.corners.add(pos);
             }
         }
         path.closed = isClosed();
@@ -275,10 +381,7 @@ public class SplinePather {
     public float[] getParameters(){
         float[] result;
         if(calculated){
-            result = new float[paramBuff.size()];
-            for (int i=0; i<paramBuff.size(); i++){
-                result[i] = paramBuff.get(i);
-            }
+            result = paramBuff.toArray();
         }else if (spline!=null){
             result = new float[spline.size()+1];
             for(int i=0; i<=spline.size(); i++){
@@ -564,11 +667,7 @@ public class SplinePather {
      */
     private float[] getActivePoints(){
         if (calculated){
-            float[] res = new float[pointBuff.size()];
-            for(int i=0; i<pointBuff.size(); i++){
-                res[i] = pointBuff.get(i);
-            }
-            return res;
+            return pointBuff.toArray();
         } else if(spline!=null){
             return spline.getControlPoints();
         } else {
@@ -595,7 +694,7 @@ public class SplinePather {
      * @return true if the point at the given position is an anchor
      */
     private boolean isAnchor(int pos){
-        return (!calculated || anchorPts.containsKey(pos));
+        return (!calculated || Arrays.binarySearch(anchorPts.items, 0, anchorPts.size, pos) >= 0);
     }
 
 }
@@ -118,6 +118,10 @@ public class FilmStrip extends TextureRegion {
 		this.rows = rows;
 		this.cols = cols;
 		this.size = size;
+		this.x = x;
+		this.y = y;
+		this.width  = width;
+		this.height = height;
 		fwidth  = width/cols;
 		fheight = height/rows;
 		setFrame(0);
@@ -170,7 +174,7 @@ public class FilmStrip extends TextureRegion {
 	 * @return a copy of this filmstrip
 	 */
 	public FilmStrip copy() {
-		return new FilmStrip( getTexture(), rows, cols, size );
+		return new FilmStrip( getTexture(), rows, cols, size, x, y, width, height );
 	}
 
 }
\ No newline at end of file
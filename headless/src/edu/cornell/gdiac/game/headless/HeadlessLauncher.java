@@ -0,0 +1,100 @@
+/*
+ * HeadlessLauncher.java
+ *
+ * This class runs the game simulation without a window, a graphics card or a sound
+ * device.  It is used to measure the throughput of the physics and gameplay code
+ * for a level, on any machine that has Java.  It drives a PlatformController with
+ * scripted or recorded input for a fixed number of ticks, and never draws.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * The main class of the headless simulation.
+ *
+ * The following command line options are supported:
+ *
+ *     -ticks N      The number of ticks to measure (default 3600)
+ *     -warmup N     The number of ticks to run before measuring (default 600)
+ *     -script FILE  A text file of scripted key presses (see ScriptedInput)
+ *     -replay FILE  A recording made with WorldController.startRecording
+ *     -assets FILE  The asset directory to load (default assets.json)
+ *
+ * Relative files are resolved against the assets folder, which is the working
+ * directory of the Gradle run task.
+ */
+public class HeadlessLauncher {
+
+	/**
+	 * Classic main method that all Java programmers know.
+	 *
+	 * This method parses the options and starts a HeadlessApplication.  The
+	 * application exits as soon as the report is written.
+	 *
+	 * @param arg Command line arguments
+	 */
+	public static void main (String[] arg) {
+		HeadlessRunner runner = new HeadlessRunner();
+		for(int ii = 0; ii < arg.length; ii++) {
+			String option = arg[ii];
+			if (ii+1 >= arg.length) {
+				usage("Missing value for "+option);
+			}
+			String value = arg[++ii];
+			if (option.equals("-ticks")) {
+				runner.setTicks(parseCount(option, value));
+			} else if (option.equals("-warmup")) {
+				runner.setWarmup(parseCount(option, value));
+			} else if (option.equals("-script")) {
+				runner.setScript(value);
+			} else if (option.equals("-replay")) {
+				runner.setReplay(value);
+			} else if (option.equals("-assets")) {
+				runner.setAssets(value);
+			} else {
+				usage("Unknown option "+option);
+			}
+		}
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = -1; // All of the work happens in create
+		new HeadlessApplication(runner, config);
+	}
+
+	/**
+	 * Returns the non-negative integer value of an option
+	 *
+	 * @param option	The option name
+	 * @param value		The option value
+	 *
+	 * @return the non-negative integer value of an option
+	 */
+	private static int parseCount(String option, String value) {
+		try {
+			int result = Integer.parseInt(value);
+			if (result >= 0) {
+				return result;
+			}
+		} catch (NumberFormatException e) {
+			// Fall through to usage
+		}
+		usage("Invalid value for "+option+": "+value);
+		return 0;
+	}
+
+	/**
+	 * Prints the usage message and exits.
+	 *
+	 * @param message	The reason for the usage message
+	 */
+	private static void usage(String message) {
+		System.err.println(message);
+		System.err.println("Usage: HeadlessLauncher [-ticks N] [-warmup N] [-script FILE | -replay FILE] [-assets FILE]");
+		System.exit(1);
+	}
+}
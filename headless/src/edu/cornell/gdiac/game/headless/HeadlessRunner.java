@@ -0,0 +1,317 @@
+/*
+ * HeadlessRunner.java
+ *
+ * This is the application for the headless simulation.  It loads the game assets,
+ * creates a PlatformController, and runs it tick by tick without ever drawing.  It
+ * then reports the throughput, the distribution of tick times, the distribution
+ * of physics step times (world.step alone), and the amount of memory allocated
+ * per tick.
+ *
+ * There is no graphics card in a headless application, but textures and fonts are
+ * still created when the assets are loaded.  So this class installs an OpenGL
+ * implementation that does nothing.  That is enough for loading, as the pixel
+ * data is decoded on the CPU.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game.headless;
+
+import java.lang.management.*;
+import java.lang.reflect.*;
+import java.util.Arrays;
+
+import com.badlogic.gdx.*;
+import com.badlogic.gdx.graphics.*;
+
+import edu.cornell.gdiac.assets.*;
+import edu.cornell.gdiac.util.*;
+import edu.cornell.gdiac.game.*;
+import edu.cornell.gdiac.game.platform.*;
+
+/**
+ * Application that measures the simulation of a PlatformController.
+ *
+ * All of the work happens in {@link #create}, after which the application exits.
+ */
+public class HeadlessRunner extends ApplicationAdapter {
+	/** The default number of ticks to measure */
+	public static final int DEFAULT_TICKS  = 3600;
+	/** The default number of ticks to run before measuring */
+	public static final int DEFAULT_WARMUP = 600;
+	/** The screen width of the desktop game (for the drawing scale) */
+	private static final int SCREEN_WIDTH  = 1024;
+	/** The screen height of the desktop game (for the drawing scale) */
+	private static final int SCREEN_HEIGHT = 576;
+
+	/** The number of ticks to measure */
+	private int ticks;
+	/** The number of ticks to run before measuring */
+	private int warmup;
+	/** The script file (null for the default script) */
+	private String script;
+	/** The recording to replay (null to use a script) */
+	private String replay;
+	/** The asset directory file */
+	private String assets;
+
+	/** The asset directory for the game */
+	private AssetDirectory directory;
+	/** The controller being measured */
+	private PlatformController controller;
+	/** The scripted input (null when replaying) */
+	private ScriptedInput input;
+
+	/**
+	 * Creates a new runner with the default settings.
+	 */
+	public HeadlessRunner() {
+		ticks  = DEFAULT_TICKS;
+		warmup = DEFAULT_WARMUP;
+		assets = "assets.json";
+	}
+
+	/**
+	 * Sets the number of ticks to measure
+	 *
+	 * @param value	the number of ticks to measure
+	 */
+	public void setTicks(int value) {
+		ticks = value;
+	}
+
+	/**
+	 * Sets the number of ticks to run before measuring
+	 *
+	 * @param value	the number of ticks to run before measuring
+	 */
+	public void setWarmup(int value) {
+		warmup = value;
+	}
+
+	/**
+	 * Sets the script file for the input (null for the default script)
+	 *
+	 * @param file	the script file for the input
+	 */
+	public void setScript(String file) {
+		script = file;
+	}
+
+	/**
+	 * Sets the recording to replay (null to use a script)
+	 *
+	 * A replay stops early if the recording has fewer ticks.
+	 *
+	 * @param file	the recording to replay
+	 */
+	public void setReplay(String file) {
+		replay = file;
+	}
+
+	/**
+	 * Sets the asset directory file
+	 *
+	 * @param file	the asset directory file
+	 */
+	public void setAssets(String file) {
+		assets = file;
+	}
+
+	/**
+	 * Loads the game, runs the measurement, and exits.
+	 */
+	public void create() {
+		Gdx.gl = Gdx.gl20 = createMockGL();
+		Controllers.get().setActive(false);
+
+		directory = new AssetDirectory(assets);
+		directory.loadAssets();
+		directory.finishLoading();
+
+		controller = new PlatformController();
+		controller.gatherAssets(directory);
+		controller.setScreenSize(SCREEN_WIDTH, SCREEN_HEIGHT);
+		controller.setScreenListener(new ScreenListener() {
+			public void exitScreen(Screen screen, int exitCode) {
+				// Ignore requests to change screens
+			}
+		});
+
+		if (replay != null) {
+			controller.beginReplay(Gdx.files.internal(replay));
+		} else {
+			String text = (script == null ? ScriptedInput.DEFAULT_SCRIPT : Gdx.files.internal(script).readString());
+			input = new ScriptedInput(text);
+			Gdx.input = input;
+			controller.reset();
+		}
+
+		for(int ii = 0; ii < warmup; ii++) {
+			if (!tick()) {
+				break;
+			}
+		}
+
+		// The profiler times world.step inside of each tick
+		FrameProfiler profiler = controller.getProfiler();
+		profiler.setEnabled(true);
+		profiler.skipFrame();
+
+		long[] times = new long[ticks];
+		long[] steps = new long[ticks];
+		int count = 0;
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		while (count < ticks) {
+			long begin = System.nanoTime();
+			if (!tick()) {
+				break;
+			}
+			times[count] = System.nanoTime()-begin;
+			steps[count++] = profiler.getTotal(FrameProfiler.STEP);
+			profiler.skipFrame();
+		}
+		long elapsed = System.nanoTime()-start;
+		if (allocated >= 0) {
+			allocated = allocatedBytes()-allocated;
+		}
+		profiler.setEnabled(false);
+
+		if (replay != null) {
+			controller.endReplay();
+		}
+		report(times, steps, count, elapsed, allocated);
+		Gdx.app.exit();
+	}
+
+	/**
+	 * Disposes of the controller and the assets.
+	 */
+	public void dispose() {
+		if (controller != null) {
+			controller.dispose();
+			controller = null;
+		}
+		if (directory != null) {
+			directory.unloadAssets();
+			directory.dispose();
+			directory = null;
+		}
+	}
+
+	/**
+	 * Runs a single simulation tick.
+	 *
+	 * This is the same sequence as a fixed step of WorldController, but without
+	 * drawing anything.
+	 *
+	 * @return false if there are no more ticks to run
+	 */
+	private boolean tick() {
+		if (replay != null) {
+			return controller.stepReplay();
+		}
+
+		float dt = WorldController.WORLD_STEP;
+		input.advance();
+		if (controller.preUpdate(dt)) {
+			controller.update(dt);
+			controller.postUpdate(dt);
+		}
+		return true;
+	}
+
+	/**
+	 * Logs the results of the measurement.
+	 *
+	 * The tick time is the whole tick (input, game logic and physics), while the
+	 * step time is the Box2d world step alone.
+	 *
+	 * @param times		The time of each tick in nanoseconds
+	 * @param steps		The time of the world step in each tick in nanoseconds
+	 * @param count		The number of ticks measured
+	 * @param elapsed	The total time in nanoseconds
+	 * @param allocated	The bytes allocated during the measurement (-1 if unknown)
+	 */
+	private void report(long[] times, long[] steps, int count, long elapsed, long allocated) {
+		if (count == 0) {
+			Gdx.app.log("HeadlessRunner", "No ticks measured");
+			return;
+		}
+
+		Arrays.sort(times, 0, count);
+		Arrays.sort(steps, 0, count);
+		Gdx.app.log("HeadlessRunner", String.format("%d ticks in %.3f s (%.1f ticks/s)",
+					count, elapsed/1.0e9, count/(elapsed/1.0e9)));
+		Gdx.app.log("HeadlessRunner", String.format("tick time (us): p50 %.1f  p90 %.1f  p99 %.1f  max %.1f",
+					percentile(times, count, 0.50), percentile(times, count, 0.90),
+					percentile(times, count, 0.99), times[count-1]/1.0e3));
+		Gdx.app.log("HeadlessRunner", String.format("step time (us): p50 %.1f  p90 %.1f  p99 %.1f  max %.1f",
+					percentile(steps, count, 0.50), percentile(steps, count, 0.90),
+					percentile(steps, count, 0.99), steps[count-1]/1.0e3));
+		if (allocated >= 0) {
+			Gdx.app.log("HeadlessRunner", String.format("allocated: %.1f bytes/tick (%d bytes total)",
+						allocated/(double)count, allocated));
+		} else {
+			Gdx.app.log("HeadlessRunner", "allocated: not supported by this JVM");
+		}
+	}
+
+	/**
+	 * Returns the given percentile of the sorted times in microseconds
+	 *
+	 * @param times		The sorted times in nanoseconds
+	 * @param count		The number of times
+	 * @param fraction	The percentile as a fraction in [0,1]
+	 *
+	 * @return the given percentile of the sorted times in microseconds
+	 */
+	private static double percentile(long[] times, int count, double fraction) {
+		int index = (int)Math.ceil(fraction*count)-1;
+		index = Math.max(0, Math.min(count-1, index));
+		return times[index]/1.0e3;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by this thread so far (-1 if unknown)
+	 *
+	 * This requires a HotSpot based JVM.
+	 *
+	 * @return the number of bytes allocated by this thread so far (-1 if unknown)
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns an OpenGL implementation that does nothing
+	 *
+	 * Every method returns 0, false or null.  Textures created with this object
+	 * have no data on the graphics card, which is fine as nothing is drawn.
+	 *
+	 * @return an OpenGL implementation that does nothing
+	 */
+	private static GL20 createMockGL() {
+		InvocationHandler handler = new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				Class<?> type = method.getReturnType();
+				if (type == boolean.class) {
+					return false;
+				} else if (type == int.class) {
+					return 0;
+				} else if (type == float.class) {
+					return 0.0f;
+				} else if (type == String.class) {
+					return "";
+				}
+				return null;
+			}
+		};
+		return (GL20)Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] { GL20.class }, handler);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * ScriptedInput.java
+ *
+ * InputController polls the keyboard through Gdx.input every frame.  To drive the
+ * game without a player, this class replaces Gdx.input with a script of key
+ * presses.  As it sits underneath InputController, the scripted input goes through
+ * exactly the same code as real input.
+ *
+ * A script is a text file with one step per line.  Each step is a number of ticks
+ * followed by the names of the keys held down for those ticks (as in Input.Keys,
+ * such as RIGHT, UP or SPACE).  A step with no keys releases everything.  Text
+ * after a # is a comment.  The script repeats when it reaches the end.
+ *
+ * Author: agent
+ * Created 10/17/2026
+ */
+package edu.cornell.gdiac.game.headless;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+import com.badlogic.gdx.utils.*;
+
+/**
+ * Keyboard input that plays back a script of key presses.
+ *
+ * Call {@link #advance} once per tick, before the input is read.
+ */
+public class ScriptedInput extends MockInput {
+	/** The default script: run through the level, jumping and shooting */
+	public static final String DEFAULT_SCRIPT =
+			"90 RIGHT\n" +
+			"1  RIGHT UP\n" +
+			"45 RIGHT\n" +
+			"1  SPACE\n" +
+			"30 RIGHT\n" +
+			"1  RIGHT UP\n" +
+			"60 LEFT\n" +
+			"1  LEFT UP\n" +
+			"60 LEFT\n" +
+			"1  SPACE\n" +
+			"1  R\n" +
+			"20\n";
+
+	/** The number of ticks for each step */
+	private IntArray durations;
+	/** The keys held down for each step */
+	private Array<IntSet> steps;
+	/** The current step */
+	private int step;
+	/** The number of ticks left in the current step */
+	private int remaining;
+
+	/**
+	 * Creates a new scripted input from the given script text.
+	 *
+	 * @param script	The script text
+	 */
+	public ScriptedInput(String script) {
+		durations = new IntArray();
+		steps = new Array<IntSet>();
+		String[] lines = script.split("\n");
+		for(int ii = 0; ii < lines.length; ii++) {
+			String line = lines[ii];
+			int comment = line.indexOf('#');
+			if (comment != -1) {
+				line = line.substring(0,comment);
+			}
+			line = line.trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+
+			String[] tokens = line.split("\\s+");
+			int ticks;
+			try {
+				ticks = Integer.parseInt(tokens[0]);
+			} catch (NumberFormatException e) {
+				throw new GdxRuntimeException("Line "+(ii+1)+": invalid tick count "+tokens[0]);
+			}
+			IntSet keys = new IntSet();
+			for(int jj = 1; jj < tokens.length; jj++) {
+				int key = keyOf(tokens[jj]);
+				if (key == -1) {
+					throw new GdxRuntimeException("Line "+(ii+1)+": unknown key "+tokens[jj]);
+				}
+				keys.add(key);
+			}
+			if (ticks > 0) {
+				durations.add(ticks);
+				steps.add(keys);
+			}
+		}
+		if (steps.size == 0) {
+			throw new GdxRuntimeException("Script has no steps");
+		}
+		step = steps.size-1;
+		remaining = 0;
+	}
+
+	/**
+	 * Returns the key code for the given key name (-1 if unknown)
+	 *
+	 * The name is not case sensitive, so both RIGHT and Right are accepted.
+	 *
+	 * @param name	The key name
+	 *
+	 * @return the key code for the given key name (-1 if unknown)
+	 */
+	private static int keyOf(String name) {
+		for(int key = 0; key <= Input.Keys.MAX_KEYCODE; key++) {
+			String value = Input.Keys.toString(key);
+			if (value != null && value.equalsIgnoreCase(name)) {
+				return key;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Advances the script by one tick.
+	 */
+	public void advance() {
+		if (remaining == 0) {
+			step = (step+1) % steps.size;
+			remaining = durations.get(step);
+		}
+		remaining--;
+	}
+
+	@Override
+	public boolean isKeyPressed(int key) {
+		IntSet keys = steps.get(step);
+		return (key == Input.Keys.ANY_KEY ? keys.size > 0 : keys.contains(key));
+	}
+}